@@ -472,6 +472,11 @@ public class LWJGLDrawContext implements GLDrawContext {
 			buffer.put(b);
 		}
 
+		@Override
+		public void put(ByteBuffer data) {
+			buffer.put(data);
+		}
+
 		@Override
 		public void position(int position) {
 			buffer.position(position);
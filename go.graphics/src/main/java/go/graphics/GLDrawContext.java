@@ -134,6 +134,14 @@ public interface GLDrawContext {
 
 		void putByte(byte b);
 
+		/**
+		 * Puts the remaining bytes of the data to the buffer.
+		 *
+		 * @param data
+		 *            The data to copy. Its position is moved to its limit.
+		 */
+		void put(ByteBuffer data);
+
 		void position(int position);
 	}
 
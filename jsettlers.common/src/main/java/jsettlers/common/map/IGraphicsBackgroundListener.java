@@ -15,7 +15,8 @@
 package jsettlers.common.map;
 
 /**
- * This interface can be used by the user of the IGraphicsGrid to get notified if the background (landscape type or height) has changed.
+ * This interface can be used by the user of the IGraphicsGrid to get notified if the background (landscape type or height), the owner of a position
+ * or the fog of war has changed.
  * 
  * @author Andreas Eberle
  * 
@@ -30,4 +31,28 @@ public interface IGraphicsBackgroundListener {
 	 *            y coordinate
 	 */
 	void backgroundChangedAt(int x, int y);
+
+	/**
+	 * This method is called if the player owning the given position or the border at the given position has changed.
+	 * 
+	 * @param x
+	 *            x coordinate
+	 * @param y
+	 *            y coordinate
+	 */
+	void playerChangedAt(int x, int y);
+
+	/**
+	 * This method is called if the visible status of the fog of war may have changed in the given area.
+	 * 
+	 * @param minX
+	 *            smallest x coordinate of the area
+	 * @param minY
+	 *            smallest y coordinate of the area
+	 * @param maxX
+	 *            x coordinate behind the area
+	 * @param maxY
+	 *            y coordinate behind the area
+	 */
+	void fogOfWarChangedIn(int minX, int minY, int maxX, int maxY);
 }
@@ -183,6 +183,40 @@ public final class HexGridArea implements IMapArea {
 
 	}
 
+	/**
+	 * Calculates the index of a position in its ring around the center. The positions of a ring are visited in the order of these indexes by
+	 * {@link #stream(int, int, int, int)}.
+	 *
+	 * @param dx
+	 *            x offset of the position to the center
+	 * @param dy
+	 *            y offset of the position to the center
+	 * @param radius
+	 *            radius of the ring containing the position, see {@link ShortPoint2D#getOnGridDist(int, int)}
+	 * @return the index of the position in the ring: 0 &lt;= index &lt; max(1, 6 * radius)
+	 */
+	public static int getIndexInRing(int dx, int dy, int radius) {
+		if (radius == 0) {
+			return 0;
+		}
+
+		if (dx > 0) {
+			if (dy <= 0) {
+				return dx - 1; // SOUTH_EAST side
+			} else if (dx == radius) {
+				return radius + dy - 1; // SOUTH_WEST side
+			} else {
+				return 3 * radius - dx - 1; // WEST side
+			}
+		} else if (dy >= 0) {
+			return 3 * radius - dx - 1; // end of the WEST side and NORTH_WEST side
+		} else if (dx == -radius) {
+			return 4 * radius - dy - 1; // NORTH_EAST side
+		} else {
+			return 6 * radius + dx - 1; // EAST side
+		}
+	}
+
 	public CoordinateStream streamBorder() {
 		return streamBorder(cX, cY, maxRadius);
 	}
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.common.utils.collections;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bit set of a fixed size that can be changed and read by multiple threads without locking. In contrast to {@link BitSet}, no bits are lost if
+ * different threads change neighboring bits at the same time and reading threads never fail while the set is changed.
+ */
+public final class AtomicBitSet {
+	private static final int ADDRESS_BITS_PER_WORD = 6;
+	private static final long WORD_MASK = 0xffffffffffffffffL;
+
+	private final int size;
+	private final AtomicLongArray words;
+
+	/**
+	 * Creates a new bit set with all bits cleared.
+	 *
+	 * @param size
+	 *            The number of bits of the set.
+	 */
+	public AtomicBitSet(int size) {
+		this.size = size;
+		this.words = new AtomicLongArray((size >> ADDRESS_BITS_PER_WORD) + 1);
+	}
+
+	public boolean get(int index) {
+		return (words.get(index >> ADDRESS_BITS_PER_WORD) & (1L << index)) != 0;
+	}
+
+	public void set(int index, boolean value) {
+		if (value) {
+			set(index);
+		} else {
+			clear(index);
+		}
+	}
+
+	public void set(int index) {
+		int wordIndex = index >> ADDRESS_BITS_PER_WORD;
+		long mask = 1L << index;
+		long word;
+		do {
+			word = words.get(wordIndex);
+			if ((word & mask) != 0) {
+				return;
+			}
+		} while (!words.compareAndSet(wordIndex, word, word | mask));
+	}
+
+	public void clear(int index) {
+		int wordIndex = index >> ADDRESS_BITS_PER_WORD;
+		long mask = 1L << index;
+		long word;
+		do {
+			word = words.get(wordIndex);
+			if ((word & mask) == 0) {
+				return;
+			}
+		} while (!words.compareAndSet(wordIndex, word, word & ~mask));
+	}
+
+	/**
+	 * Searches the first set bit in the range [fromIndex, toIndex).
+	 *
+	 * @param fromIndex
+	 *            The first index to be checked.
+	 * @param toIndex
+	 *            The index after the last index to be checked. Values bigger than the size of the set are allowed.
+	 * @return The index of the first set bit in the range<br>
+	 *         or -1 if no bit is set in the range.
+	 */
+	public int nextSetBit(int fromIndex, int toIndex) {
+		toIndex = Math.min(toIndex, size);
+		if (fromIndex >= toIndex) {
+			return -1;
+		}
+
+		int wordIndex = fromIndex >> ADDRESS_BITS_PER_WORD;
+		int lastWordIndex = (toIndex - 1) >> ADDRESS_BITS_PER_WORD;
+		long word = words.get(wordIndex) & (WORD_MASK << fromIndex);
+		while (word == 0) {
+			if (++wordIndex > lastWordIndex) {
+				return -1;
+			}
+			word = words.get(wordIndex);
+		}
+
+		int index = (wordIndex << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+		return index < toIndex ? index : -1;
+	}
+
+	public int size() {
+		return size;
+	}
+}
@@ -185,6 +185,23 @@ public class HexGridAreaTest {
 		assertPositionsIterate(center, startRadius, maxRadius, expectedCount);
 	}
 
+	@Test
+	public void testIndexInRingFollowsStreamOrder() {
+		int centerX = 50;
+		int centerY = 50;
+
+		for (int radius = 0; radius <= 10; radius++) {
+			MutableInt expectedIndex = new MutableInt(0);
+			final int ringRadius = radius;
+
+			HexGridArea.stream(centerX, centerY, radius, radius).forEach((x, y) -> {
+				assertEquals(ringRadius, ShortPoint2D.getOnGridDist(x - centerX, y - centerY));
+				assertEquals(expectedIndex.value, HexGridArea.getIndexInRing(x - centerX, y - centerY, ringRadius));
+				expectedIndex.value++;
+			});
+		}
+	}
+
 	private void assertPositionsIterate(ShortPoint2D center, int startRadius, int maxRadius, int expectedCount) {
 		int width = center.x + maxRadius + 1;
 		int height = center.y + maxRadius + 1;
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.common.utils.collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class AtomicBitSetTest {
+
+	@Test
+	public void testSetAndClear() {
+		AtomicBitSet bitSet = new AtomicBitSet(130);
+
+		bitSet.set(0);
+		bitSet.set(63);
+		bitSet.set(64, true);
+		bitSet.set(129);
+		assertTrue(bitSet.get(0));
+		assertTrue(bitSet.get(63));
+		assertTrue(bitSet.get(64));
+		assertTrue(bitSet.get(129));
+		assertFalse(bitSet.get(1));
+		assertFalse(bitSet.get(128));
+
+		bitSet.clear(63);
+		bitSet.set(64, false);
+		assertFalse(bitSet.get(63));
+		assertFalse(bitSet.get(64));
+		assertTrue(bitSet.get(0));
+	}
+
+	@Test
+	public void testNextSetBitInRange() {
+		AtomicBitSet bitSet = new AtomicBitSet(200);
+		bitSet.set(5);
+		bitSet.set(70);
+		bitSet.set(199);
+
+		assertEquals(5, bitSet.nextSetBit(0, 200));
+		assertEquals(5, bitSet.nextSetBit(5, 6));
+		assertEquals(-1, bitSet.nextSetBit(0, 5));
+		assertEquals(70, bitSet.nextSetBit(6, 200));
+		assertEquals(-1, bitSet.nextSetBit(6, 70));
+		assertEquals(199, bitSet.nextSetBit(71, 1000));
+		assertEquals(-1, bitSet.nextSetBit(71, 199));
+		assertEquals(-1, bitSet.nextSetBit(200, 300));
+	}
+
+	@Test
+	public void testNextSetBitEqualsBitSet() {
+		Random random = new Random(42);
+		AtomicBitSet atomicBitSet = new AtomicBitSet(1000);
+		BitSet bitSet = new BitSet(1000);
+		for (int i = 0; i < 50; i++) {
+			int index = random.nextInt(1000);
+			atomicBitSet.set(index);
+			bitSet.set(index);
+		}
+
+		for (int i = 0; i < 1000; i++) {
+			int from = random.nextInt(1000);
+			int to = from + random.nextInt(200);
+			int expected = bitSet.nextSetBit(from);
+			assertEquals(expected >= 0 && expected < to ? expected : -1, atomicBitSet.nextSetBit(from, to));
+		}
+	}
+
+	@Test
+	public void testConcurrentChangesOfNeighboringBits() throws InterruptedException {
+		final AtomicBitSet bitSet = new AtomicBitSet(64);
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final int bit = t;
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 100000; i++) {
+					bitSet.set(bit, i % 2 == 0);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		for (int t = 0; t < threads.length; t++) {
+			assertFalse(bitSet.get(t));
+		}
+
+		for (int t = 0; t < threads.length; t++) {
+			bitSet.set(t);
+		}
+		assertEquals(0, bitSet.nextSetBit(0, 64));
+		assertEquals(3, bitSet.nextSetBit(3, 64));
+		assertEquals(-1, bitSet.nextSetBit(4, 64));
+	}
+}
@@ -17,6 +17,11 @@ package jsettlers.graphics.image;
 import go.graphics.GLDrawContext;
 import go.graphics.TextureHandle;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -24,7 +29,10 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.ShortBuffer;
+import java.util.Arrays;
 
+import java8.util.concurrent.ForkJoinPool;
+import java8.util.concurrent.RecursiveAction;
 import jsettlers.common.resources.ResourceManager;
 import jsettlers.graphics.map.draw.GLPreloadTask;
 import jsettlers.graphics.map.draw.ImageProvider;
@@ -32,6 +40,8 @@ import jsettlers.graphics.image.reader.AdvancedDatFileReader;
 import jsettlers.graphics.image.reader.DatBitmapReader;
 import jsettlers.graphics.image.reader.ImageArrayProvider;
 import jsettlers.graphics.image.reader.ImageMetadata;
+import jsettlers.graphics.image.reader.translator.DatBitmapTranslator;
+import jsettlers.graphics.image.reader.ShortArrayWriter;
 import jsettlers.graphics.image.reader.bytereader.ByteReader;
 import jsettlers.graphics.image.sequence.ArraySequence;
 import jsettlers.graphics.image.sequence.Sequence;
@@ -43,6 +53,10 @@ import jsettlers.graphics.image.sequence.Sequence;
  * @author Michael Zangl
  */
 public class MultiImageMap implements ImageArrayProvider, GLPreloadTask {
+	/**
+	 * The version of the cache files. It needs to be increased whenever the decoding or packing of the images changes.
+	 */
+	private static final int CACHE_VERSION = 1;
 
 	private final int width;
 	private final int height;
@@ -57,6 +71,9 @@ public class MultiImageMap implements ImageArrayProvider, GLPreloadTask {
 	private ByteBuffer byteBuffer;
 
 	private final File cacheFile;
+	private final File indexFile;
+	private int sequenceIndexesHash;
+	private byte[] imageIndex;
 
 	/**
 	 * Creates a new {@link MultiImageMap}.
@@ -74,6 +91,7 @@ public class MultiImageMap implements ImageArrayProvider, GLPreloadTask {
 		this.height = height;
 		File root = new File(ResourceManager.getResourcesDirectory(), "cache");
 		cacheFile = new File(root, "cache-" + id);
+		indexFile = new File(root, "cache-" + id + ".index");
 	}
 
 	private void allocateBuffers() {
@@ -84,6 +102,8 @@ public class MultiImageMap implements ImageArrayProvider, GLPreloadTask {
 
 	/**
 	 * Adds a list of textures to this file. The images can be referenced by the image handles added to addTo.
+	 * <p />
+	 * The images are decoded in parallel and then packed to the texture in the order of the sequences, so the texture always looks the same.
 	 * 
 	 * @param dfr
 	 *            The reader to read the textures from.
@@ -97,101 +117,177 @@ public class MultiImageMap implements ImageArrayProvider, GLPreloadTask {
 	public synchronized void addSequences(AdvancedDatFileReader dfr, int[] sequenceIndexes,
 			Sequence<Image>[] addTo) throws IOException {
 		allocateBuffers();
+		sequenceIndexesHash = Arrays.hashCode(sequenceIndexes);
 
-		ImageMetadata settlermeta = new ImageMetadata();
-		ImageMetadata reusableTorsometa = new ImageMetadata();
-		for (int seqindex : sequenceIndexes) {
-			long[] settlers = dfr.getSettlerPointers(seqindex);
-			long[] torsos = dfr.getTorsoPointers(seqindex);
+		DecodedSequence[] decodedSequences = new DecodedSequence[sequenceIndexes.length];
+		ForkJoinPool.commonPool().invoke(new DecodeSequencesAction(dfr, sequenceIndexes, decodedSequences, 0, sequenceIndexes.length));
 
-			Image[] images = new Image[settlers.length];
-			for (int i = 0; i < settlers.length; i++) {
-				// System.out.println("Processing seq + " + seqindex +
-				// ", image " + i + ":");
-
-				ByteReader reader;
-				reader = dfr.getReaderForPointer(settlers[i]);
-				DatBitmapReader.uncompressImage(reader,
-						dfr.getSettlerTranslator(), settlermeta,
-						this);
-				int settlerx = drawx - settlermeta.width;
+		ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+		DataOutputStream index = new DataOutputStream(indexBytes);
+		for (int s = 0; s < sequenceIndexes.length; s++) {
+			DecodedSequence sequence = decodedSequences[s];
+			if (sequence.error != null) {
+				throw sequence.error;
+			}
+
+			Image[] images = new Image[sequence.settlers.length];
+			index.writeInt(images.length);
+			for (int i = 0; i < images.length; i++) {
+				DecodedImage settler = sequence.settlers[i];
+				addImage(settler);
+				int settlerx = drawx - settler.metadata.width;
 				int settlery = linetop;
+				writeImageIndex(index, settler.metadata, settlerx, settlery);
 
 				int torsox = 0;
 				int torsoy = 0;
 
-				ImageMetadata torsometa;
-				if (torsos != null) {
-					torsometa = reusableTorsometa;
-					reader = dfr.getReaderForPointer(torsos[i]);
-					if (reader != null) {
-						DatBitmapReader.uncompressImage(reader,
-								dfr.getTorsoTranslator(),
-								torsometa, this);
-						torsox = drawx - torsometa.width;
-						torsoy = linetop;
-					}
-				} else {
-					torsometa = null;
+				ImageMetadata torsometa = null;
+				DecodedImage torso = sequence.torsos == null ? null : sequence.torsos[i];
+				if (torso != null) {
+					torsometa = torso.metadata;
+					addImage(torso);
+					torsox = drawx - torsometa.width;
+					torsoy = linetop;
+				}
+				index.writeBoolean(torsometa != null);
+				if (torsometa != null) {
+					writeImageIndex(index, torsometa, torsox, torsoy);
 				}
 
-				images[i] =
-						new MultiImageImage(this, settlermeta, settlerx,
-								settlery, torsometa,
-								torsox, torsoy);
+				images[i] = new MultiImageImage(this, settler.metadata, settlerx, settlery, torsometa, torsox, torsoy);
 			}
-			addTo[seqindex] = new ArraySequence<>(images);
+			addTo[sequenceIndexes[s]] = new ArraySequence<>(images);
 		}
+		index.flush();
+		imageIndex = indexBytes.toByteArray();
 
 		// request a opengl rerender, or do it ourselves on the next image
 		textureValid = false;
 		ImageProvider.getInstance().addPreloadTask(this);
 	}
 
+	private void addImage(DecodedImage image) throws IOException {
+		ImageMetadata metadata = image.metadata;
+		startImage(metadata.width, metadata.height);
+		for (int line = 0; line < metadata.height; line++) {
+			writeLine(image.data, line * metadata.width, metadata.width);
+		}
+	}
+
+	private static void writeImageIndex(DataOutputStream index, ImageMetadata metadata, int x, int y) throws IOException {
+		index.writeInt(metadata.width);
+		index.writeInt(metadata.height);
+		index.writeInt(metadata.offsetX);
+		index.writeInt(metadata.offsetY);
+		index.writeInt(x);
+		index.writeInt(y);
+	}
+
+	private static ImageMetadata readImageIndex(DataInputStream index, int[] position) throws IOException {
+		ImageMetadata metadata = new ImageMetadata();
+		metadata.width = index.readInt();
+		metadata.height = index.readInt();
+		metadata.offsetX = index.readInt();
+		metadata.offsetY = index.readInt();
+		position[0] = index.readInt();
+		position[1] = index.readInt();
+		return metadata;
+	}
+
 	/**
-	 * Forces the regeneration of the cache file.
+	 * Writes the texture and the positions of the images to the cache, so that the next start can use {@link #loadFromCache(String, int[], Sequence[])}
+	 * instead of decoding the images again.
+	 * 
+	 * @param sourceId
+	 *            An id of the file the images were read from.
 	 */
-	public synchronized void writeCache() {
-		FileOutputStream out = null;
+	public synchronized void writeCache(String sourceId) {
 		try {
 			cacheFile.getParentFile().mkdirs();
-			cacheFile.delete();
-			File tempFile = new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp");
-			out = new FileOutputStream(tempFile);
+			indexFile.delete();
 
-			try {
+			File tempFile = new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp");
+			try (FileOutputStream out = new FileOutputStream(tempFile)) {
 				byte[] line = new byte[this.width * 2];
 				byteBuffer.rewind();
 				while (byteBuffer.hasRemaining()) {
 					byteBuffer.get(line);
 					out.write(line);
 				}
-			} finally {
-				out.close();
 			}
-
+			cacheFile.delete();
 			tempFile.renameTo(cacheFile);
 
+			// the index is written last, as it marks the texture as valid
+			File tempIndexFile = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempIndexFile)))) {
+				out.writeInt(CACHE_VERSION);
+				out.writeUTF(sourceId);
+				out.writeInt(width);
+				out.writeInt(height);
+				out.writeInt(sequenceIndexesHash);
+				out.write(imageIndex);
+			}
+			tempIndexFile.renameTo(indexFile);
+
 			buffers = null;
 			byteBuffer = null;
+			imageIndex = null;
 		} catch (IOException e) {
-			if (out != null) {
-				try {
-					out.close();
-				} catch (IOException e1) {
-				}
-			}
 			e.printStackTrace();
 		}
 	}
 
 	/**
-	 * Checks if this image map is can be loaded from the cache instead of regenerating it.
+	 * Adds the images of the sequences from the cache written by {@link #writeCache(String)}, if it exists and has been created from the same file
+	 * with the same sequences. The texture itself is read when it is needed.
 	 * 
-	 * @return <code>true</code> iff this file is cached.
+	 * @param sourceId
+	 *            An id of the file the images are read from.
+	 * @param sequenceIndexes
+	 *            The indexes where the sequences start.
+	 * @param addTo
+	 *            The image sequence to add image references to the cached images to.
+	 * @return <code>true</code> iff the images were loaded from the cache. If not, they need to be added with
+	 *         {@link #addSequences(AdvancedDatFileReader, int[], Sequence[])}.
 	 */
-	public synchronized boolean hasCache() {
-		return cacheFile.isFile();
+	public synchronized boolean loadFromCache(String sourceId, int[] sequenceIndexes, Sequence<Image>[] addTo) {
+		if (!indexFile.isFile() || cacheFile.length() != 2L * width * height) {
+			return false;
+		}
+
+		Image[][] sequences = new Image[sequenceIndexes.length][];
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+			if (in.readInt() != CACHE_VERSION || !in.readUTF().equals(sourceId) || in.readInt() != width || in.readInt() != height
+					|| in.readInt() != Arrays.hashCode(sequenceIndexes)) {
+				return false;
+			}
+
+			int[] settlerPosition = new int[2];
+			int[] torsoPosition = new int[2];
+			for (int s = 0; s < sequenceIndexes.length; s++) {
+				Image[] images = new Image[in.readInt()];
+				for (int i = 0; i < images.length; i++) {
+					ImageMetadata settlermeta = readImageIndex(in, settlerPosition);
+					ImageMetadata torsometa = in.readBoolean() ? readImageIndex(in, torsoPosition) : null;
+					images[i] = new MultiImageImage(this, settlermeta, settlerPosition[0], settlerPosition[1], torsometa, torsoPosition[0],
+							torsoPosition[1]);
+				}
+				sequences[s] = images;
+			}
+		} catch (IOException e) {
+			System.err.println("Could not read the image cache " + indexFile + ": " + e.getMessage());
+			return false;
+		}
+
+		for (int s = 0; s < sequenceIndexes.length; s++) {
+			addTo[sequenceIndexes[s]] = new ArraySequence<>(sequences[s]);
+		}
+
+		textureValid = false;
+		ImageProvider.getInstance().addPreloadTask(this);
+		return true;
 	}
 
 	@Override
@@ -224,10 +320,14 @@ public class MultiImageMap implements ImageArrayProvider, GLPreloadTask {
 
 	@Override
 	public void writeLine(short[] data, int length) throws IOException {
+		writeLine(data, 0, length);
+	}
+
+	private void writeLine(short[] data, int offset, int length) {
 		if (drawEnabled) {
 			int dp = drawpointer;
 			buffers.position(dp);
-			buffers.put(data, 0, length);
+			buffers.put(data, offset, length);
 			drawpointer = dp + this.width;
 		}
 	}
@@ -305,4 +405,75 @@ public class MultiImageMap implements ImageArrayProvider, GLPreloadTask {
 	public void run(GLDrawContext context) {
 		getTexture(context);
 	}
+
+	private static class DecodedImage {
+		private final ImageMetadata metadata = new ImageMetadata();
+		private short[] data;
+
+		private static DecodedImage decode(ByteReader reader, DatBitmapTranslator<?> translator) throws IOException {
+			DecodedImage image = new DecodedImage();
+			ShortArrayWriter writer = new ShortArrayWriter();
+			DatBitmapReader.uncompressImage(reader, translator, image.metadata, writer);
+			image.data = writer.getArray();
+			return image;
+		}
+	}
+
+	private static class DecodedSequence {
+		private DecodedImage[] settlers;
+		private DecodedImage[] torsos;
+		private IOException error;
+	}
+
+	/**
+	 * Decodes the images of the sequences in the given range. Every decoding uses its own reader, so the sequences can be decoded in parallel.
+	 */
+	private static class DecodeSequencesAction extends RecursiveAction {
+		private static final long serialVersionUID = -3528813870914446275L;
+
+		private final AdvancedDatFileReader dfr;
+		private final int[] sequenceIndexes;
+		private final DecodedSequence[] decodedSequences;
+		private final int from;
+		private final int to;
+
+		DecodeSequencesAction(AdvancedDatFileReader dfr, int[] sequenceIndexes, DecodedSequence[] decodedSequences, int from, int to) {
+			this.dfr = dfr;
+			this.sequenceIndexes = sequenceIndexes;
+			this.decodedSequences = decodedSequences;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int middle = (from + to) / 2;
+				invokeAll(new DecodeSequencesAction(dfr, sequenceIndexes, decodedSequences, from, middle),
+						new DecodeSequencesAction(dfr, sequenceIndexes, decodedSequences, middle, to));
+			} else if (to - from == 1) {
+				DecodedSequence sequence = new DecodedSequence();
+				try {
+					decodeSequence(sequenceIndexes[from], sequence);
+				} catch (IOException e) {
+					sequence.error = e;
+				}
+				decodedSequences[from] = sequence;
+			}
+		}
+
+		private void decodeSequence(int seqindex, DecodedSequence sequence) throws IOException {
+			long[] settlers = dfr.getSettlerPointers(seqindex);
+			long[] torsos = dfr.getTorsoPointers(seqindex);
+
+			sequence.settlers = new DecodedImage[settlers.length];
+			sequence.torsos = torsos == null ? null : new DecodedImage[settlers.length];
+			for (int i = 0; i < settlers.length; i++) {
+				sequence.settlers[i] = DecodedImage.decode(dfr.getReaderForPointer(settlers[i]), dfr.getSettlerTranslator());
+				if (torsos != null) {
+					sequence.torsos[i] = DecodedImage.decode(dfr.getReaderForPointer(torsos[i]), dfr.getTorsoTranslator());
+				}
+			}
+		}
+	}
 }
@@ -39,7 +39,6 @@ import jsettlers.graphics.image.sequence.SequenceList;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 import static jsettlers.graphics.image.reader.versions.GfxFolderMapping.DatFileMapping;
 
@@ -195,6 +194,9 @@ public class AdvancedDatFileReader implements DatFileReader {
 
 	private final DatFileMapping mapping;
 
+	/**
+	 * The reader of the mapped file. Every load uses a {@link ByteReader#duplicate()} of it, so the images can be loaded by several threads.
+	 */
 	private ByteReader reader = null;
 	private final File file;
 
@@ -279,8 +281,8 @@ public class AdvancedDatFileReader implements DatFileReader {
 	@SuppressWarnings("unchecked")
 	public void initialize() {
 		try {
-			reader = new ByteReader(new RandomAccessFile(file, "r"));
-			initFromReader(file, reader);
+			reader = ByteReader.map(file);
+			initFromReader(file, reader.duplicate());
 
 		} catch (IOException e) {
 			if (reader != null) {
@@ -422,7 +424,7 @@ public class AdvancedDatFileReader implements DatFileReader {
 		}
 	}
 
-	private void initializeIfNeeded() {
+	private synchronized void initializeIfNeeded() {
 		if (settlerSequences == null) {
 			initialize();
 		}
@@ -457,11 +459,12 @@ public class AdvancedDatFileReader implements DatFileReader {
 		}
 	}
 
-	private synchronized void loadSettlers(int goldIndex) throws IOException {
+	private void loadSettlers(int goldIndex) throws IOException {
 		int theseGraphicsFilesIndex = mapping.mapSettlersSequence(goldIndex);
+		ByteReader reader = this.reader.duplicate();
 
 		int position = settlerStarts[theseGraphicsFilesIndex];
-		long[] framePositions = readSequenceHeader(position);
+		long[] framePositions = readSequenceHeader(reader, position);
 
 		SettlerImage[] images = new SettlerImage[framePositions.length];
 		for (int i = 0; i < framePositions.length; i++) {
@@ -471,7 +474,7 @@ public class AdvancedDatFileReader implements DatFileReader {
 
 		int torsoPosition = torsoStarts[theseGraphicsFilesIndex];
 		if (torsoPosition >= 0) {
-			long[] torsoPositions = readSequenceHeader(torsoPosition);
+			long[] torsoPositions = readSequenceHeader(reader, torsoPosition);
 			for (int i = 0; i < torsoPositions.length && i < framePositions.length; i++) {
 				reader.skipTo(torsoPositions[i]);
 				TorsoImage torso = DatBitmapReader.getImage(torsoTranslator, reader);
@@ -482,7 +485,7 @@ public class AdvancedDatFileReader implements DatFileReader {
 		settlerSequences[goldIndex] = new ArraySequence<>(images);
 	}
 
-	private long[] readSequenceHeader(int position) throws IOException {
+	private static long[] readSequenceHeader(ByteReader reader, int position) throws IOException {
 		reader.skipTo(position);
 
 		reader.assumeToRead(START);
@@ -546,13 +549,18 @@ public class AdvancedDatFileReader implements DatFileReader {
 	@Override
 	public ByteReader getReaderForLandscape(int index) throws IOException {
 		initializeIfNeeded();
-		reader.skipTo(landscapeStarts[index]);
+		return getReaderAt(landscapeStarts[index]);
+	}
+
+	private ByteReader getReaderAt(long position) throws IOException {
+		ByteReader reader = this.reader.duplicate();
+		reader.skipTo(position);
 		return reader;
 	}
 
 	private void loadLandscapeImage(int index) {
 		try {
-			reader.skipTo(landscapeStarts[index]);
+			ByteReader reader = getReaderAt(landscapeStarts[index]);
 			LandscapeImage image = DatBitmapReader.getImage(landscapeTranslator, reader);
 			landscapeImages[index] = image;
 		} catch (IOException e) {
@@ -601,7 +609,7 @@ public class AdvancedDatFileReader implements DatFileReader {
 	private void loadGuiImage(int goldIndex) {
 		try {
 			int theseGraphicsFilesIndex = mapping.mapGuiImage(goldIndex);
-			reader.skipTo(guiStarts[theseGraphicsFilesIndex]);
+			ByteReader reader = getReaderAt(guiStarts[theseGraphicsFilesIndex]);
 			GuiImage image = DatBitmapReader.getImage(guiTranslator, reader);
 			guiImages[goldIndex] = image;
 		} catch (IOException | ArrayIndexOutOfBoundsException e) {
@@ -611,21 +619,21 @@ public class AdvancedDatFileReader implements DatFileReader {
 
 	public long[] getSettlerPointers(int seqIndex) throws IOException {
 		initializeIfNeeded();
-		return readSequenceHeader(settlerStarts[seqIndex]);
+		return readSequenceHeader(reader.duplicate(), settlerStarts[seqIndex]);
 	}
 
 	public long[] getTorsoPointers(int seqIndex) throws IOException {
 		initializeIfNeeded();
 		int position = torsoStarts[seqIndex];
 		if (position >= 0) {
-			return readSequenceHeader(position);
+			return readSequenceHeader(reader.duplicate(), position);
 		} else {
 			return null;
 		}
 	}
 
 	/**
-	 * Gets a reader positioned at the given settler
+	 * Gets a reader positioned at the given settler. Every call returns a new reader, so the readers can be used by different threads.
 	 *
 	 * @param pointer
 	 * 		Start of the reader
@@ -635,8 +643,7 @@ public class AdvancedDatFileReader implements DatFileReader {
 	 */
 	public ByteReader getReaderForPointer(long pointer) throws IOException {
 		initializeIfNeeded();
-		reader.skipTo(pointer);
-		return reader;
+		return getReaderAt(pointer);
 	}
 
 	@Override
@@ -644,12 +651,20 @@ public class AdvancedDatFileReader implements DatFileReader {
 		initializeIfNeeded();
 
 		MultiImageMap map = new MultiImageMap(width, height, id);
-		if (!map.hasCache()) {
+		String sourceId = getCacheSourceId();
+		if (!map.loadFromCache(sourceId, sequences, settlerSequences)) {
 			map.addSequences(this, sequences, settlerSequences);
-			map.writeCache();
+			map.writeCache(sourceId);
 		}
 	}
 
+	/**
+	 * @return an id of the dat file and the way it is read. Caches of images decoded from another file are not used.
+	 */
+	private String getCacheSourceId() {
+		return file.getName() + ";" + file.length() + ";" + file.lastModified() + ";" + type + ";" + mapping.getClass().getName();
+	}
+
 	public DatBitmapTranslator<SettlerImage> getSettlerTranslator() {
 		return settlerTranslator;
 	}
@@ -14,46 +14,33 @@
  */
 package jsettlers.graphics.image.reader.bytereader;
 
+import java.io.EOFException;
+import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 
 /**
  * This class provides a little endian wrapper of a reader.
+ * <p>
+ * The file is memory mapped, so jumping around in it doesn't re-read anything. Several readers with their own position can share the mapping, see
+ * {@link #duplicate()}.
  *
  * @author michael
  */
 public class ByteReader {
 
-	private static final int CACHE_SIZE = 10000;
-
-	/**
-	 * The position the input stram is currently at.
-	 */
-	private long inputStreamPosition = 0;
-	/**
-	 * The current cache position the user is reading from next.
-	 * <p>
-	 * It may never be greater than CACHE_SIZE.
-	 *
-	 * @see ByteReader#assertCacheHolds(int);
-	 */
-	private int cachePosition;
 	/**
-	 * The start of the cache in the file.
-	 * <p>
-	 * Initialize so that jump does good work.
+	 * The mapped file. Its position is the position the user is reading from next.
 	 */
-	private long cacheStart = -2 * CACHE_SIZE;
-
-	/**
-	 * The data cache
-	 */
-	private byte[] cache = new byte[CACHE_SIZE];
+	private final ByteBuffer buffer;
 
 	private final RandomAccessFile in;
 
 	/**
-	 * Creates a new reader.
+	 * Creates a new reader that maps the whole file.
 	 *
 	 * @param in
 	 *            The in reader.
@@ -61,78 +48,71 @@ public class ByteReader {
 	 *             It an IO error occured.
 	 */
 	public ByteReader(RandomAccessFile in) throws IOException {
+		this(in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, in.length()), in);
+	}
+
+	/**
+	 * Creates a new reader for the given data. The reader starts at the current position of the buffer, positions are relative to its start.
+	 *
+	 * @param buffer
+	 *            The data to read.
+	 */
+	public ByteReader(ByteBuffer buffer) {
+		this(buffer, null);
+	}
+
+	private ByteReader(ByteBuffer buffer, RandomAccessFile in) {
+		this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
 		this.in = in;
-		jumpCachePosition(0);
 	}
 
 	/**
-	 * Reads a 16 bit int.
+	 * Creates a reader that maps the given file.
 	 *
-	 * @return The int.
+	 * @param file
+	 *            The file to read.
+	 * @return The reader.
 	 * @throws IOException
-	 *             If an io error occured.
+	 *             If the file can not be mapped.
 	 */
-	public int read16() throws IOException {
-		assertCacheHolds(2);
-
-		int c = this.cachePosition;
-		int byte0 = this.cache[c];
-		int byte1 = this.cache[c + 1];
-		this.cachePosition = c + 2;
+	public static ByteReader map(File file) throws IOException {
+		try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+			return new ByteReader(in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, in.length()));
+		}
+	}
 
-		return (0xff & byte0) | ((0xff & byte1) << 8);
+	/**
+	 * Creates a reader of the same data with its own position. It starts at the current position of this reader. The readers can be used by
+	 * different threads.
+	 *
+	 * @return The new reader.
+	 */
+	public ByteReader duplicate() {
+		return new ByteReader(buffer.duplicate());
 	}
 
 	/**
-	 * Sets the cache position pointer and the cache so that the pointer is on the given position in the file.
+	 * Reads a 16 bit int.
 	 *
-	 * @param newCachePosition
-	 *            A file position
+	 * @return The int.
 	 * @throws IOException
+	 *             If an io error occured.
 	 */
-	private void jumpCachePosition(long newCachePosition) throws IOException {
-		long positionInCache = newCachePosition - this.cacheStart;
-		if (positionInCache >= 0 && positionInCache < CACHE_SIZE) {
-			this.cachePosition = (int) positionInCache;
-		} else {
-			// we have to reload...
-			this.in.seek(newCachePosition);
-			this.inputStreamPosition = newCachePosition;
-			this.cacheStart = this.inputStreamPosition;
-
-			this.inputStreamPosition += this.in.read(this.cache, 0, CACHE_SIZE);
-			this.cachePosition = 0;
-		}
+	public int read16() throws IOException {
+		assertRemaining(2);
+		return 0xffff & buffer.getShort();
 	}
 
 	/**
-	 * Asserts that the cache hold bytecount valid bytes.
-	 * <p>
-	 * if the rest of the cache is not long enough
+	 * Asserts that at least bytecount bytes can be read.
 	 *
 	 * @param bytecount
 	 * @throws IOException
+	 *             If the end of the file would be passed.
 	 */
-	private void assertCacheHolds(int bytecount) throws IOException {
-
-		if (bytecount >= CACHE_SIZE) {
-			throw new IllegalArgumentException(
-					"Cache buffer to small to read that many bytes");
-		}
-
-		int remaining = CACHE_SIZE - this.cachePosition;
-		if (remaining < bytecount) {
-			// refill buffer
-			for (int i = 0; i < remaining; i++) {
-				this.cache[i] = this.cache[this.cachePosition + i];
-			}
-
-			// todo: save until where cache is valid, if file to long.
-			int length = (int) Math.min(CACHE_SIZE - remaining, this.in.length() - this.in.getFilePointer());
-			this.inputStreamPosition += this.in.read(this.cache, remaining, length);
-			// TODO: store how long buffer is valid
-			this.cacheStart += this.cachePosition;
-			this.cachePosition = 0;
+	private void assertRemaining(int bytecount) throws IOException {
+		if (buffer.remaining() < bytecount) {
+			throw new EOFException("Tried to read " + bytecount + " bytes at " + buffer.position() + ", but the file ends at " + buffer.limit());
 		}
 	}
 
@@ -144,18 +124,8 @@ public class ByteReader {
 	 *             If an IO error occured.
 	 */
 	public int read32() throws IOException {
-		assertCacheHolds(4);
-
-		byte byte0 = this.cache[this.cachePosition++];
-		byte byte1 = this.cache[this.cachePosition++];
-		byte byte2 = this.cache[this.cachePosition++];
-		byte byte3 = this.cache[this.cachePosition++];
-
-		int value =
-				(0xff & byte0) | ((0xff & byte1) << 8)
-						| ((0xff & byte2) << 16)
-						| ((0xff & byte3) << 24);
-		return value;
+		assertRemaining(4);
+		return buffer.getInt();
 	}
 
 	/**
@@ -167,10 +137,10 @@ public class ByteReader {
 	 *             If the read data does not match the given data.
 	 */
 	public void assumeToRead(byte[] toRead) throws IOException {
-		assertCacheHolds(toRead.length);
+		assertRemaining(toRead.length);
 
 		for (int i = 0; i < toRead.length; i++) {
-			byte read = this.cache[this.cachePosition++];
+			byte read = buffer.get();
 			if (read != toRead[i]) {
 				throw new IOException("IO error: expected to read " + toRead[i]
 						+ " but got " + read + " (i=" + i + ")");
@@ -186,12 +156,8 @@ public class ByteReader {
 	 *             If an IO error occured.
 	 */
 	public int read16signed() throws IOException {
-		int read = read16();
-		if (read < 0x8000) {
-			return read;
-		} else {
-			return read - 0x10000;
-		}
+		assertRemaining(2);
+		return buffer.getShort();
 	}
 
 	/**
@@ -202,14 +168,12 @@ public class ByteReader {
 	 *             If an io error occured.
 	 */
 	public int read8() throws IOException {
-		assertCacheHolds(1);
-		return 0xff & this.cache[this.cachePosition++];
+		assertRemaining(1);
+		return 0xff & buffer.get();
 	}
 
 	/**
 	 * Reads a byte stream from the stream.
-	 * <p>
-	 * Warning: this is not guaranteed to work for long arrays.
 	 *
 	 * @param b
 	 *            The byte array to read to.
@@ -222,11 +186,8 @@ public class ByteReader {
 	 *             If an io error occurred.
 	 */
 	public int read(byte[] b, int off, int len) throws IOException {
-		assertCacheHolds(len);
-
-		for (int i = 0; i < len; i++) {
-			b[off + i] = this.cache[this.cachePosition++];
-		}
+		assertRemaining(len);
+		buffer.get(b, off, len);
 		return len;
 	}
 
@@ -240,27 +201,31 @@ public class ByteReader {
 	 *             If an IO error occured.
 	 */
 	public long skipTo(long pos) throws IOException {
-		jumpCachePosition(pos);
-		return this.cacheStart + this.cachePosition;
+		if (pos < 0 || pos > buffer.limit()) {
+			throw new EOFException("Position " + pos + " is outside of the file of length " + buffer.limit());
+		}
+		buffer.position((int) pos);
+		return pos;
 	}
 
 	/**
-	 * gets the number of read or skipped bytes. It is equal to the position in the stream, as long as no {@link IOException}s occurred and reset()
-	 * was not used.
+	 * gets the number of read or skipped bytes. It is equal to the position in the stream.
 	 *
 	 * @return The number.
 	 */
 	public long getReadBytes() {
-		return this.cacheStart + this.cachePosition;
+		return buffer.position();
 	}
 
 	/**
-	 * Closes the underlying stream.
+	 * Closes the underlying file, if the reader has been created for one. The mapping stays valid until it is garbage collected.
 	 *
 	 * @throws IOException
 	 *             If the close failed.
 	 */
 	public void close() throws IOException {
-		this.in.close();
+		if (in != null) {
+			in.close();
+		}
 	}
 }
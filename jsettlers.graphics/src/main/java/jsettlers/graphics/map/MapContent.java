@@ -39,6 +39,7 @@ import jsettlers.common.images.EImageLinkType;
 import jsettlers.common.images.ImageLink;
 import jsettlers.common.images.OriginalImageLink;
 import jsettlers.common.map.EDebugColorModes;
+import jsettlers.common.map.IGraphicsBackgroundListener;
 import jsettlers.common.map.IGraphicsGrid;
 import jsettlers.common.map.shapes.IMapArea;
 import jsettlers.common.map.shapes.MapRectangle;
@@ -253,7 +254,23 @@ public final class MapContent implements RegionContent, IMapInterfaceListener, A
 		this.connector = new MapInterfaceConnector(this);
 		this.connector.addListener(this);
 
-		map.setBackgroundListener(background);
+		map.setBackgroundListener(new IGraphicsBackgroundListener() {
+			@Override
+			public void backgroundChangedAt(int x, int y) {
+				background.backgroundChangedAt(x, y);
+				controls.backgroundChangedAt(x, y);
+			}
+
+			@Override
+			public void playerChangedAt(int x, int y) {
+				controls.playerChangedAt(x, y);
+			}
+
+			@Override
+			public void fogOfWarChangedIn(int minX, int minY, int maxX, int maxY) {
+				controls.fogOfWarChangedIn(minX, minY, maxX, maxY);
+			}
+		});
 	}
 
 	private void resizeTo(int newWindowWidth, int newWindowHeight) {
@@ -499,6 +516,10 @@ public final class MapContent implements RegionContent, IMapInterfaceListener, A
 					}
 				}
 			}
+			if (!linePartiallyVisible) {
+				// empty tiles have been skipped => check them before stopping at this line
+				linePartiallyVisible = isLinePartiallyVisible(startX, endX, y, bottomDrawY);
+			}
 		}
 
 		if (placementBuilding != null) {
@@ -519,6 +540,15 @@ public final class MapContent implements RegionContent, IMapInterfaceListener, A
 		context.getDrawBuffer().flush();
 	}
 
+	private boolean isLinePartiallyVisible(int startX, int endX, int y, double bottomDrawY) {
+		for (int x = startX; x <= endX; x++) {
+			if (this.context.getConverter().getViewY(x, y, this.context.getHeight(x, y)) > bottomDrawY) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private void drawTile(int x, int y) {
 		IMapObject object = map.getMapObjectsAt(x, y);
 		if (object != null) {
@@ -135,6 +135,41 @@ public interface IControls extends IMapInterfaceListener {
 	 */
 	String getMapTooltip(ShortPoint2D point);
 
+	/**
+	 * Informs the controls that the landscape type or height has changed at the given map position, e.g. to update a minimap. This method may be
+	 * called by any thread.
+	 *
+	 * @param x
+	 *            x coordinate
+	 * @param y
+	 *            y coordinate
+	 */
+	void backgroundChangedAt(int x, int y);
+
+	/**
+	 * Informs the controls that the player owning the given map position or its border has changed. This method may be called by any thread.
+	 *
+	 * @param x
+	 *            x coordinate
+	 * @param y
+	 *            y coordinate
+	 */
+	void playerChangedAt(int x, int y);
+
+	/**
+	 * Informs the controls that the fog of war may have changed in the given map area. This method may be called by any thread.
+	 *
+	 * @param minX
+	 *            smallest x coordinate of the area
+	 * @param minY
+	 *            smallest y coordinate of the area
+	 * @param maxX
+	 *            x coordinate behind the area
+	 * @param maxY
+	 *            y coordinate behind the area
+	 */
+	void fogOfWarChangedIn(int minX, int minY, int maxX, int maxY);
+
 	/**
 	 * Stops all background threads the controls may use.
 	 */
@@ -416,6 +416,30 @@ public class OriginalControls implements IControls {
 		return null;
 	}
 
+	@Override
+	public void backgroundChangedAt(int x, int y) {
+		Minimap minimap = this.minimap;
+		if (minimap != null) {
+			minimap.backgroundChangedAt(x, y);
+		}
+	}
+
+	@Override
+	public void playerChangedAt(int x, int y) {
+		Minimap minimap = this.minimap;
+		if (minimap != null) {
+			minimap.playerChangedAt(x, y);
+		}
+	}
+
+	@Override
+	public void fogOfWarChangedIn(int minX, int minY, int maxX, int maxY) {
+		Minimap minimap = this.minimap;
+		if (minimap != null) {
+			minimap.fogOfWarChangedIn(minX, minY, maxX, maxY);
+		}
+	}
+
 	@Override
 	public void stop() {
 		minimap.stop();
@@ -17,7 +17,6 @@ package jsettlers.graphics.map.draw;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.util.BitSet;
 
 import go.graphics.GLDrawContext;
 import go.graphics.GLDrawContext.GLBuffer;
@@ -25,7 +24,6 @@ import go.graphics.GeometryHandle;
 import go.graphics.IllegalBufferException;
 import go.graphics.TextureHandle;
 
-import jsettlers.common.CommonConstants;
 import jsettlers.common.landscape.ELandscapeType;
 import jsettlers.common.map.IGraphicsBackgroundListener;
 import jsettlers.common.map.shapes.MapRectangle;
@@ -50,12 +48,12 @@ public class Background implements IGraphicsBackgroundListener {
 	/**
 	 * The base texture size.
 	 */
-	private static final int TEXTURE_SIZE = 1024;
+	static final int TEXTURE_SIZE = 1024;
 
 	/**
 	 * Our base texture is divided into multiple squares that all hold a single texture. Continuous textures occupy 5*5 squares
 	 */
-	private static final int TEXTURE_GRID = 32;
+	static final int TEXTURE_GRID = 32;
 
 	/**
 	 * Where are the textures on the map?
@@ -116,7 +114,7 @@ public class Background implements IGraphicsBackgroundListener {
 	 * +33|34|                                   |              |              |--+--+--+--+--+--+--+--+
 	 * +--+--+--+--+--+--+--+--+--+--+--+--+--+--+--+--+--+--+--+--+--+--+--+--+--+--+--+--+--+--+--+--+
 	 */
-	private static final int[][] TEXTURE_POSITIONS = {
+	static final int[][] TEXTURE_POSITIONS = {
 			/* 0: big */{
 					0, 0, 5
 			},
@@ -834,19 +832,6 @@ public class Background implements IGraphicsBackgroundListener {
 			// ...
 	};
 
-	private final BitSet fowDimmed = new BitSet();
-
-	private static final short FLOAT_SIZE = 4;
-	/**
-	 * How many bytes are needed per vertex
-	 */
-	private static final short VERTEX_SIZE = 6 * FLOAT_SIZE;
-
-	private static final byte DIM_MAX = 20;
-
-	private static final byte[] BLACK = new byte[] {
-			0, 0, 0, (byte) 255
-	};
 	private static final Object preloadMutex = new Object();
 
 	/**
@@ -854,20 +839,11 @@ public class Background implements IGraphicsBackgroundListener {
 	 */
 	// private static final int COLOR_OFFSET = 5 * FLOAT_SIZE;
 
-	private byte[] fogOfWarStatus = new byte[1];
-	private MapRectangle oldBufferPosition = new MapRectangle(0, 0, 0, 0);
-	private int bufferWidth = 1; // in map points.
-	private int bufferHeight = 1; // in map points.
-
 	private static TextureHandle texture = null;
 
-	private GeometryHandle geometryhandle = null;
+	private final BackgroundGeometry geometry = new BackgroundGeometry(true);
 
-	private int geometrytirs;
-
-	private BitSet geometryInvalid = new BitSet();
-
-	private boolean mapViewResized;
+	private GeometryHandle geometryhandle = null;
 
 	private static short[] preloadedTexture = null;
 
@@ -985,7 +961,7 @@ public class Background implements IGraphicsBackgroundListener {
 	 *            If it is true, the secondary texture is used.
 	 * @return The texture.
 	 */
-	private static int getBorder(ELandscapeType outer, ELandscapeType inner, boolean useSecond) {
+	static int getBorder(ELandscapeType outer, ELandscapeType inner, boolean useSecond) {
 		int index;
 
 		// water <=> water
@@ -1187,13 +1163,15 @@ public class Background implements IGraphicsBackgroundListener {
 		try {
 			GLDrawContext gl = context.getGl();
 			MapRectangle screenArea = context.getConverter().getMapForScreen(screen);
-			mapViewResized = geometryhandle == null || !geometryhandle.isValid() || screenArea.getWidth() + 1 != bufferWidth || screenArea.getHeight() != bufferHeight;
+			boolean mapViewResized = geometryhandle == null || !geometryhandle.isValid() || screenArea.getWidth() + 1 != geometry.getBufferWidth()
+					|| screenArea.getHeight() != geometry.getBufferHeight();
 			if (mapViewResized) {
 				regenerateGeometry(gl, screenArea);
 			}
 
+			geometry.update(context, screenArea, mapViewResized);
 			GLBuffer boundBuffer = gl.startWriteGeometry(geometryhandle);
-			reloadGeometry(boundBuffer, screenArea, context);
+			geometry.upload(boundBuffer);
 			gl.endWriteGeometry(geometryhandle);
 			gl.glPushMatrix();
 			try {
@@ -1201,410 +1179,36 @@ public class Background implements IGraphicsBackgroundListener {
 				gl.glScalef(1, 1, 0);
 				gl.glMultMatrixf(context.getConverter().getMatrixWithHeight());
 				gl.color(1, 1, 1, 1);
-				gl.drawTrianglesWithTextureColored(getTexture(context.getGl()), geometryhandle, geometrytirs);
+				gl.drawTrianglesWithTextureColored(getTexture(context.getGl()), geometryhandle, geometry.getTriangleCount());
 			} finally {
 				gl.glPopMatrix();
 			}
-
-			resetFOWDimStatus();
 		} catch (IllegalBufferException e) {
 			// TODO: Create crash report.
 			e.printStackTrace();
 		}
 	}
 
-	private void resetFOWDimStatus() {
-		fowDimmed.clear();
-	}
-
 	private void regenerateGeometry(GLDrawContext gl, MapRectangle screenArea) {
 		if (geometryhandle != null && geometryhandle.isValid()) {
 			geometryhandle.delete();
 		}
-		bufferWidth = niceRoundUp(screenArea.getWidth() + 1);
-		bufferHeight = niceRoundUp(screenArea.getHeight());
-		int count = bufferHeight * bufferWidth;
-		fogOfWarStatus = new byte[count * 4];
-		geometryInvalid = new BitSet(count);
-		geometrytirs = count * 2;
-
-		geometryhandle = gl.generateGeometry(geometrytirs * 3 * VERTEX_SIZE);
-	}
-
-	private static int niceRoundUp(int i) {
-		return i;
-	}
-
-	/**
-	 * Gets the geometry of the background as array.
-	 * 
-	 * @param boundBuffer
-	 *            The buffer of opengl.
-	 * @param context
-	 *            The context to use.
-	 * @return The geometry as float array.
-	 */
-	private void reloadGeometry(GLBuffer boundBuffer, MapRectangle area, MapDrawContext context) {
-		boolean hasInvalidFields = hasInvalidFields();
-
-		int width = context.getMap().getWidth();
-		int height = context.getMap().getHeight();
-		int oldBufferTop = oldBufferPosition.getLineY(0);
-		int oldBufferBottom = oldBufferTop + bufferHeight; // excluding
-
-		for (int line = 0; line < bufferHeight; line++) {
-
-			int y = area.getLineY(line);
-			int minx = area.getLineStartX(line);
-			int maxx = minx + bufferWidth;
-			int oldMinX = 0;
-			int oldMaxX = 0; // excluding
-			if (y >= oldBufferTop && y < oldBufferBottom) {
-				oldMinX = oldBufferPosition.getLineStartX(y - oldBufferTop);
-				oldMaxX = oldMinX + bufferWidth;
-			}
-			boolean lineIsInMap = y >= 0 && y < height;
-
-			for (int x = minx; x < maxx; x++) {
-				int bufferPosition = getBufferPosition(y, x);
-				if (mapViewResized || oldMinX > x || oldMaxX <= x) {
-					redrawPoint(boundBuffer, context, x, y, false, bufferPosition);
-				} else if (lineIsInMap && x >= 0 && x < width) {
-					if (hasInvalidFields && getAndResetInvalid(bufferPosition)) {
-						redrawPoint(boundBuffer, context, x, y, true, bufferPosition);
-					} else if (context.getVisibleStatus(x, y) != fogOfWarStatus[bufferPosition * 4]) {
-						redrawPoint(boundBuffer, context, x, y, true, bufferPosition);
-						invalidatePoint(x - 1, y); // only for next pass
-						invalidatePoint(x - 1, y - 1);
-						invalidatePoint(x - 1, y - 1);
-					}
-				}
-			}
-		}
-
-		oldBufferPosition = area;
+		geometry.resize(screenArea.getWidth() + 1, screenArea.getHeight());
+		geometryhandle = gl.generateGeometry(geometry.getSize());
 	}
 
-	private synchronized boolean getAndResetInvalid(int bufferPosition) {
-		boolean invalid = geometryInvalid.get(bufferPosition);
-		geometryInvalid.clear(bufferPosition);
-		return invalid;
-	}
-
-	private synchronized boolean hasInvalidFields() {
-		return !geometryInvalid.isEmpty();
-	}
-
-	/**
-	 * Redraws a point on the map to the buffer.
-	 * 
-	 * @param boundBuffer
-	 *            The buffer to use
-	 * @param context
-	 *            The context
-	 * @param x
-	 *            The x coordinate of the point
-	 * @param y
-	 *            The y coordinate of the point
-	 * @param wasVisible
-	 *            true if and only if the point was already in the buffer.
-	 */
-	private void redrawPoint(GLBuffer boundBuffer, MapDrawContext context, int x, int y, boolean wasVisible, int pointOffset) {
-		boundBuffer.position(pointOffset * 2 * 3 * VERTEX_SIZE);
-
-		if (x >= 0 && y >= 0 && x < context.getMap().getWidth() - 1 && y < context.getMap().getHeight() - 1) {
-			if (wasVisible) {
-				dimFogOfWarBuffer(context, (pointOffset * 4), x, y);
-				dimFogOfWarBuffer(context, (pointOffset * 4) + 1, x + 1, y);
-				dimFogOfWarBuffer(context, (pointOffset * 4) + 2, x, y + 1);
-				dimFogOfWarBuffer(context, (pointOffset * 4) + 3, x + 1, y + 1);
-			} else {
-				addFogOfWarBuffer(context, (pointOffset * 4), x, y);
-				addFogOfWarBuffer(context, (pointOffset * 4) + 1, x + 1, y);
-				addFogOfWarBuffer(context, (pointOffset * 4) + 2, x, y + 1);
-				addFogOfWarBuffer(context, (pointOffset * 4) + 3, x + 1, y + 1);
-			}
-			addTrianglesToGeometry(context, boundBuffer, x, y, pointOffset * 4);
-		} else {
-			addPseudoTrianglesToGeometry(context, boundBuffer, x, y);
-		}
-	}
-
-	private synchronized void invalidatePoint(int x, int y) {
-		geometryInvalid.set(getBufferPosition(y, x));
-	}
-
-	private void addFogOfWarBuffer(MapDrawContext context, int offset, int x, int y) {
-		fogOfWarStatus[offset] = context.getVisibleStatus(x, y);
-	}
-
-	/**
-	 * Dims the fog of war buffer
-	 * 
-	 * @param context
-	 *            The context
-	 * @param offset
-	 *            The fog of war buffer offset
-	 * @param x
-	 *            The x coordinate of the tile
-	 * @param y
-	 *            The y coordinate of the tile.
-	 * @return true if and only if the dim has finished.
-	 */
-	private void dimFogOfWarBuffer(MapDrawContext context, int offset, int x, int y) {
-		if (!fowDimmed.get(offset)) {
-			byte newFog = context.getVisibleStatus(x, y);
-			fogOfWarStatus[offset] = dim(fogOfWarStatus[offset], newFog);
-			fowDimmed.set(offset);
-		}
-	}
-
-	private static byte dim(byte value, byte dimTo) {
-		if (value < dimTo - DIM_MAX) {
-			return (byte) (dimTo - DIM_MAX);
-		} else if (value > dimTo + DIM_MAX) {
-			return (byte) (dimTo + DIM_MAX);
-		} else if (value > dimTo) {
-			return (byte) (value - 1);
-		} else if (value < dimTo) {
-			return (byte) (value + 1);
-		} else {
-			return value;
-		}
-	}
-
-	private final int getBufferPosition(int y, int x) {
-		int linePos = y % bufferHeight;
-		int colPos = x % bufferWidth;
-		while (linePos < 0) {
-			linePos += bufferHeight;
-		}
-		while (colPos < 0) {
-			colPos += bufferWidth;
-		}
-
-		return (linePos * bufferWidth + colPos);
-	}
-
-	/**
-	 * Adds the two triangles for a point to the list of verteces
-	 * 
-	 * @param context
-	 * @param buffer
-	 * @param x
-	 * @param y
-	 * @param fogBase
-	 */
-	private void addTrianglesToGeometry(MapDrawContext context, GLBuffer buffer, int x, int y, int fogBase) {
-		addTriangle1ToGeometry(context, buffer, x, y, fogBase);
-		addTriangle2ToGeometry(context, buffer, x, y, fogBase);
-	}
-
-	private static void addPseudoTrianglesToGeometry(MapDrawContext context, GLBuffer buffer, int x, int y) { // manually do everything...
-		addBlackPointToGeometry(context, buffer, x, y);
-		addBlackPointToGeometry(context, buffer, x, y + 1);
-		addBlackPointToGeometry(context, buffer, x + 1, y + 1);
-		addBlackPointToGeometry(context, buffer, x, y);
-		addBlackPointToGeometry(context, buffer, x + 1, y + 1);
-		addBlackPointToGeometry(context, buffer, x + 1, y);
-	}
-
-	/**
-	 * Draws the triangle that is facing up
-	 * 
-	 * @param context
-	 * @param buffer
-	 * @param x
-	 * @param y
-	 * @param fogBase
-	 */
-	private void addTriangle1ToGeometry(MapDrawContext context, GLBuffer buffer, int x, int y, int fogBase) {
-		ELandscapeType topLandscape = context.getLandscape(x, y);
-		ELandscapeType leftLandscape = context.getLandscape(x, y + 1);
-		ELandscapeType rightLandscape = context.getLandscape(x + 1, y + 1);
-
-		boolean useSecond = ((x * 37 + y * 17) & 0x1) == 0;
-		ETextureOrientation texturePos;
-		int textureIndex;
-		if (topLandscape == leftLandscape && topLandscape == rightLandscape) {
-			textureIndex = topLandscape.getImageNumber();
-			texturePos = ETextureOrientation.CONTINUOUS_UP;
-		} else if (leftLandscape == rightLandscape) {
-			texturePos = ETextureOrientation.BOTTOM;
-			textureIndex = getBorder(leftLandscape, topLandscape, useSecond);
-		} else if (leftLandscape == topLandscape) {
-			texturePos = ETextureOrientation.TOPLEFT;
-			textureIndex = getBorder(leftLandscape, rightLandscape, useSecond);
-		} else {
-			texturePos = ETextureOrientation.TOPRIGHT;
-			textureIndex = getBorder(topLandscape, leftLandscape, useSecond);
-		}
-
-		int[] positions = TEXTURE_POSITIONS[textureIndex];
-		// texture position
-		int adddx = 0;
-		int adddy = 0;
-		if (positions[2] >= 2) {
-			adddx = x * DrawConstants.DISTANCE_X - y * DrawConstants.DISTANCE_X / 2;
-			adddy = y * DrawConstants.DISTANCE_Y;
-			adddx = realModulo(adddx, (positions[2] - 1) * TEXTURE_GRID);
-			adddy = realModulo(adddy, (positions[2] - 1) * TEXTURE_GRID);
-		}
-		adddx += positions[0] * TEXTURE_GRID;
-		adddy += positions[1] * TEXTURE_GRID;
-
-		float[] relativeTexCoordinates = texturePos.getRelativecoords();
-
-		{
-			// top
-			float u = (relativeTexCoordinates[0] + adddx) / TEXTURE_SIZE;
-			float v = (relativeTexCoordinates[1] + adddy) / TEXTURE_SIZE;
-			addPointToGeometry(context, buffer, x, y, u, v, fogBase);
-		}
-		{
-			// left
-			float u = (relativeTexCoordinates[2] + adddx) / TEXTURE_SIZE;
-			float v = (relativeTexCoordinates[3] + adddy) / TEXTURE_SIZE;
-			addPointToGeometry(context, buffer, x, y + 1, u, v, fogBase + 2);
-		}
-		{
-			// right
-			float u = (relativeTexCoordinates[4] + adddx) / TEXTURE_SIZE;
-			float v = (relativeTexCoordinates[5] + adddy) / TEXTURE_SIZE;
-			addPointToGeometry(context, buffer, x + 1, y + 1, u, v, fogBase + 3);
-		}
-	}
-
-	private void addPointToGeometry(MapDrawContext context, GLBuffer buffer, int x, int y, float u, float v, int fogOffset) {
-		buffer.putFloat(x);
-		buffer.putFloat(y);
-		buffer.putFloat(context.getHeight(x, y));
-
-		buffer.putFloat(u);
-		buffer.putFloat(v);
-
-		addVertexColor(context, buffer, x, y, fogOffset);
-	}
-
-	private static void addBlackPointToGeometry(MapDrawContext context, GLBuffer buffer, int x, int y) {
-		buffer.putFloat(x);
-		buffer.putFloat(y);
-		buffer.putFloat(context.getHeight(x, y));
-		buffer.putFloat(0);
-		buffer.putFloat(0);
-		buffer.putByte(BLACK[0]);
-		buffer.putByte(BLACK[1]);
-		buffer.putByte(BLACK[2]);
-		buffer.putByte(BLACK[3]);
-	}
-
-	private void addTriangle2ToGeometry(MapDrawContext context, GLBuffer buffer, int x, int y, int fogBase) {
-		ELandscapeType leftLandscape = context.getLandscape(x, y);
-		ELandscapeType bottomLandscape = context.getLandscape(x + 1, y + 1);
-		ELandscapeType rightLandscape = context.getLandscape(x + 1, y);
-
-		boolean useSecond = (x & 0x1) == 0;
-		ETextureOrientation texturePos;
-		int textureIndex;
-		if (bottomLandscape == leftLandscape && bottomLandscape == rightLandscape) {
-			texturePos = ETextureOrientation.CONTINUOUS_DOWN;
-			textureIndex = bottomLandscape.getImageNumber();
-		} else if (leftLandscape == rightLandscape) {
-			texturePos = ETextureOrientation.TOP;
-			textureIndex = getBorder(leftLandscape, bottomLandscape, useSecond);
-		} else if (leftLandscape == bottomLandscape) {
-			texturePos = ETextureOrientation.BOTTOMLEFT;
-			textureIndex = getBorder(leftLandscape, rightLandscape, useSecond);
-		} else {
-			texturePos = ETextureOrientation.BOTTOMRIGHT;
-			textureIndex = getBorder(rightLandscape, leftLandscape, useSecond);
-		}
-
-		int[] positions = TEXTURE_POSITIONS[textureIndex];
-		// texture position
-		int addDx = 0;
-		int addDy = 0;
-		if (positions[2] >= 2) {
-			addDx = x * DrawConstants.DISTANCE_X - y * DrawConstants.DISTANCE_X / 2;
-			addDy = y * DrawConstants.DISTANCE_Y;
-			addDx = realModulo(addDx, (positions[2] - 1) * TEXTURE_GRID);
-			addDy = realModulo(addDy, (positions[2] - 1) * TEXTURE_GRID);
-		}
-		addDx += positions[0] * TEXTURE_GRID;
-		addDy += positions[1] * TEXTURE_GRID;
-
-		float[] relativeTexCoordinates = texturePos.getRelativecoords();
-
-		{
-			// left
-			float u = (relativeTexCoordinates[0] + addDx) / TEXTURE_SIZE;
-			float v = (relativeTexCoordinates[1] + addDy) / TEXTURE_SIZE;
-			addPointToGeometry(context, buffer, x, y, u, v, fogBase);
-		}
-		{
-			// bottom
-			float u = (relativeTexCoordinates[2] + addDx) / TEXTURE_SIZE;
-			float v = (relativeTexCoordinates[3] + addDy) / TEXTURE_SIZE;
-			addPointToGeometry(context, buffer, x + 1, y + 1, u, v, fogBase + 3);
-		}
-		{
-			// right
-			float u = (relativeTexCoordinates[4] + addDx) / TEXTURE_SIZE;
-			float v = (relativeTexCoordinates[5] + addDy) / TEXTURE_SIZE;
-			addPointToGeometry(context, buffer, x + 1, y, u, v, fogBase + 1);
-		}
-
-	}
-
-	private static int realModulo(int number, int modulo) {
-		if (number >= 0) {
-			return number % modulo;
-		} else {
-			return number % modulo + modulo;
-		}
+	@Override
+	public void backgroundChangedAt(int x, int y) {
+		geometry.backgroundChangedAt(x, y);
 	}
 
-	private void addVertexColor(MapDrawContext context, GLBuffer buffer, int x, int y, int fogOffset) {
-		byte color;
-
-		if (x <= 0 || x >= context.getMap().getWidth() - 2 || y <= 0 || y >= context.getMap().getHeight() - 2 || context.getVisibleStatus(x, y) <= 0) {
-			color = 0;
-		} else {
-			int height1 = context.getHeight(x, y - 1);
-			int height2 = context.getHeight(x, y);
-			float fColor = 0.85f + (height1 - height2) * .15f;
-			if (fColor > 1.0f) {
-				fColor = 1.0f;
-			} else if (fColor < 0.4f) {
-				fColor = 0.4f;
-			}
-			fColor *= (float) fogOfWarStatus[fogOffset] / CommonConstants.FOG_OF_WAR_VISIBLE;
-			fColor *= 255f;
-			color = (byte) (int) fColor;
-		}
-
-		buffer.putByte(color);
-		buffer.putByte(color);
-		buffer.putByte(color);
-		buffer.putByte((byte) 255);
+	@Override
+	public void playerChangedAt(int x, int y) {
 	}
 
 	@Override
-	public void backgroundChangedAt(int x, int y) {
-		if (oldBufferPosition != null) {
-			if (oldBufferPosition.contains(x, y)) {
-				invalidatePoint(x, y);
-			}
-			if (oldBufferPosition.contains(x - 1, y)) {
-				invalidatePoint(x - 1, y);
-			}
-			if (oldBufferPosition.contains(x - 1, y - 1)) {
-				invalidatePoint(x - 1, y - 1);
-			}
-			if (oldBufferPosition.contains(x, y - 1)) {
-				invalidatePoint(x, y - 1);
-			}
-		}
+	public void fogOfWarChangedIn(int minX, int minY, int maxX, int maxY) {
+		// the fog of war of the visible area is compared on every update
 	}
 
 	/**
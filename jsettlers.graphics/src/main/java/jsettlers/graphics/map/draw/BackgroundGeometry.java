@@ -0,0 +1,587 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.graphics.map.draw;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import go.graphics.GLDrawContext.GLBuffer;
+
+import java8.util.concurrent.ForkJoinPool;
+import java8.util.concurrent.RecursiveAction;
+import jsettlers.common.CommonConstants;
+import jsettlers.common.landscape.ELandscapeType;
+import jsettlers.common.map.shapes.MapRectangle;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.graphics.map.MapDrawContext;
+
+/**
+ * The geometry of the map background.
+ * <p>
+ * The geometry of the visible area is kept in a buffer in main memory, in which every map point has its two triangles. The buffer is used as a ring in
+ * both directions, so scrolling only needs to generate the new points. The lines of the area are generated in chunks on the worker threads of the
+ * {@link ForkJoinPool}. The opengl thread only uploads the points that have been rewritten to the opengl buffer.
+ * <p>
+ * Changes of the background are put into a lock free queue by the game thread and are applied at the start of the next update.
+ */
+class BackgroundGeometry {
+	private static final short FLOAT_SIZE = 4;
+	/**
+	 * How many bytes are needed per vertex
+	 */
+	static final short VERTEX_SIZE = 6 * FLOAT_SIZE;
+	/**
+	 * How many bytes are needed per map point: two triangles.
+	 */
+	static final int POINT_SIZE = 2 * 3 * VERTEX_SIZE;
+
+	/**
+	 * The number of lines generated by one task.
+	 */
+	private static final int CHUNK_LINES = 8;
+	/**
+	 * If more changes are queued, the whole area is regenerated instead.
+	 */
+	private static final int MAX_QUEUED_CHANGES = 4096;
+
+	private static final byte DIM_MAX = 20;
+
+	private static final byte[] BLACK = new byte[] {
+			0, 0, 0, (byte) 255
+	};
+
+	private final boolean parallel;
+
+	private final Queue<ShortPoint2D> changedPositions = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger queuedChanges = new AtomicInteger();
+
+	private int bufferWidth = 1; // in map points.
+	private int bufferHeight = 1; // in map points.
+	private ByteBuffer geometry;
+	private byte[] fogOfWarStatus;
+	private boolean[] fowDimmed;
+	private boolean[] invalid;
+	private boolean[] invalidForNextPass;
+	private boolean[] rewritten;
+	private MapRectangle oldBufferPosition = new MapRectangle(0, 0, 0, 0);
+
+	/**
+	 * Creates a new geometry.
+	 *
+	 * @param parallel
+	 *            If the chunks of lines should be generated in parallel. If not, they are generated one after the other by the calling thread.
+	 */
+	BackgroundGeometry(boolean parallel) {
+		this.parallel = parallel;
+		resize(1, 1);
+	}
+
+	/**
+	 * Resizes the buffer to the given number of points. All points need to be regenerated afterwards.
+	 */
+	void resize(int width, int height) {
+		bufferWidth = width;
+		bufferHeight = height;
+		int count = width * height;
+		geometry = ByteBuffer.allocateDirect(count * POINT_SIZE).order(ByteOrder.nativeOrder());
+		fogOfWarStatus = new byte[count * 4];
+		fowDimmed = new boolean[count * 4];
+		invalid = new boolean[count];
+		invalidForNextPass = new boolean[count];
+		rewritten = new boolean[count];
+	}
+
+	int getBufferWidth() {
+		return bufferWidth;
+	}
+
+	int getBufferHeight() {
+		return bufferHeight;
+	}
+
+	/**
+	 * @return The number of bytes of the geometry.
+	 */
+	int getSize() {
+		return geometry.capacity();
+	}
+
+	int getTriangleCount() {
+		return bufferWidth * bufferHeight * 2;
+	}
+
+	/**
+	 * @return The generated geometry. It must not be changed.
+	 */
+	ByteBuffer getGeometry() {
+		return geometry.duplicate().order(ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * Regenerates the points of the area that changed since the last update. The fog of war of every point is dimmed by one step towards its new
+	 * value.
+	 *
+	 * @param context
+	 *            The context to get the map from.
+	 * @param area
+	 *            The area to show. Its width and height need to match the buffer size.
+	 * @param redrawAll
+	 *            If all points of the area should be regenerated.
+	 */
+	void update(MapDrawContext context, MapRectangle area, boolean redrawAll) {
+		applyChangedPositions();
+		Arrays.fill(fowDimmed, false);
+
+		if (parallel) {
+			ForkJoinPool.commonPool().invoke(new UpdateLinesAction(context, area, redrawAll, 0, bufferHeight));
+		} else {
+			updateLines(context, area, redrawAll, 0, bufferHeight);
+		}
+
+		for (int i = 0; i < invalidForNextPass.length; i++) {
+			if (invalidForNextPass[i]) {
+				invalid[i] = true;
+				invalidForNextPass[i] = false;
+			}
+		}
+		oldBufferPosition = area;
+	}
+
+	/**
+	 * Uploads all points that were rewritten since the last upload.
+	 *
+	 * @param target
+	 *            The opengl buffer holding the geometry of the last upload.
+	 */
+	void upload(GLBuffer target) {
+		int count = rewritten.length;
+		for (int start = 0; start < count; start++) {
+			if (rewritten[start]) {
+				int end = start;
+				while (end < count && rewritten[end]) {
+					rewritten[end] = false;
+					end++;
+				}
+
+				ByteBuffer points = geometry.duplicate();
+				points.limit(end * POINT_SIZE);
+				points.position(start * POINT_SIZE);
+				target.position(start * POINT_SIZE);
+				target.put(points);
+				start = end;
+			}
+		}
+	}
+
+	/**
+	 * Marks the background at the given position as changed. This method may be called by any thread.
+	 */
+	void backgroundChangedAt(int x, int y) {
+		if (queuedChanges.incrementAndGet() <= MAX_QUEUED_CHANGES) {
+			changedPositions.add(new ShortPoint2D(x, y));
+		}
+	}
+
+	private void applyChangedPositions() {
+		int changes = queuedChanges.getAndSet(0);
+		if (changes > MAX_QUEUED_CHANGES) {
+			changedPositions.clear();
+			Arrays.fill(invalid, true);
+			return;
+		}
+
+		ShortPoint2D position;
+		while ((position = changedPositions.poll()) != null) {
+			int x = position.x;
+			int y = position.y;
+			invalidateVisiblePoint(x, y);
+			invalidateVisiblePoint(x - 1, y);
+			invalidateVisiblePoint(x - 1, y - 1);
+			invalidateVisiblePoint(x, y - 1);
+		}
+	}
+
+	private void invalidateVisiblePoint(int x, int y) {
+		// the buffer has one more point per line than the area contains
+		int line = y - oldBufferPosition.getMinY();
+		if (line >= 0 && line < bufferHeight) {
+			int minX = oldBufferPosition.getLineStartX(line);
+			if (x >= minX && x < minX + bufferWidth) {
+				invalid[getBufferPosition(y, x)] = true;
+			}
+		}
+	}
+
+	/**
+	 * Updates the given lines of the area. Different lines never share a point of the buffer, so the lines can be updated in parallel.
+	 */
+	private void updateLines(MapDrawContext context, MapRectangle area, boolean redrawAll, int fromLine, int toLine) {
+		ByteBuffer buffer = geometry.duplicate().order(ByteOrder.nativeOrder());
+
+		int width = context.getMap().getWidth();
+		int height = context.getMap().getHeight();
+		int oldBufferTop = oldBufferPosition.getLineY(0);
+		int oldBufferBottom = oldBufferTop + bufferHeight; // excluding
+
+		for (int line = fromLine; line < toLine; line++) {
+
+			int y = area.getLineY(line);
+			int minx = area.getLineStartX(line);
+			int maxx = minx + bufferWidth;
+			int oldMinX = 0;
+			int oldMaxX = 0; // excluding
+			if (y >= oldBufferTop && y < oldBufferBottom) {
+				oldMinX = oldBufferPosition.getLineStartX(y - oldBufferTop);
+				oldMaxX = oldMinX + bufferWidth;
+			}
+			boolean lineIsInMap = y >= 0 && y < height;
+
+			for (int x = minx; x < maxx; x++) {
+				int bufferPosition = getBufferPosition(y, x);
+				if (redrawAll || oldMinX > x || oldMaxX <= x) {
+					redrawPoint(buffer, context, x, y, false, bufferPosition);
+				} else if (lineIsInMap && x >= 0 && x < width) {
+					if (invalid[bufferPosition]) {
+						invalid[bufferPosition] = false;
+						redrawPoint(buffer, context, x, y, true, bufferPosition);
+					} else if (context.getVisibleStatus(x, y) != fogOfWarStatus[bufferPosition * 4]) {
+						redrawPoint(buffer, context, x, y, true, bufferPosition);
+						// the neighbors share the vertex of this point
+						invalidForNextPass[getBufferPosition(y, x - 1)] = true;
+						invalidForNextPass[getBufferPosition(y - 1, x - 1)] = true;
+						invalidForNextPass[getBufferPosition(y - 1, x)] = true;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Redraws a point on the map to the buffer.
+	 * 
+	 * @param buffer
+	 *            The buffer to use
+	 * @param context
+	 *            The context
+	 * @param x
+	 *            The x coordinate of the point
+	 * @param y
+	 *            The y coordinate of the point
+	 * @param wasVisible
+	 *            true if and only if the point was already in the buffer.
+	 */
+	private void redrawPoint(ByteBuffer buffer, MapDrawContext context, int x, int y, boolean wasVisible, int pointOffset) {
+		buffer.position(pointOffset * POINT_SIZE);
+		rewritten[pointOffset] = true;
+
+		if (x >= 0 && y >= 0 && x < context.getMap().getWidth() - 1 && y < context.getMap().getHeight() - 1) {
+			if (wasVisible) {
+				dimFogOfWarBuffer(context, (pointOffset * 4), x, y);
+				dimFogOfWarBuffer(context, (pointOffset * 4) + 1, x + 1, y);
+				dimFogOfWarBuffer(context, (pointOffset * 4) + 2, x, y + 1);
+				dimFogOfWarBuffer(context, (pointOffset * 4) + 3, x + 1, y + 1);
+			} else {
+				addFogOfWarBuffer(context, (pointOffset * 4), x, y);
+				addFogOfWarBuffer(context, (pointOffset * 4) + 1, x + 1, y);
+				addFogOfWarBuffer(context, (pointOffset * 4) + 2, x, y + 1);
+				addFogOfWarBuffer(context, (pointOffset * 4) + 3, x + 1, y + 1);
+			}
+			addTrianglesToGeometry(context, buffer, x, y, pointOffset * 4);
+		} else {
+			addPseudoTrianglesToGeometry(context, buffer, x, y);
+		}
+	}
+
+	private void addFogOfWarBuffer(MapDrawContext context, int offset, int x, int y) {
+		fogOfWarStatus[offset] = context.getVisibleStatus(x, y);
+	}
+
+	/**
+	 * Dims the fog of war buffer
+	 * 
+	 * @param context
+	 *            The context
+	 * @param offset
+	 *            The fog of war buffer offset
+	 * @param x
+	 *            The x coordinate of the tile
+	 * @param y
+	 *            The y coordinate of the tile.
+	 */
+	private void dimFogOfWarBuffer(MapDrawContext context, int offset, int x, int y) {
+		if (!fowDimmed[offset]) {
+			byte newFog = context.getVisibleStatus(x, y);
+			fogOfWarStatus[offset] = dim(fogOfWarStatus[offset], newFog);
+			fowDimmed[offset] = true;
+		}
+	}
+
+	private static byte dim(byte value, byte dimTo) {
+		if (value < dimTo - DIM_MAX) {
+			return (byte) (dimTo - DIM_MAX);
+		} else if (value > dimTo + DIM_MAX) {
+			return (byte) (dimTo + DIM_MAX);
+		} else if (value > dimTo) {
+			return (byte) (value - 1);
+		} else if (value < dimTo) {
+			return (byte) (value + 1);
+		} else {
+			return value;
+		}
+	}
+
+	private int getBufferPosition(int y, int x) {
+		int linePos = y % bufferHeight;
+		int colPos = x % bufferWidth;
+		while (linePos < 0) {
+			linePos += bufferHeight;
+		}
+		while (colPos < 0) {
+			colPos += bufferWidth;
+		}
+
+		return (linePos * bufferWidth + colPos);
+	}
+
+	private void addTrianglesToGeometry(MapDrawContext context, ByteBuffer buffer, int x, int y, int fogBase) {
+		addTriangle1ToGeometry(context, buffer, x, y, fogBase);
+		addTriangle2ToGeometry(context, buffer, x, y, fogBase);
+	}
+
+	private static void addPseudoTrianglesToGeometry(MapDrawContext context, ByteBuffer buffer, int x, int y) { // manually do everything...
+		addBlackPointToGeometry(context, buffer, x, y);
+		addBlackPointToGeometry(context, buffer, x, y + 1);
+		addBlackPointToGeometry(context, buffer, x + 1, y + 1);
+		addBlackPointToGeometry(context, buffer, x, y);
+		addBlackPointToGeometry(context, buffer, x + 1, y + 1);
+		addBlackPointToGeometry(context, buffer, x + 1, y);
+	}
+
+	/**
+	 * Draws the triangle that is facing up
+	 * 
+	 * @param context
+	 * @param buffer
+	 * @param x
+	 * @param y
+	 * @param fogBase
+	 */
+	private void addTriangle1ToGeometry(MapDrawContext context, ByteBuffer buffer, int x, int y, int fogBase) {
+		ELandscapeType topLandscape = context.getLandscape(x, y);
+		ELandscapeType leftLandscape = context.getLandscape(x, y + 1);
+		ELandscapeType rightLandscape = context.getLandscape(x + 1, y + 1);
+
+		boolean useSecond = ((x * 37 + y * 17) & 0x1) == 0;
+		ETextureOrientation texturePos;
+		int textureIndex;
+		if (topLandscape == leftLandscape && topLandscape == rightLandscape) {
+			textureIndex = topLandscape.getImageNumber();
+			texturePos = ETextureOrientation.CONTINUOUS_UP;
+		} else if (leftLandscape == rightLandscape) {
+			texturePos = ETextureOrientation.BOTTOM;
+			textureIndex = Background.getBorder(leftLandscape, topLandscape, useSecond);
+		} else if (leftLandscape == topLandscape) {
+			texturePos = ETextureOrientation.TOPLEFT;
+			textureIndex = Background.getBorder(leftLandscape, rightLandscape, useSecond);
+		} else {
+			texturePos = ETextureOrientation.TOPRIGHT;
+			textureIndex = Background.getBorder(topLandscape, leftLandscape, useSecond);
+		}
+
+		int[] positions = Background.TEXTURE_POSITIONS[textureIndex];
+		// texture position
+		int adddx = 0;
+		int adddy = 0;
+		if (positions[2] >= 2) {
+			adddx = x * DrawConstants.DISTANCE_X - y * DrawConstants.DISTANCE_X / 2;
+			adddy = y * DrawConstants.DISTANCE_Y;
+			adddx = realModulo(adddx, (positions[2] - 1) * Background.TEXTURE_GRID);
+			adddy = realModulo(adddy, (positions[2] - 1) * Background.TEXTURE_GRID);
+		}
+		adddx += positions[0] * Background.TEXTURE_GRID;
+		adddy += positions[1] * Background.TEXTURE_GRID;
+
+		float[] relativeTexCoordinates = texturePos.getRelativecoords();
+
+		{
+			// top
+			float u = (relativeTexCoordinates[0] + adddx) / Background.TEXTURE_SIZE;
+			float v = (relativeTexCoordinates[1] + adddy) / Background.TEXTURE_SIZE;
+			addPointToGeometry(context, buffer, x, y, u, v, fogBase);
+		}
+		{
+			// left
+			float u = (relativeTexCoordinates[2] + adddx) / Background.TEXTURE_SIZE;
+			float v = (relativeTexCoordinates[3] + adddy) / Background.TEXTURE_SIZE;
+			addPointToGeometry(context, buffer, x, y + 1, u, v, fogBase + 2);
+		}
+		{
+			// right
+			float u = (relativeTexCoordinates[4] + adddx) / Background.TEXTURE_SIZE;
+			float v = (relativeTexCoordinates[5] + adddy) / Background.TEXTURE_SIZE;
+			addPointToGeometry(context, buffer, x + 1, y + 1, u, v, fogBase + 3);
+		}
+	}
+
+	private void addPointToGeometry(MapDrawContext context, ByteBuffer buffer, int x, int y, float u, float v, int fogOffset) {
+		buffer.putFloat(x);
+		buffer.putFloat(y);
+		buffer.putFloat(context.getHeight(x, y));
+
+		buffer.putFloat(u);
+		buffer.putFloat(v);
+
+		addVertexColor(context, buffer, x, y, fogOffset);
+	}
+
+	private static void addBlackPointToGeometry(MapDrawContext context, ByteBuffer buffer, int x, int y) {
+		buffer.putFloat(x);
+		buffer.putFloat(y);
+		buffer.putFloat(context.getHeight(x, y));
+		buffer.putFloat(0);
+		buffer.putFloat(0);
+		buffer.put(BLACK[0]);
+		buffer.put(BLACK[1]);
+		buffer.put(BLACK[2]);
+		buffer.put(BLACK[3]);
+	}
+
+	private void addTriangle2ToGeometry(MapDrawContext context, ByteBuffer buffer, int x, int y, int fogBase) {
+		ELandscapeType leftLandscape = context.getLandscape(x, y);
+		ELandscapeType bottomLandscape = context.getLandscape(x + 1, y + 1);
+		ELandscapeType rightLandscape = context.getLandscape(x + 1, y);
+
+		boolean useSecond = (x & 0x1) == 0;
+		ETextureOrientation texturePos;
+		int textureIndex;
+		if (bottomLandscape == leftLandscape && bottomLandscape == rightLandscape) {
+			texturePos = ETextureOrientation.CONTINUOUS_DOWN;
+			textureIndex = bottomLandscape.getImageNumber();
+		} else if (leftLandscape == rightLandscape) {
+			texturePos = ETextureOrientation.TOP;
+			textureIndex = Background.getBorder(leftLandscape, bottomLandscape, useSecond);
+		} else if (leftLandscape == bottomLandscape) {
+			texturePos = ETextureOrientation.BOTTOMLEFT;
+			textureIndex = Background.getBorder(leftLandscape, rightLandscape, useSecond);
+		} else {
+			texturePos = ETextureOrientation.BOTTOMRIGHT;
+			textureIndex = Background.getBorder(rightLandscape, leftLandscape, useSecond);
+		}
+
+		int[] positions = Background.TEXTURE_POSITIONS[textureIndex];
+		// texture position
+		int addDx = 0;
+		int addDy = 0;
+		if (positions[2] >= 2) {
+			addDx = x * DrawConstants.DISTANCE_X - y * DrawConstants.DISTANCE_X / 2;
+			addDy = y * DrawConstants.DISTANCE_Y;
+			addDx = realModulo(addDx, (positions[2] - 1) * Background.TEXTURE_GRID);
+			addDy = realModulo(addDy, (positions[2] - 1) * Background.TEXTURE_GRID);
+		}
+		addDx += positions[0] * Background.TEXTURE_GRID;
+		addDy += positions[1] * Background.TEXTURE_GRID;
+
+		float[] relativeTexCoordinates = texturePos.getRelativecoords();
+
+		{
+			// left
+			float u = (relativeTexCoordinates[0] + addDx) / Background.TEXTURE_SIZE;
+			float v = (relativeTexCoordinates[1] + addDy) / Background.TEXTURE_SIZE;
+			addPointToGeometry(context, buffer, x, y, u, v, fogBase);
+		}
+		{
+			// bottom
+			float u = (relativeTexCoordinates[2] + addDx) / Background.TEXTURE_SIZE;
+			float v = (relativeTexCoordinates[3] + addDy) / Background.TEXTURE_SIZE;
+			addPointToGeometry(context, buffer, x + 1, y + 1, u, v, fogBase + 3);
+		}
+		{
+			// right
+			float u = (relativeTexCoordinates[4] + addDx) / Background.TEXTURE_SIZE;
+			float v = (relativeTexCoordinates[5] + addDy) / Background.TEXTURE_SIZE;
+			addPointToGeometry(context, buffer, x + 1, y, u, v, fogBase + 1);
+		}
+
+	}
+
+	private static int realModulo(int number, int modulo) {
+		if (number >= 0) {
+			return number % modulo;
+		} else {
+			return number % modulo + modulo;
+		}
+	}
+
+	private void addVertexColor(MapDrawContext context, ByteBuffer buffer, int x, int y, int fogOffset) {
+		byte color;
+
+		if (x <= 0 || x >= context.getMap().getWidth() - 2 || y <= 0 || y >= context.getMap().getHeight() - 2 || context.getVisibleStatus(x, y) <= 0) {
+			color = 0;
+		} else {
+			int height1 = context.getHeight(x, y - 1);
+			int height2 = context.getHeight(x, y);
+			float fColor = 0.85f + (height1 - height2) * .15f;
+			if (fColor > 1.0f) {
+				fColor = 1.0f;
+			} else if (fColor < 0.4f) {
+				fColor = 0.4f;
+			}
+			fColor *= (float) fogOfWarStatus[fogOffset] / CommonConstants.FOG_OF_WAR_VISIBLE;
+			fColor *= 255f;
+			color = (byte) (int) fColor;
+		}
+
+		buffer.put(color);
+		buffer.put(color);
+		buffer.put(color);
+		buffer.put((byte) 255);
+	}
+
+	/**
+	 * Updates a range of lines. Ranges that are too big are split into two halves, which are updated in parallel.
+	 */
+	private class UpdateLinesAction extends RecursiveAction {
+		private static final long serialVersionUID = 7407217283437398468L;
+
+		private final MapDrawContext context;
+		private final MapRectangle area;
+		private final boolean redrawAll;
+		private final int fromLine;
+		private final int toLine;
+
+		UpdateLinesAction(MapDrawContext context, MapRectangle area, boolean redrawAll, int fromLine, int toLine) {
+			this.context = context;
+			this.area = area;
+			this.redrawAll = redrawAll;
+			this.fromLine = fromLine;
+			this.toLine = toLine;
+		}
+
+		@Override
+		protected void compute() {
+			if (toLine - fromLine > CHUNK_LINES) {
+				int middle = (fromLine + toLine) / 2;
+				invokeAll(new UpdateLinesAction(context, area, redrawAll, fromLine, middle),
+						new UpdateLinesAction(context, area, redrawAll, middle, toLine));
+			} else {
+				updateLines(context, area, redrawAll, fromLine, toLine);
+			}
+		}
+	}
+}
@@ -14,9 +14,12 @@
  *******************************************************************************/
 package jsettlers.graphics.map.minimap;
 
+import java.util.BitSet;
+
 import jsettlers.common.Color;
 import jsettlers.common.CommonConstants;
 import jsettlers.common.buildings.IBuilding;
+import jsettlers.common.map.IGraphicsBackgroundListener;
 import jsettlers.common.map.IGraphicsGrid;
 import jsettlers.common.mapobject.EMapObjectType;
 import jsettlers.common.mapobject.IMapObject;
@@ -27,22 +30,41 @@ import jsettlers.graphics.map.minimap.MinimapMode.SettlersMode;
 
 /**
  * This class does the minimap line loading without knowing how to store the data.
+ * <p>
+ * The pixels of changed landscape positions, players, borders and fog of war are calculated as soon as the change is reported to this
+ * {@link IGraphicsBackgroundListener}. Only settlers and buildings are updated by a slow sweep over the minimap, which doesn't run while neither of
+ * them is displayed.
  * 
  * @author Michael Zangl
  */
-public abstract class AbstractLineLoader implements Runnable {
+public abstract class AbstractLineLoader implements Runnable, IGraphicsBackgroundListener {
 	protected static final short BLACK = Color.BLACK.toShortColor(1);
 	protected static final short TRANSPARENT = 0;
 	private static final int Y_STEP_HEIGHT = 5;
 	private static final int X_STEP_WIDTH = 5;
 	private static final int LINES_PER_RUN = 30;
+	private static final long SWEEP_INTERVAL = 100; // ms between two runs of the sweep
 
 	private int currentLine = 0;
-	private boolean stopped;
+	private volatile boolean stopped;
 	private int workingMinimapWidth = -1;
 	private int workingMinimapHeight = -1;
 	private int currYOffset = 0;
 	private int currXOffset = 0;
+	private long nextSweepTime = 0;
+	private SettlersMode sweptSettlersMode;
+	private OccupiedAreaMode sweptOccupiedMode;
+	private boolean sweptBuildings;
+
+	/**
+	 * The pixels (x + y * width) that need to be calculated because the landscape, the player or the fog of war has changed. Guarded by this.
+	 */
+	private final BitSet dirtyPixels = new BitSet();
+	private final BitSet updatedLines = new BitSet();
+
+	private int calculatedPixels = 0;
+	private long countingStartTime = System.currentTimeMillis();
+	private volatile int calculatedPixelsPerSecond = 0;
 
 	private final MinimapMode modeSettings;
 	protected final IMinimapData minimapData;
@@ -61,7 +83,7 @@ public abstract class AbstractLineLoader implements Runnable {
 	public void run() {
 		while (!stopped) {
 			try {
-				updateLine();
+				updateLines();
 			} catch (Throwable e) {
 				e.printStackTrace();
 			}
@@ -69,25 +91,95 @@ public abstract class AbstractLineLoader implements Runnable {
 	}
 
 	/**
-	 * Updates a line by putting it to the update buffer. Next time the gl context is available, it is updated.
+	 * Updates the changed pixels and the next lines of the sweep by putting them to the update buffer. Next time the gl context is available, it is
+	 * updated.
 	 */
-	private void updateLine() {
+	private void updateLines() throws InterruptedException {
 		minimapData.blockUntilUpdateAllowedOrStopped();
-		for (int i = 0; i < LINES_PER_RUN; i++) {
-			int width = minimapData.getWidth();
-			int height = minimapData.getHeight();
-			if (workingMinimapWidth != width || workingMinimapHeight != height) {
+		waitForDirtyPixelsOrSweep();
+
+		int width = minimapData.getWidth();
+		int height = minimapData.getHeight();
+		if (workingMinimapWidth != width || workingMinimapHeight != height) {
+			resizeBuffer(width, height);
+			resizeBackground(width, height);
+			currentLine = 0;
+			currXOffset = 0;
+			currYOffset = 0;
+
+			synchronized (this) {
 				workingMinimapWidth = width;
 				workingMinimapHeight = height;
-				resizeBuffer(width, height);
-				resizeBackground(width, height);
-				currentLine = 0;
-				currXOffset = 0;
-				currYOffset = 0;
+				dirtyPixels.clear();
+				dirtyPixels.set(0, width * height);
+			}
+		}
+		if (hasModeChanged()) {
+			synchronized (this) {
+				dirtyPixels.set(0, width * height);
+			}
+		}
+
+		updateDirtyPixels();
+
+		long now = System.currentTimeMillis();
+		if (now >= nextSweepTime) {
+			nextSweepTime = now + SWEEP_INTERVAL;
+			if (sweptSettlersMode != SettlersMode.NONE || sweptBuildings) {
+				sweepLines();
 			}
+		}
+
+		for (int line = updatedLines.nextSetBit(0); line >= 0; line = updatedLines.nextSetBit(line + 1)) {
+			markLineUpdate(line);
+		}
+		updatedLines.clear();
+
+		countCalculatedPixels(now);
+	}
+
+	private synchronized void waitForDirtyPixelsOrSweep() throws InterruptedException {
+		long now = System.currentTimeMillis();
+		while (!stopped && dirtyPixels.isEmpty() && now < nextSweepTime) {
+			wait(nextSweepTime - now);
+			now = System.currentTimeMillis();
+		}
+	}
 
+	private boolean hasModeChanged() {
+		SettlersMode settlersMode = modeSettings.getDisplaySettlers();
+		OccupiedAreaMode occupiedMode = modeSettings.getDisplayOccupied();
+		boolean buildings = modeSettings.getDisplayBuildings();
+		if (settlersMode == sweptSettlersMode && occupiedMode == sweptOccupiedMode && buildings == sweptBuildings) {
+			return false;
+		}
+		sweptSettlersMode = settlersMode;
+		sweptOccupiedMode = occupiedMode;
+		sweptBuildings = buildings;
+		return true;
+	}
+
+	private void updateDirtyPixels() {
+		BitSet pixels;
+		synchronized (this) {
+			if (dirtyPixels.isEmpty()) {
+				return;
+			}
+			pixels = (BitSet) dirtyPixels.clone();
+			dirtyPixels.clear();
+		}
+
+		for (int pixel = pixels.nextSetBit(0); pixel >= 0; pixel = pixels.nextSetBit(pixel + 1)) {
+			int line = pixel / workingMinimapWidth;
+			calculatePixel(line, pixel % workingMinimapWidth);
+			updatedLines.set(line);
+		}
+	}
+
+	private void sweepLines() {
+		for (int i = 0; i < LINES_PER_RUN; i++) {
 			calculateLineData(currentLine);
-			markLineUpdate(currentLine);
+			updatedLines.set(currentLine);
 
 			currentLine += Y_STEP_HEIGHT;
 			if (currentLine >= workingMinimapHeight) {
@@ -103,6 +195,72 @@ public abstract class AbstractLineLoader implements Runnable {
 		}
 	}
 
+	private void countCalculatedPixels(long now) {
+		long countingTime = now - countingStartTime;
+		if (countingTime >= 1000) {
+			calculatedPixelsPerSecond = (int) (calculatedPixels * 1000L / countingTime);
+			calculatedPixels = 0;
+			countingStartTime = now;
+		}
+	}
+
+	/**
+	 * @return The number of minimap pixels calculated per second, measured over the last second the loader was active.
+	 */
+	public int getCalculatedPixelsPerSecond() {
+		return calculatedPixelsPerSecond;
+	}
+
+	/**
+	 * Marks the pixels showing the given map position to be calculated again. This method may be called by any thread.
+	 */
+	@Override
+	public void backgroundChangedAt(int x, int y) {
+		// the line below also shows the height of the position for its shades
+		markMapAreaDirty(x, y, x + 1, y + 1, 1);
+	}
+
+	/**
+	 * Marks the pixels showing the given map position to be calculated again, as its player or border has changed. This method may be called by any
+	 * thread.
+	 */
+	@Override
+	public void playerChangedAt(int x, int y) {
+		markMapAreaDirty(x, y, x + 1, y + 1, 0);
+	}
+
+	/**
+	 * Marks the pixels showing the given map area to be calculated again, as its fog of war has changed. This method may be called by any thread.
+	 */
+	@Override
+	public void fogOfWarChangedIn(int minX, int minY, int maxX, int maxY) {
+		markMapAreaDirty(minX, minY, maxX, maxY, 0);
+	}
+
+	private void markMapAreaDirty(int mapMinX, int mapMinY, int mapMaxX, int mapMaxY, int shadeLines) {
+		IGraphicsGrid map = minimapData.getContext().getMap();
+		short mapWidth = map.getWidth();
+		short mapHeight = map.getHeight();
+
+		synchronized (this) {
+			int width = workingMinimapWidth;
+			int height = workingMinimapHeight;
+			if (width <= 0 || height <= 0) {
+				return;
+			}
+
+			int minLine = Math.max(0, (int) ((1 - (float) mapMaxY / mapHeight) * height) - 1);
+			int maxLine = Math.min(height - 1, (int) ((1 - (float) mapMinY / mapHeight) * height) + 1 + shadeLines);
+			int minX = Math.max(0, (int) ((float) mapMinX / mapWidth * width) - 1);
+			int maxX = Math.min(width - 1, (int) ((float) mapMaxX / mapWidth * width) + 1);
+
+			for (int line = minLine; line <= maxLine; line++) {
+				dirtyPixels.set(minX + line * width, maxX + line * width + 1);
+			}
+			notifyAll();
+		}
+	}
+
 	private void resizeBackground(int width, int height) {
 		short[][] oldLandscape = landscape;
 		landscape = new short[height][width];
@@ -122,6 +280,14 @@ public abstract class AbstractLineLoader implements Runnable {
 	protected abstract void resizeBuffer(int width, int height);
 
 	private void calculateLineData(final int currentline) {
+		int myXOffset = (currXOffset + currentline * 3) % X_STEP_WIDTH;
+
+		for (int x = myXOffset; x < workingMinimapWidth; x += X_STEP_WIDTH) {
+			calculatePixel(currentline, x);
+		}
+	}
+
+	private void calculatePixel(final int currentline, final int x) {
 		// may change!
 		final int safeWidth = workingMinimapWidth;
 		final int safeHeight = workingMinimapHeight;
@@ -146,46 +312,43 @@ public abstract class AbstractLineLoader implements Runnable {
 			}
 		}
 
-		int myXOffset = (currXOffset + currentline * 3) % X_STEP_WIDTH;
-
-		for (int x = myXOffset; x < safeWidth; x += X_STEP_WIDTH) {
-			int mapMinX = (int) ((float) x / safeWidth * mapWidth);
-			int mapMaxX = (int) ((float) (x + 1) / safeWidth * mapWidth);
+		int mapMinX = (int) ((float) x / safeWidth * mapWidth);
+		int mapMaxX = (int) ((float) (x + 1) / safeWidth * mapWidth);
 
-			if (mapMinX != 0 && mapMaxX == mapMinX) {
-				mapMinX = mapMaxX - 1;
-			}
-			int centerX = (mapMaxX + mapMinX) / 2;
-			int centerY = (mapMaxY + mapMinY) / 2;
+		if (mapMinX != 0 && mapMaxX == mapMinX) {
+			mapMinX = mapMaxX - 1;
+		}
+		int centerX = (mapMaxX + mapMinX) / 2;
+		int centerY = (mapMaxY + mapMinY) / 2;
 
-			short color = TRANSPARENT;
-			byte visibleStatus = map.getVisibleStatus(centerX, centerY);
-			if (visibleStatus > CommonConstants.FOG_OF_WAR_EXPLORED) {
-				color = getSettlerForArea(map, context, mapMinX, mapMinY, mapMaxX, mapMaxY);
-			}
+		short color = TRANSPARENT;
+		byte visibleStatus = map.getVisibleStatus(centerX, centerY);
+		if (visibleStatus > CommonConstants.FOG_OF_WAR_EXPLORED) {
+			color = getSettlerForArea(map, context, mapMinX, mapMinY, mapMaxX, mapMaxY);
+		}
 
-			if (visibleStatus > CommonConstants.FOG_OF_WAR_EXPLORED || landscape[currentline][x] == TRANSPARENT) {
-				float basecolor = ((float) visibleStatus) / CommonConstants.FOG_OF_WAR_VISIBLE;
-				int dheight = map.getHeightAt(centerX, mapMinY) - map.getHeightAt(centerX, Math.min(mapMinY + mapLineHeight, mapHeight - 1));
-				basecolor *= 1 + .15f * dheight;
+		if (visibleStatus > CommonConstants.FOG_OF_WAR_EXPLORED || landscape[currentline][x] == TRANSPARENT) {
+			float basecolor = ((float) visibleStatus) / CommonConstants.FOG_OF_WAR_VISIBLE;
+			int dheight = map.getHeightAt(centerX, mapMinY) - map.getHeightAt(centerX, Math.min(mapMinY + mapLineHeight, mapHeight - 1));
+			basecolor *= 1 + .15f * dheight;
 
-				short landscapeColor;
-				if (basecolor >= 0) {
-					landscapeColor = getColorForArea(map, mapMinX, mapMinY, mapMaxX, mapMaxY).toShortColor(basecolor);
-				} else {
-					landscapeColor = BLACK;
-				}
-				if (color == TRANSPARENT) {
-					color = landscapeColor;
-				}
-				landscape[currentline][x] = landscapeColor;
+			short landscapeColor;
+			if (basecolor >= 0) {
+				landscapeColor = getColorForArea(map, mapMinX, mapMinY, mapMaxX, mapMaxY).toShortColor(basecolor);
+			} else {
+				landscapeColor = BLACK;
 			}
-
 			if (color == TRANSPARENT) {
-				color = landscape[currentline][x];
+				color = landscapeColor;
 			}
-			setBuffer(currentline, x, color);
+			landscape[currentline][x] = landscapeColor;
+		}
+
+		if (color == TRANSPARENT) {
+			color = landscape[currentline][x];
 		}
+		setBuffer(currentline, x, color);
+		calculatedPixels++;
 	}
 
 	protected abstract void setBuffer(int currentline, int x, short color);
@@ -264,5 +427,8 @@ public abstract class AbstractLineLoader implements Runnable {
 	 */
 	public void stop() {
 		stopped = true;
+		synchronized (this) {
+			notifyAll();
+		}
 	}
 }
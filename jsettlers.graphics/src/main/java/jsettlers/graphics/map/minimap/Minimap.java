@@ -227,6 +227,44 @@ public final class Minimap implements IMinimapData {
 		}
 	}
 
+	/**
+	 * Marks the pixels showing the given map position to be calculated again.
+	 *
+	 * @param x
+	 *            x coordinate of the changed map position.
+	 * @param y
+	 *            y coordinate of the changed map position.
+	 */
+	public void backgroundChangedAt(int x, int y) {
+		lineLoader.backgroundChangedAt(x, y);
+	}
+
+	/**
+	 * Marks the pixels showing the given map position to be calculated again, as its player or border has changed.
+	 *
+	 * @param x
+	 *            x coordinate of the changed map position.
+	 * @param y
+	 *            y coordinate of the changed map position.
+	 */
+	public void playerChangedAt(int x, int y) {
+		lineLoader.playerChangedAt(x, y);
+	}
+
+	/**
+	 * Marks the pixels showing the given map area to be calculated again, as its fog of war has changed.
+	 */
+	public void fogOfWarChangedIn(int minX, int minY, int maxX, int maxY) {
+		lineLoader.fogOfWarChangedIn(minX, minY, maxX, maxY);
+	}
+
+	/**
+	 * @return The number of minimap pixels calculated per second.
+	 */
+	public int getCalculatedPixelsPerSecond() {
+		return lineLoader.getCalculatedPixelsPerSecond();
+	}
+
 	public void setBufferArray(short[][] buffer) {
 		this.buffer = buffer;
 	}
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.graphics.image.reader.bytereader;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class ByteReaderTest {
+	private static final byte[] DATA = { 0x01, 0x02, (byte) 0xfe, (byte) 0xff, 0x04, 0x03, 0x02, 0x01, 0x7f };
+
+	@Test
+	public void testReadsLittleEndian() throws IOException {
+		ByteReader reader = createReader();
+
+		assertEquals(0x0201, reader.read16());
+		assertEquals(-2, reader.read16signed());
+		assertEquals(0x01020304, reader.read32());
+		assertEquals(0x7f, reader.read8());
+		assertEquals(DATA.length, reader.getReadBytes());
+	}
+
+	@Test
+	public void testDuplicatesHaveTheirOwnPosition() throws IOException {
+		ByteReader reader = createReader();
+		reader.skipTo(4);
+		ByteReader duplicate = reader.duplicate();
+
+		assertEquals(0x01020304, duplicate.read32());
+		duplicate.skipTo(0);
+		assertEquals(0x0201, duplicate.read16());
+
+		assertEquals(4, reader.getReadBytes());
+		assertEquals(0x01020304, reader.read32());
+	}
+
+	@Test(expected = EOFException.class)
+	public void testReadingBehindTheEndFails() throws IOException {
+		ByteReader reader = createReader();
+		reader.skipTo(DATA.length - 1);
+		reader.read16();
+	}
+
+	@Test(expected = IOException.class)
+	public void testSkippingBehindTheEndFails() throws IOException {
+		createReader().skipTo(DATA.length + 1);
+	}
+
+	private static ByteReader createReader() throws IOException {
+		File file = File.createTempFile("bytereader", ".dat");
+		file.deleteOnExit();
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(DATA);
+		}
+		return ByteReader.map(file);
+	}
+}
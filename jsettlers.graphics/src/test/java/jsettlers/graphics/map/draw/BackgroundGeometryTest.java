@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.graphics.map.draw;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+import go.graphics.GLDrawContext.GLBuffer;
+
+import jsettlers.common.CommonConstants;
+import jsettlers.common.landscape.ELandscapeType;
+import jsettlers.common.map.EDebugColorModes;
+import jsettlers.common.map.IGraphicsBackgroundListener;
+import jsettlers.common.map.IGraphicsGrid;
+import jsettlers.common.map.partition.IPartitionData;
+import jsettlers.common.map.shapes.MapRectangle;
+import jsettlers.common.mapobject.IMapObject;
+import jsettlers.common.movable.IMovable;
+import jsettlers.graphics.map.MapDrawContext;
+
+public class BackgroundGeometryTest {
+	private static final short MAP_SIZE = 200;
+	private static final int AREA_WIDTH = 50;
+	private static final int AREA_HEIGHT = 40;
+	private static final ELandscapeType[] LANDSCAPES = { ELandscapeType.GRASS, ELandscapeType.DESERT, ELandscapeType.WATER1, ELandscapeType.MOUNTAIN,
+			ELandscapeType.SAND };
+
+	private final Random random = new Random(1);
+	private final TestGrid grid = new TestGrid();
+	private final MapDrawContext context = new MapDrawContext(grid);
+
+	@Test
+	public void testParallelUpdateEqualsSequentialUpdate() {
+		BackgroundGeometry parallel = createGeometry(true);
+		BackgroundGeometry sequential = createGeometry(false);
+		MapRectangle area = new MapRectangle(-10, -5, AREA_WIDTH, AREA_HEIGHT); // starts outside of the map
+
+		parallel.update(context, area, true);
+		sequential.update(context, area, true);
+		assertEquals(sequential.getGeometry(), parallel.getGeometry());
+
+		for (int frame = 0; frame < 100; frame++) {
+			area = scroll(area);
+			for (int i = 0; i < 50; i++) {
+				int x = area.getMinX() + random.nextInt(AREA_WIDTH);
+				int y = area.getMinY() + random.nextInt(AREA_HEIGHT);
+				if (grid.isInMap(x, y)) {
+					grid.visibleStatus[x][y] = (byte) random.nextInt(CommonConstants.FOG_OF_WAR_VISIBLE + 1);
+					changeLandscape(x, y, parallel, sequential);
+				}
+			}
+
+			parallel.update(context, area, false);
+			sequential.update(context, area, false);
+			assertEquals("frame " + frame, sequential.getGeometry(), parallel.getGeometry());
+		}
+	}
+
+	@Test
+	public void testIncrementalUpdateEqualsRegeneration() {
+		BackgroundGeometry geometry = createGeometry(true);
+		RecordingGLBuffer glBuffer = new RecordingGLBuffer(geometry.getSize());
+		MapRectangle area = new MapRectangle(20, 30, AREA_WIDTH, AREA_HEIGHT);
+
+		geometry.update(context, area, true);
+		geometry.upload(glBuffer);
+
+		for (int frame = 0; frame < 100; frame++) {
+			area = scroll(area);
+			for (int i = 0; i < 20; i++) {
+				int x = area.getMinX() + random.nextInt(AREA_WIDTH);
+				int y = area.getMinY() + random.nextInt(AREA_HEIGHT);
+				if (grid.isInMap(x, y)) {
+					changeLandscape(x, y, geometry);
+				}
+			}
+
+			geometry.update(context, area, false);
+			geometry.upload(glBuffer);
+
+			BackgroundGeometry regenerated = createGeometry(false);
+			regenerated.update(context, area, true);
+			assertEquals("frame " + frame, regenerated.getGeometry(), geometry.getGeometry());
+			assertEquals("frame " + frame, geometry.getGeometry(), glBuffer.getData());
+		}
+	}
+
+	private static BackgroundGeometry createGeometry(boolean parallel) {
+		BackgroundGeometry geometry = new BackgroundGeometry(parallel);
+		geometry.resize(AREA_WIDTH + 1, AREA_HEIGHT);
+		return geometry;
+	}
+
+	private MapRectangle scroll(MapRectangle area) {
+		int minX = Math.max(-10, Math.min(MAP_SIZE - AREA_WIDTH, area.getMinX() + random.nextInt(9) - 4));
+		int minY = Math.max(-10, Math.min(MAP_SIZE - AREA_HEIGHT, area.getMinY() + random.nextInt(7) - 3));
+		return new MapRectangle(minX, minY, AREA_WIDTH, AREA_HEIGHT);
+	}
+
+	private void changeLandscape(int x, int y, BackgroundGeometry... geometries) {
+		grid.landscapes[x][y] = LANDSCAPES[random.nextInt(LANDSCAPES.length)];
+		for (BackgroundGeometry geometry : geometries) {
+			geometry.backgroundChangedAt(x, y);
+		}
+	}
+
+	private static class RecordingGLBuffer implements GLBuffer {
+		private final ByteBuffer data;
+
+		RecordingGLBuffer(int size) {
+			data = ByteBuffer.allocate(size);
+		}
+
+		@Override
+		public void putFloat(float f) {
+			data.putFloat(f);
+		}
+
+		@Override
+		public void putByte(byte b) {
+			data.put(b);
+		}
+
+		@Override
+		public void put(ByteBuffer data) {
+			this.data.put(data);
+		}
+
+		@Override
+		public void position(int position) {
+			data.position(position);
+		}
+
+		ByteBuffer getData() {
+			ByteBuffer duplicate = data.duplicate();
+			duplicate.clear();
+			return duplicate;
+		}
+	}
+
+	private class TestGrid implements IGraphicsGrid {
+		private final ELandscapeType[][] landscapes = new ELandscapeType[MAP_SIZE][MAP_SIZE];
+		private final byte[][] heights = new byte[MAP_SIZE][MAP_SIZE];
+		private final byte[][] visibleStatus = new byte[MAP_SIZE][MAP_SIZE];
+
+		TestGrid() {
+			for (int x = 0; x < MAP_SIZE; x++) {
+				for (int y = 0; y < MAP_SIZE; y++) {
+					landscapes[x][y] = LANDSCAPES[random.nextInt(LANDSCAPES.length)];
+					heights[x][y] = (byte) random.nextInt(20);
+					visibleStatus[x][y] = CommonConstants.FOG_OF_WAR_VISIBLE;
+				}
+			}
+		}
+
+		boolean isInMap(int x, int y) {
+			return x >= 0 && x < MAP_SIZE && y >= 0 && y < MAP_SIZE;
+		}
+
+		@Override
+		public short getWidth() {
+			return MAP_SIZE;
+		}
+
+		@Override
+		public short getHeight() {
+			return MAP_SIZE;
+		}
+
+		@Override
+		public IMovable getMovableAt(int x, int y) {
+			return null;
+		}
+
+		@Override
+		public IMapObject getMapObjectsAt(int x, int y) {
+			return null;
+		}
+
+		@Override
+		public byte getHeightAt(int x, int y) {
+			return heights[x][y];
+		}
+
+		@Override
+		public ELandscapeType getLandscapeTypeAt(int x, int y) {
+			return landscapes[x][y];
+		}
+
+		@Override
+		public int getDebugColorAt(int x, int y, EDebugColorModes debugColorMode) {
+			return 0;
+		}
+
+		@Override
+		public boolean isBorder(int x, int y) {
+			return false;
+		}
+
+		@Override
+		public byte getPlayerIdAt(int x, int y) {
+			return -1;
+		}
+
+		@Override
+		public byte getVisibleStatus(int x, int y) {
+			return isInMap(x, y) ? visibleStatus[x][y] : 0;
+		}
+
+		@Override
+		public void setBackgroundListener(IGraphicsBackgroundListener backgroundListener) {
+		}
+
+		@Override
+		public int nextDrawableX(int x, int y, int maxX) {
+			return x;
+		}
+
+		@Override
+		public IPartitionData getPartitionData(int x, int y) {
+			return null;
+		}
+
+		@Override
+		public boolean isBuilding(int x, int y) {
+			return false;
+		}
+	}
+}
@@ -14,57 +14,111 @@
  *******************************************************************************/
 package jsettlers.ai.highlevel;
 
-import static java8.util.stream.StreamSupport.stream;
-
 import java.util.ArrayList;
 import java.util.List;
 
+import java8.util.concurrent.ForkJoinPool;
+import java8.util.concurrent.RecursiveAction;
+
 import jsettlers.common.logging.StatisticsStopWatch;
+import jsettlers.logic.constants.Constants;
+import jsettlers.logic.constants.ExtendedRandom;
+import jsettlers.logic.constants.GameContext;
 import jsettlers.logic.map.grid.MainGrid;
 import jsettlers.logic.player.PlayerSetting;
+import jsettlers.logic.timer.TickProfiler;
+import jsettlers.logic.timer.TickProfiler.ESubsystem;
 import jsettlers.network.client.interfaces.ITaskScheduler;
 import jsettlers.network.synchronic.timer.INetworkTimerable;
 
 /**
  * The AiExecutor holds all IWhatToDoAi high level KIs and executes them when NetworkTimer notifies it.
+ * <p>
+ * Every step is split into a planning and a commit phase. While planning, the AIs only read the game state and the {@link AiStatistics} and collect
+ * their tasks. Therefore they can optionally plan in parallel on a {@link ForkJoinPool}. The collected tasks are scheduled afterwards in the order of
+ * the player ids, so the scheduled tasks are the same in both modes.
  * 
  * @author codingberlin
  */
 public class AiExecutor implements INetworkTimerable {
 
-	private final List<IWhatToDoAi> whatToDoAis;
+	private final GameContext gameContext;
+	private final ITaskScheduler taskScheduler;
+	private final List<AiPlayer> aiPlayers;
 	private final AiStatistics aiStatistics;
 	private final StatisticsStopWatch updateStatisticsStopWatch = new StatisticsStopWatch();
 	private final StatisticsStopWatch applyRulesStopWatch = new StatisticsStopWatch();
+	private boolean parallel = Constants.AI_PARALLEL;
 
 	public AiExecutor(PlayerSetting[] playerSettings, MainGrid mainGrid, ITaskScheduler taskScheduler) {
+		gameContext = mainGrid.getGameContext();
+		this.taskScheduler = taskScheduler;
 		aiStatistics = new AiStatistics(mainGrid);
 		aiStatistics.updateStatistics();
-		this.whatToDoAis = new ArrayList<>();
+		this.aiPlayers = new ArrayList<>();
 		WhatToDoAiFactory aiFactory = new WhatToDoAiFactory();
 		for (byte playerId = 0; playerId < playerSettings.length; playerId++) {
 			PlayerSetting playerSetting = playerSettings[playerId];
 			if (playerSetting.isAvailable() && playerSetting.getPlayerType().isAi()) {
-				whatToDoAis.add(aiFactory.buildWhatToDoAi(
+				BufferingTaskScheduler playerTaskScheduler = new BufferingTaskScheduler();
+				// every ai gets its own random, so the random numbers don't depend on the order the ais are executed in
+				ExtendedRandom random = new ExtendedRandom(gameContext.getAiRandom().nextLong());
+				IWhatToDoAi whatToDoAi = aiFactory.buildWhatToDoAi(
 						playerSettings[playerId].getPlayerType(),
 						playerSettings[playerId].getCivilisation(),
 						aiStatistics,
 						mainGrid.getPartitionsGrid().getPlayer(playerId),
 						mainGrid,
 						mainGrid.getMovableGrid(),
-						taskScheduler));
+						playerTaskScheduler,
+						random);
+				aiPlayers.add(new AiPlayer(playerId, whatToDoAi, playerTaskScheduler));
 			}
 		}
 	}
 
 	@Override
 	public void timerEvent() {
+		GameContext previousContext = gameContext.bindToCurrentThread(); // the ai is executed by the thread of the game clock
+		try {
+			executeAiPlayers();
+		} finally {
+			GameContext.bindToCurrentThread(previousContext);
+		}
+	}
+
+	private void executeAiPlayers() {
+		long start = System.nanoTime();
 		updateStatisticsStopWatch.restart();
 		aiStatistics.updateStatistics();
 		updateStatisticsStopWatch.stop("computerplayer:updateStatistics()");
 		applyRulesStopWatch.restart();
-		stream(whatToDoAis).forEach(IWhatToDoAi::applyRules);
+		if (parallel) {
+			ForkJoinPool.commonPool().invoke(new ApplyRulesAction(0, aiPlayers.size()));
+		} else {
+			for (AiPlayer aiPlayer : aiPlayers) {
+				aiPlayer.applyRules();
+			}
+		}
+		for (AiPlayer aiPlayer : aiPlayers) {
+			aiPlayer.taskScheduler.flushTo(taskScheduler);
+		}
 		applyRulesStopWatch.stop("computerplayer:applyRules()");
+
+		TickProfiler profiler = gameContext.getTickProfiler();
+		if (profiler != null) {
+			profiler.add(ESubsystem.AI, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Enables or disables the parallel planning of the AI players.
+	 * 
+	 * @param parallel
+	 *            If true, the AI players plan their steps in parallel on the common {@link ForkJoinPool}.
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
 	}
 
 	public StatisticsStopWatch getUpdateStatisticsStopWatch() {
@@ -74,4 +128,66 @@ public class AiExecutor implements INetworkTimerable {
 	public StatisticsStopWatch getApplyRulesStopWatch() {
 		return applyRulesStopWatch;
 	}
+
+	/**
+	 * @param playerId
+	 *            The id of an AI player.
+	 * @return Returns the stop watch measuring the time the given AI player needed to plan its steps or null if the player is no AI player.
+	 */
+	public StatisticsStopWatch getApplyRulesStopWatchOf(byte playerId) {
+		for (AiPlayer aiPlayer : aiPlayers) {
+			if (aiPlayer.playerId == playerId) {
+				return aiPlayer.applyRulesStopWatch;
+			}
+		}
+		return null;
+	}
+
+	private final class AiPlayer {
+		private final byte playerId;
+		private final IWhatToDoAi whatToDoAi;
+		private final BufferingTaskScheduler taskScheduler;
+		private final StatisticsStopWatch applyRulesStopWatch = new StatisticsStopWatch();
+
+		AiPlayer(byte playerId, IWhatToDoAi whatToDoAi, BufferingTaskScheduler taskScheduler) {
+			this.playerId = playerId;
+			this.whatToDoAi = whatToDoAi;
+			this.taskScheduler = taskScheduler;
+		}
+
+		void applyRules() {
+			applyRulesStopWatch.restart();
+			whatToDoAi.applyRules();
+			applyRulesStopWatch.stop("computerplayer:applyRules() of player " + playerId);
+		}
+	}
+
+	private final class ApplyRulesAction extends RecursiveAction {
+		private static final long serialVersionUID = 5177464830361786153L;
+
+		private final int start;
+		private final int end;
+
+		ApplyRulesAction(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start <= 1) {
+				GameContext previousContext = gameContext.bindToCurrentThread();
+				try {
+					for (int i = start; i < end; i++) {
+						aiPlayers.get(i).applyRules();
+					}
+				} finally {
+					GameContext.bindToCurrentThread(previousContext);
+				}
+			} else {
+				int middle = (start + end) >>> 1;
+				invokeAll(new ApplyRulesAction(start, middle), new ApplyRulesAction(middle, end));
+			}
+		}
+	}
 }
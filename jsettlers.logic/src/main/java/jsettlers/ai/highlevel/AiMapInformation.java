@@ -74,14 +74,6 @@ public class AiMapInformation {
 				FISHER.getWorkRadius());
 	}
 
-	public void clear() {
-		for (int i = 0; i < resourceAndGrassCount.length; i++) {
-			for (int ii = 0; ii < resourceAndGrassCount[i].length; ii++) {
-				resourceAndGrassCount[i][ii] = 0;
-			}
-		}
-	}
-
 	public int[] getBuildingCounts(byte playerId) {
 		int numberOfPlayers = resourceAndGrassCount.length - 1;
 		int neverland = resourceAndGrassCount.length - 1;
@@ -152,6 +152,34 @@ public class AiPositions implements IMapArea {
 		}
 	}
 
+	/**
+	 * Removes all positions of the given set from this set.
+	 * 
+	 * @param positions
+	 *            The positions to be removed. They don't need to be contained in this set.
+	 */
+	public void removeAll(AiPositions positions) {
+		if (size == 0 || positions.size == 0) {
+			return;
+		}
+
+		ensureSorted();
+		positions.ensureSorted();
+		int newSize = 0;
+		int removeIndex = 0;
+		for (int i = 0; i < size; i++) {
+			int point = points[i];
+			while (removeIndex < positions.size && positions.points[removeIndex] < point) {
+				removeIndex++;
+			}
+			if (removeIndex >= positions.size || positions.points[removeIndex] != point) {
+				points[newSize] = point;
+				newSize++;
+			}
+		}
+		size = newSize;
+	}
+
 	@Override
 	public boolean contains(ShortPoint2D position) {
 		return contains(position.x, position.y);
@@ -173,7 +201,7 @@ public class AiPositions implements IMapArea {
 		return new PositionsIterator();
 	}
 
-	private void ensureSorted() {
+	void ensureSorted() {
 		if (!sorted) {
 			Arrays.sort(points, 0, size);
 			sorted = true;
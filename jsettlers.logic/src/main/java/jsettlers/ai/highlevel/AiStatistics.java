@@ -16,6 +16,7 @@ package jsettlers.ai.highlevel;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
@@ -48,8 +49,10 @@ import jsettlers.common.movable.IMovable;
 import jsettlers.common.player.IPlayer;
 import jsettlers.common.position.RelativePoint;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.common.utils.coordinates.ICoordinatePredicate;
 import jsettlers.logic.buildings.Building;
 import jsettlers.logic.buildings.WorkAreaBuilding;
+import jsettlers.logic.map.grid.IGridChangedListener;
 import jsettlers.logic.map.grid.MainGrid;
 import jsettlers.logic.map.grid.flags.FlagsGrid;
 import jsettlers.logic.map.grid.landscape.LandscapeGrid;
@@ -76,6 +79,12 @@ import static jsettlers.common.movable.EMovableType.SWORDSMAN_L3;
 /**
  * This class calculates statistics based on the grids which are used by highlevel and lowlevel KI. The statistics are calculated once and read multiple times within one AiExecutor step triggerd by
  * the game clock.
+ * <p>
+ * After {@link #updateStatistics()}, the statistics are only read. Therefore the AIs of all players may read them in parallel. Only the threatened
+ * border of a player is calculated on demand and must only be requested by the AI of this player.
+ * <p>
+ * The statistics of the map are updated incrementally: The grids inform the statistics about changed positions and only the positions affected by
+ * these changes are evaluated again.
  *
  * @author codingberlin
  */
@@ -86,6 +95,7 @@ public class AiStatistics {
 
 	private final MainGrid mainGrid;
 	private final Queue<Building> buildings;
+	private final Queue<ILogicMovable> movables;
 	private final PlayerStatistic[] playerStatistics;
 	private final Map<EMapObjectType, AiPositions> sortedCuttableObjectsInDefaultPartition;
 	private final AiPositions[] sortedResourceTypes;
@@ -99,10 +109,15 @@ public class AiStatistics {
 	private final AiMapInformation aiMapInformation;
 	private final long[] resourceCountInDefaultPartition;
 	private final List<Player> players;
+	private final ChangedPositions changedPositions;
+	private final byte[] countedResourceOwners;
+	private final byte[] countedResourceTypes;
+	private final byte[] countedGrassOwners;
 
 	public AiStatistics(MainGrid mainGrid) {
 		this.mainGrid = mainGrid;
 		buildings = Building.getAllBuildings();
+		movables = mainGrid.getGameContext().getAllMovables();
 		landscapeGrid = mainGrid.getLandscapeGrid();
 		objectsGrid = mainGrid.getObjectsGrid();
 		partitionsGrid = mainGrid.getPartitionsGrid();
@@ -122,6 +137,15 @@ public class AiStatistics {
 		}
 		resourceCountInDefaultPartition = new long[EResourceType.VALUES.length];
 		players = J8Arrays.stream(partitionsGrid.getPlayers()).filter(Objects::nonNull).collect(Collectors.toList());
+
+		int tiles = mainGrid.getWidth() * mainGrid.getHeight();
+		countedResourceOwners = new byte[tiles];
+		countedResourceTypes = new byte[tiles];
+		countedGrassOwners = new byte[tiles];
+		Arrays.fill(countedResourceOwners, (byte) -1);
+		Arrays.fill(countedGrassOwners, (byte) -1);
+		changedPositions = new ChangedPositions(mainGrid.getWidth(), mainGrid.getHeight());
+		mainGrid.setGridChangedListener(changedPositions);
 	}
 
 	public byte getFlatternEffortAtPositionForBuilding(final ShortPoint2D position, final EBuildingType buildingType) {
@@ -136,11 +160,6 @@ public class AiStatistics {
 		for (PlayerStatistic playerStatistic : playerStatistics) {
 			playerStatistic.clearAll();
 		}
-		sortedRiversInDefaultPartition.clear();
-		sortedCuttableObjectsInDefaultPartition.clear();
-		for (AiPositions xCoordinatesMap : sortedResourceTypes) {
-			xCoordinatesMap.clear();
-		}
 
 		updateBuildingStatistics();
 		updateMapStatistics();
@@ -193,83 +212,176 @@ public class AiStatistics {
 	}
 
 	private void updateMapStatistics() {
-		aiMapInformation.clear();
 		updatePartitionIdsToBuildOn();
-		short width = mainGrid.getWidth();
-		short height = mainGrid.getHeight();
-		Arrays.fill(resourceCountInDefaultPartition, 0);
-
-		for (short x = 0; x < width; x++) {
-			for (short y = 0; y < height; y++) {
-				Player player = partitionsGrid.getPlayerAt(x, y);
-				int mapInformationPlayerId;
-				if (player != null) {
-					mapInformationPlayerId = player.playerId;
-				} else {
-					mapInformationPlayerId = aiMapInformation.resourceAndGrassCount.length - 1;
-				}
-				if (landscapeGrid.getResourceAmountAt(x, y) > 0) {
-					EResourceType resourceType = landscapeGrid.getResourceTypeAt(x, y);
-					sortedResourceTypes[resourceType.ordinal].addNoCollission(x, y);
-					if (resourceType != EResourceType.FISH) {
-						aiMapInformation.resourceAndGrassCount[mapInformationPlayerId][resourceType.ordinal]++;
-						if (player != null) {
-							playerStatistics[player.playerId].resourceCount[resourceType.ordinal]++;
-						} else {
-							resourceCountInDefaultPartition[resourceType.ordinal]++;
-						}
-					} else if (landscapeGrid.getLandscapeTypeAt(x, y) == ELandscapeType.WATER1) {
-						int fishMapInformationPlayerId = mapInformationPlayerId;
-						if (mapInformationPlayerId == aiMapInformation.resourceAndGrassCount.length - 1) {
-							fishMapInformationPlayerId = mapInformationPlayerIdOfPosition((short) (x + 3), y);
+
+		AiPositions changedPositions = this.changedPositions.pollPositionsToUpdate();
+		if (!changedPositions.isEmpty()) {
+			removeMapStatisticsOf(changedPositions);
+			changedPositions.stream().forEach((x, y) -> addMapStatisticsOf((short) x, (short) y));
+		}
+		sortMapStatistics();
+
+		for (byte playerId = 0; playerId < playerStatistics.length; playerId++) {
+			updatePartitionDependentStatistics(playerId);
+		}
+		updateMovableStatistics();
+
+		for (PlayerStatistic playerStatistic : playerStatistics) {
+			playerStatistic.sortPositions();
+		}
+	}
+
+	private void removeMapStatisticsOf(AiPositions positions) {
+		for (AiPositions resourcePositions : sortedResourceTypes) {
+			resourcePositions.removeAll(positions);
+		}
+		for (AiPositions cuttableObjectPositions : sortedCuttableObjectsInDefaultPartition.values()) {
+			cuttableObjectPositions.removeAll(positions);
+		}
+		sortedRiversInDefaultPartition.removeAll(positions);
+		for (PlayerStatistic playerStatistic : playerStatistics) {
+			playerStatistic.removeAllOwnedPositions(positions);
+		}
+
+		positions.stream().forEach((x, y) -> {
+			int index = x * mainGrid.getHeight() + y;
+			if (countedResourceOwners[index] >= 0) {
+				countResource(countedResourceOwners[index], countedResourceTypes[index], -1);
+				countedResourceOwners[index] = -1;
+			}
+			if (countedGrassOwners[index] >= 0) {
+				aiMapInformation.resourceAndGrassCount[countedGrassOwners[index]][AiMapInformation.GRASS_INDEX]--;
+				countedGrassOwners[index] = -1;
+			}
+		});
+	}
+
+	private void addMapStatisticsOf(short x, short y) {
+		int index = x * mainGrid.getHeight() + y;
+		Player player = partitionsGrid.getPlayerAt(x, y);
+		int mapInformationPlayerId;
+		if (player != null) {
+			mapInformationPlayerId = player.playerId;
+		} else {
+			mapInformationPlayerId = aiMapInformation.resourceAndGrassCount.length - 1;
+		}
+		if (landscapeGrid.getResourceAmountAt(x, y) > 0) {
+			EResourceType resourceType = landscapeGrid.getResourceTypeAt(x, y);
+			sortedResourceTypes[resourceType.ordinal].addNoCollission(x, y);
+			if (resourceType != EResourceType.FISH) {
+				countResourceAt(index, mapInformationPlayerId, resourceType);
+			} else if (landscapeGrid.getLandscapeTypeAt(x, y) == ELandscapeType.WATER1) {
+				int fishMapInformationPlayerId = mapInformationPlayerId;
+				if (mapInformationPlayerId == aiMapInformation.resourceAndGrassCount.length - 1) {
+					fishMapInformationPlayerId = mapInformationPlayerIdOfPosition((short) (x + 3), y);
+					if (fishMapInformationPlayerId == aiMapInformation.resourceAndGrassCount.length - 1) {
+						fishMapInformationPlayerId = mapInformationPlayerIdOfPosition((short) (x - 3), y);
+						if (fishMapInformationPlayerId == aiMapInformation.resourceAndGrassCount.length - 1) {
+							fishMapInformationPlayerId = mapInformationPlayerIdOfPosition(x, (short) (y + 3));
 							if (fishMapInformationPlayerId == aiMapInformation.resourceAndGrassCount.length - 1) {
-								fishMapInformationPlayerId = mapInformationPlayerIdOfPosition((short) (x - 3), y);
-								if (fishMapInformationPlayerId == aiMapInformation.resourceAndGrassCount.length - 1) {
-									fishMapInformationPlayerId = mapInformationPlayerIdOfPosition(x, (short) (y + 3));
-									if (fishMapInformationPlayerId == aiMapInformation.resourceAndGrassCount.length - 1) {
-										fishMapInformationPlayerId = mapInformationPlayerIdOfPosition(x, (short) (y - 3));
-									}
-								}
+								fishMapInformationPlayerId = mapInformationPlayerIdOfPosition(x, (short) (y - 3));
 							}
 						}
-						aiMapInformation.resourceAndGrassCount[fishMapInformationPlayerId][resourceType.ordinal]++;
-						if (fishMapInformationPlayerId == aiMapInformation.resourceAndGrassCount.length - 1) {
-							resourceCountInDefaultPartition[resourceType.ordinal]++;
-						} else {
-							playerStatistics[fishMapInformationPlayerId].resourceCount[resourceType.ordinal]++;
-						}
-					}
-				}
-				if (landscapeGrid.getLandscapeTypeAt(x, y).isGrass()) {
-					aiMapInformation.resourceAndGrassCount[mapInformationPlayerId][AiMapInformation.GRASS_INDEX]++;
-				}
-				ILogicMovable movable = movableGrid.getMovableAt(x, y);
-				if (movable != null) {
-					Player movablePlayer = movable.getPlayer();
-					byte movablePlayerId = movablePlayer.playerId;
-					PlayerStatistic movablePlayerStatistic = playerStatistics[movablePlayerId];
-					EMovableType movableType = movable.getMovableType();
-					Maps.computeIfAbsent(movablePlayerStatistic.movablePositions, movableType, key -> new ArrayList<>()).add(movable.getPosition());
-
-					if (movableType == BEARER && movable.getAction() == EMovableAction.NO_ACTION) {
-						playerStatistics[movablePlayerId].joblessBearerPositions.add(movable.getPosition());
-					}
-					if (player != null && player.playerId != movablePlayerId && movableType.isSoldier() && getEnemiesOf(player).contains(movablePlayer)) {
-						playerStatistics[player.playerId].enemyTroopsInTown.addNoCollission(movable.getPosition().x, movable.getPosition().y);
-					}
-				}
-				if (player == null) {
-					updateFreeLand(x, y);
-				} else if (partitionsGrid.getPartitionIdAt(x, y) == playerStatistics[player.playerId].partitionIdToBuildOn) {
-					updatePlayerLand(x, y, player);
-				}
-				if (player != null && hasNeighborIngestibleByPioneersOf(x, y, player)) {
-					if (partitionsGrid.getPartitionIdAt(x, y) == playerStatistics[player.playerId].partitionIdToBuildOn) {
-						playerStatistics[player.playerId].borderIngestibleByPioneers.add(x, y);
-					} else {
-						playerStatistics[player.playerId].otherPartitionBorder.add(x, y);
 					}
 				}
+				countResourceAt(index, fishMapInformationPlayerId, resourceType);
+			}
+		}
+		if (landscapeGrid.getLandscapeTypeAt(x, y).isGrass()) {
+			aiMapInformation.resourceAndGrassCount[mapInformationPlayerId][AiMapInformation.GRASS_INDEX]++;
+			countedGrassOwners[index] = (byte) mapInformationPlayerId;
+		}
+		if (player == null) {
+			updateFreeLand(x, y);
+		} else {
+			updatePlayerLand(x, y, player);
+			if (hasNeighborIngestibleByPioneersOf(x, y, player)) {
+				playerStatistics[player.playerId].ownedBorder.addNoCollission(x, y);
+			}
+		}
+	}
+
+	private void countResourceAt(int index, int mapInformationPlayerId, EResourceType resourceType) {
+		countResource(mapInformationPlayerId, resourceType.ordinal, 1);
+		countedResourceOwners[index] = (byte) mapInformationPlayerId;
+		countedResourceTypes[index] = resourceType.ordinal;
+	}
+
+	private void countResource(int mapInformationPlayerId, int resourceTypeIndex, int delta) {
+		aiMapInformation.resourceAndGrassCount[mapInformationPlayerId][resourceTypeIndex] += delta;
+		if (mapInformationPlayerId == aiMapInformation.resourceAndGrassCount.length - 1) {
+			resourceCountInDefaultPartition[resourceTypeIndex] += delta;
+		} else {
+			playerStatistics[mapInformationPlayerId].resourceCount[resourceTypeIndex] += delta;
+		}
+	}
+
+	private void sortMapStatistics() {
+		for (AiPositions resourcePositions : sortedResourceTypes) {
+			resourcePositions.ensureSorted();
+		}
+		for (AiPositions cuttableObjectPositions : sortedCuttableObjectsInDefaultPartition.values()) {
+			cuttableObjectPositions.ensureSorted();
+		}
+		sortedRiversInDefaultPartition.ensureSorted();
+		for (PlayerStatistic playerStatistic : playerStatistics) {
+			playerStatistic.sortOwnedPositions();
+		}
+	}
+
+	/**
+	 * The partitions of the positions change without notifications when partitions are merged. Therefore the positions of a player are filtered by the
+	 * partition to build on every time.
+	 */
+	private void updatePartitionDependentStatistics(byte playerId) {
+		PlayerStatistic playerStatistic = playerStatistics[playerId];
+		short partitionIdToBuildOn = playerStatistic.partitionIdToBuildOn;
+		ICoordinatePredicate isInPartitionToBuildOn = (x, y) -> partitionsGrid.getPartitionIdAt(x, y) == partitionIdToBuildOn;
+
+		playerStatistic.ownedLand.stream().filter(isInPartitionToBuildOn).forEach(playerStatistic.landToBuildOn::addNoCollission);
+		playerStatistic.ownedStones.stream().filter(isInPartitionToBuildOn).forEach(playerStatistic.stones::addNoCollission);
+		playerStatistic.ownedTrees.stream().filter(isInPartitionToBuildOn).forEach(playerStatistic.trees::addNoCollission);
+		playerStatistic.ownedRivers.stream().filter(isInPartitionToBuildOn).forEach(playerStatistic.rivers::addNoCollission);
+		playerStatistic.wineCount = playerStatistic.ownedWine.stream().filter(isInPartitionToBuildOn).count();
+		playerStatistic.ownedBorder.stream().forEach((x, y) -> {
+			if (isInPartitionToBuildOn.test(x, y)) {
+				playerStatistic.borderIngestibleByPioneers.addNoCollission(x, y);
+			} else {
+				playerStatistic.otherPartitionBorder.addNoCollission(x, y);
+			}
+		});
+		playerStatistic.stonesNearByInAllPartitions.stream()
+				.filter((x, y) -> hasPlayersBlockedPartition(playerId, x, y))
+				.forEach(playerStatistic.stonesNearBy::addNoCollission);
+	}
+
+	/**
+	 * The movables are visited in the order of their positions to get the same lists as if the map was scanned.
+	 */
+	private void updateMovableStatistics() {
+		List<ILogicMovable> movablesOnGrid = new ArrayList<>();
+		for (ILogicMovable movable : movables) {
+			ShortPoint2D position = movable.getPosition();
+			if (movableGrid.getMovableAt(position.x, position.y) == movable) {
+				movablesOnGrid.add(movable);
+			}
+		}
+		Collections.sort(movablesOnGrid, Comparators.comparingInt(movable -> movable.getPosition().x << 16 | movable.getPosition().y));
+
+		for (ILogicMovable movable : movablesOnGrid) {
+			ShortPoint2D position = movable.getPosition();
+			Player player = partitionsGrid.getPlayerAt(position.x, position.y);
+			Player movablePlayer = movable.getPlayer();
+			byte movablePlayerId = movablePlayer.playerId;
+			PlayerStatistic movablePlayerStatistic = playerStatistics[movablePlayerId];
+			EMovableType movableType = movable.getMovableType();
+			Maps.computeIfAbsent(movablePlayerStatistic.movablePositions, movableType, key -> new ArrayList<>()).add(position);
+
+			if (movableType == BEARER && movable.getAction() == EMovableAction.NO_ACTION) {
+				movablePlayerStatistic.joblessBearerPositions.add(position);
+			}
+			if (player != null && player.playerId != movablePlayerId && movableType.isSoldier() && getEnemiesOf(player).contains(movablePlayer)) {
+				playerStatistics[player.playerId].enemyTroopsInTown.addNoCollission(position.x, position.y);
 			}
 		}
 	}
@@ -308,20 +420,20 @@ public class AiStatistics {
 			AbstractHexMapObject o = objectsGrid.getObjectsAt(x, y);
 			if (o != null) {
 				if (o.hasCuttableObject(STONE) && isCuttableByPlayer(x, y, player.playerId)) {
-					playerStatistic.stones.addNoCollission(x, y);
+					playerStatistic.ownedStones.addNoCollission(x, y);
 				} else if (o.hasMapObjectTypes(TREE_GROWING, TREE_ADULT) && isCuttableByPlayer(x, y, player.playerId)) {
-					playerStatistic.trees.addNoCollission(x, y);
+					playerStatistic.ownedTrees.addNoCollission(x, y);
 				}
 			}
 		} else {
-			playerStatistic.landToBuildOn.addNoCollission(x, y);
+			playerStatistic.ownedLand.addNoCollission(x, y);
 		}
 		ELandscapeType landscape = landscapeGrid.getLandscapeTypeAt(x, y);
 		if (landscape.isRiver()) {
-			playerStatistic.rivers.addNoCollission(x, y);
+			playerStatistic.ownedRivers.addNoCollission(x, y);
 		}
 		if (objectsGrid.hasMapObjectType(x, y, EMapObjectType.WINE_GROWING, EMapObjectType.WINE_HARVESTABLE)) {
-			playerStatistic.wineCount++;
+			playerStatistic.ownedWine.addNoCollission(x, y);
 		}
 	}
 
@@ -364,16 +476,24 @@ public class AiStatistics {
 	}
 
 	private void updateNearStones(short x, short y) {
-		for (EDirection dir : EDirection.VALUES) {
-			int currX = dir.getNextTileX(x, NEAR_STONE_DISTANCE);
-			int currY = dir.getNextTileY(y, NEAR_STONE_DISTANCE);
-			if (mainGrid.isInBounds(currX, currY)) {
-				byte playerId = partitionsGrid.getPlayerIdAt(currX, currY);
-				if (playerId != -1 && hasPlayersBlockedPartition(playerId, x, y)) {
-					playerStatistics[playerId].stonesNearBy.addNoCollission(x, y);
-				}
+		byte[] playerIds = new byte[EDirection.NUMBER_OF_DIRECTIONS];
+		for (int i = 0; i < playerIds.length; i++) {
+			int currX = EDirection.VALUES[i].getNextTileX(x, NEAR_STONE_DISTANCE);
+			int currY = EDirection.VALUES[i].getNextTileY(y, NEAR_STONE_DISTANCE);
+			playerIds[i] = mainGrid.isInBounds(currX, currY) ? partitionsGrid.getPlayerIdAt(currX, currY) : -1;
+			if (playerIds[i] != -1 && !isContainedBefore(playerIds, i)) {
+				playerStatistics[playerIds[i]].stonesNearByInAllPartitions.addNoCollission(x, y);
+			}
+		}
+	}
+
+	private static boolean isContainedBefore(byte[] values, int index) {
+		for (int i = 0; i < index; i++) {
+			if (values[i] == values[index]) {
+				return true;
 			}
 		}
+		return false;
 	}
 
 	private void updatePartitionIdsToBuildOn() {
@@ -584,9 +704,11 @@ public class AiStatistics {
 			return points;
 		}
 
-		Collections.sort(points, Comparators.comparingInt(o -> o.getOnGridDistTo(referencePoint)));
+		// the given list may be part of the statistics that are read by all ais and must not be changed
+		List<ShortPoint2D> sortedPoints = new ArrayList<>(points);
+		Collections.sort(sortedPoints, Comparators.comparingInt(o -> o.getOnGridDistTo(referencePoint)));
 
-		return points.subList(0, amountOfPointsToDetect);
+		return sortedPoints.subList(0, amountOfPointsToDetect);
 	}
 
 	public int getNumberOfMaterialTypeForPlayer(EMaterialType type, byte playerId) {
@@ -720,6 +842,13 @@ public class AiStatistics {
 		final AiPositions trees = new AiPositions();
 		final AiPositions rivers = new AiPositions();
 		final AiPositions enemyTroopsInTown = new AiPositions();
+		final AiPositions ownedLand = new AiPositions();
+		final AiPositions ownedStones = new AiPositions();
+		final AiPositions ownedTrees = new AiPositions();
+		final AiPositions ownedRivers = new AiPositions();
+		final AiPositions ownedWine = new AiPositions();
+		final AiPositions ownedBorder = new AiPositions();
+		final AiPositions stonesNearByInAllPartitions = new AiPositions();
 		List<ShortPoint2D> threatenedBorder;
 		final long[] resourceCount = new long[EResourceType.VALUES.length];
 		int numberOfNotFinishedBuildings;
@@ -752,10 +881,44 @@ public class AiStatistics {
 			clearIntegers();
 		}
 
+		void removeAllOwnedPositions(AiPositions positions) {
+			ownedLand.removeAll(positions);
+			ownedStones.removeAll(positions);
+			ownedTrees.removeAll(positions);
+			ownedRivers.removeAll(positions);
+			ownedWine.removeAll(positions);
+			ownedBorder.removeAll(positions);
+			stonesNearByInAllPartitions.removeAll(positions);
+		}
+
+		/**
+		 * Sorts the positions read by the ais. Otherwise, the first query would sort them, which must not happen while the ais are executed in
+		 * parallel.
+		 */
+		void sortPositions() {
+			landToBuildOn.ensureSorted();
+			stones.ensureSorted();
+			trees.ensureSorted();
+			rivers.ensureSorted();
+			enemyTroopsInTown.ensureSorted();
+			borderIngestibleByPioneers.ensureSorted();
+			otherPartitionBorder.ensureSorted();
+			stonesNearBy.ensureSorted();
+		}
+
+		void sortOwnedPositions() {
+			ownedLand.ensureSorted();
+			ownedStones.ensureSorted();
+			ownedTrees.ensureSorted();
+			ownedRivers.ensureSorted();
+			ownedWine.ensureSorted();
+			ownedBorder.ensureSorted();
+			stonesNearByInAllPartitions.ensureSorted();
+		}
+
 		private void clearIntegers() {
 			Arrays.fill(totalBuildingsNumbers, 0);
 			Arrays.fill(buildingsNumbers, 0);
-			Arrays.fill(resourceCount, 0);
 			numberOfNotFinishedBuildings = 0;
 			numberOfTotalBuildings = 0;
 			numberOfNotOccupiedMilitaryBuildings = 0;
@@ -765,4 +928,77 @@ public class AiStatistics {
 		}
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Collects the positions changed since the last update of the statistics. Initially, all positions are marked as changed.
+	 * <p>
+	 * The map statistics of a position depend on the position itself, the blocking of its neighbors and the players of the positions up to
+	 * {@link #NEAR_STONE_DISTANCE} away. Therefore, the positions around changed blockings and players need to be updated, too.
+	 */
+	private static final class ChangedPositions implements IGridChangedListener {
+		private final short width;
+		private final short height;
+		private final BitSet changedPositions;
+		private final BitSet changedBlockings;
+		private final BitSet changedPlayers;
+
+		ChangedPositions(short width, short height) {
+			this.width = width;
+			this.height = height;
+			this.changedPositions = new BitSet(width * height);
+			this.changedBlockings = new BitSet(width * height);
+			this.changedPlayers = new BitSet(width * height);
+			this.changedPositions.set(0, width * height);
+		}
+
+		@Override
+		public synchronized void positionChangedAt(int x, int y) {
+			changedPositions.set(x * height + y);
+		}
+
+		@Override
+		public synchronized void blockingChangedAt(int x, int y) {
+			changedBlockings.set(x * height + y);
+		}
+
+		@Override
+		public synchronized void playerChangedAt(int x, int y) {
+			changedPlayers.set(x * height + y);
+		}
+
+		@Override
+		public void partitionChangedAt(int x, int y) {
+			// the statistics don't depend on the partition ids
+		}
+
+		/**
+		 * @return All positions whose statistics need to be updated. The changed positions are reset.
+		 */
+		synchronized AiPositions pollPositionsToUpdate() {
+			BitSet positionsToUpdate = changedPositions;
+			addSurroundingPositions(positionsToUpdate, changedBlockings, 1);
+			addSurroundingPositions(positionsToUpdate, changedPlayers, NEAR_STONE_DISTANCE);
+
+			AiPositions positions = new AiPositions();
+			for (int index = positionsToUpdate.nextSetBit(0); index >= 0; index = positionsToUpdate.nextSetBit(index + 1)) {
+				positions.addNoCollission(index / height, index % height);
+			}
+
+			changedPositions.clear();
+			changedBlockings.clear();
+			changedPlayers.clear();
+			return positions;
+		}
+
+		private void addSurroundingPositions(BitSet positionsToUpdate, BitSet changed, int radius) {
+			for (int index = changed.nextSetBit(0); index >= 0; index = changed.nextSetBit(index + 1)) {
+				int x = index / height;
+				int y = index % height;
+				int minY = Math.max(0, y - radius);
+				int maxY = Math.min(height - 1, y + radius);
+				for (int currX = Math.max(0, x - radius); currX <= Math.min(width - 1, x + radius); currX++) {
+					positionsToUpdate.set(currX * height + minY, currX * height + maxY + 1);
+				}
+			}
+		}
+	}
+}
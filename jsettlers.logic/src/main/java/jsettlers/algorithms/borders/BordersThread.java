@@ -16,6 +16,8 @@ package jsettlers.algorithms.borders;
 
 import jsettlers.common.movable.EDirection;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.timer.TickProfiler;
+import jsettlers.logic.timer.TickProfiler.ESubsystem;
 
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -28,6 +30,7 @@ import java.util.concurrent.LinkedBlockingQueue;
 public class BordersThread implements Runnable {
 
 	private final IBordersThreadGrid grid;
+	private final TickProfiler profiler;
 	private final LinkedBlockingQueue<ShortPoint2D> positionsQueue = new LinkedBlockingQueue<>();
 	private final Thread bordersThread;
 
@@ -38,9 +41,12 @@ public class BordersThread implements Runnable {
 	 * 
 	 * @param grid
 	 *            the grid on that the {@link BordersThread} will be operating
+	 * @param profiler
+	 *            the profiler measuring the time of the calculations or null
 	 */
-	public BordersThread(IBordersThreadGrid grid) {
+	public BordersThread(IBordersThreadGrid grid, TickProfiler profiler) {
 		this.grid = grid;
+		this.profiler = profiler;
 		this.bordersThread = new Thread(this);
 		this.bordersThread.setName("BordersThread");
 		this.bordersThread.setDaemon(true);
@@ -56,8 +62,16 @@ public class BordersThread implements Runnable {
 				} catch (InterruptedException e) {
 				}
 			}
-			if (!canceled) {
+			if (canceled) {
+				break;
+			}
+
+			if (profiler == null) {
+				calculateForPosition(position);
+			} else {
+				long start = System.nanoTime();
 				calculateForPosition(position);
+				profiler.add(ESubsystem.BORDERS, System.nanoTime() - start);
 			}
 		}
 	}
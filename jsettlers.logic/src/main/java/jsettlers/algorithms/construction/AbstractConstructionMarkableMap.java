@@ -80,4 +80,11 @@ public abstract class AbstractConstructionMarkableMap {
 	public abstract boolean canConstructAt(int x, int y, EBuildingType type, byte playerId);
 
 	public abstract byte calculateConstructionMarkValue(int mapX, int mapY, final RelativePoint[] flattenPositions);
+
+	/**
+	 * @return The cache of the buildabilities of this map or null if this map does not cache them.
+	 */
+	public BuildabilityCache getBuildabilityCache() {
+		return null;
+	}
 }
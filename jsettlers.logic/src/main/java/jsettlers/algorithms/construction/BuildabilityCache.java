@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.construction;
+
+import java.util.Arrays;
+
+import jsettlers.common.buildings.BuildingAreaBitSet;
+import jsettlers.common.buildings.EBuildingType;
+import jsettlers.common.position.RelativePoint;
+import jsettlers.common.utils.coordinates.ICoordinateConsumer;
+
+/**
+ * This cache remembers for every building type and position whether the area of the building is free for a construction. It does not depend on the
+ * player: A player can construct the building at a position with a buildability of {@link #BUILDABLE} if he owns the partition of the building
+ * area.<br>
+ * Building types with the same building area and the same construction requirements share their cached values.
+ * <p>
+ * The owner of the map has to call {@link #invalidateAround(int, int)} whenever the protected flag, the partition, the landscape type or the height
+ * of a position changes. Only the game thread may fill the cache with {@link #getBuildability(int, int, EBuildingType)}, as the checks of the
+ * game logic depend on it. Other threads may read it with {@link #getCachedBuildability(int, int, EBuildingType)} while the game thread changes
+ * the map.
+ */
+public final class BuildabilityCache {
+	/**
+	 * The buildability has not been calculated since the last change of the area.
+	 */
+	public static final byte UNKNOWN = 0;
+	/**
+	 * The building area is not free.
+	 */
+	public static final byte NOT_BUILDABLE = 1;
+	/**
+	 * The building area is free, but the ground is too uneven to flatten it.
+	 */
+	public static final byte UNEVEN = 2;
+	/**
+	 * The building can be constructed by the owner of the building area.
+	 */
+	public static final byte BUILDABLE = 3;
+
+	private static final int REMEMBERED_INVALIDATIONS = 1 << 13;
+
+	private static final int[]           AREA_OF_BUILDING_TYPE = new int[EBuildingType.NUMBER_OF_BUILDINGS];
+	private static final EBuildingType[] BUILDING_TYPE_OF_AREA;
+
+	static {
+		EBuildingType[] buildingTypeOfArea = new EBuildingType[EBuildingType.NUMBER_OF_BUILDINGS];
+		int numberOfAreas = 0;
+
+		for (EBuildingType buildingType : EBuildingType.VALUES) {
+			int area = 0;
+			while (area < numberOfAreas && !hasSameRequirements(buildingTypeOfArea[area], buildingType)) {
+				area++;
+			}
+			if (area == numberOfAreas) {
+				buildingTypeOfArea[numberOfAreas++] = buildingType;
+			}
+			AREA_OF_BUILDING_TYPE[buildingType.ordinal] = area;
+		}
+
+		BUILDING_TYPE_OF_AREA = Arrays.copyOf(buildingTypeOfArea, numberOfAreas);
+	}
+
+	private final AbstractConstructionMarkableMap map;
+	private final short                           width;
+	private final short                           height;
+	private final byte[][]                        buildabilities = new byte[BUILDING_TYPE_OF_AREA.length][];
+
+	private final int[]                           invalidatedPositions = new int[REMEMBERED_INVALIDATIONS];
+
+	private volatile int invalidations = 0;
+
+	public BuildabilityCache(AbstractConstructionMarkableMap map) {
+		this.map = map;
+		this.width = map.getWidth();
+		this.height = map.getHeight();
+	}
+
+	private static boolean hasSameRequirements(EBuildingType first, EBuildingType second) {
+		return Arrays.equals(first.getBuildingArea(), second.getBuildingArea())
+			&& first.getGroundTypes().equals(second.getGroundTypes())
+			&& first.isMine() == second.isMine()
+			&& first.needsFlattenedGround() == second.needsFlattenedGround();
+	}
+
+	/**
+	 * Gets the buildability of the given building type at the given position. If it's not cached, it is calculated and cached. This method must
+	 * only be called by the game thread.
+	 *
+	 * @param x
+	 *            x coordinate of the position of the building.
+	 * @param y
+	 *            y coordinate of the position of the building.
+	 * @param buildingType
+	 *            The type of the building.
+	 * @return {@link #NOT_BUILDABLE}, {@link #UNEVEN} or {@link #BUILDABLE}.
+	 */
+	public byte getBuildability(int x, int y, EBuildingType buildingType) {
+		if (!map.isInBounds(x, y)) {
+			return calculateBuildability(x, y, buildingType);
+		}
+
+		byte[] areaBuildabilities = getBuildabilitiesOf(AREA_OF_BUILDING_TYPE[buildingType.ordinal]);
+		int index = x + y * width;
+		byte buildability = areaBuildabilities[index];
+
+		if (buildability == UNKNOWN) {
+			buildability = calculateBuildability(x, y, buildingType);
+			areaBuildabilities[index] = buildability;
+		}
+		return buildability;
+	}
+
+	/**
+	 * Gets the buildability of the given building type at the given position if it's cached. This method doesn't change the cache and may be called
+	 * by any thread.
+	 *
+	 * @param x
+	 *            x coordinate of the position of the building.
+	 * @param y
+	 *            y coordinate of the position of the building.
+	 * @param buildingType
+	 *            The type of the building.
+	 * @return {@link #UNKNOWN} if the buildability is not cached, otherwise {@link #NOT_BUILDABLE}, {@link #UNEVEN} or {@link #BUILDABLE}.
+	 */
+	public byte getCachedBuildability(int x, int y, EBuildingType buildingType) {
+		byte[] areaBuildabilities = buildabilities[AREA_OF_BUILDING_TYPE[buildingType.ordinal]];
+		if (areaBuildabilities == null || !map.isInBounds(x, y)) {
+			return UNKNOWN;
+		}
+		return areaBuildabilities[x + y * width];
+	}
+
+	/**
+	 * @return A counter that is increased by every call to {@link #invalidateAround(int, int)}.
+	 */
+	public int getInvalidations() {
+		return invalidations;
+	}
+
+	/**
+	 * Forgets the buildabilities of all building areas containing the given position. This method must only be called by the game thread.
+	 *
+	 * @param x
+	 *            x coordinate of the changed position.
+	 * @param y
+	 *            y coordinate of the changed position.
+	 */
+	public void invalidateAround(int x, int y) {
+		invalidatedPositions[invalidations & (REMEMBERED_INVALIDATIONS - 1)] = x | y << 16;
+		invalidations++;
+
+		for (int area = 0; area < buildabilities.length; area++) {
+			byte[] areaBuildabilities = buildabilities[area];
+			if (areaBuildabilities == null) {
+				continue;
+			}
+
+			BuildingAreaBitSet areaBitSet = BUILDING_TYPE_OF_AREA[area].getBuildingAreaBitSet();
+			int minX = Math.max(0, x - areaBitSet.maxX);
+			int maxX = Math.min(width - 1, x - areaBitSet.minX);
+			int minY = Math.max(0, y - areaBitSet.maxY);
+			int maxY = Math.min(height - 1, y - areaBitSet.minY);
+
+			for (int currY = minY; currY <= maxY; currY++) {
+				Arrays.fill(areaBuildabilities, minX + currY * width, maxX + currY * width + 1, UNKNOWN);
+			}
+		}
+	}
+
+	/**
+	 * Calls the given consumer with every position passed to {@link #invalidateAround(int, int)} since {@link #getInvalidations()} returned the given
+	 * value. A position may be passed more than once.
+	 *
+	 * @param invalidationsBefore
+	 *            The result of {@link #getInvalidations()}.
+	 * @param consumer
+	 *            The consumer to be called.
+	 * @return true if all positions have been passed to the consumer,<br>
+	 *         false if there have been too many invalidations since then to remember their positions.
+	 */
+	public boolean forEachInvalidatedPositionSince(int invalidationsBefore, ICoordinateConsumer consumer) {
+		int invalidationsNow = invalidations;
+		if (invalidationsNow - invalidationsBefore > REMEMBERED_INVALIDATIONS) {
+			return false;
+		}
+
+		for (int invalidation = invalidationsBefore; invalidation != invalidationsNow; invalidation++) {
+			int position = invalidatedPositions[invalidation & (REMEMBERED_INVALIDATIONS - 1)];
+			consumer.accept(position & 0xFFFF, position >>> 16);
+		}
+		return invalidations - invalidationsBefore <= REMEMBERED_INVALIDATIONS; // the read positions have not been overwritten in the meantime
+	}
+
+	private byte[] getBuildabilitiesOf(int area) {
+		byte[] areaBuildabilities = buildabilities[area];
+		if (areaBuildabilities == null) {
+			synchronized (buildabilities) {
+				areaBuildabilities = buildabilities[area];
+				if (areaBuildabilities == null) {
+					areaBuildabilities = new byte[width * height];
+					buildabilities[area] = areaBuildabilities;
+				}
+			}
+		}
+		return areaBuildabilities;
+	}
+
+	private byte calculateBuildability(int x, int y, EBuildingType buildingType) {
+		RelativePoint[] buildingArea = buildingType.getBuildingArea();
+		BuildingAreaBitSet areaBitSet = buildingType.getBuildingAreaBitSet();
+		if (!map.isInBounds(areaBitSet.minX + x, areaBitSet.minY + y) || !map.isInBounds(areaBitSet.maxX + x, areaBitSet.maxY + y)) {
+			return NOT_BUILDABLE;
+		}
+
+		short partitionId = map.getPartitionIdAt(areaBitSet.aPosition.calculateX(x), areaBitSet.aPosition.calculateY(y));
+
+		for (RelativePoint curr : buildingArea) {
+			int currX = curr.calculateX(x);
+			int currY = curr.calculateY(y);
+
+			if (!map.canUsePositionForConstruction(currX, currY, buildingType.getRequiredGroundTypeAt(currX, currY), partitionId)) {
+				return NOT_BUILDABLE;
+			}
+		}
+
+		if (buildingType.needsFlattenedGround() && map.calculateConstructionMarkValue(x, y, buildingArea) < 0) {
+			return UNEVEN;
+		}
+		return BUILDABLE;
+	}
+}
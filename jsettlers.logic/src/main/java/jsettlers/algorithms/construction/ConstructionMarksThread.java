@@ -71,7 +71,7 @@ public final class ConstructionMarksThread implements Runnable {
 							algorithm.calculateConstructMarks(mapArea, buildingType);
 						}
 
-						watch.stop("calculation of construction marks");
+						watch.stop("calculation of construction marks with " + algorithm.getEvaluatedPositions() + " evaluated positions");
 					}
 					synchronized (this) {
 						wait(AlgorithmConstants.CONSTRUCT_MARKS_MAX_REFRESH_TIME);
@@ -23,7 +23,9 @@ import jsettlers.common.position.RelativePoint;
 import java.util.BitSet;
 
 /**
- * Algorithm to calculate the construction marks for the user.
+ * Algorithm to calculate the construction marks for the user. If the map offers a {@link BuildabilityCache}, only the positions that have become
+ * visible or whose building area has changed since the last calculation are evaluated again. The cache is only read, because it's filled by the
+ * game thread.
  * 
  * @author Andreas Eberle
  * 
@@ -32,7 +34,10 @@ public final class NewConstructionMarksAlgorithm {
 	private final AbstractConstructionMarkableMap map;
 	private final byte playerId;
 
-	private MapRectangle lastArea = null;
+	private MapRectangle  lastArea         = null;
+	private EBuildingType lastBuildingType = null;
+	private int           lastInvalidations;
+	private int           evaluatedPositions;
 
 	public NewConstructionMarksAlgorithm(AbstractConstructionMarkableMap map, byte player) {
 		this.map = map;
@@ -48,6 +53,11 @@ public final class NewConstructionMarksAlgorithm {
 		boolean binaryConstructionMarkValues = !buildingType.needsFlattenedGround();
 		RelativePoint[] positionsToBeFlattened = buildingType.getBuildingArea();
 
+		final BuildabilityCache buildabilityCache = map.getBuildabilityCache();
+		final int invalidationsBefore = buildabilityCache != null ? buildabilityCache.getInvalidations() : 0;
+		// the cache checks the ground types of mines like canConstructAt(), which differs from the check of the construction marks
+		final boolean useCachedBuildabilities = buildabilityCache != null && !buildingType.isMine();
+
 		// declare local variables
 		final short[] xJumps = buildingArea.xJumps;
 		final short[] yJumps = buildingArea.yJumps;
@@ -55,6 +65,14 @@ public final class NewConstructionMarksAlgorithm {
 		final int lineLength = mapArea.getWidth() + mapArea.getHeight() / 2;
 		final BitSet doneSet = new BitSet(lineLength * mapArea.getHeight());
 
+		// the marks of the last area are still valid, except for the positions whose building area has changed since the last calculation
+		MapRectangle unchangedArea = buildingType == lastBuildingType ? lastArea : null;
+		final BitSet changedSet = new BitSet(lineLength * mapArea.getHeight());
+		if (unchangedArea != null && !findChangedPositions(buildabilityCache, mapArea, buildingArea, lineLength, changedSet)) {
+			unchangedArea = null;
+		}
+		evaluatedPositions = 0;
+
 		final int xOffsetForBuilding = buildingArea.minX;
 		final int yOffsetForBuilding = buildingArea.minY;
 		final int buildingAreaWidth = buildingArea.width;
@@ -72,6 +90,10 @@ public final class NewConstructionMarksAlgorithm {
 				if (!mapArea.contains(x, y) || doneSet.get(dx + line * lineLength)) { // if this position has already been pruned.
 					continue;
 				}
+				if (unchangedArea != null && unchangedArea.contains(x, y) && !changedSet.get(dx + line * lineLength)) {
+					continue;
+				}
+				evaluatedPositions++;
 
 				{ // get the partition and check if the player is allowed to use this partition
 					int firstPosX = buildingArea.aPosition.calculateX(x);
@@ -84,6 +106,15 @@ public final class NewConstructionMarksAlgorithm {
 					partitionId = map.getPartitionIdAt(firstPosX, firstPosY);
 
 					if (!map.canPlayerConstructOnPartition(playerId, partitionId)) {
+						map.setConstructMarking(x, y, false, binaryConstructionMarkValues, null);
+						continue;
+					}
+				}
+
+				if (useCachedBuildabilities) { // use the cached result if the area has not changed since the last calculation
+					byte buildability = buildabilityCache.getCachedBuildability(x, y, buildingType);
+					if (buildability != BuildabilityCache.UNKNOWN) {
+						map.setConstructMarking(x, y, buildability != BuildabilityCache.NOT_BUILDABLE, binaryConstructionMarkValues, positionsToBeFlattened);
 						continue;
 					}
 				}
@@ -129,6 +160,40 @@ public final class NewConstructionMarksAlgorithm {
 
 		// set the lastArea variable for the next run
 		lastArea = mapArea;
+		lastBuildingType = buildingType;
+		lastInvalidations = invalidationsBefore;
+	}
+
+	/**
+	 * Marks the positions in the given area whose building area contains a position that has changed since the last calculation. The changes are
+	 * taken from the invalidation log of the {@link BuildabilityCache}, which also contains the positions whose partition id has changed.
+	 *
+	 * @return true if the changed positions are known,<br>
+	 *         false if all positions need to be calculated again.
+	 */
+	private boolean findChangedPositions(BuildabilityCache buildabilityCache, MapRectangle mapArea, BuildingAreaBitSet buildingArea, int lineLength,
+			BitSet changedSet) {
+		if (buildabilityCache == null) {
+			return false;
+		}
+
+		return buildabilityCache.forEachInvalidatedPositionSince(lastInvalidations, (changedX, changedY) -> {
+			int minLine = Math.max(0, changedY - buildingArea.maxY - mapArea.getMinY());
+			int maxLine = Math.min(mapArea.getHeight() - 1, changedY - buildingArea.minY - mapArea.getMinY());
+			int minDx = Math.max(0, changedX - buildingArea.maxX - mapArea.getMinX());
+			int maxDx = Math.min(lineLength - 1, changedX - buildingArea.minX - mapArea.getMinX());
+
+			for (int line = minLine; line <= maxLine && minDx <= maxDx; line++) {
+				changedSet.set(minDx + line * lineLength, maxDx + line * lineLength + 1);
+			}
+		});
+	}
+
+	/**
+	 * @return The number of positions evaluated by the last calculation of the construction marks.
+	 */
+	public int getEvaluatedPositions() {
+		return evaluatedPositions;
 	}
 
 	/**
@@ -140,6 +205,7 @@ public final class NewConstructionMarksAlgorithm {
 					.filterBounds(map.getWidth(), map.getHeight())
 					.forEach((x, y) -> map.setConstructMarking(x, y, false, false, null));
 			lastArea = null;
+			lastBuildingType = null;
 		}
 	}
 
@@ -30,6 +30,7 @@ public final class CachedViewCircle {
 	final short[] y;
 	final byte[] sight;
 	final int size;
+	private final int extent;
 
 	public CachedViewCircle(int radius) {
 		radius -= FogOfWar.PADDING / 2;
@@ -44,12 +45,14 @@ public final class CachedViewCircle {
 		MapCircleIterator iter = circle.iterator();
 		final float squaredViewDistance = radius * radius;
 		int i = 0;
+		int extent = 0;
 
 		while (iter.hasNext()) {
 			int y = iter.nextY();
 			int x = iter.nextX();
 			this.x[i] = (short) x;
 			this.y[i] = (short) y;
+			extent = Math.max(extent, Math.max(Math.abs(x), Math.abs(y)));
 
 			double squaredDistance = MapCircle.getSquaredDistance(x, y);
 			byte newSight;
@@ -63,6 +66,15 @@ public final class CachedViewCircle {
 
 			i++;
 		}
+
+		this.extent = extent;
+	}
+
+	/**
+	 * @return Returns the maximum distance of a position of this circle to its center in x or y direction.
+	 */
+	public int getExtent() {
+		return extent;
 	}
 
 	private int countElements(MapCircle circle) {
@@ -17,10 +17,18 @@ package jsettlers.algorithms.fogofwar;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+
+import java8.util.concurrent.ForkJoinPool;
+import java8.util.concurrent.RecursiveAction;
 
 import jsettlers.algorithms.fogofwar.CachedViewCircle.CachedViewCircleIterator;
 import jsettlers.common.CommonConstants;
+import jsettlers.common.logging.StatisticsStopWatch;
 import jsettlers.common.player.IPlayer;
 import jsettlers.common.player.IPlayerable;
 import jsettlers.common.position.ShortPoint2D;
@@ -29,37 +37,56 @@ import jsettlers.logic.constants.MatchConstants;
 
 /**
  * This class holds the fog of war for a given map and team.
+ * <p />
+ * The fog of war is updated incrementally: The view circles of all {@link IViewDistancable}s are kept in a separate view buffer. Only the
+ * blocks of the map that are touched by a circle of a moved, added or removed {@link IViewDistancable} are redrawn. The dimming of tiles that
+ * are no longer visible is only done in blocks that still contain dimming tiles.
+ * <p />
+ * Optionally, the blocks can be processed in parallel on a {@link ForkJoinPool}. In this mode, the map is split into tiles of {@link #TILE_SIZE}x
+ * {@link #TILE_SIZE} positions that are updated independently of each other. The result is identical to the serial update.
  * 
  * @author Andreas Eberle
  */
 public final class FogOfWar implements Serializable {
-	private static final long serialVersionUID = 1877994785778678510L;
+	private static final long serialVersionUID = 1877994785778678511L;
 	/**
 	 * Longest distance any unit may look
 	 */
 	private static final byte MAX_VIEW_DISTANCE = 65;
 	static final int PADDING = 10;
 
+	static final int BLOCK_SHIFT = 4;
+	static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+	static final int TILE_SHIFT = 6;
+	static final int TILE_SIZE = 1 << TILE_SHIFT;
+	private static final int TILE_BLOCKS_SHIFT = TILE_SHIFT - BLOCK_SHIFT;
+
 	private final byte team;
 
 	private final short width;
 	private final short height;
-	private byte[][] sight;
+	final byte[] sight;
 
 	private transient boolean enabled = Constants.FOG_OF_WAR_DEFAULT_ENABLED;
+	private transient boolean parallel = Constants.FOG_OF_WAR_PARALLEL;
 	private transient IFogOfWarGrid grid;
 	private transient boolean canceled;
+	private transient SightUpdater updater;
 
 	public FogOfWar(short width, short height, IPlayer player) {
 		this.width = width;
 		this.height = height;
 		this.team = player.getTeamId();
-		this.sight = new byte[width][height];
+		this.sight = new byte[width * height];
+		this.updater = new SightUpdater();
 	}
 
 	private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
 		ois.defaultReadObject();
 		enabled = true;
+		parallel = Constants.FOG_OF_WAR_PARALLEL;
+		updater = new SightUpdater();
+		updater.markAllBlocksDirty(); // the loaded sight has to dim down where no viewer is anymore
 	}
 
 	public void start(IFogOfWarGrid grid) {
@@ -79,7 +106,7 @@ public final class FogOfWar implements Serializable {
 	 */
 	public final byte getVisibleStatus(int x, int y) {
 		if (enabled) {
-			return (byte) Math.min(sight[x][y], CommonConstants.FOG_OF_WAR_VISIBLE);
+			return (byte) Math.min(sight[y * width + x], CommonConstants.FOG_OF_WAR_VISIBLE);
 		} else {
 			return CommonConstants.FOG_OF_WAR_VISIBLE;
 		}
@@ -90,18 +117,55 @@ public final class FogOfWar implements Serializable {
 	}
 
 	public final void toggleEnabled() {
-		enabled = !enabled;
+		setEnabled(!enabled);
 	}
 
 	public void setEnabled(boolean enabled) {
 		this.enabled = enabled;
+		if (grid != null) {
+			grid.fogOfWarChangedIn(0, 0, width, height);
+		}
 	}
 
-	final class NewFoWThread extends Thread {
-		private static final byte DIM_DOWN_SPEED = 10;
-		private final CircleDrawer drawer = new CircleDrawer();
-		private byte[][] buffer = new byte[width][height];
+	/**
+	 * Enables or disables the parallel update of the fog of war.
+	 * 
+	 * @param parallel
+	 *            If true, the tiles of the map are updated in parallel on the common {@link ForkJoinPool}.
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
+	/**
+	 * @return Returns the stop watch measuring the duration of every update cycle of the fog of war.
+	 */
+	public StatisticsStopWatch getUpdateStopWatch() {
+		return updater.stopWatch;
+	}
+
+	/**
+	 * @return Returns the number of view circles that have been drawn in the last update cycle.
+	 */
+	public int getLastDrawnCircles() {
+		return updater.lastDrawnCircles;
+	}
+
+	/**
+	 * @return Returns the number of blocks of {@link #BLOCK_SIZE}x{@link #BLOCK_SIZE} tiles that have been updated in the last update cycle.
+	 */
+	public int getLastUpdatedBlocks() {
+		return updater.lastUpdatedBlocks;
+	}
+
+	/**
+	 * Executes one update cycle of the fog of war with the given {@link IViewDistancable}s.
+	 */
+	void updateSight(Iterable<? extends IViewDistancable> buildings, Iterable<? extends IViewDistancable> movables) {
+		updater.update(buildings, movables);
+	}
 
+	final class NewFoWThread extends Thread {
 		NewFoWThread() {
 			super("FoWThread");
 			super.setDaemon(true);
@@ -112,77 +176,474 @@ public final class FogOfWar implements Serializable {
 			mySleep(500L);
 
 			while (!canceled) {
-				// StopWatch watch = new MilliStopWatch();
-				// watch.restart();
 				if (enabled) {
-					rebuildSight();
+					updateSight(grid.getBuildingViewDistancables(), grid.getMovableViewDistancables());
 				}
-				// watch.stop("NewFoWThread needed: ");
 
 				mySleep(800L);
 			}
 		}
 
-		private void rebuildSight() {
-			drawer.setBuffer(buffer);
+		private void mySleep(long ms) {
+			try {
+				Thread.sleep(ms);
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Keeps the state needed to update the sight incrementally.
+	 */
+	final class SightUpdater {
+		private static final byte DIM_DOWN_SPEED = 10;
+
+		private final int blocksX = (width + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+		private final int blocksY = (height + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+		private final int tilesX = (blocksX + (1 << TILE_BLOCKS_SHIFT) - 1) >> TILE_BLOCKS_SHIFT;
+		private final int tilesY = (blocksY + (1 << TILE_BLOCKS_SHIFT) - 1) >> TILE_BLOCKS_SHIFT;
+
+		private final byte[] viewSight = new byte[width * height];
+		private final CircleDrawer drawer = new CircleDrawer(viewSight);
+		private final IdentityHashMap<IViewDistancable, ViewerState> viewers = new IdentityHashMap<>();
+		private final BitSet dirtyBlocks = new BitSet(blocksX * blocksY);
+		private final BitSet activeBlocks = new BitSet(blocksX * blocksY);
+		private final BitSet updatedBlocks = new BitSet(blocksX * blocksY);
+		private final boolean[] finishedBlocks = new boolean[blocksX * blocksY];
+		private Tile[] tiles;
+
+		private final StatisticsStopWatch stopWatch = new StatisticsStopWatch();
+		private int cycle = 0;
+		private int lastDrawnCircles;
+		private int lastUpdatedBlocks;
+
+		void update(Iterable<? extends IViewDistancable> buildings, Iterable<? extends IViewDistancable> movables) {
+			stopWatch.restart();
+			cycle++;
+
+			collectViewers(buildings);
+			collectViewers(movables);
+			removeVanishedViewers();
+
+			updatedBlocks.clear();
+			updatedBlocks.or(dirtyBlocks);
+			updatedBlocks.or(activeBlocks);
+
+			if (parallel) {
+				updateTilesParallel();
+			} else {
+				redrawDirtyBlocks();
+				dimDownActiveBlocks();
+			}
+
+			if (grid != null) {
+				reportUpdatedBlocks();
+			}
+
+			stopWatch.stop("FoW update");
+		}
+
+		/**
+		 * Informs the grid about the updated blocks. Neighboring blocks of a row are reported as one area.
+		 */
+		private void reportUpdatedBlocks() {
+			for (int block = updatedBlocks.nextSetBit(0); block >= 0; block = updatedBlocks.nextSetBit(block)) {
+				int blockY = block / blocksX;
+				int endBlock = Math.min(updatedBlocks.nextClearBit(block), (blockY + 1) * blocksX);
+
+				int minX = (block % blocksX) << BLOCK_SHIFT;
+				int maxX = Math.min(width, ((endBlock - 1) % blocksX + 1) << BLOCK_SHIFT);
+				int minY = blockY << BLOCK_SHIFT;
+				int maxY = Math.min(height, minY + BLOCK_SIZE);
+				grid.fogOfWarChangedIn(minX, minY, maxX, maxY);
+
+				block = endBlock;
+			}
+		}
+
+		private void collectViewers(Iterable<? extends IViewDistancable> objects) {
+			for (IViewDistancable curr : objects) {
+				if (!isPlayerOK(curr)) {
+					continue;
+				}
+				short distance = curr.getViewDistance();
+				ShortPoint2D pos = curr.getPosition();
+				if (distance <= 0 || pos == null) {
+					continue;
+				}
+
+				ViewerState state = viewers.get(curr);
+				if (state == null) {
+					state = new ViewerState(pos.x, pos.y, distance);
+					viewers.put(curr, state);
+					markDirty(state);
+				} else if (state.x != pos.x || state.y != pos.y || state.distance != distance) {
+					markDirty(state);
+					state.set(pos.x, pos.y, distance);
+					markDirty(state);
+				}
+				state.lastSeenCycle = cycle;
+			}
+		}
+
+		private void removeVanishedViewers() {
+			Iterator<ViewerState> iterator = viewers.values().iterator();
+			while (iterator.hasNext()) {
+				ViewerState state = iterator.next();
+				if (state.lastSeenCycle != cycle) {
+					markDirty(state);
+					iterator.remove();
+				}
+			}
+		}
+
+		private void markDirty(ViewerState state) {
+			int extent = drawer.getCachedCircle(state.distance).getExtent();
+			int minBlockX = Math.max(0, state.x - extent) >> BLOCK_SHIFT;
+			int maxBlockX = Math.min(width - 1, state.x + extent) >> BLOCK_SHIFT;
+			int minBlockY = Math.max(0, state.y - extent) >> BLOCK_SHIFT;
+			int maxBlockY = Math.min(height - 1, state.y + extent) >> BLOCK_SHIFT;
+
+			for (int blockY = minBlockY; blockY <= maxBlockY; blockY++) {
+				dirtyBlocks.set(blockY * blocksX + minBlockX, blockY * blocksX + maxBlockX + 1);
+			}
+		}
+
+		void markAllBlocksDirty() {
+			dirtyBlocks.set(0, blocksX * blocksY);
+		}
+
+		private boolean touchesDirtyBlock(ViewerState state) {
+			int extent = drawer.getCachedCircle(state.distance).getExtent();
+			int minBlockX = Math.max(0, state.x - extent) >> BLOCK_SHIFT;
+			int maxBlockX = Math.min(width - 1, state.x + extent) >> BLOCK_SHIFT;
+			int minBlockY = Math.max(0, state.y - extent) >> BLOCK_SHIFT;
+			int maxBlockY = Math.min(height - 1, state.y + extent) >> BLOCK_SHIFT;
+
+			return touchesDirtyBlock(minBlockX, minBlockY, maxBlockX, maxBlockY);
+		}
+
+		/**
+		 * Checks if the given rectangle of blocks (all bounds inclusive) contains a dirty block.
+		 */
+		private boolean touchesDirtyBlock(int minBlockX, int minBlockY, int maxBlockX, int maxBlockY) {
+			for (int blockY = minBlockY; blockY <= maxBlockY; blockY++) {
+				int firstDirty = dirtyBlocks.nextSetBit(blockY * blocksX + minBlockX);
+				if (firstDirty >= 0 && firstDirty <= blockY * blocksX + maxBlockX) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private void redrawDirtyBlocks() {
+			int drawnCircles = 0;
+
+			if (!dirtyBlocks.isEmpty()) {
+				for (int block = dirtyBlocks.nextSetBit(0); block >= 0; block = dirtyBlocks.nextSetBit(block + 1)) {
+					clearViewOfBlock(block);
+				}
+
+				drawer.setClip(dirtyBlocks, blocksX);
+				for (ViewerState state : viewers.values()) {
+					if (touchesDirtyBlock(state)) {
+						drawer.drawCircleToBuffer(state.x, state.y, state.distance);
+						drawnCircles++;
+					}
+				}
+				drawer.setClip(null, 0);
+
+				activeBlocks.or(dirtyBlocks);
+				dirtyBlocks.clear();
+			}
+
+			lastDrawnCircles = drawnCircles;
+		}
+
+		private void dimDownActiveBlocks() {
+			int updatedBlocks = 0;
+			for (int block = activeBlocks.nextSetBit(0); block >= 0; block = activeBlocks.nextSetBit(block + 1)) {
+				if (!dimDownBlock(block)) {
+					activeBlocks.clear(block);
+				}
+				updatedBlocks++;
+			}
+			lastUpdatedBlocks = updatedBlocks;
+		}
+
+		/**
+		 * Redraws the dirty blocks and dims down the active blocks tile by tile on the common {@link ForkJoinPool}. Every tile only writes to its
+		 * own positions and every circle is clipped to the tiles it is drawn in, so the tiles can be processed independently.
+		 */
+		private void updateTilesParallel() {
+			if (tiles == null) {
+				tiles = new Tile[tilesX * tilesY];
+				for (int tileY = 0; tileY < tilesY; tileY++) {
+					for (int tileX = 0; tileX < tilesX; tileX++) {
+						tiles[tileY * tilesX + tileX] = new Tile(tileX, tileY);
+					}
+				}
+			}
+
+			assignViewersToTiles();
+			activeBlocks.or(dirtyBlocks);
+
+			ArrayList<Tile> activeTiles = new ArrayList<>();
+			for (Tile tile : tiles) {
+				if (tile.containsActiveBlock()) {
+					activeTiles.add(tile);
+				}
+			}
+			ForkJoinPool.commonPool().invoke(new UpdateTilesAction(activeTiles, 0, activeTiles.size()));
+
+			int drawnCircles = 0;
+			int updatedBlocks = 0;
+			for (Tile tile : activeTiles) {
+				drawnCircles += tile.drawnCircles;
+				updatedBlocks += tile.updatedBlocks;
+				tile.viewers.clear();
+			}
+			for (int block = activeBlocks.nextSetBit(0); block >= 0; block = activeBlocks.nextSetBit(block + 1)) {
+				if (finishedBlocks[block]) {
+					finishedBlocks[block] = false;
+					activeBlocks.clear(block);
+				}
+			}
+			dirtyBlocks.clear();
+
+			lastDrawnCircles = drawnCircles;
+			lastUpdatedBlocks = updatedBlocks;
+		}
 
-			for (short x = 0; x < width; x++) {
-				for (short y = 0; y < height; y++) {
-					byte currSight = sight[x][y];
+		private void assignViewersToTiles() {
+			if (dirtyBlocks.isEmpty()) {
+				return;
+			}
 
-					if (currSight >= CommonConstants.FOG_OF_WAR_EXPLORED) {
-						byte newSight = (byte) (currSight - DIM_DOWN_SPEED);
-						if (newSight < CommonConstants.FOG_OF_WAR_EXPLORED) {
-							buffer[x][y] = CommonConstants.FOG_OF_WAR_EXPLORED;
-						} else {
-							buffer[x][y] = newSight;
+			for (ViewerState state : viewers.values()) {
+				int extent = drawer.getCachedCircle(state.distance).getExtent();
+				int minBlockX = Math.max(0, state.x - extent) >> BLOCK_SHIFT;
+				int maxBlockX = Math.min(width - 1, state.x + extent) >> BLOCK_SHIFT;
+				int minBlockY = Math.max(0, state.y - extent) >> BLOCK_SHIFT;
+				int maxBlockY = Math.min(height - 1, state.y + extent) >> BLOCK_SHIFT;
+
+				for (int tileY = minBlockY >> TILE_BLOCKS_SHIFT; tileY <= maxBlockY >> TILE_BLOCKS_SHIFT; tileY++) {
+					for (int tileX = minBlockX >> TILE_BLOCKS_SHIFT; tileX <= maxBlockX >> TILE_BLOCKS_SHIFT; tileX++) {
+						Tile tile = tiles[tileY * tilesX + tileX];
+						if (touchesDirtyBlock(Math.max(minBlockX, tile.minBlockX), Math.max(minBlockY, tile.minBlockY),
+								Math.min(maxBlockX, tile.maxBlockX - 1), Math.min(maxBlockY, tile.maxBlockY - 1))) {
+							tile.viewers.add(state);
 						}
-					} else {
-						buffer[x][y] = sight[x][y];
 					}
 				}
 			}
+		}
 
-			ConcurrentLinkedQueue<? extends IViewDistancable> buildings = grid.getBuildingViewDistancables();
-			applyViewDistances(buildings);
+		private final class UpdateTilesAction extends RecursiveAction {
+			private static final long serialVersionUID = -2826480135311066463L;
 
-			ConcurrentLinkedQueue<? extends IViewDistancable> movables = grid.getMovableViewDistancables();
-			applyViewDistances(movables);
+			private final ArrayList<Tile> tiles;
+			private final int start;
+			private final int end;
+
+			UpdateTilesAction(ArrayList<Tile> tiles, int start, int end) {
+				this.tiles = tiles;
+				this.start = start;
+				this.end = end;
+			}
 
-			byte[][] temp = sight;
-			sight = buffer;
-			buffer = temp;
+			@Override
+			protected void compute() {
+				if (end - start <= 1) {
+					for (int i = start; i < end; i++) {
+						tiles.get(i).update();
+					}
+				} else {
+					int middle = (start + end) >>> 1;
+					invokeAll(new UpdateTilesAction(tiles, start, middle), new UpdateTilesAction(tiles, middle, end));
+				}
+			}
 		}
 
-		private void applyViewDistances(ConcurrentLinkedQueue<? extends IViewDistancable> objects) {
-			for (IViewDistancable curr : objects) {
-				if (isPlayerOK(curr)) {
-					short distance = curr.getViewDistance();
-					if (distance > 0) {
-						ShortPoint2D pos = curr.getPosition();
-						if (pos != null)
-							drawer.drawCircleToBuffer(pos.x, pos.y, distance);
+		/**
+		 * A tile of {@link #TILE_SIZE}x{@link #TILE_SIZE} positions that is updated by one task of the parallel update.
+		 */
+		private final class Tile {
+			private final int minBlockX;
+			private final int minBlockY;
+			private final int maxBlockX;
+			private final int maxBlockY;
+			private final CircleDrawer tileDrawer = new CircleDrawer(viewSight, drawer.cachedCircles);
+			private final ArrayList<ViewerState> viewers = new ArrayList<>();
+
+			private int drawnCircles;
+			private int updatedBlocks;
+
+			Tile(int tileX, int tileY) {
+				this.minBlockX = tileX << TILE_BLOCKS_SHIFT;
+				this.minBlockY = tileY << TILE_BLOCKS_SHIFT;
+				this.maxBlockX = Math.min(blocksX, minBlockX + (1 << TILE_BLOCKS_SHIFT));
+				this.maxBlockY = Math.min(blocksY, minBlockY + (1 << TILE_BLOCKS_SHIFT));
+
+				tileDrawer.setClip(dirtyBlocks, blocksX);
+				tileDrawer.setClipBounds(minBlockX << BLOCK_SHIFT, minBlockY << BLOCK_SHIFT, Math.min(width, maxBlockX << BLOCK_SHIFT),
+						Math.min(height, maxBlockY << BLOCK_SHIFT));
+			}
+
+			boolean containsActiveBlock() {
+				for (int blockY = minBlockY; blockY < maxBlockY; blockY++) {
+					int firstActive = activeBlocks.nextSetBit(blockY * blocksX + minBlockX);
+					if (firstActive >= 0 && firstActive < blockY * blocksX + maxBlockX) {
+						return true;
+					}
+				}
+				return false;
+			}
+
+			void update() {
+				for (int blockY = minBlockY; blockY < maxBlockY; blockY++) {
+					for (int block = blockY * blocksX + minBlockX, end = blockY * blocksX + maxBlockX; block < end; block++) {
+						if (dirtyBlocks.get(block)) {
+							clearViewOfBlock(block);
+						}
+					}
+				}
+
+				for (ViewerState state : viewers) {
+					tileDrawer.drawCircleToBuffer(state.x, state.y, state.distance);
+				}
+				drawnCircles = viewers.size();
+
+				int updated = 0;
+				for (int blockY = minBlockY; blockY < maxBlockY; blockY++) {
+					for (int block = blockY * blocksX + minBlockX, end = blockY * blocksX + maxBlockX; block < end; block++) {
+						if (activeBlocks.get(block)) {
+							finishedBlocks[block] = !dimDownBlock(block);
+							updated++;
+						}
 					}
 				}
+				updatedBlocks = updated;
 			}
 		}
 
-		private void mySleep(long ms) {
-			try {
-				Thread.sleep(ms);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
+		private void clearViewOfBlock(int block) {
+			int startX = (block % blocksX) << BLOCK_SHIFT;
+			int startY = (block / blocksX) << BLOCK_SHIFT;
+			int endX = Math.min(width, startX + BLOCK_SIZE);
+			int endY = Math.min(height, startY + BLOCK_SIZE);
+
+			for (int y = startY; y < endY; y++) {
+				Arrays.fill(viewSight, y * width + startX, y * width + endX, (byte) 0);
+			}
+		}
+
+		/**
+		 * Dims down the sight of the given block and merges it with the view buffer.
+		 * 
+		 * @return true if the block still contains tiles that need to be dimmed down.
+		 */
+		private boolean dimDownBlock(int block) {
+			int startX = (block % blocksX) << BLOCK_SHIFT;
+			int startY = (block / blocksX) << BLOCK_SHIFT;
+			int endX = Math.min(width, startX + BLOCK_SIZE);
+			int endY = Math.min(height, startY + BLOCK_SIZE);
+			boolean dimming = false;
+
+			for (int y = startY; y < endY; y++) {
+				for (int index = y * width + startX, end = y * width + endX; index < end; index++) {
+					byte newSight = dimDown(sight[index]);
+					byte view = viewSight[index];
+					if (newSight < view) {
+						newSight = view;
+					}
+					sight[index] = newSight;
+					dimming |= newSight > view && newSight > CommonConstants.FOG_OF_WAR_EXPLORED;
+				}
 			}
+			return dimming;
+		}
+
+		private byte dimDown(byte currSight) {
+			if (currSight >= CommonConstants.FOG_OF_WAR_EXPLORED) {
+				byte newSight = (byte) (currSight - DIM_DOWN_SPEED);
+				return newSight < CommonConstants.FOG_OF_WAR_EXPLORED ? CommonConstants.FOG_OF_WAR_EXPLORED : newSight;
+			} else {
+				return currSight;
+			}
+		}
+	}
+
+	private static final class ViewerState {
+		private short x;
+		private short y;
+		private short distance;
+		private int lastSeenCycle;
+
+		ViewerState(short x, short y, short distance) {
+			set(x, y, distance);
 		}
 
+		void set(short x, short y, short distance) {
+			this.x = x;
+			this.y = y;
+			this.distance = distance;
+		}
 	}
 
 	final class CircleDrawer {
-		private byte[][] buffer;
-		private final CachedViewCircle[] cachedCircles = new CachedViewCircle[MAX_VIEW_DISTANCE];
+		private final byte[] buffer;
+		private final CachedViewCircle[] cachedCircles;
+		private BitSet clipBlocks;
+		private int clipBlocksX;
+		private int clipMinX = 0;
+		private int clipMinY = 0;
+		private int clipMaxX = width;
+		private int clipMaxY = height;
+
+		CircleDrawer(byte[] buffer) {
+			this(buffer, new CachedViewCircle[MAX_VIEW_DISTANCE]);
+		}
 
-		public final void setBuffer(byte[][] buffer) {
+		/**
+		 * Creates a drawer that shares the given circle cache. The cache must only be filled by one thread.
+		 */
+		private CircleDrawer(byte[] buffer, CachedViewCircle[] cachedCircles) {
 			this.buffer = buffer;
+			this.cachedCircles = cachedCircles;
+		}
+
+		/**
+		 * Restricts drawing to the given blocks of {@link #BLOCK_SIZE}x{@link #BLOCK_SIZE} tiles.
+		 * 
+		 * @param clipBlocks
+		 *            The blocks to draw to or null to draw everywhere.
+		 * @param blocksX
+		 *            The number of blocks in x direction.
+		 */
+		final void setClip(BitSet clipBlocks, int blocksX) {
+			this.clipBlocks = clipBlocks;
+			this.clipBlocksX = blocksX;
+		}
+
+		/**
+		 * Restricts drawing to the given rectangle.
+		 * 
+		 * @param minX
+		 *            The minimum x coordinate (inclusive).
+		 * @param minY
+		 *            The minimum y coordinate (inclusive).
+		 * @param maxX
+		 *            The maximum x coordinate (exclusive).
+		 * @param maxY
+		 *            The maximum y coordinate (exclusive).
+		 */
+		final void setClipBounds(int minX, int minY, int maxX, int maxY) {
+			this.clipMinX = minX;
+			this.clipMinY = minY;
+			this.clipMaxX = maxX;
+			this.clipMaxY = maxY;
 		}
 
 		/**
@@ -196,19 +657,21 @@ public final class FogOfWar implements Serializable {
 				final int x = iterator.getCurrX();
 				final int y = iterator.getCurrY();
 
-				if (x >= 0 && x < width && y > 0 && y < height) {
-					byte oldSight = buffer[x][y];
+				if (x >= clipMinX && x < clipMaxX && y > 0 && y >= clipMinY && y < clipMaxY
+						&& (clipBlocks == null || clipBlocks.get((y >> BLOCK_SHIFT) * clipBlocksX + (x >> BLOCK_SHIFT)))) {
+					final int index = y * width + x;
+					byte oldSight = buffer[index];
 					if (oldSight < CommonConstants.FOG_OF_WAR_VISIBLE) {
 						byte newSight = iterator.getCurrSight();
 						if (oldSight < newSight) {
-							buffer[x][y] = newSight;
+							buffer[index] = newSight;
 						}
 					}
 				}
 			}
 		}
 
-		private CachedViewCircle getCachedCircle(int viewDistance) {
+		CachedViewCircle getCachedCircle(int viewDistance) {
 			int radius = Math.min(viewDistance + PADDING, MAX_VIEW_DISTANCE - 1);
 			if (cachedCircles[radius] == null) {
 				cachedCircles[radius] = new CachedViewCircle(radius);
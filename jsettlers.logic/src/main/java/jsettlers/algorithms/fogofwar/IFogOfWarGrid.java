@@ -35,4 +35,9 @@ public interface IFogOfWarGrid {
 
 	ConcurrentLinkedQueue<? extends IViewDistancable> getBuildingViewDistancables();
 
+	/**
+	 * Called by the fog of war thread after the visible status may have changed in the given area.
+	 */
+	void fogOfWarChangedIn(int minX, int minY, int maxX, int maxY);
+
 }
@@ -38,4 +38,10 @@ public interface IBlockingProvider {
 	 */
 	boolean isBlocked(int x, int y);
 
+	/**
+	 * Listener that is informed when the blocked state of a position changes.
+	 */
+	interface IBlockingChangedListener {
+		void blockingChanged(int x, int y, boolean newBlocked);
+	}
 }
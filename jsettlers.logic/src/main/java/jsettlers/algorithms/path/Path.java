@@ -37,6 +37,11 @@ public class Path implements Serializable {
 		pathY = new short[length];
 	}
 
+	private Path(short[] pathX, short[] pathY) {
+		this.pathX = pathX;
+		this.pathY = pathY;
+	}
+
 	/**
 	 * Concatenates a path and a prefix of {@link ShortPoint2D} objects.
 	 * 
@@ -143,6 +148,16 @@ public class Path implements Serializable {
 		idx++;
 	}
 
+	/**
+	 * Creates a path with the same positions that starts at the first step again. The positions are shared by both paths, so this is cheap, but
+	 * {@link #insertAt(int, short, short)} must not be used on them anymore.
+	 * 
+	 * @return a new path with the positions of this path.
+	 */
+	public final Path copy() {
+		return new Path(pathX, pathY);
+	}
+
 	public final ShortPoint2D getFirstPos() {
 		return new ShortPoint2D(getFirstX(), getFirstY());
 	}
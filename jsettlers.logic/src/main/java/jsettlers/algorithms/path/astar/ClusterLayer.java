@@ -0,0 +1,507 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.astar;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.common.movable.EDirection;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Abstraction of a map for one kind of path requester (e.g. land units or ships) that is used by the {@link HierarchicalAStar}.
+ * <p />
+ * The map is split into clusters of {@link #CLUSTER_SIZE}x{@link #CLUSTER_SIZE} positions. Every run of neighboring free positions on the border
+ * of two clusters forms an entrance with one or two transitions, whose end points are the nodes of the abstract graph. The nodes of a cluster are
+ * connected by the lengths of their shortest paths inside of the cluster. The entrance graph of a cluster is calculated lazily and recalculated
+ * after the cluster has been invalidated.
+ */
+final class ClusterLayer {
+	static final int CLUSTER_SHIFT = 4;
+	static final int CLUSTER_SIZE = 1 << CLUSTER_SHIFT;
+	private static final int POSITIONS_PER_CLUSTER = CLUSTER_SIZE * CLUSTER_SIZE;
+	private static final int MIN_ENTRANCE_LENGTH_FOR_TWO_TRANSITIONS = 6;
+	private static final int UNREACHABLE = -1;
+
+	private static final byte[] xDeltaArray = EDirection.getXDeltaArray();
+	private static final byte[] yDeltaArray = EDirection.getYDeltaArray();
+
+	private final IAStarPathMap map;
+	private final IPathCalculatable requester;
+	private final short width;
+	private final short height;
+	private final int clustersX;
+	private final int clustersY;
+
+	private final Cluster[] clusters;
+
+	private final int[] costs;
+	private final int[] parents;
+	private final int[] visitedIds;
+	private final int[] closedIds;
+	private int searchId = 0;
+	private long[] open = new long[64];
+	private int openSize;
+
+	private final int[] bfsQueue = new int[POSITIONS_PER_CLUSTER];
+	private final int[] startDistances = new int[POSITIONS_PER_CLUSTER];
+	private final int[] targetDistances = new int[POSITIONS_PER_CLUSTER];
+
+	private final TransitionList transitions = new TransitionList();
+
+	/**
+	 * Creates a new layer.
+	 *
+	 * @param map
+	 *            The map to be abstracted.
+	 * @param requester
+	 *            The requester used to query the blocked state of the positions. The blocked state must be the same for all requesters that
+	 *            use this layer.
+	 * @param width
+	 *            The width of the map.
+	 * @param height
+	 *            The height of the map.
+	 */
+	ClusterLayer(IAStarPathMap map, IPathCalculatable requester, short width, short height) {
+		this.map = map;
+		this.requester = requester;
+		this.width = width;
+		this.height = height;
+		this.clustersX = getClustersX(width);
+		this.clustersY = getClustersY(height);
+
+		this.clusters = new Cluster[clustersX * clustersY];
+		this.costs = new int[width * height];
+		this.parents = new int[width * height];
+		this.visitedIds = new int[width * height];
+		this.closedIds = new int[width * height];
+	}
+
+	static int getClustersX(short width) {
+		return (width + CLUSTER_SIZE - 1) >> CLUSTER_SHIFT;
+	}
+
+	static int getClustersY(short height) {
+		return (height + CLUSTER_SIZE - 1) >> CLUSTER_SHIFT;
+	}
+
+	int getClusterIndex(int x, int y) {
+		return (y >> CLUSTER_SHIFT) * clustersX + (x >> CLUSTER_SHIFT);
+	}
+
+	/**
+	 * Marks the clusters whose entrance graph depends on the given position to be recalculated before they are used the next time.
+	 */
+	void invalidate(int x, int y) {
+		for (int clusterY = Math.max(0, (y - 1) >> CLUSTER_SHIFT); clusterY <= Math.min(clustersY - 1, (y + 1) >> CLUSTER_SHIFT); clusterY++) {
+			for (int clusterX = Math.max(0, (x - 1) >> CLUSTER_SHIFT); clusterX <= Math.min(clustersX - 1, (x + 1) >> CLUSTER_SHIFT); clusterX++) {
+				clusters[clusterY * clustersX + clusterX] = null;
+			}
+		}
+	}
+
+	/**
+	 * Searches a path on the entrance graph from the start to the target position and marks the clusters of the path and their neighbors in the
+	 * given corridor. The start and the target position must not be blocked.
+	 *
+	 * @return true if the target can be reached from the start position<br>
+	 *         false otherwise.
+	 */
+	boolean findCorridor(int sx, int sy, int tx, int ty, BitSet corridor) {
+		int start = sy * width + sx;
+		int target = ty * width + tx;
+		int startCluster = getClusterIndex(sx, sy);
+		int targetCluster = getClusterIndex(tx, ty);
+
+		calculateDistancesInCluster(getCluster(startCluster), startCluster, start, startDistances);
+		calculateDistancesInCluster(getCluster(targetCluster), targetCluster, target, targetDistances);
+
+		searchId++;
+		openSize = 0;
+		costs[start] = 0;
+		parents[start] = -1;
+		visitedIds[start] = searchId;
+		pushOpen(getDistance(start, target), start);
+
+		while (openSize > 0) {
+			int node = (int) popOpen();
+			if (closedIds[node] == searchId) {
+				continue;
+			}
+			closedIds[node] = searchId;
+
+			if (node == target) {
+				markCorridor(target, corridor);
+				return true;
+			}
+
+			int nodeCosts = costs[node];
+			int nodeCluster = getClusterIndex(node % width, node / width);
+			Cluster cluster = getCluster(nodeCluster);
+
+			if (node == start) {
+				for (int i = 0; i < cluster.nodes.length; i++) {
+					int distance = startDistances[getLocalIndex(nodeCluster, cluster.nodes[i])];
+					if (distance != UNREACHABLE) {
+						relax(node, cluster.nodes[i], nodeCosts + distance, target);
+					}
+				}
+			}
+			if (nodeCluster == targetCluster) {
+				int distance = targetDistances[getLocalIndex(nodeCluster, node)];
+				if (distance != UNREACHABLE) {
+					relax(node, target, nodeCosts + distance, target);
+				}
+			}
+
+			int nodeIdx = cluster.indexOf(node);
+			if (nodeIdx >= 0) {
+				int[] distances = cluster.distances[nodeIdx];
+				for (int i = 0; i < distances.length; i++) {
+					if (distances[i] != UNREACHABLE) {
+						relax(node, cluster.nodes[i], nodeCosts + distances[i], target);
+					}
+				}
+
+				for (int neighbor : cluster.transitions[nodeIdx]) {
+					relax(node, neighbor, nodeCosts + 1, target);
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private void relax(int node, int neighbor, int newCosts, int target) {
+		if (closedIds[neighbor] == searchId || (visitedIds[neighbor] == searchId && costs[neighbor] <= newCosts)) {
+			return;
+		}
+
+		visitedIds[neighbor] = searchId;
+		costs[neighbor] = newCosts;
+		parents[neighbor] = node;
+		pushOpen(newCosts + getDistance(neighbor, target), neighbor);
+	}
+
+	private void markCorridor(int target, BitSet corridor) {
+		for (int node = target; node >= 0; node = parents[node]) {
+			int clusterX = (node % width) >> CLUSTER_SHIFT;
+			int clusterY = (node / width) >> CLUSTER_SHIFT;
+
+			for (int y = Math.max(0, clusterY - 1); y <= Math.min(clustersY - 1, clusterY + 1); y++) {
+				corridor.set(y * clustersX + Math.max(0, clusterX - 1), y * clustersX + Math.min(clustersX - 1, clusterX + 1) + 1);
+			}
+		}
+	}
+
+	private int getDistance(int flatIdx1, int flatIdx2) {
+		return ShortPoint2D.getOnGridDist(flatIdx2 % width - flatIdx1 % width, flatIdx2 / width - flatIdx1 / width);
+	}
+
+	private void pushOpen(int priority, int node) {
+		if (openSize == open.length) {
+			open = Arrays.copyOf(open, openSize * 2);
+		}
+
+		long entry = ((long) priority << 32) | node;
+		int idx = openSize++;
+		while (idx > 0) {
+			int parentIdx = (idx - 1) >> 1;
+			if (open[parentIdx] <= entry) {
+				break;
+			}
+			open[idx] = open[parentIdx];
+			idx = parentIdx;
+		}
+		open[idx] = entry;
+	}
+
+	private long popOpen() {
+		long min = open[0];
+		long last = open[--openSize];
+
+		int idx = 0;
+		int childIdx;
+		while ((childIdx = 2 * idx + 1) < openSize) {
+			if (childIdx + 1 < openSize && open[childIdx + 1] < open[childIdx]) {
+				childIdx++;
+			}
+			if (last <= open[childIdx]) {
+				break;
+			}
+			open[idx] = open[childIdx];
+			idx = childIdx;
+		}
+		open[idx] = last;
+
+		return min & 0xFFFFFFFFL;
+	}
+
+	private int getLocalIndex(int cluster, int flatIdx) {
+		int localX = flatIdx % width - ((cluster % clustersX) << CLUSTER_SHIFT);
+		int localY = flatIdx / width - ((cluster / clustersX) << CLUSTER_SHIFT);
+		return (localY << CLUSTER_SHIFT) + localX;
+	}
+
+	/**
+	 * Calculates the lengths of the shortest paths from the given position to all positions of the cluster that only use positions of the cluster.
+	 */
+	private void calculateDistancesInCluster(Cluster cluster, int clusterIdx, int start, int[] distances) {
+		int minX = (clusterIdx % clustersX) << CLUSTER_SHIFT;
+		int minY = (clusterIdx / clustersX) << CLUSTER_SHIFT;
+
+		Arrays.fill(distances, UNREACHABLE);
+		int startIdx = getLocalIndex(clusterIdx, start);
+		distances[startIdx] = 0;
+		bfsQueue[0] = startIdx;
+
+		int head = 0;
+		int tail = 1;
+		while (head < tail) {
+			int currIdx = bfsQueue[head++];
+			int currX = currIdx & (CLUSTER_SIZE - 1);
+			int currY = currIdx >> CLUSTER_SHIFT;
+
+			for (int i = 0; i < EDirection.NUMBER_OF_DIRECTIONS; i++) {
+				int neighborX = currX + xDeltaArray[i];
+				int neighborY = currY + yDeltaArray[i];
+
+				if (0 <= neighborX && neighborX < CLUSTER_SIZE && 0 <= neighborY && neighborY < CLUSTER_SIZE
+					&& minX + neighborX < width && minY + neighborY < height) {
+					int neighborIdx = (neighborY << CLUSTER_SHIFT) + neighborX;
+					if (distances[neighborIdx] == UNREACHABLE && !cluster.blocked.get(neighborIdx)) {
+						distances[neighborIdx] = distances[currIdx] + 1;
+						bfsQueue[tail++] = neighborIdx;
+					}
+				}
+			}
+		}
+	}
+
+	private Cluster getCluster(int clusterIdx) {
+		Cluster cluster = clusters[clusterIdx];
+		if (cluster == null) {
+			cluster = createCluster(clusterIdx);
+			clusters[clusterIdx] = cluster;
+		}
+		return cluster;
+	}
+
+	private Cluster createCluster(int clusterIdx) {
+		int clusterX = clusterIdx % clustersX;
+		int clusterY = clusterIdx / clustersX;
+		int minX = clusterX << CLUSTER_SHIFT;
+		int minY = clusterY << CLUSTER_SHIFT;
+		int maxX = Math.min(width, minX + CLUSTER_SIZE);
+		int maxY = Math.min(height, minY + CLUSTER_SIZE);
+
+		BitSet blocked = new BitSet(POSITIONS_PER_CLUSTER);
+		for (int y = minY; y < maxY; y++) {
+			for (int x = minX; x < maxX; x++) {
+				if (isBlocked(x, y)) {
+					blocked.set(((y - minY) << CLUSTER_SHIFT) + x - minX);
+				}
+			}
+		}
+
+		transitions.clear();
+		if (clusterX > 0) {
+			addVerticalBorderTransitions(minX, minY, maxY);
+		}
+		if (maxX < width) {
+			addVerticalBorderTransitions(maxX, minY, maxY);
+		}
+		if (clusterY > 0) {
+			addHorizontalBorderTransitions(minY, minX, maxX);
+		}
+		if (maxY < height) {
+			addHorizontalBorderTransitions(maxY, minX, maxX);
+		}
+		if (clusterX > 0 && clusterY > 0) {
+			addTransition(minX - 1, minY - 1, minX, minY);
+		}
+		if (maxX < width && maxY < height) {
+			addTransition(maxX - 1, maxY - 1, maxX, maxY);
+		}
+
+		return new Cluster(this, clusterIdx, blocked, transitions);
+	}
+
+	/**
+	 * Adds the transitions between the positions left of the given x coordinate and the positions at the given x coordinate.
+	 */
+	private void addVerticalBorderTransitions(int borderX, int minY, int maxY) {
+		int entranceStart = -1;
+		for (int y = minY; y <= maxY; y++) {
+			boolean free = y < maxY && isFree(borderX - 1, y) && isFree(borderX, y);
+			if (free && entranceStart < 0) {
+				entranceStart = y;
+			} else if (!free && entranceStart >= 0) {
+				int entranceEnd = y - 1;
+				if (entranceEnd - entranceStart + 1 < MIN_ENTRANCE_LENGTH_FOR_TWO_TRANSITIONS) {
+					int middle = (entranceStart + entranceEnd) / 2;
+					addTransition(borderX - 1, middle, borderX, middle);
+				} else {
+					addTransition(borderX - 1, entranceStart, borderX, entranceStart);
+					addTransition(borderX - 1, entranceEnd, borderX, entranceEnd);
+				}
+				entranceStart = -1;
+			}
+		}
+
+		// diagonal steps that are not covered by an entrance
+		for (int y = minY; y < maxY - 1; y++) {
+			if (isFree(borderX - 1, y) && isFree(borderX, y + 1) && !isFree(borderX, y) && !isFree(borderX - 1, y + 1)) {
+				addTransition(borderX - 1, y, borderX, y + 1);
+			}
+		}
+	}
+
+	/**
+	 * Adds the transitions between the positions above the given y coordinate and the positions at the given y coordinate.
+	 */
+	private void addHorizontalBorderTransitions(int borderY, int minX, int maxX) {
+		int entranceStart = -1;
+		for (int x = minX; x <= maxX; x++) {
+			boolean free = x < maxX && isFree(x, borderY - 1) && isFree(x, borderY);
+			if (free && entranceStart < 0) {
+				entranceStart = x;
+			} else if (!free && entranceStart >= 0) {
+				int entranceEnd = x - 1;
+				if (entranceEnd - entranceStart + 1 < MIN_ENTRANCE_LENGTH_FOR_TWO_TRANSITIONS) {
+					int middle = (entranceStart + entranceEnd) / 2;
+					addTransition(middle, borderY - 1, middle, borderY);
+				} else {
+					addTransition(entranceStart, borderY - 1, entranceStart, borderY);
+					addTransition(entranceEnd, borderY - 1, entranceEnd, borderY);
+				}
+				entranceStart = -1;
+			}
+		}
+
+		// diagonal steps that are not covered by an entrance
+		for (int x = minX; x < maxX - 1; x++) {
+			if (isFree(x, borderY - 1) && isFree(x + 1, borderY) && !isFree(x, borderY) && !isFree(x + 1, borderY - 1)) {
+				addTransition(x, borderY - 1, x + 1, borderY);
+			}
+		}
+	}
+
+	private void addTransition(int x1, int y1, int x2, int y2) {
+		if (isFree(x1, y1) && isFree(x2, y2)) {
+			transitions.add(y1 * width + x1, y2 * width + x2);
+		}
+	}
+
+	private boolean isFree(int x, int y) {
+		return !isBlocked(x, y);
+	}
+
+	private boolean isBlocked(int x, int y) {
+		return map.isBlocked(requester, x, y);
+	}
+
+	/**
+	 * The entrance graph of one cluster.
+	 */
+	private static final class Cluster {
+		final BitSet blocked;
+		final int[] nodes;
+		final int[][] distances;
+		final int[][] transitions;
+
+		Cluster(ClusterLayer layer, int clusterIdx, BitSet blocked, TransitionList transitionList) {
+			this.blocked = blocked;
+
+			int[] nodeCandidates = new int[transitionList.size];
+			int[] transitionCounts = new int[transitionList.size];
+			int numberOfNodes = 0;
+			for (int i = 0; i < transitionList.size; i++) {
+				int node = transitionList.getInside(i, layer, clusterIdx);
+				int nodeIdx = indexOf(nodeCandidates, numberOfNodes, node);
+				if (nodeIdx < 0) {
+					nodeIdx = numberOfNodes++;
+					nodeCandidates[nodeIdx] = node;
+				}
+				transitionCounts[nodeIdx]++;
+			}
+
+			this.nodes = Arrays.copyOf(nodeCandidates, numberOfNodes);
+			this.transitions = new int[numberOfNodes][];
+			for (int i = 0; i < numberOfNodes; i++) {
+				transitions[i] = new int[transitionCounts[i]];
+				transitionCounts[i] = 0;
+			}
+			for (int i = 0; i < transitionList.size; i++) {
+				int nodeIdx = indexOf(nodes, numberOfNodes, transitionList.getInside(i, layer, clusterIdx));
+				transitions[nodeIdx][transitionCounts[nodeIdx]++] = transitionList.getOutside(i, layer, clusterIdx);
+			}
+
+			this.distances = new int[numberOfNodes][numberOfNodes];
+			int[] clusterDistances = new int[POSITIONS_PER_CLUSTER];
+			for (int i = 0; i < numberOfNodes; i++) {
+				layer.calculateDistancesInCluster(this, clusterIdx, nodes[i], clusterDistances);
+				for (int j = 0; j < numberOfNodes; j++) {
+					distances[i][j] = i == j ? UNREACHABLE : clusterDistances[layer.getLocalIndex(clusterIdx, nodes[j])];
+				}
+			}
+		}
+
+		int indexOf(int node) {
+			return indexOf(nodes, nodes.length, node);
+		}
+
+		private static int indexOf(int[] array, int length, int value) {
+			for (int i = 0; i < length; i++) {
+				if (array[i] == value) {
+					return i;
+				}
+			}
+			return -1;
+		}
+	}
+
+	/**
+	 * List of transitions between two positions of neighboring clusters.
+	 */
+	private static final class TransitionList {
+		private int[] positions = new int[64];
+		private int size;
+
+		void clear() {
+			size = 0;
+		}
+
+		void add(int position1, int position2) {
+			if (2 * size + 2 > positions.length) {
+				positions = Arrays.copyOf(positions, positions.length * 2);
+			}
+			positions[2 * size] = position1;
+			positions[2 * size + 1] = position2;
+			size++;
+		}
+
+		int getInside(int idx, ClusterLayer layer, int clusterIdx) {
+			int position = positions[2 * idx];
+			return layer.getClusterIndex(position % layer.width, position / layer.width) == clusterIdx ? position : positions[2 * idx + 1];
+		}
+
+		int getOutside(int idx, ClusterLayer layer, int clusterIdx) {
+			int position = positions[2 * idx];
+			return layer.getClusterIndex(position % layer.width, position / layer.width) == clusterIdx ? positions[2 * idx + 1] : position;
+		}
+	}
+}
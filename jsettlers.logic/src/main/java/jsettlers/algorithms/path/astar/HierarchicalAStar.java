@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.astar;
+
+import java.util.BitSet;
+
+import jsettlers.algorithms.partitions.IBlockingProvider.IBlockingChangedListener;
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.common.Color;
+import jsettlers.common.player.IPlayer;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Hierarchical AStar algorithm to find long paths on a hex grid.
+ * <p />
+ * For long paths, a path is searched on the entrance graph of the {@link ClusterLayer} of the requester first. Afterwards, the
+ * {@link BucketQueueAStar} is used to refine the path, but it may only use the positions of the clusters along the abstract path and their
+ * neighbor clusters. Short paths
+ * and paths of requesters that need their player's ground are directly calculated with the {@link BucketQueueAStar}.
+ * <p />
+ * The blocked state of positions for requesters that don't need their player's ground must only depend on {@link IPathCalculatable#isShip()}.
+ * Every change of it must be reported with {@link #invalidate(int, int)}.
+ */
+public final class HierarchicalAStar extends AbstractAStar implements IBlockingChangedListener {
+	private static final int MIN_HIERARCHICAL_DISTANCE = 3 * ClusterLayer.CLUSTER_SIZE;
+
+	private final IAStarPathMap map;
+	private final short width;
+	private final short height;
+
+	private final CorridorPathMap corridorMap;
+	private final BucketQueueAStar aStar;
+	private final ClusterLayer landLayer;
+	private final ClusterLayer waterLayer;
+	private final BitSet corridor;
+
+	public HierarchicalAStar(IAStarPathMap map, short width, short height) {
+		this.map = map;
+		this.width = width;
+		this.height = height;
+
+		this.corridorMap = new CorridorPathMap(map, ClusterLayer.getClustersX(width));
+		this.aStar = new BucketQueueAStar(corridorMap, width, height);
+		this.landLayer = new ClusterLayer(map, new LayerRequester(false), width, height);
+		this.waterLayer = new ClusterLayer(map, new LayerRequester(true), width, height);
+		this.corridor = new BitSet(ClusterLayer.getClustersX(width) * ClusterLayer.getClustersY(height));
+	}
+
+	@Override
+	public final Path findPath(IPathCalculatable requester, ShortPoint2D target) {
+		ShortPoint2D pos = requester.getPosition();
+		return findPath(requester, pos.x, pos.y, target.x, target.y);
+	}
+
+	@Override
+	public final Path findPath(IPathCalculatable requester, final short sx, final short sy, final short tx, final short ty) {
+		ClusterLayer layer = getLayer(requester);
+		if (layer == null || !isHierarchicalSearchPossible(requester, sx, sy, tx, ty)) {
+			return aStar.findPath(requester, sx, sy, tx, ty);
+		}
+
+		corridor.clear();
+		if (!layer.findCorridor(sx, sy, tx, ty, corridor)) {
+			return null; // target can not be reached
+		}
+
+		corridorMap.setCorridor(corridor);
+		try {
+			return aStar.findPath(requester, sx, sy, tx, ty);
+		} finally {
+			corridorMap.setCorridor(null);
+		}
+	}
+
+	/**
+	 * Invalidates the abstraction of the given position. This needs to be called whenever the blocked state of the position changes.
+	 */
+	public void invalidate(int x, int y) {
+		landLayer.invalidate(x, y);
+		waterLayer.invalidate(x, y);
+	}
+
+	@Override
+	public void blockingChanged(int x, int y, boolean newBlocked) {
+		invalidate(x, y);
+	}
+
+	private ClusterLayer getLayer(IPathCalculatable requester) {
+		if (requester.isShip()) {
+			return waterLayer;
+		} else if (!requester.needsPlayersGround()) {
+			return landLayer;
+		} else {
+			return null;
+		}
+	}
+
+	private boolean isHierarchicalSearchPossible(IPathCalculatable requester, int sx, int sy, int tx, int ty) {
+		return isInBounds(sx, sy) && isInBounds(tx, ty)
+			&& ShortPoint2D.getOnGridDist(tx - sx, ty - sy) >= MIN_HIERARCHICAL_DISTANCE
+			&& !map.isBlocked(requester, sx, sy) // paths starting on blocked positions are handled by the BucketQueueAStar
+			&& !map.isBlocked(requester, tx, ty)
+			&& (requester.isShip() || map.getBlockedPartition(sx, sy) == map.getBlockedPartition(tx, ty));
+	}
+
+	private boolean isInBounds(int x, int y) {
+		return 0 <= x && x < width && 0 <= y && y < height;
+	}
+
+	/**
+	 * {@link IAStarPathMap} that blocks all positions outside of the current corridor of clusters.
+	 */
+	private static final class CorridorPathMap implements IAStarPathMap {
+		private final IAStarPathMap map;
+		private final int clustersX;
+		private BitSet corridor;
+
+		CorridorPathMap(IAStarPathMap map, int clustersX) {
+			this.map = map;
+			this.clustersX = clustersX;
+		}
+
+		void setCorridor(BitSet corridor) {
+			this.corridor = corridor;
+		}
+
+		@Override
+		public boolean isBlocked(IPathCalculatable requester, int x, int y) {
+			return (corridor != null && !corridor.get((y >> ClusterLayer.CLUSTER_SHIFT) * clustersX + (x >> ClusterLayer.CLUSTER_SHIFT)))
+				|| map.isBlocked(requester, x, y);
+		}
+
+		@Override
+		public float getCost(int sx, int sy, int tx, int ty) {
+			return map.getCost(sx, sy, tx, ty);
+		}
+
+		@Override
+		public void markAsOpen(int x, int y) {
+			map.markAsOpen(x, y);
+		}
+
+		@Override
+		public void markAsClosed(int x, int y) {
+			map.markAsClosed(x, y);
+		}
+
+		@Override
+		public void setDebugColor(int x, int y, Color color) {
+			map.setDebugColor(x, y, color);
+		}
+
+		@Override
+		public short getBlockedPartition(int x, int y) {
+			return map.getBlockedPartition(x, y);
+		}
+	}
+
+	/**
+	 * Requester used to query the blocked state of the positions for a {@link ClusterLayer}.
+	 */
+	private static final class LayerRequester implements IPathCalculatable {
+		private static final long serialVersionUID = -1717473394853702358L;
+
+		private final boolean ship;
+
+		LayerRequester(boolean ship) {
+			this.ship = ship;
+		}
+
+		@Override
+		public boolean needsPlayersGround() {
+			return false;
+		}
+
+		@Override
+		public boolean isShip() {
+			return ship;
+		}
+
+		@Override
+		public IPlayer getPlayer() {
+			return new IPlayer.DummyPlayer();
+		}
+
+		@Override
+		public ShortPoint2D getPosition() {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.cache;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.AbstractAStar;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Remembers the paths of the recently searched routes, as bearers, donkeys and cargo ships walk the same routes again and again. A route is
+ * identified by its start, its target and the blocked positions of the requester: ships, movables that can walk everywhere and movables that need the
+ * ground of their player.
+ * <p />
+ * The map is divided into regions with a version that is increased whenever the blocked state or the player of a position in the region changes. A
+ * cached path is only used as long as the versions of all regions it crosses haven't changed, so it never leads over a blocked position. A shortcut
+ * that is opened somewhere else is not used by the cached path until the path is evicted.
+ * <p />
+ * The cache is part of the game state, as the paths of the movables depend on it. It is therefore saved with the game and must only be used by the
+ * game logic.
+ */
+public final class PathCache implements Serializable {
+	private static final long serialVersionUID = -4367325064916271865L;
+
+	public static final int MAX_ENTRIES = 2048;
+
+	private static final int REGION_SHIFT = 4;
+	private static final int BLOCKING_CLASS_SHIP = 0;
+	private static final int BLOCKING_CLASS_LAND = 1;
+	private static final int BLOCKING_CLASS_PLAYERS_GROUND = 2; // + player id
+
+	private final short width;
+	private final short height;
+	private final int regionsX;
+	private final int[] regionVersions;
+	private final LruMap entries = new LruMap();
+
+	private transient long hits;
+	private transient long misses;
+	private transient long savedNanos;
+
+	public PathCache(short width, short height) {
+		this.width = width;
+		this.height = height;
+		this.regionsX = (width >> REGION_SHIFT) + 1;
+		this.regionVersions = new int[regionsX * ((height >> REGION_SHIFT) + 1)];
+	}
+
+	/**
+	 * Gets the path of the requester to the target from the cache or searches it with the given A*, if the route isn't cached or has been
+	 * invalidated.
+	 *
+	 * @return a path that can be used by the requester or null if the A* didn't find a path.
+	 */
+	public Path findPath(AbstractAStar aStar, IPathCalculatable requester, ShortPoint2D target) {
+		ShortPoint2D start = requester.getPosition();
+		long key = getKey(requester, start, target);
+
+		CachedPath cachedPath = entries.get(key);
+		if (cachedPath != null) {
+			if (cachedPath.isValid(regionVersions)) {
+				hits++;
+				savedNanos += cachedPath.searchNanos;
+				return cachedPath.path.copy();
+			}
+			entries.remove(key);
+		}
+
+		misses++;
+		long startTime = System.nanoTime();
+		Path path = aStar.findPath(requester, target);
+		long searchNanos = System.nanoTime() - startTime;
+
+		if (path != null) {
+			entries.put(key, new CachedPath(path.copy(), getRegions(start, path), regionVersions, searchNanos));
+		}
+		return path;
+	}
+
+	/**
+	 * Invalidates the cached paths crossing the given position or one of its neighbors. This needs to be called whenever the blocked state or the
+	 * player of the position changes.
+	 */
+	public void invalidate(int x, int y) {
+		int minRegionX = Math.max(x - 1, 0) >> REGION_SHIFT;
+		int maxRegionX = Math.min(x + 1, width - 1) >> REGION_SHIFT;
+		int minRegionY = Math.max(y - 1, 0) >> REGION_SHIFT;
+		int maxRegionY = Math.min(y + 1, height - 1) >> REGION_SHIFT;
+
+		for (int regionY = minRegionY; regionY <= maxRegionY; regionY++) {
+			for (int regionX = minRegionX; regionX <= maxRegionX; regionX++) {
+				regionVersions[regionY * regionsX + regionX]++;
+			}
+		}
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return the share of the requests answered from the cache.
+	 */
+	public double getHitRate() {
+		return hits / (double) Math.max(hits + misses, 1);
+	}
+
+	/**
+	 * @return the time the cached paths needed to be searched when they were first requested, summed up over all hits. The search times of paths
+	 *         loaded with a savegame aren't known.
+	 */
+	public long getSavedNanos() {
+		return savedNanos;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	private long getKey(IPathCalculatable requester, ShortPoint2D start, ShortPoint2D target) {
+		int blockingClass;
+		if (requester.isShip()) {
+			blockingClass = BLOCKING_CLASS_SHIP;
+		} else if (!requester.needsPlayersGround()) {
+			blockingClass = BLOCKING_CLASS_LAND;
+		} else {
+			blockingClass = BLOCKING_CLASS_PLAYERS_GROUND + requester.getPlayer().getPlayerId();
+		}
+
+		long positions = (long) width * height;
+		return (blockingClass * positions + getIndex(start.x, start.y)) * positions + getIndex(target.x, target.y);
+	}
+
+	private int getIndex(int x, int y) {
+		return y * width + x;
+	}
+
+	private int[] getRegions(ShortPoint2D start, Path path) {
+		int[] regions = new int[8];
+		int numberOfRegions = 0;
+		regions[numberOfRegions++] = getRegion(start.x, start.y);
+
+		Path steps = path.copy();
+		while (steps.hasNextStep()) {
+			int region = getRegion(steps.nextX(), steps.nextY());
+			if (!contains(regions, numberOfRegions, region)) {
+				if (numberOfRegions == regions.length) {
+					regions = Arrays.copyOf(regions, 2 * numberOfRegions);
+				}
+				regions[numberOfRegions++] = region;
+			}
+			steps.goToNextStep();
+		}
+		return Arrays.copyOf(regions, numberOfRegions);
+	}
+
+	private static boolean contains(int[] regions, int length, int region) {
+		for (int i = length - 1; i >= 0; i--) { // the last region is the most likely one
+			if (regions[i] == region) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int getRegion(int x, int y) {
+		return (y >> REGION_SHIFT) * regionsX + (x >> REGION_SHIFT);
+	}
+
+	private static final class CachedPath implements Serializable {
+		private static final long serialVersionUID = 2978163054172683498L;
+
+		private final Path path;
+		private final int[] regions;
+		private final int[] versions;
+		private final transient long searchNanos;
+
+		CachedPath(Path path, int[] regions, int[] regionVersions, long searchNanos) {
+			this.path = path;
+			this.regions = regions;
+			this.versions = new int[regions.length];
+			this.searchNanos = searchNanos;
+
+			for (int i = 0; i < regions.length; i++) {
+				versions[i] = regionVersions[regions[i]];
+			}
+		}
+
+		boolean isValid(int[] regionVersions) {
+			for (int i = 0; i < regions.length; i++) {
+				if (regionVersions[regions[i]] != versions[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Map of the cached paths in the order of their last use, which drops the least recently used path when it gets too big.
+	 */
+	private static final class LruMap extends LinkedHashMap<Long, CachedPath> {
+		private static final long serialVersionUID = -1453722150937047766L;
+
+		LruMap() {
+			super(2 * MAX_ENTRIES, 0.75f, true);
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, CachedPath> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	}
+}
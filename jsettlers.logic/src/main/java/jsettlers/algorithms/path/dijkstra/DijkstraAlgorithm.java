@@ -22,12 +22,22 @@ import jsettlers.algorithms.path.IPathCalculatable;
 import jsettlers.algorithms.path.InvalidStartPositionException;
 import jsettlers.algorithms.path.Path;
 import jsettlers.algorithms.path.astar.AbstractAStar;
+import jsettlers.algorithms.path.astar.IAStarPathMap;
+import jsettlers.algorithms.path.astar.queues.bucket.AbstractBucketQueue;
+import jsettlers.algorithms.path.astar.queues.bucket.ListMinBucketQueue;
 import jsettlers.common.map.shapes.MapCircle;
 import jsettlers.common.material.ESearchType;
+import jsettlers.common.movable.EDirection;
 import jsettlers.common.position.ShortPoint2D;
 
 /**
- * this class implements a strict dijkstra algorithm
+ * This class searches the nearest position around a center that fits a given search type and can be reached by the requester.
+ * <p />
+ * The rings around the center are scanned until a fitting position is found and the path to it is calculated with the AStar. If this position
+ * can not be reached, a single uniform cost search is started at the position of the requester instead of calculating a path to every further
+ * fitting position. It is guided towards the search area around the center and stops at the first position of the search area that fits the
+ * search type. The search only uses positions whose detour via the center is at most three times the search radius longer than the direct
+ * distance from the requester to the center.
  * 
  * @author Andreas Eberle
  * 
@@ -37,15 +47,33 @@ public final class DijkstraAlgorithm {
 	private static final byte[] directionIncreaseY = { 0, 1, 1, 0, -1, -1 };
 	private static final float MAX_RADIUS_MULTIPLIER = 1f / MapCircle.Y_SCALE;
 
+	private static final byte[] xDeltaArray = EDirection.getXDeltaArray();
+	private static final byte[] yDeltaArray = EDirection.getYDeltaArray();
+
 	private final IDijkstraPathMap map;
-	private final short height, width;
+	private final IAStarPathMap pathMap;
 	private final AbstractAStar aStar;
+	private final short height, width;
 
-	public DijkstraAlgorithm(IDijkstraPathMap map, AbstractAStar aStar, short width, short height) {
+	private final AbstractBucketQueue open;
+	private final int[] openIds;
+	private final int[] closedIds;
+	private int searchId = 0;
+	private final float[] costs;
+	private final int[] depthParentHeap;
+
+	public DijkstraAlgorithm(IDijkstraPathMap map, IAStarPathMap pathMap, AbstractAStar aStar, short width, short height) {
 		this.map = map;
+		this.pathMap = pathMap;
 		this.aStar = aStar;
 		this.width = width;
 		this.height = height;
+
+		this.open = new ListMinBucketQueue(width * height);
+		this.openIds = new int[width * height];
+		this.closedIds = new int[width * height];
+		this.costs = new float[width * height];
+		this.depthParentHeap = new int[width * height * 2];
 	}
 
 	public final Path find(final IPathCalculatable requester, final short cX, final short cY, final short minRadius, final short maxRadius,
@@ -54,31 +82,164 @@ public final class DijkstraAlgorithm {
 			throw new InvalidStartPositionException("dijkstra center position is not in bounds!", cX, cY);
 		}
 
+		ShortPoint2D start = requester.getPosition();
+		boolean[] targetRadii = new boolean[Math.max(maxRadius, 1)];
+		for (int radius = Math.max(minRadius, 0); radius < maxRadius; radius++) {
+			targetRadii[radius] = true;
+		}
+
 		// check center position (special case for minRadius <= 0
 		if (minRadius <= 0) {
 			map.setDijkstraSearched(cX, cY);
-			if (map.fitsSearchType(cX, cY, type, requester)) {
-				Path path = findPathTo(requester, cX, cY);
-				if (path != null)
-					return path;
+			if (isTarget(requester, start, cX, cY, type, null)) {
+				return findPath(requester, cX, cY, cX, cY, targetRadii, null, type, null);
+			}
+		}
+
+		for (short radius = (short) Math.max(minRadius, 1); radius < maxRadius; radius++) {
+			int target = scanRing(requester, start, cX, cY, radius, null, type, null);
+			if (target >= 0) {
+				return findPath(requester, getX(target), getY(target), cX, cY, targetRadii, null, type, null);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Calculates the path to the first found target. If it can't be reached, the nearest target that can be reached is searched.
+	 */
+	private Path findPath(IPathCalculatable requester, int tx, int ty, short cX, short cY, boolean[] targetRadii, MapCircle circle, ESearchType type,
+			Set<ESearchType> types) {
+		ShortPoint2D start = requester.getPosition();
+		Path path = aStar.findPath(requester, start.x, start.y, (short) tx, (short) ty);
+		if (path != null) {
+			return path;
+		}
+
+		return findPathToNearestTarget(requester, cX, cY, targetRadii, circle, type, types);
+	}
+
+	/**
+	 * Scans the ring with the given radius around the center for a position the requester may go to, that fits the search type.
+	 *
+	 * @return The flat index of the first found position or -1 if no position has been found.
+	 */
+	private int scanRing(IPathCalculatable requester, ShortPoint2D start, short cX, short cY, short radius, MapCircle circle, ESearchType type,
+			Set<ESearchType> types) {
+		short x = cX, y = (short) (cY - radius);
+		for (byte direction = 0; direction < 6; direction++) {
+			byte dx = directionIncreaseX[direction];
+			byte dy = directionIncreaseY[direction];
+			for (short length = 0; length < radius; length++) {
+				x += dx;
+				y += dy;
+				if ((circle == null || circle.contains(x, y)) && isInBounds(x, y)) {
+					map.setDijkstraSearched(x, y);
+					if (isTarget(requester, start, x, y, type, types)) {
+						return getFlatIdx(x, y);
+					}
+				}
 			}
 		}
+		return -1;
+	}
+
+	private boolean isTarget(IPathCalculatable requester, ShortPoint2D start, int x, int y, ESearchType type, Set<ESearchType> types) {
+		return isReachableTarget(requester, start, x, y)
+			&& (types == null ? map.fitsSearchType(x, y, type, requester) : map.fitsSearchType(x, y, types, requester));
+	}
+
+	/**
+	 * Checks the conditions the {@link jsettlers.algorithms.path.astar.BucketQueueAStar} checks for its target position.
+	 */
+	private boolean isReachableTarget(IPathCalculatable requester, ShortPoint2D start, int x, int y) {
+		return (x != start.x || y != start.y) && !pathMap.isBlocked(requester, x, y)
+			&& (requester.isShip() || !isInBounds(start.x, start.y) || pathMap.getBlockedPartition(start.x, start.y) == pathMap.getBlockedPartition(x, y));
+	}
+
+	/**
+	 * Searches the nearest position in the given rings around the center that can be reached by the requester and fits the search type.
+	 * 
+	 * @param targetRadii
+	 *            Contains true for the distances to the center a target position may have.
+	 * @param circle
+	 *            If not null, the target positions must be contained in this circle.
+	 * @return The path to the found position or null if no position has been found.
+	 */
+	private Path findPathToNearestTarget(IPathCalculatable requester, short cX, short cY, boolean[] targetRadii, MapCircle circle, ESearchType type,
+			Set<ESearchType> types) {
+		final ShortPoint2D start = requester.getPosition();
+		final short sx = start.x;
+		final short sy = start.y;
+		if (!isInBounds(sx, sy)) {
+			throw new InvalidStartPositionException("Start position is out of bounds!", sx, sy);
+		}
+
+		final short blockedAtStartPartition = pathMap.isBlocked(requester, sx, sy) ? pathMap.getBlockedPartition(sx, sy) : -1;
+		final int maxTargetRadius = targetRadii.length - 1;
+		final int maxDistanceSum = ShortPoint2D.getOnGridDist(cX - sx, cY - sy) + 3 * maxTargetRadius;
+
+		searchId++;
+		open.clear();
+
+		int startFlatIdx = getFlatIdx(sx, sy);
+		depthParentHeap[getDepthIdx(startFlatIdx)] = 0;
+		depthParentHeap[getParentIdx(startFlatIdx)] = -1;
+		costs[startFlatIdx] = 0;
+		open.insert(startFlatIdx, getHeuristicCost(sx, sy, cX, cY, maxTargetRadius));
+		openIds[startFlatIdx] = searchId;
 
-		for (short radius = minRadius; radius < maxRadius; radius++) {
-			short x = cX, y = (short) (cY - radius);
-			for (byte direction = 0; direction < 6; direction++) {
-				byte dx = directionIncreaseX[direction];
-				byte dy = directionIncreaseY[direction];
-				for (short length = 0; length < radius; length++) {
-					x += dx;
-					y += dy;
-					if (isInBounds(x, y)) {
-						map.setDijkstraSearched(x, y);
-						if (map.fitsSearchType(x, y, type, requester)) {
-							Path path = findPathTo(requester, x, y);
-							if (path != null) {
-								return path;
+		while (!open.isEmpty()) {
+			int currFlatIdx = open.deleteMin();
+
+			final int x = getX(currFlatIdx);
+			final int y = getY(currFlatIdx);
+
+			closedIds[currFlatIdx] = searchId;
+			pathMap.markAsClosed(x, y);
+
+			int centerDistance = ShortPoint2D.getOnGridDist(x - cX, y - cY);
+			if (centerDistance <= maxTargetRadius && targetRadii[centerDistance] && (circle == null || circle.contains(x, y))) {
+				map.setDijkstraSearched(x, y);
+				if (isTarget(requester, start, x, y, type, types)) {
+					return createPath(currFlatIdx);
+				}
+			}
+
+			final float currPositionCosts = costs[currFlatIdx];
+
+			for (int i = 0; i < EDirection.NUMBER_OF_DIRECTIONS; i++) {
+				final int neighborX = x + xDeltaArray[i];
+				final int neighborY = y + yDeltaArray[i];
+
+				if (isValidPosition(requester, x, y, neighborX, neighborY, blockedAtStartPartition)
+					&& ShortPoint2D.getOnGridDist(neighborX - sx, neighborY - sy) + ShortPoint2D.getOnGridDist(neighborX - cX, neighborY - cY) <= maxDistanceSum) {
+					final int flatNeighborIdx = getFlatIdx(neighborX, neighborY);
+
+					if (closedIds[flatNeighborIdx] != searchId) {
+						final float newCosts = currPositionCosts + pathMap.getCost(x, y, neighborX, neighborY);
+
+						if (openIds[flatNeighborIdx] == searchId) {
+							final float oldCosts = costs[flatNeighborIdx];
+
+							if (oldCosts > newCosts) {
+								costs[flatNeighborIdx] = newCosts;
+								depthParentHeap[getDepthIdx(flatNeighborIdx)] = depthParentHeap[getDepthIdx(currFlatIdx)] + 1;
+								depthParentHeap[getParentIdx(flatNeighborIdx)] = currFlatIdx;
+
+								int heuristicCosts = getHeuristicCost(neighborX, neighborY, cX, cY, maxTargetRadius);
+								open.increasedPriority(flatNeighborIdx, oldCosts + heuristicCosts, newCosts + heuristicCosts);
 							}
+
+						} else {
+							costs[flatNeighborIdx] = newCosts;
+							depthParentHeap[getDepthIdx(flatNeighborIdx)] = depthParentHeap[getDepthIdx(currFlatIdx)] + 1;
+							depthParentHeap[getParentIdx(flatNeighborIdx)] = currFlatIdx;
+							openIds[flatNeighborIdx] = searchId;
+							open.insert(flatNeighborIdx, newCosts + getHeuristicCost(neighborX, neighborY, cX, cY, maxTargetRadius));
+
+							pathMap.markAsOpen(neighborX, neighborY);
 						}
 					}
 				}
@@ -88,12 +249,62 @@ public final class DijkstraAlgorithm {
 		return null;
 	}
 
-	private final Path findPathTo(IPathCalculatable requester, short tx, short ty) {
-		ShortPoint2D pos = requester.getPosition();
-		return aStar.findPath(requester, pos.x, pos.y, tx, ty);
+	private Path createPath(int targetFlatIdx) {
+		int pathlength = depthParentHeap[getDepthIdx(targetFlatIdx)];
+		Path path = new Path(pathlength);
+
+		int idx = pathlength;
+		int parentFlatIdx = targetFlatIdx;
+
+		while (idx > 0) {
+			idx--;
+			path.insertAt(idx, (short) getX(parentFlatIdx), (short) getY(parentFlatIdx));
+			parentFlatIdx = depthParentHeap[getParentIdx(parentFlatIdx)];
+		}
+
+		return path;
+	}
+
+	private boolean isValidPosition(IPathCalculatable requester, int fromX, int fromY, int toX, int toY, short blockedAtStartPartition) {
+		return isInBounds(toX, toY)
+			&& (
+			!pathMap.isBlocked(requester, toX, toY)
+				|| (
+				blockedAtStartPartition >= 0 // if the start position was blocked, we can use blocked positions on the same island until
+					&& pathMap.getBlockedPartition(toX, toY) == blockedAtStartPartition // we leave the blocked area
+					&& pathMap.isBlocked(requester, fromX, fromY) // prevent reentering blocked positions when we left them already
+			)
+		);
+	}
+
+	/**
+	 * @return The distance of the given position to the nearest position of the search area around the center.
+	 */
+	private static int getHeuristicCost(int x, int y, int cX, int cY, int maxTargetRadius) {
+		return Math.max(0, ShortPoint2D.getOnGridDist(x - cX, y - cY) - maxTargetRadius);
 	}
 
-	private final boolean isInBounds(short x, short y) {
+	private static int getDepthIdx(int flatIdx) {
+		return 2 * flatIdx;
+	}
+
+	private static int getParentIdx(int flatIdx) {
+		return 2 * flatIdx + 1;
+	}
+
+	private int getFlatIdx(int x, int y) {
+		return y * width + x;
+	}
+
+	private int getX(int flatIdx) {
+		return flatIdx % width;
+	}
+
+	private int getY(int flatIdx) {
+		return flatIdx / width;
+	}
+
+	private final boolean isInBounds(int x, int y) {
 		return 0 <= x && x < width && 0 <= y && y < height;
 	}
 
@@ -146,31 +357,26 @@ public final class DijkstraAlgorithm {
 		}
 
 		MapCircle circle = new MapCircle(request.cX, request.cY, request.maxRadius * MAX_RADIUS_MULTIPLIER);
+		ShortPoint2D start = request.requester.getPosition();
+		boolean[] targetRadii = new boolean[request.minRadius + request.maxRadius];
 
 		short radiusSteps = request.getRadiusSteps();
 		short radius = 1;
 
+		int target = -1;
 		for (short deltaRadius = 0; deltaRadius < radiusSteps; deltaRadius++) {
 			radius = (short) ((deltaRadius + request.radius) % request.maxRadius + request.minRadius);
-			short x = request.cX, y = (short) (request.cY - radius);
-
-			for (byte direction = 0; direction < 6; direction++) {
-				byte dx = directionIncreaseX[direction];
-				byte dy = directionIncreaseY[direction];
-				for (short length = 0; length < radius; length++) {
-					x += dx;
-					y += dy;
-					if (circle.contains(x, y) && isInBounds(x, y)) {
-						map.setDijkstraSearched(x, y);
-						if (map.fitsSearchType(x, y, request.searchTypes, request.requester)) {
-							Path path = findPathTo(request.requester, x, y);
-							if (path != null) {
-								request.setRadius(radius);
-								return path;
-							}
-						}
-					}
-				}
+			targetRadii[radius] = true;
+			if (target < 0) {
+				target = scanRing(request.requester, start, request.cX, request.cY, radius, circle, null, request.searchTypes);
+			}
+		}
+
+		if (target >= 0) {
+			Path path = findPath(request.requester, getX(target), getY(target), request.cX, request.cY, targetRadii, circle, null, request.searchTypes);
+			if (path != null) {
+				request.setRadius((short) ShortPoint2D.getOnGridDist(path.getTargetX() - request.cX, path.getTargetY() - request.cY));
+				return path;
 			}
 		}
 
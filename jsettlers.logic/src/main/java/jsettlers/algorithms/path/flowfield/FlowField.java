@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.flowfield;
+
+import java.util.Arrays;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.astar.IAStarPathMap;
+import jsettlers.common.movable.EDirection;
+
+/**
+ * The walking distances of the positions around a center to the center. The distances are calculated with a breadth first search that is only
+ * continued until the distance of a requested position is known. As all steps cost the same, the distances found so far are the same as the ones
+ * of a complete search.
+ * <p />
+ * Only positions within {@link #MAX_DISTANCE} steps of the center are part of the field.
+ */
+final class FlowField {
+	static final int MAX_DISTANCE = 128;
+
+	private static final byte[] xDeltaArray = EDirection.getXDeltaArray();
+	private static final byte[] yDeltaArray = EDirection.getYDeltaArray();
+	private static final int SIZE = 2 * MAX_DISTANCE + 1;
+	private static final short UNKNOWN = -1;
+
+	private final IAStarPathMap map;
+	private final IPathCalculatable requester;
+	private final short mapWidth;
+	private final short mapHeight;
+	private final int minX;
+	private final int minY;
+
+	private final short[] distances = new short[SIZE * SIZE];
+	private final int[] queue = new int[SIZE * SIZE];
+	private int queueHead = 0;
+	private int queueTail = 0;
+
+	/**
+	 * @param requester
+	 *            A requester whose blocked positions are used for the field. The blocked positions must not depend on its position or player.
+	 */
+	FlowField(IAStarPathMap map, IPathCalculatable requester, short mapWidth, short mapHeight, int centerX, int centerY) {
+		this.map = map;
+		this.requester = requester;
+		this.mapWidth = mapWidth;
+		this.mapHeight = mapHeight;
+		this.minX = centerX - MAX_DISTANCE;
+		this.minY = centerY - MAX_DISTANCE;
+
+		Arrays.fill(distances, UNKNOWN);
+		int centerIndex = getIndex(centerX, centerY);
+		distances[centerIndex] = 0;
+		queue[queueTail++] = centerIndex;
+	}
+
+	boolean contains(int x, int y) {
+		return minX <= x && x < minX + SIZE && minY <= y && y < minY + SIZE;
+	}
+
+	/**
+	 * @return The number of steps from the given position to the center<br>
+	 *         or -1 if the center can not be reached within {@link #MAX_DISTANCE} steps.
+	 */
+	int getDistance(int x, int y) {
+		if (!contains(x, y)) {
+			return -1;
+		}
+
+		int index = getIndex(x, y);
+		while (distances[index] == UNKNOWN && queueHead < queueTail) {
+			expand(queue[queueHead++]);
+		}
+		return distances[index];
+	}
+
+	/**
+	 * Gets the next position on the way to the center. The distance of the given position must be known and bigger than 0.
+	 *
+	 * @return The index of the neighbor that is one step closer to the center. Ties are broken by the order of the directions.
+	 */
+	int getNextIndex(int index) {
+		int nextDistance = distances[index] - 1;
+		int x = getX(index);
+		int y = getY(index);
+		for (int i = 0; i < EDirection.NUMBER_OF_DIRECTIONS; i++) {
+			int neighborX = x + xDeltaArray[i];
+			int neighborY = y + yDeltaArray[i];
+			if (contains(neighborX, neighborY) && distances[getIndex(neighborX, neighborY)] == nextDistance) {
+				return getIndex(neighborX, neighborY);
+			}
+		}
+		throw new IllegalStateException("No neighbor is closer to the center.");
+	}
+
+	private void expand(int index) {
+		int x = getX(index);
+		int y = getY(index);
+		short neighborDistance = (short) (distances[index] + 1);
+		if (neighborDistance > MAX_DISTANCE) {
+			return;
+		}
+
+		for (int i = 0; i < EDirection.NUMBER_OF_DIRECTIONS; i++) {
+			int neighborX = x + xDeltaArray[i];
+			int neighborY = y + yDeltaArray[i];
+			if (0 <= neighborX && neighborX < mapWidth && 0 <= neighborY && neighborY < mapHeight && contains(neighborX, neighborY)) {
+				int neighborIndex = getIndex(neighborX, neighborY);
+				if (distances[neighborIndex] == UNKNOWN && !map.isBlocked(requester, neighborX, neighborY)) {
+					distances[neighborIndex] = neighborDistance;
+					queue[queueTail++] = neighborIndex;
+				}
+			}
+		}
+	}
+
+	int getIndex(int x, int y) {
+		return (y - minY) * SIZE + x - minX;
+	}
+
+	int getX(int index) {
+		return index % SIZE + minX;
+	}
+
+	int getY(int index) {
+		return index / SIZE + minY;
+	}
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.flowfield;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jsettlers.algorithms.partitions.IBlockingProvider.IBlockingChangedListener;
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.IAStarPathMap;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Calculates the paths of movables that are sent to the same area with one move order. Instead of an A* search for every movable, a
+ * {@link FlowField} to the group target is shared by all movables of the group. The path of a movable follows the field towards the group target
+ * until it meets the way from its own target to the group target, which it then follows back to its target.
+ * <p />
+ * The flow fields are cached per group target until the blocked state of a position of them changes. The paths don't depend on the cache, so all
+ * clients calculate the same paths.
+ * <p />
+ * Only requesters that don't need their player's ground are supported. Like for the {@link jsettlers.algorithms.path.astar.HierarchicalAStar},
+ * their blocked positions must only depend on {@link IPathCalculatable#isShip()} and every change of them must be reported with
+ * {@link #invalidate(int, int)}.
+ */
+public final class FlowFieldPathfinder implements IBlockingChangedListener {
+	/**
+	 * The minimum number of movables of a move order to use a shared flow field for their paths.
+	 */
+	public static final int MIN_GROUP_SIZE = 8;
+
+	private static final int MAX_CACHED_FIELDS = 8;
+
+	private final IAStarPathMap map;
+	private final short width;
+	private final short height;
+
+	private final LinkedHashMap<Integer, FlowField> fields = new LinkedHashMap<Integer, FlowField>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, FlowField> eldest) {
+			return size() > MAX_CACHED_FIELDS;
+		}
+	};
+
+	public FlowFieldPathfinder(IAStarPathMap map, short width, short height) {
+		this.map = map;
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Calculates the path of the requester to its target in the group it is moving with.
+	 *
+	 * @param requester
+	 *            The movable the path is calculated for.
+	 * @param target
+	 *            The target of the requester.
+	 * @param groupTarget
+	 *            The target of the group. This should be the first target of the move order, so that it can be reached.
+	 * @return The path to the target<br>
+	 *         or null if no path could be derived from the flow field. In that case, the path needs to be searched with an A* search.
+	 */
+	public Path findPath(IPathCalculatable requester, ShortPoint2D target, ShortPoint2D groupTarget) {
+		ShortPoint2D start = requester.getPosition();
+		if (requester.needsPlayersGround() || start.equals(target)) {
+			return null;
+		}
+
+		FlowField field = getField(requester, groupTarget);
+		int startDistance = field.getDistance(start.x, start.y);
+		int targetDistance = field.getDistance(target.x, target.y);
+		if (startDistance < 0 || targetDistance < 0) {
+			return null; // a position is blocked, not connected to the group target or too far away from it
+		}
+
+		int[] targetWay = new int[targetDistance + 1]; // the way from the group target to the target, indexed by the distance
+		targetWay[targetDistance] = field.getIndex(target.x, target.y);
+		for (int distance = targetDistance; distance > 0; distance--) {
+			targetWay[distance - 1] = field.getNextIndex(targetWay[distance]);
+		}
+
+		int[] startWay = new int[startDistance + 1];
+		int meetingDistance = startDistance;
+		startWay[startDistance] = field.getIndex(start.x, start.y);
+		while (meetingDistance > targetDistance || startWay[meetingDistance] != targetWay[meetingDistance]) {
+			startWay[meetingDistance - 1] = field.getNextIndex(startWay[meetingDistance]);
+			meetingDistance--;
+		}
+
+		Path path = new Path(startDistance + targetDistance - 2 * meetingDistance);
+		int step = 0;
+		for (int distance = startDistance - 1; distance >= meetingDistance; distance--) {
+			insertAt(path, step++, field, startWay[distance]);
+		}
+		for (int distance = meetingDistance + 1; distance <= targetDistance; distance++) {
+			insertAt(path, step++, field, targetWay[distance]);
+		}
+		return path;
+	}
+
+	private static void insertAt(Path path, int step, FlowField field, int index) {
+		path.insertAt(step, (short) field.getX(index), (short) field.getY(index));
+	}
+
+	private FlowField getField(IPathCalculatable requester, ShortPoint2D groupTarget) {
+		Integer key = (requester.isShip() ? 1 << 31 : 0) | groupTarget.y << 16 | groupTarget.x;
+		FlowField field = fields.get(key);
+		if (field == null) {
+			field = new FlowField(map, requester, width, height, groupTarget.x, groupTarget.y);
+			fields.put(key, field);
+		}
+		return field;
+	}
+
+	/**
+	 * Removes the cached flow fields containing the given position. This needs to be called whenever the blocked state of the position changes.
+	 */
+	public void invalidate(int x, int y) {
+		for (Iterator<FlowField> iterator = fields.values().iterator(); iterator.hasNext();) {
+			if (iterator.next().contains(x, y)) {
+				iterator.remove();
+			}
+		}
+	}
+
+	@Override
+	public void blockingChanged(int x, int y, boolean newBlocked) {
+		invalidate(x, y);
+	}
+}
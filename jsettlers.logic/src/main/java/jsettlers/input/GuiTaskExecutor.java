@@ -22,10 +22,12 @@ import java8.util.Objects;
 import java8.util.Optional;
 import java8.util.function.Consumer;
 import java8.util.stream.Collectors;
+import jsettlers.algorithms.path.flowfield.FlowFieldPathfinder;
 import jsettlers.common.buildings.IBuilding;
 import jsettlers.common.map.shapes.HexGridArea;
 import jsettlers.common.movable.EMovableType;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.common.utils.mutables.Mutable;
 import jsettlers.common.utils.mutables.MutableInt;
 import jsettlers.input.tasks.ChangeTowerSoldiersGuiTask;
 import jsettlers.input.tasks.ChangeTradingRequestGuiTask;
@@ -53,9 +55,11 @@ import jsettlers.logic.buildings.military.occupying.OccupyingBuilding;
 import jsettlers.logic.buildings.others.StockBuilding;
 import jsettlers.logic.buildings.trading.TradingBuilding;
 import jsettlers.logic.buildings.workers.DockyardBuilding;
+import jsettlers.logic.constants.GameContext;
 import jsettlers.logic.map.grid.partition.manager.settings.MaterialProductionSettings;
 import jsettlers.logic.movable.Movable;
 import jsettlers.logic.movable.interfaces.ILogicMovable;
+import jsettlers.network.NetworkConstants;
 import jsettlers.network.client.task.packets.TaskPacket;
 import jsettlers.network.synchronic.timer.ITaskExecutor;
 
@@ -65,30 +69,38 @@ import static java8.util.stream.StreamSupport.stream;
  * @author Andreas Eberle
  */
 class GuiTaskExecutor implements ITaskExecutor {
-	private static GuiTaskExecutor           instance = null;
-	private final  IGuiInputGrid             grid;
-	private final  ITaskExecutorGuiInterface guiInterface;
-	private final  byte                      playerId;
+	private final IGuiInputGrid             grid;
+	private final ITaskExecutorGuiInterface guiInterface;
+	private final byte                      playerId;
+	private final GameContext               gameContext;
 
 	GuiTaskExecutor(IGuiInputGrid grid, ITaskExecutorGuiInterface guiInterface, byte playerId) {
 		this.grid = grid;
 		this.guiInterface = guiInterface;
 		this.playerId = playerId;
-	}
-
-	public static GuiTaskExecutor get() {
-		return instance;
+		this.gameContext = GameContext.get(); // created by the game thread
 	}
 
 	@Override
 	public void executeTask(TaskPacket iTask) {
+		GameContext previousContext = gameContext.bindToCurrentThread(); // tasks are executed by the thread of the game clock
+		try {
+			executeGuiTask(iTask);
+		} finally {
+			GameContext.bindToCurrentThread(previousContext);
+		}
+	}
+
+	private void executeGuiTask(TaskPacket iTask) {
 		if (!(iTask instanceof SimpleGuiTask)) {
 			return;
 		}
 
 		SimpleGuiTask guiTask = (SimpleGuiTask) iTask;
 
-		System.out.println("executeTask(GuiTask): " + guiTask.getGuiAction());
+		if (NetworkConstants.Client.LOG_EXECUTED_TASKS) {
+			System.out.println("executeTask(GuiTask): " + guiTask.getGuiAction());
+		}
 		switch (guiTask.getGuiAction()) {
 			case SET_WORK_AREA: {
 				setWorkArea((WorkAreaGuiTask) guiTask);
@@ -331,6 +343,10 @@ class GuiTaskExecutor implements ITaskExecutor {
 	}
 
 	private void sendManyMovables(ShortPoint2D targetPosition, List<ILogicMovable> movables) {
+		// the paths of big groups are calculated with a flow field to the first target, which can be reached for sure
+		boolean moveAsGroup = movables.size() >= FlowFieldPathfinder.MIN_GROUP_SIZE;
+		Mutable<ShortPoint2D> groupTargetPosition = new Mutable<>();
+
 		for (int radius = 0, ringsWithoutSuccessCtr = 0; ringsWithoutSuccessCtr <= Math.max(5, 15 - radius + ringsWithoutSuccessCtr) && !movables.isEmpty(); radius++) {
 			MutableInt numberOfSendMovables = new MutableInt(0);
 
@@ -342,7 +358,12 @@ class GuiTaskExecutor implements ITaskExecutor {
 					Optional<ILogicMovable> movableOptional = removeMovableThatCanMoveTo(movables, x, y);
 
 					movableOptional.ifPresent(movable -> {
-						movable.moveTo(new ShortPoint2D(x, y));
+						ShortPoint2D movableTargetPosition = new ShortPoint2D(x, y);
+						if (moveAsGroup && groupTargetPosition.object == null) {
+							groupTargetPosition.object = movableTargetPosition;
+						}
+
+						movable.moveTo(movableTargetPosition, groupTargetPosition.object);
 						numberOfSendMovables.value++;
 					});
 				});
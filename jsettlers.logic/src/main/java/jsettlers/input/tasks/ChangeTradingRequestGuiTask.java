@@ -58,7 +58,7 @@ public class ChangeTradingRequestGuiTask extends SimpleBuildingGuiTask {
 	protected void serializeTask(DataOutputStream dos) throws IOException {
 		super.serializeTask(dos);
 		dos.writeByte(material.ordinal);
-		dos.writeInt(amount);
+		writeCompactInt(dos, amount);
 		dos.writeBoolean(relative);
 	}
 
@@ -66,7 +66,7 @@ public class ChangeTradingRequestGuiTask extends SimpleBuildingGuiTask {
 	protected void deserializeTask(DataInputStream dis) throws IOException {
 		super.deserializeTask(dis);
 		material = EMaterialType.VALUES[dis.readByte()];
-		amount = dis.readInt();
+		amount = readCompactInt(dis);
 		relative = dis.readBoolean();
 	}
 
@@ -52,14 +52,14 @@ public class ConstructBuildingTask extends SimpleGuiTask {
 	protected void serializeTask(DataOutputStream dos) throws IOException {
 		super.serializeTask(dos);
 		SimpleGuiTask.serializePosition(dos, position);
-		dos.writeInt(type.ordinal);
+		writeCompactInt(dos, type.ordinal);
 	}
 
 	@Override
 	protected void deserializeTask(DataInputStream dis) throws IOException {
 		super.deserializeTask(dis);
 		position = SimpleGuiTask.deserializePosition(dis);
-		type = EBuildingType.VALUES[dis.readInt()];
+		type = EBuildingType.VALUES[readCompactInt(dis)];
 	}
 
 	@Override
@@ -44,13 +44,13 @@ public class ConvertGuiTask extends MovableGuiTask {
 	@Override
 	protected void serializeTask(DataOutputStream dos) throws IOException {
 		super.serializeTask(dos);
-		dos.writeInt(targetType.ordinal());
+		writeCompactInt(dos, targetType.ordinal());
 	}
 
 	@Override
 	protected void deserializeTask(DataInputStream dis) throws IOException {
 		super.deserializeTask(dis);
-		targetType = EMovableType.VALUES[dis.readInt()];
+		targetType = EMovableType.VALUES[readCompactInt(dis)];
 	}
 
 	@Override
@@ -17,7 +17,6 @@ package jsettlers.input.tasks;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -43,22 +42,13 @@ public class MovableGuiTask extends SimpleGuiTask {
 	@Override
 	protected void serializeTask(DataOutputStream dos) throws IOException {
 		super.serializeTask(dos);
-
-		dos.writeInt(selection.size());
-		for (Integer curr : selection) {
-			dos.writeInt(curr);
-		}
+		writeIdList(dos, selection);
 	}
 
 	@Override
 	protected void deserializeTask(DataInputStream dis) throws IOException {
 		super.deserializeTask(dis);
-
-		int numberOfElements = dis.readInt();
-		selection = new ArrayList<>(numberOfElements);
-		for (int i = 0; i < numberOfElements; i++) {
-			selection.add(dis.readInt());
-		}
+		selection = readIdList(dis);
 	}
 
 	@Override
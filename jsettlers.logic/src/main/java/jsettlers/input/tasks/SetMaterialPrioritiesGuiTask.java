@@ -72,7 +72,7 @@ public class SetMaterialPrioritiesGuiTask extends SimpleGuiTask {
 		super.serializeTask(dos);
 		SimpleGuiTask.serializePosition(dos, managerPosition);
 
-		dos.writeInt(materialTypeForPriority.length);
+		writeCompactInt(dos, materialTypeForPriority.length);
 		for (int i = 0; i < materialTypeForPriority.length; i++) {
 			dos.writeByte(materialTypeForPriority[i].ordinal);
 		}
@@ -83,7 +83,7 @@ public class SetMaterialPrioritiesGuiTask extends SimpleGuiTask {
 		super.deserializeTask(dis);
 		managerPosition = SimpleGuiTask.deserializePosition(dis);
 
-		int length = dis.readInt();
+		int length = readCompactInt(dis);
 		materialTypeForPriority = new EMaterialType[length];
 		for (int i = 0; i < length; i++) {
 			materialTypeForPriority[i] = EMaterialType.VALUES[dis.readByte()];
@@ -63,8 +63,8 @@ public class SetMaterialProductionGuiTask extends SimpleGuiTask {
 	protected void serializeTask(DataOutputStream dos) throws IOException {
 		super.serializeTask(dos);
 		SimpleGuiTask.serializePosition(dos, position);
-		dos.writeInt(materialType.ordinal());
-		dos.writeInt(productionType.ordinal());
+		writeCompactInt(dos, materialType.ordinal());
+		writeCompactInt(dos, productionType.ordinal());
 		dos.writeFloat(ratio);
 	}
 
@@ -72,8 +72,8 @@ public class SetMaterialProductionGuiTask extends SimpleGuiTask {
 	protected void deserializeTask(DataInputStream dis) throws IOException {
 		super.deserializeTask(dis);
 		position = SimpleGuiTask.deserializePosition(dis);
-		materialType = EMaterialType.VALUES[dis.readInt()];
-		productionType = SetMaterialProductionAction.EMaterialProductionType.VALUES[dis.readInt()];
+		materialType = EMaterialType.VALUES[readCompactInt(dis)];
+		productionType = SetMaterialProductionAction.EMaterialProductionType.VALUES[readCompactInt(dis)];
 		ratio = dis.readFloat();
 	}
 }
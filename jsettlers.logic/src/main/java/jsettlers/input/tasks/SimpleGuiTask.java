@@ -48,13 +48,13 @@ public class SimpleGuiTask extends TaskPacket {
 
 	@Override
 	protected void serializeTask(DataOutputStream dos) throws IOException {
-		dos.writeInt(guiAction.ordinal());
+		writeCompactInt(dos, guiAction.ordinal());
 		dos.writeByte(playerId);
 	}
 
 	@Override
 	protected void deserializeTask(DataInputStream dis) throws IOException {
-		guiAction = EGuiAction.VALUES[dis.readInt()];
+		guiAction = EGuiAction.VALUES[readCompactInt(dis)];
 		playerId = dis.readByte();
 	}
 
@@ -43,12 +43,12 @@ public class UpgradeSoldiersGuiTask extends SimpleGuiTask {
 	@Override
 	protected void serializeTask(DataOutputStream dos) throws IOException {
 		super.serializeTask(dos);
-		dos.writeInt(soldierType.ordinal);
+		writeCompactInt(dos, soldierType.ordinal);
 	}
 
 	@Override
 	protected void deserializeTask(DataInputStream dis) throws IOException {
 		super.deserializeTask(dis);
-		soldierType = ESoldierType.VALUES[dis.readInt()];
+		soldierType = ESoldierType.VALUES[readCompactInt(dis)];
 	}
 }
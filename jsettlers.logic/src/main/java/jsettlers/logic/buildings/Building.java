@@ -49,6 +49,8 @@ import jsettlers.logic.buildings.workers.ResourceBuilding;
 import jsettlers.logic.buildings.workers.SlaughterhouseBuilding;
 import jsettlers.logic.buildings.workers.WorkerBuilding;
 import jsettlers.logic.constants.Constants;
+import jsettlers.logic.constants.GameContext;
+import jsettlers.logic.constants.GameStateHash;
 import jsettlers.logic.map.grid.objects.AbstractHexMapObject;
 import jsettlers.logic.map.grid.partition.manager.manageables.interfaces.IConstructableBuilding;
 import jsettlers.logic.map.grid.partition.manager.manageables.interfaces.IDiggerRequester;
@@ -82,7 +84,6 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 	private static final EPriority[] SUPPORTED_PRIORITIES_FOR_CONSTRUCTION = new EPriority[] { EPriority.LOW, EPriority.HIGH, EPriority.STOPPED };
 	private static final EPriority[] SUPPORTED_PRIORITIES_FOR_NON_WORKERS = new EPriority[0];
 
-	private static final ConcurrentLinkedQueue<Building> allBuildings = new ConcurrentLinkedQueue<>();
 
 	protected final EBuildingType type;
 	protected final ShortPoint2D pos;
@@ -97,6 +98,7 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 
 	private short remainingMaterialActions = 0;
 	private List<? extends IRequestStack> stacks;
+	private long timerHandle = RescheduleTimer.NOT_SCHEDULED;
 
 	private transient boolean selected;
 
@@ -106,17 +108,20 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 		this.pos = position;
 		this.grid = buildingsGrid;
 
-		allBuildings.add(this);
+		GameContext context = GameContext.get();
+		context.getAllBuildings().add(this);
+		context.getStateHash().toggle(getStateHashKey());
 	}
 	
 	@SuppressWarnings("unchecked")
 	public static void readStaticState(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ConcurrentLinkedQueue<Building> allBuildings = GameContext.get().getAllBuildings();
 		allBuildings.clear();
 		allBuildings.addAll((Collection<? extends Building>) ois.readObject());
 	}
 
 	public static void writeStaticState(ObjectOutputStream oos) throws IOException {
-		oos.writeObject(allBuildings);
+		oos.writeObject(GameContext.get().getAllBuildings());
 	}
 
 	@Override
@@ -159,7 +164,7 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 	}
 
 	private void appearFullyConstructed() {
-		this.state = EBuildingState.CONSTRUCTED;
+		setState(EBuildingState.CONSTRUCTED);
 
 		grid.setBlocked(getBuildingArea(), true);
 		finishConstruction();
@@ -175,8 +180,8 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 
 		placeAdditionalMapObjects(grid, pos, true);
 
-		this.state = EBuildingState.CREATED;
-		RescheduleTimer.add(this, IS_UNSTOPPED_RECHECK_PERIOD);
+		setState(EBuildingState.CREATED);
+		timerHandle = RescheduleTimer.add(this, IS_UNSTOPPED_RECHECK_PERIOD);
 	}
 
 	private List<IRequestStack> createConstructionStacks() {
@@ -275,12 +280,20 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 
 	@Override
 	public int timerEvent() {
+		int delay = handleTimerEvent();
+		if (delay > 0 && state != EBuildingState.DESTROYED) {
+			timerHandle = RescheduleTimer.add(this, delay); // scheduled here to keep the handle for cancelling it when this building is killed
+		}
+		return -1;
+	}
+
+	private int handleTimerEvent() {
 		switch (state) {
 		case CREATED:
 			if (priority == EPriority.STOPPED) {
 				return IS_UNSTOPPED_RECHECK_PERIOD;
 			} else {
-				state = EBuildingState.IN_FLATTERNING;
+				setState(EBuildingState.IN_FLATTERNING);
 				requestDiggers();
 			}
 
@@ -290,13 +303,13 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 			} else {
 				placeAdditionalMapObjects(grid, pos, false);
 				grid.setBlocked(getBuildingArea(), true);
-				this.state = EBuildingState.WAITING_FOR_MATERIAL;
+				setState(EBuildingState.WAITING_FOR_MATERIAL);
 				// directly go into the next case!
 			}
 
 		case WAITING_FOR_MATERIAL:
 			if (priority != EPriority.STOPPED && (isMaterialAvailable() || remainingMaterialActions > 0)) {
-				state = EBuildingState.BRICKLAYERS_REQUESTED;
+				setState(EBuildingState.BRICKLAYERS_REQUESTED);
 				requestBricklayers();
 				return -1; // no new scheduling
 			} else {
@@ -341,7 +354,30 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 	}
 
 	public void setPlayer(Player player) {
+		long oldStateHashKey = getStateHashKey();
 		this.player = player;
+		stateHashChanged(oldStateHashKey);
+	}
+
+	private void setState(EBuildingState state) {
+		long oldStateHashKey = getStateHashKey();
+		this.state = state;
+		stateHashChanged(oldStateHashKey);
+	}
+
+	private void stateHashChanged(long oldStateHashKey) {
+		GameContext.get().getStateHash().change(oldStateHashKey, getStateHashKey());
+	}
+
+	/**
+	 * @return The key of this building's type, position, player and state in the {@link GameStateHash}.
+	 */
+	public long getStateHashKey() {
+		if (state == EBuildingState.DESTROYED) {
+			return 0; // destroyed buildings are no longer part of the game state
+		}
+		long value = (long) type.ordinal() << 16 | (long) (player != null ? player.playerId & 0xFF : 0xFF) << 8 | state.ordinal();
+		return GameStateHash.key(GameStateHash.EKind.BUILDING, pos.x, pos.y, value);
 	}
 
 	@Override
@@ -369,8 +405,8 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 				if (areAllStacksFullfilled()) {
 					finishConstruction();
 				} else {
-					state = EBuildingState.WAITING_FOR_MATERIAL;
-					RescheduleTimer.add(this, WAITING_FOR_MATERIAL_PERIOD);
+					setState(EBuildingState.WAITING_FOR_MATERIAL);
+					timerHandle = RescheduleTimer.add(this, WAITING_FOR_MATERIAL_PERIOD);
 				}
 				return false;
 			}
@@ -399,14 +435,14 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 		constructionProgress = 1;
 		this.setPriority(EPriority.DEFAULT);
 
-		this.state = EBuildingState.CONSTRUCTED;
+		setState(EBuildingState.CONSTRUCTED);
 		if (getFlagType() == EMapObjectType.FLAG_DOOR) { // this building has no worker
 			stacks = createWorkStacks();
 		} else {
 			stacks = new LinkedList<>(); // create a new stacks list
 		}
 		int timerPeriod = constructionFinishedEvent();
-		RescheduleTimer.add(this, timerPeriod);
+		timerHandle = RescheduleTimer.add(this, timerPeriod);
 	}
 
 	protected abstract int constructionFinishedEvent();
@@ -461,9 +497,11 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 		}
 
 		releaseRequestStacks();
-		allBuildings.remove(this);
-		this.state = EBuildingState.DESTROYED;
+		GameContext.get().getAllBuildings().remove(this);
+		setState(EBuildingState.DESTROYED);
 		this.selected = false;
+		RescheduleTimer.cancel(timerHandle);
+		timerHandle = RescheduleTimer.NOT_SCHEDULED;
 	}
 
 	private void placeReusableMaterials() {
@@ -569,11 +607,11 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 	}
 
 	public static ConcurrentLinkedQueue<Building> getAllBuildings() {
-		return allBuildings;
+		return GameContext.get().getAllBuildings();
 	}
 
 	public static void clearState() {
-		allBuildings.clear();
+		GameContext.get().getAllBuildings().clear();
 	}
 
 	@Override
@@ -627,12 +665,12 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 		if (newPriority == EPriority.STOPPED) {
 			switch (state) {
 			case IN_FLATTERNING:
-				state = EBuildingState.CREATED; // we're still scheduled in this state => no rescheduling!
+				setState(EBuildingState.CREATED); // we're still scheduled in this state => no rescheduling!
 				break;
 
 			case BRICKLAYERS_REQUESTED:
-				state = EBuildingState.WAITING_FOR_MATERIAL;
-				RescheduleTimer.add(this, WAITING_FOR_MATERIAL_PERIOD); // we're not scheduled atm => reschedule!
+				setState(EBuildingState.WAITING_FOR_MATERIAL);
+				timerHandle = RescheduleTimer.add(this, WAITING_FOR_MATERIAL_PERIOD); // we're not scheduled atm => reschedule!
 				break;
 			}
 		}
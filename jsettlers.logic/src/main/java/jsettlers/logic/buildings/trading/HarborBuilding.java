@@ -17,9 +17,7 @@ package jsettlers.logic.buildings.trading;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 
 import java8.util.stream.Stream;
 import jsettlers.common.action.SetTradingWaypointAction;
@@ -29,6 +27,7 @@ import jsettlers.common.position.ShortPoint2D;
 import jsettlers.logic.DockPosition;
 import jsettlers.logic.buildings.IBuildingsGrid;
 import jsettlers.logic.buildings.IDockBuilding;
+import jsettlers.logic.constants.GameContext;
 import jsettlers.logic.player.Player;
 
 import static java8.util.stream.StreamSupport.stream;
@@ -37,30 +36,30 @@ import static java8.util.stream.StreamSupport.stream;
  * @author Rudolf Polzer
  */
 public class HarborBuilding extends TradingBuilding implements IDockBuilding {
-	private static final List<HarborBuilding> ALL_HARBORS = new ArrayList<>();
+	private static final long serialVersionUID = -289416884003870581L;
 
 	public static Stream<HarborBuilding> getAllHarbors(final Player player) {
-		return stream(ALL_HARBORS).filter(building -> building.getPlayer() == player);
+		return stream(GameContext.get().getAllHarbors()).filter(building -> building.getPlayer() == player);
 	}
 
 	public static void clearState() {
-		ALL_HARBORS.clear();
+		GameContext.get().getAllHarbors().clear();
 	}
 
 	@SuppressWarnings("unchecked")
 	public static void readStaticState(ObjectInputStream ois) throws IOException, ClassNotFoundException {
-		ALL_HARBORS.addAll((Collection<? extends HarborBuilding>) ois.readObject());
+		GameContext.get().getAllHarbors().addAll((Collection<? extends HarborBuilding>) ois.readObject());
 	}
 
 	public static void writeStaticState(ObjectOutputStream oos) throws IOException {
-		oos.writeObject(ALL_HARBORS);
+		oos.writeObject(GameContext.get().getAllHarbors());
 	}
 
 	private DockPosition dockPosition = null;
 
 	public HarborBuilding(EBuildingType type, Player player, ShortPoint2D position, IBuildingsGrid buildingsGrid) {
 		super(type, player, position, buildingsGrid);
-		ALL_HARBORS.add(this);
+		GameContext.get().getAllHarbors().add(this);
 	}
 
 
@@ -78,7 +77,7 @@ public class HarborBuilding extends TradingBuilding implements IDockBuilding {
 	@Override
 	protected void killedEvent() {
 		super.killedEvent();
-		ALL_HARBORS.remove(this);
+		GameContext.get().getAllHarbors().remove(this);
 		removeDock();
 	}
 
@@ -27,6 +27,8 @@ public final class Constants {
 	public static final int MAX_FERRY_UNLOADING_RADIUS         = 8;
 
 	public static boolean FOG_OF_WAR_DEFAULT_ENABLED = true;
+	public static boolean FOG_OF_WAR_PARALLEL = false;
+	public static boolean AI_PARALLEL = false;
 
 	public static final float COMBAT_STRENGTH_OWN_GROUND = 1;
 
@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.constants;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import jsettlers.logic.buildings.Building;
+import jsettlers.logic.buildings.trading.HarborBuilding;
+import jsettlers.logic.buildings.trading.MarketBuilding;
+import jsettlers.logic.movable.interfaces.ILogicMovable;
+import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.logic.timer.TickProfiler;
+import jsettlers.network.client.interfaces.IGameClock;
+
+/**
+ * Holds the state of one match that is not part of the {@link jsettlers.logic.map.grid.MainGrid} object graph: the clock, the random generators,
+ * the {@link RescheduleTimer} and the lists of all movables and buildings.
+ * <p>
+ * The static accessors like {@link MatchConstants#random()}, {@link RescheduleTimer#add} or {@link jsettlers.logic.movable.Movable#getAllMovables()}
+ * use the context bound to the current thread by {@link #bindToCurrentThread()}. Threads started by a bound thread inherit its context. Threads
+ * without a bound context (e.g. the UI threads) use the {@link #getShared() shared context}, which holds the interactive game.
+ * <p>
+ * This allows running several matches in one JVM, as long as every match but the interactive one has a context of its own and every thread working
+ * on such a match is bound to the match's context.
+ */
+public final class GameContext {
+	private static final InheritableThreadLocal<GameContext> threadContext = new InheritableThreadLocal<>();
+	private static final GameContext sharedContext = new GameContext();
+
+	private IGameClock clock;
+	private ExtendedRandom gameRandom;
+	private ExtendedRandom aiRandom;
+
+	private RescheduleTimer rescheduleTimer;
+	private volatile TickProfiler tickProfiler;
+	private final GameStateHash stateHash = new GameStateHash();
+
+	private final HashMap<Integer, ILogicMovable> movablesByID = new HashMap<>();
+	private final ConcurrentLinkedQueue<ILogicMovable> allMovables = new ConcurrentLinkedQueue<>();
+	private int nextMovableID = Integer.MIN_VALUE;
+
+	private final ConcurrentLinkedQueue<Building> allBuildings = new ConcurrentLinkedQueue<>();
+	private final List<MarketBuilding> allMarkets = new ArrayList<>();
+	private final List<HarborBuilding> allHarbors = new ArrayList<>();
+
+	/**
+	 * @return the context bound to the current thread or the shared context if no context is bound.
+	 */
+	public static GameContext get() {
+		GameContext context = threadContext.get();
+		return context != null ? context : sharedContext;
+	}
+
+	/**
+	 * @return the context used by all threads without a bound context.
+	 */
+	public static GameContext getShared() {
+		return sharedContext;
+	}
+
+	/**
+	 * Binds this context to the current thread and all threads started by it afterwards.
+	 *
+	 * @return the context that has been bound to the current thread before or null.
+	 */
+	public GameContext bindToCurrentThread() {
+		GameContext previous = threadContext.get();
+		threadContext.set(this);
+		return previous;
+	}
+
+	/**
+	 * Binds the given context to the current thread. If it's null, the current thread uses the shared context.
+	 */
+	public static void bindToCurrentThread(GameContext context) {
+		if (context == null) {
+			threadContext.remove();
+		} else {
+			threadContext.set(context);
+		}
+	}
+
+	void initMatch(IGameClock clock, long randomSeed) {
+		clearMatch();
+		this.clock = clock;
+		this.gameRandom = new ExtendedRandom(randomSeed);
+		this.aiRandom = new ExtendedRandom(randomSeed);
+	}
+
+	void clearMatch() {
+		if (clock != null) {
+			clock.stopExecution();
+		}
+		clock = null;
+		gameRandom = null;
+		aiRandom = null;
+	}
+
+	public void clearMovables() {
+		allMovables.clear();
+		movablesByID.clear();
+		nextMovableID = Integer.MIN_VALUE;
+	}
+
+	public void clearBuildings() {
+		allBuildings.clear();
+		allMarkets.clear();
+		allHarbors.clear();
+	}
+
+	public IGameClock getClock() {
+		return clock;
+	}
+
+	public ExtendedRandom getRandom() {
+		return gameRandom;
+	}
+
+	void setRandom(ExtendedRandom gameRandom) {
+		this.gameRandom = gameRandom;
+	}
+
+	public ExtendedRandom getAiRandom() {
+		return aiRandom;
+	}
+
+	void setAiRandom(ExtendedRandom aiRandom) {
+		this.aiRandom = aiRandom;
+	}
+
+	public RescheduleTimer getRescheduleTimer() {
+		return rescheduleTimer;
+	}
+
+	public void setRescheduleTimer(RescheduleTimer rescheduleTimer) {
+		this.rescheduleTimer = rescheduleTimer;
+	}
+
+	/**
+	 * @return the profiler measuring the subsystems of this game or null if the game is not profiled.
+	 */
+	public TickProfiler getTickProfiler() {
+		return tickProfiler;
+	}
+
+	/**
+	 * Sets the profiler measuring the subsystems of this game. This must be done before the game is started.
+	 */
+	public void setTickProfiler(TickProfiler tickProfiler) {
+		this.tickProfiler = tickProfiler;
+	}
+
+	/**
+	 * @return the hash of the game state. It's updated by the grids, movables and buildings of this game.
+	 */
+	public GameStateHash getStateHash() {
+		return stateHash;
+	}
+
+	/**
+	 * @return the hash of all movables and buildings of this context calculated from scratch.
+	 */
+	public long calculateMovablesAndBuildingsHash() {
+		long hash = 0;
+		for (ILogicMovable movable : allMovables) {
+			hash ^= movable.getStateHashKey();
+		}
+		for (Building building : allBuildings) {
+			hash ^= building.getStateHashKey();
+		}
+		return hash;
+	}
+
+	public HashMap<Integer, ILogicMovable> getMovablesByID() {
+		return movablesByID;
+	}
+
+	public ConcurrentLinkedQueue<ILogicMovable> getAllMovables() {
+		return allMovables;
+	}
+
+	public int getNextMovableID() {
+		return nextMovableID;
+	}
+
+	public void setNextMovableID(int nextMovableID) {
+		this.nextMovableID = nextMovableID;
+	}
+
+	public int createMovableID() {
+		return nextMovableID++;
+	}
+
+	public ConcurrentLinkedQueue<Building> getAllBuildings() {
+		return allBuildings;
+	}
+
+	public List<MarketBuilding> getAllMarkets() {
+		return allMarkets;
+	}
+
+	public List<HarborBuilding> getAllHarbors() {
+		return allHarbors;
+	}
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.constants;
+
+/**
+ * Zobrist style hash of the game state. Every value of the game state (e.g. the height at a position or the state of a movable) is mapped to a
+ * pseudo random key by {@link #key(EKind, int, int, long)}. The hash is the XOR of the keys of all values, so it can be updated incrementally:
+ * Changing a value toggles the key of the old and the key of the new value.
+ * <p>
+ * The hash is used as checksum of the game state to detect desynchronized clients in multiplayer games. Only the game thread must change it.
+ */
+public final class GameStateHash {
+
+	/**
+	 * The different kinds of hashed values. Keys of different kinds never collide systematically.
+	 */
+	public enum EKind {
+		HEIGHT,
+		LANDSCAPE,
+		RESOURCE,
+		PLAYER,
+		MOVABLE_POSITION,
+		MAP_OBJECT,
+		MOVABLE,
+		BUILDING;
+
+		private final long salt = mix(0x9E3779B97F4A7C15L * (ordinal() + 1));
+	}
+
+	private long hash;
+
+	/**
+	 * Calculates the key of the given value.
+	 *
+	 * @param kind
+	 *            The kind of the value.
+	 * @param x
+	 *            The x coordinate of the value's position or an other identifier (e.g. a movable's id).
+	 * @param y
+	 *            The y coordinate of the value's position or 0 if the value has no position.
+	 * @param value
+	 *            The value.
+	 * @return The key of the value. Zero values have the key 0, so grids can start with a hash of 0.
+	 */
+	public static long key(EKind kind, int x, int y, long value) {
+		if (value == 0) {
+			return 0;
+		}
+		return mix(mix(kind.salt ^ ((long) x << 32 | (y & 0xFFFFFFFFL))) ^ value);
+	}
+
+	/**
+	 * The finalizer of the SplitMix64 generator. Maps every long to a pseudo random long.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Adds the given key to the hash or removes it, if it has been added before.
+	 */
+	public void toggle(long key) {
+		if (key != 0) { // other threads may change values that are not hashed; they must not write the hash
+			hash ^= key;
+		}
+	}
+
+	/**
+	 * Replaces the key of an old value by the key of the new value.
+	 */
+	public void change(long oldKey, long newKey) {
+		toggle(oldKey ^ newKey);
+	}
+
+	public long get() {
+		return hash;
+	}
+
+	/**
+	 * Sets the hash to the given value. This is used after the full state has been hashed from scratch, e.g. after loading a game.
+	 */
+	public void set(long hash) {
+		this.hash = hash;
+	}
+}
@@ -48,48 +48,41 @@ public final class MatchConstants {
 	private MatchConstants() {
 	}
 
-	private static IGameClock clock;
-	private static ExtendedRandom gameRandom;
-	private static ExtendedRandom aiRandom;
-
+	/**
+	 * Initializes the match state of the {@link GameContext} of the current thread.
+	 */
 	public static void init(IGameClock clock, long randomSeed) {
-		clearState();
-		MatchConstants.clock = clock;
-		MatchConstants.gameRandom = new ExtendedRandom(randomSeed);
-		MatchConstants.aiRandom = new ExtendedRandom(randomSeed);
+		GameContext.get().initMatch(clock, randomSeed);
 	}
 
 	public static void clearState() {
-		if (clock != null) {
-			clock.stopExecution();
-		}
-		clock = null;
-		gameRandom = null;
-		aiRandom = null;
+		GameContext.get().clearMatch();
 	}
 
 	public static IGameClock clock() {
-		return clock;
+		return GameContext.get().getClock();
 	}
 
 	public static ExtendedRandom random() {
-		return gameRandom;
+		return GameContext.get().getRandom();
 	}
 
 	public static ExtendedRandom aiRandom() {
-		return aiRandom;
+		return GameContext.get().getAiRandom();
 	}
 
 	public static void serialize(ObjectOutputStream oos) throws IOException {
-		oos.writeInt(clock.getTime());
-		oos.writeObject(gameRandom);
-		oos.writeObject(aiRandom);
+		GameContext context = GameContext.get();
+		oos.writeInt(context.getClock().getTime());
+		oos.writeObject(context.getRandom());
+		oos.writeObject(context.getAiRandom());
 	}
 
 	public static void deserialize(ObjectInputStream ois) throws IOException, ClassNotFoundException {
-		clock.setTime(ois.readInt());
-		gameRandom = (ExtendedRandom) ois.readObject();
-		aiRandom = (ExtendedRandom) ois.readObject();
+		GameContext context = GameContext.get();
+		context.getClock().setTime(ois.readInt());
+		context.setRandom((ExtendedRandom) ois.readObject());
+		context.setAiRandom((ExtendedRandom) ois.readObject());
 	}
 
 }
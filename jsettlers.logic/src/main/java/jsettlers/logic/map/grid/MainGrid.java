@@ -17,7 +17,6 @@ package jsettlers.logic.map.grid;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.BitSet;
 import java.util.Date;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -26,6 +25,7 @@ import java8.util.Optional;
 import jsettlers.algorithms.borders.BordersThread;
 import jsettlers.algorithms.borders.IBordersThreadGrid;
 import jsettlers.algorithms.construction.AbstractConstructionMarkableMap;
+import jsettlers.algorithms.construction.BuildabilityCache;
 import jsettlers.algorithms.fogofwar.FogOfWar;
 import jsettlers.algorithms.fogofwar.IFogOfWarGrid;
 import jsettlers.algorithms.fogofwar.IViewDistancable;
@@ -35,11 +35,12 @@ import jsettlers.algorithms.path.IPathCalculatable;
 import jsettlers.algorithms.path.Path;
 import jsettlers.algorithms.path.area.IInAreaFinderMap;
 import jsettlers.algorithms.path.area.InAreaFinder;
-import jsettlers.algorithms.path.astar.AbstractAStar;
-import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.HierarchicalAStar;
 import jsettlers.algorithms.path.astar.IAStarPathMap;
+import jsettlers.algorithms.path.cache.PathCache;
 import jsettlers.algorithms.path.dijkstra.DijkstraAlgorithm;
 import jsettlers.algorithms.path.dijkstra.IDijkstraPathMap;
+import jsettlers.algorithms.path.flowfield.FlowFieldPathfinder;
 import jsettlers.algorithms.previewimage.PreviewImageCreator;
 import jsettlers.algorithms.traversing.area.IAreaVisitor;
 import jsettlers.common.Color;
@@ -69,6 +70,7 @@ import jsettlers.common.player.IPlayer;
 import jsettlers.common.position.MutablePoint2D;
 import jsettlers.common.position.RelativePoint;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.common.utils.collections.AtomicBitSet;
 import jsettlers.common.utils.collections.IPredicate;
 import jsettlers.common.utils.coordinates.CoordinateStream;
 import jsettlers.input.IGuiInputGrid;
@@ -83,6 +85,8 @@ import jsettlers.logic.buildings.stack.IRequestsStackGrid;
 import jsettlers.logic.buildings.stack.multi.StockSettings;
 import jsettlers.logic.buildings.workers.WorkerBuilding;
 import jsettlers.logic.constants.Constants;
+import jsettlers.logic.constants.GameContext;
+import jsettlers.logic.constants.GameStateHash;
 import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.map.grid.flags.FlagsGrid;
 import jsettlers.logic.map.grid.landscape.LandscapeGrid;
@@ -154,6 +158,8 @@ public final class MainGrid implements Serializable {
 	transient         BordersThread                  bordersThread;
 	transient         IGuiInputGrid                  guiInputGrid;
 	private transient IEnclosedBlockedAreaFinderGrid enclosedBlockedAreaFinderGrid;
+	private transient GameContext                    gameContext;
+	private transient IGridChangedListener           gridChangedListener;
 
 	public MainGrid(String mapId, String mapName, short width, short height, PlayerSetting[] playerSettings) {
 		this.mapId = mapId;
@@ -185,19 +191,77 @@ public final class MainGrid implements Serializable {
 	}
 
 	private void initAdditional() {
+		this.gameContext = GameContext.get(); // the grid is created or loaded by the thread of its game
 		this.graphicsGrid = new GraphicsGrid();
 		this.constructionMarksGrid = new ConstructionMarksGrid();
-		this.bordersThread = new BordersThread(new BordersThreadGrid());
+		this.bordersThread = new BordersThread(new BordersThreadGrid(), gameContext.getTickProfiler());
 		this.guiInputGrid = new GuiInputGrid();
 
 		this.partitionsGrid.setPlayerChangedListener(new PlayerChangedListener());
+		this.flagsGrid.setBlockingChangedListener((x, y, newBlocked) -> movablePathfinderGrid.invalidatePathfinders(x, y));
 		this.enclosedBlockedAreaFinderGrid = new EnclosedBlockedAreaFinderGrid();
+
+		GridChangedDispatcher gridChangedDispatcher = new GridChangedDispatcher();
+		this.landscapeGrid.setGridChangedListener(gridChangedDispatcher);
+		this.flagsGrid.setGridChangedListener(gridChangedDispatcher);
+		this.objectsGrid.setGridChangedListener(gridChangedDispatcher);
+		this.partitionsGrid.setGridChangedListener(gridChangedDispatcher);
+
+		GameStateHash stateHash = gameContext.getStateHash();
+		this.landscapeGrid.setStateHash(stateHash);
+		this.partitionsGrid.setStateHash(stateHash);
+		this.movableGrid.setStateHash(stateHash);
+		this.objectsGrid.setStateHash(stateHash);
+	}
+
+	/**
+	 * Calculates the hash of the game state from scratch. This needs to be done after the grid has been created or loaded and before the game is
+	 * started. Afterwards, the grids, movables and buildings keep the hash up to date.
+	 */
+	public void initStateHash() {
+		gameContext.getStateHash().set(calculateStateHash());
+	}
+
+	/**
+	 * @return The hash of the game state calculated from scratch.
+	 */
+	public long calculateStateHash() {
+		return landscapeGrid.calculateStateHash() ^ partitionsGrid.calculateStateHash() ^ movableGrid.calculateStateHash()
+				^ objectsGrid.calculateStateHash() ^ gameContext.calculateMovablesAndBuildingsHash();
+	}
+
+	/**
+	 * @return The incrementally updated hash of the game state. It's used as checksum to detect desynchronized clients.
+	 */
+	public long getStateHash() {
+		return gameContext.getStateHash().get();
+	}
+
+	/**
+	 * @return The cache of the paths searched for the movables.
+	 */
+	public PathCache getPathCache() {
+		return movablePathfinderGrid.pathCache;
+	}
+
+	/**
+	 * Sets the listener informed about changed positions of the landscape, flags, objects and partitions grid.
+	 *
+	 * @param listener
+	 *            The listener to be set or null if no listener should be informed.
+	 */
+	public void setGridChangedListener(IGridChangedListener listener) {
+		this.gridChangedListener = listener;
 	}
 
 	public final short getHeight() {
 		return height;
 	}
 
+	public GameContext getGameContext() {
+		return gameContext;
+	}
+
 	public final short getWidth() {
 		return width;
 	}
@@ -212,6 +276,7 @@ public final class MainGrid implements Serializable {
 
 	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
 		ois.defaultReadObject();
+		movablePathfinderGrid.initAfterLoading();
 		initAdditional();
 		this.bordersThread.checkArea(0, 0, width, height);
 	}
@@ -362,7 +427,7 @@ public final class MainGrid implements Serializable {
 	}
 
 	private UIState calculateUiStateByTower(byte currPlayerId) {
-		for (Building building : Building.getAllBuildings()) {
+		for (Building building : gameContext.getAllBuildings()) {
 			if (building.getPlayer().playerId == currPlayerId && building instanceof OccupyingBuilding) {
 				return new UIState(((OccupyingBuilding) building).getPosition());
 			}
@@ -477,6 +542,7 @@ public final class MainGrid implements Serializable {
 			}
 		}
 		landscapeGrid.setLandscapeTypeAt(x, y, newType);
+		movablePathfinderGrid.invalidatePathfinders(x, y);
 	}
 
 	final void checkPositionThatChangedPlayer(int x, int y) {
@@ -485,6 +551,7 @@ public final class MainGrid implements Serializable {
 		}
 
 		EnclosedBlockedAreaFinderAlgorithm.checkLandmark(enclosedBlockedAreaFinderGrid, x, y);
+		movablePathfinderGrid.pathCache.invalidate(x, y);
 
 		ILogicMovable movable = movableGrid.getMovableAt(x, y);
 		if (movable != null) {
@@ -749,7 +816,8 @@ public final class MainGrid implements Serializable {
 	}
 
 	final class GraphicsGrid implements IGraphicsGrid {
-		private transient BitSet bordersGrid = new BitSet(width * height);
+		private transient AtomicBitSet bordersGrid = new AtomicBitSet(width * height);
+		private transient volatile IGraphicsBackgroundListener backgroundListener;
 
 		@Override
 		public final short getHeight() {
@@ -841,11 +909,42 @@ public final class MainGrid implements Serializable {
 		@Override
 		public final void setBackgroundListener(IGraphicsBackgroundListener backgroundListener) {
 			landscapeGrid.setBackgroundListener(backgroundListener);
+			this.backgroundListener = backgroundListener;
+		}
+
+		void playerChangedAt(int x, int y) {
+			IGraphicsBackgroundListener listener = backgroundListener;
+			if (listener != null) {
+				listener.playerChangedAt(x, y);
+			}
+		}
+
+		void fogOfWarChangedIn(int minX, int minY, int maxX, int maxY) {
+			IGraphicsBackgroundListener listener = backgroundListener;
+			if (listener != null) {
+				listener.fogOfWarChangedIn(minX, minY, maxX, maxY);
+			}
 		}
 
 		@Override
 		public int nextDrawableX(int x, int y, int maxX) {
-			return x + 1;
+			int nextX = Math.max(x + 1, Math.min(maxX + 1, width)); // the positions of the next row must not be found
+
+			int nextObjectX = objectsGrid.nextOccupiedX(x + 1, nextX, y);
+			if (nextObjectX >= 0) {
+				nextX = nextObjectX;
+			}
+			int nextMovableX = movableGrid.nextOccupiedX(x + 1, nextX, y);
+			if (nextMovableX >= 0) {
+				nextX = nextMovableX;
+			}
+			int rowStart = y * width;
+			int nextBorderIndex = bordersGrid.nextSetBit(rowStart + x + 1, rowStart + nextX);
+			if (nextBorderIndex >= 0) {
+				nextX = nextBorderIndex - rowStart;
+			}
+
+			return nextX;
 		}
 
 		@Override
@@ -892,6 +991,11 @@ public final class MainGrid implements Serializable {
 			return objectsGrid.removeMapObject(x, y, mapObject);
 		}
 
+		@Override
+		public void mapObjectTypeChanged(int x, int y, AbstractHexMapObject mapObject, EMapObjectType oldType) {
+			objectsGrid.mapObjectTypeChanged(x, y, mapObject, oldType);
+		}
+
 		@Override
 		public final AbstractHexMapObject getMapObject(int x, int y, EMapObjectType mapObjectType) {
 			return objectsGrid.getMapObjectAt(x, y, mapObjectType);
@@ -1009,6 +1113,8 @@ public final class MainGrid implements Serializable {
 	}
 
 	final class ConstructionMarksGrid extends AbstractConstructionMarkableMap {
+		private final BuildabilityCache buildabilityCache = new BuildabilityCache(this);
+
 		@Override
 		public final void setConstructMarking(int x, int y, boolean set, boolean binaryConstructionMarkValues, RelativePoint[] flattenPositions) {
 			if (isInBounds(x, y)) {
@@ -1033,7 +1139,6 @@ public final class MainGrid implements Serializable {
 
 		@Override
 		public boolean canConstructAt(int x, int y, EBuildingType buildingType, byte playerId) {
-			RelativePoint[] buildingArea = buildingType.getBuildingArea();
 			BuildingAreaBitSet areaBitSet = buildingType.getBuildingAreaBitSet();
 			if (!isInBounds(areaBitSet.minX + x, areaBitSet.minY + y) || !isInBounds(areaBitSet.maxX + x, areaBitSet.maxY + y)) {
 				return false;
@@ -1041,18 +1146,13 @@ public final class MainGrid implements Serializable {
 
 			short partitionId = getPartitionIdAt(areaBitSet.aPosition.calculateX(x), areaBitSet.aPosition.calculateY(y));
 
-			if (!canPlayerConstructOnPartition(playerId, partitionId)) {
-				return false;
-			}
-			for (RelativePoint curr : buildingArea) {
-				int currX = curr.calculateX(x);
-				int currY = curr.calculateY(y);
+			return canPlayerConstructOnPartition(playerId, partitionId)
+				&& buildabilityCache.getBuildability(x, y, buildingType) == BuildabilityCache.BUILDABLE;
+		}
 
-				if (!canUsePositionForConstruction(currX, currY, buildingType.getRequiredGroundTypeAt(currX, currY), partitionId)) {
-					return false;
-				}
-			}
-			return !buildingType.needsFlattenedGround() || calculateConstructionMarkValue(x, y, buildingArea) >= 0;
+		@Override
+		public BuildabilityCache getBuildabilityCache() {
+			return buildabilityCache;
 		}
 
 		@Override
@@ -1110,24 +1210,33 @@ public final class MainGrid implements Serializable {
 		private static final long serialVersionUID = 4006228724969442801L;
 
 		private transient PathfinderGrid    pathfinderGrid;
-		private transient AbstractAStar     aStar;
+		private transient HierarchicalAStar aStar;
+		private transient FlowFieldPathfinder flowFieldPathfinder;
 		transient         DijkstraAlgorithm dijkstra; // not private, because it's used by BuildingsGrid
 		private transient InAreaFinder      inAreaFinder;
+		private           PathCache         pathCache;
 
 		public MovablePathfinderGrid() {
+			pathCache = new PathCache(width, height);
 			initPathfinders();
 		}
 
-		private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
-			ois.defaultReadObject();
+		/**
+		 * Needs to be called by {@link MainGrid#readObject(ObjectInputStream)}, as this grid can be read before the size of the main grid.
+		 */
+		void initAfterLoading() {
+			if (pathCache == null) { // savegames from before the path cache
+				pathCache = new PathCache(width, height);
+			}
 			initPathfinders();
 		}
 
 		private void initPathfinders() {
 			pathfinderGrid = new PathfinderGrid();
 
-			aStar = new BucketQueueAStar(pathfinderGrid, width, height);
-			dijkstra = new DijkstraAlgorithm(pathfinderGrid, aStar, width, height);
+			aStar = new HierarchicalAStar(pathfinderGrid, width, height);
+			flowFieldPathfinder = new FlowFieldPathfinder(pathfinderGrid, width, height);
+			dijkstra = new DijkstraAlgorithm(pathfinderGrid, pathfinderGrid, aStar, width, height);
 			inAreaFinder = new InAreaFinder(pathfinderGrid, width, height);
 		}
 
@@ -1193,6 +1302,11 @@ public final class MainGrid implements Serializable {
 			partitionsGrid.getPartitionAt(bearer).removeJobless(bearer);
 		}
 
+		@Override
+		public void joblessPositionChanged(IManageableBearer bearer, ShortPoint2D oldPosition) {
+			partitionsGrid.getPartitionAt(oldPosition.x, oldPosition.y).joblessPositionChanged(bearer, oldPosition);
+		}
+
 		@Override
 		public void addJobless(IManageableWorker worker) {
 			partitionsGrid.getPartitionAt(worker).addJobless(worker);
@@ -1203,6 +1317,11 @@ public final class MainGrid implements Serializable {
 			partitionsGrid.getPartitionAt(worker).removeJobless(worker);
 		}
 
+		@Override
+		public void joblessPositionChanged(IManageableWorker worker, ShortPoint2D oldPosition) {
+			partitionsGrid.getPartitionAt(oldPosition.x, oldPosition.y).joblessPositionChanged(worker, oldPosition);
+		}
+
 		@Override
 		public void addJobless(IManageableDigger digger) {
 			partitionsGrid.getPartitionAt(digger).addJobless(digger);
@@ -1213,6 +1332,11 @@ public final class MainGrid implements Serializable {
 			partitionsGrid.getPartitionAt(digger).removeJobless(digger);
 		}
 
+		@Override
+		public void joblessPositionChanged(IManageableDigger digger, ShortPoint2D oldPosition) {
+			partitionsGrid.getPartitionAt(oldPosition.x, oldPosition.y).joblessPositionChanged(digger, oldPosition);
+		}
+
 		@Override
 		public void addJobless(IManageableBricklayer bricklayer) {
 			partitionsGrid.getPartitionAt(bricklayer).addJobless(bricklayer);
@@ -1223,6 +1347,11 @@ public final class MainGrid implements Serializable {
 			partitionsGrid.getPartitionAt(bricklayer).removeJobless(bricklayer);
 		}
 
+		@Override
+		public void joblessPositionChanged(IManageableBricklayer bricklayer, ShortPoint2D oldPosition) {
+			partitionsGrid.getPartitionAt(oldPosition.x, oldPosition.y).joblessPositionChanged(bricklayer, oldPosition);
+		}
+
 		@Override
 		public boolean takeMaterial(ShortPoint2D position, EMaterialType materialType) {
 			return mapObjectsManager.popMaterial(position.x, position.y, materialType);
@@ -1336,7 +1465,22 @@ public final class MainGrid implements Serializable {
 
 		@Override
 		public Path calculatePathTo(IPathCalculatable pathRequester, ShortPoint2D targetPos) {
-			return aStar.findPath(pathRequester, targetPos);
+			return pathCache.findPath(aStar, pathRequester, targetPos);
+		}
+
+		@Override
+		public Path calculatePathTo(IPathCalculatable pathRequester, ShortPoint2D targetPos, ShortPoint2D groupTargetPos) {
+			Path path = flowFieldPathfinder.findPath(pathRequester, targetPos, groupTargetPos);
+			return path != null ? path : aStar.findPath(pathRequester, targetPos);
+		}
+
+		/**
+		 * Needs to be called whenever the blocked state of a position changes for movables that don't need their player's ground.
+		 */
+		void invalidatePathfinders(int x, int y) {
+			aStar.invalidate(x, y);
+			flowFieldPathfinder.invalidate(x, y);
+			pathCache.invalidate(x, y);
 		}
 
 		@Override
@@ -1490,7 +1634,11 @@ public final class MainGrid implements Serializable {
 
 		@Override
 		public final void setBorderAt(int x, int y, boolean isBorder) {
-			graphicsGrid.bordersGrid.set(x + y * width, isBorder);
+			int index = x + y * width;
+			if (graphicsGrid.bordersGrid.get(index) != isBorder) {
+				graphicsGrid.bordersGrid.set(index, isBorder);
+				graphicsGrid.playerChangedAt(x, y);
+			}
 		}
 
 		@Override
@@ -2030,6 +2178,7 @@ public final class MainGrid implements Serializable {
 		public void playerChangedAt(int x, int y, byte newPlayerId) {
 			final ShortPoint2D position = new ShortPoint2D(x, y);
 			bordersThread.checkPosition(position);
+			graphicsGrid.playerChangedAt(x, y);
 
 			Building building = objectsGrid.getBuildingAt(x, y);
 			if (building != null && building.getPlayer().getPlayerId() != newPlayerId) {
@@ -2038,6 +2187,43 @@ public final class MainGrid implements Serializable {
 		}
 	}
 
+	/**
+	 * This class invalidates the cached buildabilities of changed positions and informs the listener set with
+	 * {@link MainGrid#setGridChangedListener(IGridChangedListener)}.
+	 */
+	final class GridChangedDispatcher implements IGridChangedListener {
+		@Override
+		public void positionChangedAt(int x, int y) {
+			constructionMarksGrid.buildabilityCache.invalidateAround(x, y);
+			if (gridChangedListener != null) {
+				gridChangedListener.positionChangedAt(x, y);
+			}
+		}
+
+		@Override
+		public void blockingChangedAt(int x, int y) {
+			if (gridChangedListener != null) {
+				gridChangedListener.blockingChangedAt(x, y);
+			}
+		}
+
+		@Override
+		public void playerChangedAt(int x, int y) {
+			constructionMarksGrid.buildabilityCache.invalidateAround(x, y);
+			if (gridChangedListener != null) {
+				gridChangedListener.playerChangedAt(x, y);
+			}
+		}
+
+		@Override
+		public void partitionChangedAt(int x, int y) {
+			constructionMarksGrid.buildabilityCache.invalidateAround(x, y);
+			if (gridChangedListener != null) {
+				gridChangedListener.partitionChangedAt(x, y);
+			}
+		}
+	}
+
 	final class FogOfWarGrid implements IFogOfWarGrid {
 		@Override
 		public final IMovable getMovableAt(short x, short y) {
@@ -2051,12 +2237,17 @@ public final class MainGrid implements Serializable {
 
 		@Override
 		public final ConcurrentLinkedQueue<? extends IViewDistancable> getMovableViewDistancables() {
-			return Movable.getAllMovables();
+			return gameContext.getAllMovables();
 		}
 
 		@Override
 		public final ConcurrentLinkedQueue<? extends IViewDistancable> getBuildingViewDistancables() {
-			return Building.getAllBuildings();
+			return gameContext.getAllBuildings();
+		}
+
+		@Override
+		public void fogOfWarChangedIn(int minX, int minY, int maxX, int maxY) {
+			graphicsGrid.fogOfWarChangedIn(minX, minY, maxX, maxY);
 		}
 	}
 }
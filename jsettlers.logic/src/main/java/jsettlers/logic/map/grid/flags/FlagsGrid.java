@@ -18,6 +18,8 @@ import java.io.Serializable;
 import java.util.BitSet;
 
 import jsettlers.algorithms.partitions.IBlockingProvider;
+import jsettlers.algorithms.partitions.IBlockingProvider.IBlockingChangedListener;
+import jsettlers.logic.map.grid.IGridChangedListener;
 
 /**
  * Grid that's storing the blocked information for fast access.
@@ -35,6 +37,8 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IProtec
 	private final BitSet protectedGrid;
 
 	private IProtectedChangedListener protectedChangedListener = null;
+	private transient IBlockingChangedListener blockingChangedListener = null;
+	private transient IGridChangedListener gridChangedListener = null;
 
 	public FlagsGrid(final short width, final short height) {
 		this.width = width;
@@ -78,14 +82,27 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IProtec
 	 */
 	public void setBlockedAndProtected(int x, int y, boolean newBlocked, boolean newProtected) {
 		final int idx = x + y * width;
+		boolean oldBlocked = this.blockedGrid.get(idx);
 		boolean oldProtected = this.protectedGrid.get(idx);
 
 		this.blockedGrid.set(idx, newBlocked);
 		this.protectedGrid.set(idx, newProtected);
 
+		if (blockingChangedListener != null && oldBlocked != newBlocked) {
+			this.blockingChangedListener.blockingChanged(x, y, newBlocked);
+		}
+
 		if (protectedChangedListener != null && oldProtected != newProtected) {
 			this.protectedChangedListener.protectedChanged(x, y, newProtected);
 		}
+
+		if (gridChangedListener != null && oldBlocked != newBlocked) {
+			this.gridChangedListener.blockingChangedAt(x, y);
+		}
+
+		if (gridChangedListener != null && oldProtected != newProtected) {
+			this.gridChangedListener.positionChangedAt(x, y);
+		}
 	}
 
 	public boolean isMarked(int x, int y) {
@@ -107,6 +124,10 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IProtec
 		if (protectedChangedListener != null) {
 			this.protectedChangedListener.protectedChanged(x, y, newProtected);
 		}
+
+		if (gridChangedListener != null) {
+			this.gridChangedListener.positionChangedAt(x, y);
+		}
 	}
 
 	public boolean isPioneerBlocked(int x, int y) {
@@ -114,6 +135,14 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IProtec
 		return blockedGrid.get(index) || protectedGrid.get(index);
 	}
 
+	public void setBlockingChangedListener(IBlockingChangedListener blockingChangedListener) {
+		this.blockingChangedListener = blockingChangedListener;
+	}
+
+	public void setGridChangedListener(IGridChangedListener gridChangedListener) {
+		this.gridChangedListener = gridChangedListener;
+	}
+
 	@Override
 	public void setProtectedChangedListener(IProtectedChangedListener protectedChangedListener) {
 		this.protectedChangedListener = protectedChangedListener;
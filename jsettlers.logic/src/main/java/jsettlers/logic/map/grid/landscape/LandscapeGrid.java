@@ -27,7 +27,10 @@ import jsettlers.common.map.shapes.HexGridArea;
 import jsettlers.common.position.RelativePoint;
 import jsettlers.common.position.ShortPoint2D;
 import jsettlers.logic.constants.Constants;
+import jsettlers.logic.constants.GameStateHash;
+import jsettlers.logic.constants.GameStateHash.EKind;
 import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.IGridChangedListener;
 import jsettlers.logic.map.grid.flags.IProtectedProvider;
 import jsettlers.logic.map.grid.flags.IProtectedProvider.IProtectedChangedListener;
 
@@ -52,6 +55,14 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 		@Override
 		public final void backgroundChangedAt(int x, int y) {
 		}
+
+		@Override
+		public final void playerChangedAt(int x, int y) {
+		}
+
+		@Override
+		public final void fogOfWarChangedIn(int minX, int minY, int maxX, int maxY) {
+		}
 	}
 
 	private final byte[] heightGrid;
@@ -69,6 +80,8 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 
 	private transient int[] debugColors;
 	private transient IGraphicsBackgroundListener backgroundListener;
+	private transient GameStateHash stateHash = new GameStateHash();
+	private transient IGridChangedListener gridChangedListener = null;
 
 	public LandscapeGrid(short width, short height, IProtectedProvider protectedProvider) {
 		this.width = width;
@@ -93,10 +106,77 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
 		ois.defaultReadObject();
 		setBackgroundListener(null);
+		stateHash = new GameStateHash();
 
 		initDebugColors();
 	}
 
+	/**
+	 * Sets the hash that is updated with every change of the height, landscape type or resources.
+	 */
+	public void setStateHash(GameStateHash stateHash) {
+		this.stateHash = stateHash;
+	}
+
+	/**
+	 * Sets the listener informed about changes of the landscape types and resources or null if no listener should be informed.
+	 */
+	public void setGridChangedListener(IGridChangedListener gridChangedListener) {
+		this.gridChangedListener = gridChangedListener;
+	}
+
+	/**
+	 * @return The hash of the heights, landscape types and resources of all positions calculated from scratch.
+	 */
+	public long calculateStateHash() {
+		long hash = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int index = x + y * width;
+				hash ^= getHeightKey(x, y, heightGrid[index]) ^ getLandscapeKey(x, y, landscapeGrid[index])
+						^ getResourceKey(x, y, resourceType[index], resourceAmount[index]);
+			}
+		}
+		return hash;
+	}
+
+	private static long getHeightKey(int x, int y, byte height) {
+		return GameStateHash.key(EKind.HEIGHT, x, y, height);
+	}
+
+	private static long getLandscapeKey(int x, int y, byte landscapeType) {
+		return GameStateHash.key(EKind.LANDSCAPE, x, y, landscapeType);
+	}
+
+	private static long getResourceKey(int x, int y, byte resourceType, byte resourceAmount) {
+		return GameStateHash.key(EKind.RESOURCE, x, y, resourceType << 8 | resourceAmount & 0xFF);
+	}
+
+	private void changeLandscapeType(int x, int y, int index, byte newLandscapeType) {
+		stateHash.change(getLandscapeKey(x, y, landscapeGrid[index]), getLandscapeKey(x, y, newLandscapeType));
+		landscapeGrid[index] = newLandscapeType;
+		notifyGridChangedListener(x, y);
+	}
+
+	private void changeHeight(int x, int y, int index, byte newHeight) {
+		stateHash.change(getHeightKey(x, y, heightGrid[index]), getHeightKey(x, y, newHeight));
+		heightGrid[index] = newHeight;
+		notifyGridChangedListener(x, y);
+	}
+
+	private void changeResource(int x, int y, int index, byte newResourceType, byte newResourceAmount) {
+		stateHash.change(getResourceKey(x, y, resourceType[index], resourceAmount[index]), getResourceKey(x, y, newResourceType, newResourceAmount));
+		resourceType[index] = newResourceType;
+		resourceAmount[index] = newResourceAmount;
+		notifyGridChangedListener(x, y);
+	}
+
+	private void notifyGridChangedListener(int x, int y) {
+		if (gridChangedListener != null) {
+			gridChangedListener.positionChangedAt(x, y);
+		}
+	}
+
 	private void initDebugColors() {
 		if (MatchConstants.ENABLE_DEBUG_COLORS) {
 			this.debugColors = new int[width * height];
@@ -157,20 +237,20 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 			flattenedResetter.addPosition(x, y);
 		}
 
-		this.landscapeGrid[x + y * width] = landscapeType.ordinal;
+		changeLandscapeType(x, y, x + y * width, landscapeType.ordinal);
 		backgroundListener.backgroundChangedAt(x, y);
 	}
 
 	public final void setHeightAt(short x, short y, byte height) {
-		this.heightGrid[x + y * width] = height;
+		changeHeight(x, y, x + y * width, height);
 		backgroundListener.backgroundChangedAt(x, y);
 	}
 
 	public void flattenAndChangeHeightTowards(int x, int y, byte targetHeight) {
 		final int index = x + y * width;
 
-		this.heightGrid[index] += Math.signum(targetHeight - this.heightGrid[index]);
-		this.landscapeGrid[index] = ELandscapeType.FLATTENED.ordinal;
+		changeHeight(x, y, index, (byte) (this.heightGrid[index] + Math.signum(targetHeight - this.heightGrid[index])));
+		changeLandscapeType(x, y, index, ELandscapeType.FLATTENED.ordinal);
 		this.temporaryFlatened[index] = Byte.MAX_VALUE; // cancel the flattening
 
 		backgroundListener.backgroundChangedAt(x, y);
@@ -185,8 +265,7 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 	}
 
 	public final void setResourceAt(short x, short y, EResourceType resourceType, byte amount) {
-		this.resourceType[x + y * width] = resourceType.ordinal;
-		this.resourceAmount[x + y * width] = (byte) Math.min(amount, Constants.MAX_RESOURCE_AMOUNT_PER_POSITION);
+		changeResource(x, y, x + y * width, resourceType.ordinal, (byte) Math.min(amount, Constants.MAX_RESOURCE_AMOUNT_PER_POSITION));
 	}
 
 	/**
@@ -220,7 +299,7 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 	public boolean tryTakingResource(ShortPoint2D position, EResourceType resource) {
 		int idx = position.x + position.y * width;
 		if (resourceType[idx] == resource.ordinal && resourceAmount[idx] > 0) {
-			resourceAmount[idx]--;
+			changeResource(position.x, position.y, idx, resourceType[idx], (byte) (resourceAmount[idx] - 1));
 			return true;
 		} else {
 			return false;
@@ -18,16 +18,18 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.Arrays;
 
 import jsettlers.common.map.shapes.HexGridArea;
 import jsettlers.common.movable.EMovableType;
 import jsettlers.common.movable.IMovable;
 import jsettlers.common.player.IPlayer;
 import jsettlers.common.position.ShortPoint2D;
-import jsettlers.common.utils.coordinates.CoordinateStream;
-import jsettlers.common.utils.mutables.MutableBoolean;
+import jsettlers.common.utils.collections.AtomicBitSet;
 import jsettlers.logic.SerializationUtils;
 import jsettlers.logic.constants.Constants;
+import jsettlers.logic.constants.GameStateHash;
+import jsettlers.logic.constants.GameStateHash.EKind;
 import jsettlers.logic.map.grid.landscape.IWalkableGround;
 import jsettlers.logic.movable.interfaces.IAttackable;
 import jsettlers.logic.movable.interfaces.ILogicMovable;
@@ -39,18 +41,41 @@ import jsettlers.logic.movable.interfaces.ILogicMovable;
  */
 public final class MovableGrid implements Serializable {
 	private static final long serialVersionUID = 7003522358013103962L;
+	private static final int BUCKET_SIZE_SHIFT = 3; // buckets of 8x8 positions
 
 	private transient ILogicMovable[] movableGrid;
+	/**
+	 * The positions with a movable. Lets the graphics skip the positions without movables.
+	 */
+	private transient AtomicBitSet occupiedPositions;
 	private final IWalkableGround ground;
 	private final short width;
 
 	private final short height;
 
+	private transient GameStateHash stateHash = new GameStateHash();
+
+	/**
+	 * Number of movables in each bucket of 8x8 positions and the number of movables of every team in each bucket. Buckets without movables of other
+	 * teams are skipped when searching for enemies.
+	 */
+	private transient int bucketsWidth;
+	private transient byte[] movablesInBucket;
+	private transient byte[][] teamMovablesInBucket;
+
 	public MovableGrid(short width, short height, IWalkableGround ground) {
 		this.width = width;
 		this.height = height;
 		this.ground = ground;
 		this.movableGrid = new ILogicMovable[width * height];
+		this.occupiedPositions = new AtomicBitSet(width * height);
+		initBuckets();
+	}
+
+	private void initBuckets() {
+		bucketsWidth = (width >> BUCKET_SIZE_SHIFT) + 1;
+		movablesInBucket = new byte[bucketsWidth * ((height >> BUCKET_SIZE_SHIFT) + 1)];
+		teamMovablesInBucket = new byte[0][];
 	}
 
 	private void writeObject(ObjectOutputStream oos) throws IOException {
@@ -61,16 +86,95 @@ public final class MovableGrid implements Serializable {
 	private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
 		ois.defaultReadObject();
 		movableGrid = SerializationUtils.readSparseArray(ois, ILogicMovable.class);
+		stateHash = new GameStateHash();
+
+		occupiedPositions = new AtomicBitSet(width * height);
+		for (int index = 0; index < movableGrid.length; index++) {
+			occupiedPositions.set(index, movableGrid[index] != null);
+		}
+
+		initBuckets();
+		// the players of the movables might not be deserialized yet => fill the buckets after the whole graph has been read
+		ois.registerValidation(() -> {
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					ILogicMovable movable = movableGrid[x + y * width];
+					if (movable != null) {
+						changeBucketCount(x, y, movable, 1);
+					}
+				}
+			}
+		}, 0);
+	}
+
+	private void changeBucketCount(int x, int y, ILogicMovable movable, int delta) {
+		int bucket = getBucket(x, y);
+		movablesInBucket[bucket] += delta;
+		getTeamMovablesInBucket(movable.getPlayer().getTeamId())[bucket] += delta;
+	}
+
+	private int getBucket(int x, int y) {
+		return (x >> BUCKET_SIZE_SHIFT) + (y >> BUCKET_SIZE_SHIFT) * bucketsWidth;
+	}
+
+	private byte[] getTeamMovablesInBucket(byte teamId) {
+		if (teamId >= teamMovablesInBucket.length) {
+			byte[][] newTeamMovablesInBucket = Arrays.copyOf(teamMovablesInBucket, teamId + 1);
+			for (int i = teamMovablesInBucket.length; i <= teamId; i++) {
+				newTeamMovablesInBucket[i] = new byte[movablesInBucket.length];
+			}
+			teamMovablesInBucket = newTeamMovablesInBucket;
+		}
+		return teamMovablesInBucket[teamId];
+	}
+
+	/**
+	 * Sets the hash that is updated with every movable entering or leaving a position.
+	 */
+	public void setStateHash(GameStateHash stateHash) {
+		this.stateHash = stateHash;
+	}
+
+	/**
+	 * @return The hash of the movables at all positions calculated from scratch.
+	 */
+	public long calculateStateHash() {
+		long hash = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				hash ^= getStateHashKey(x, y, movableGrid[x + y * width]);
+			}
+		}
+		return hash;
+	}
+
+	private static long getStateHashKey(int x, int y, ILogicMovable movable) {
+		return movable == null ? 0 : GameStateHash.key(EKind.MOVABLE_POSITION, x, y, 1L << 32 | movable.getID() & 0xFFFFFFFFL);
 	}
 
 	public final ILogicMovable getMovableAt(int x, int y) {
 		return this.movableGrid[x + y * width];
 	}
 
+	/**
+	 * Searches the next position with a movable in the given row.
+	 *
+	 * @return The x coordinate of the first position in [fromX, toX) with a movable<br>
+	 *         or -1 if there is no such position.
+	 */
+	public final int nextOccupiedX(int fromX, int toX, int y) {
+		int rowStart = y * width;
+		int index = occupiedPositions.nextSetBit(rowStart + fromX, rowStart + toX);
+		return index < 0 ? -1 : index - rowStart;
+	}
+
 	public final void movableLeft(ShortPoint2D position, ILogicMovable movable) {
 		int idx = position.x + position.y * width;
 		if (this.movableGrid[idx] == movable) {
 			this.movableGrid[idx] = null;
+			occupiedPositions.clear(idx);
+			stateHash.toggle(getStateHashKey(position.x, position.y, movable));
+			changeBucketCount(position.x, position.y, movable, -1);
 		}
 	}
 
@@ -86,9 +190,21 @@ public final class MovableGrid implements Serializable {
 		final short x = position.x;
 		final short y = position.y;
 
-		this.movableGrid[x + y * width] = movable;
-		if (movable != null && movable.getMovableType() == EMovableType.BEARER) {
-			ground.walkOn(x, y);
+		final int idx = x + y * width;
+
+		ILogicMovable oldMovable = movableGrid[idx];
+		stateHash.change(getStateHashKey(x, y, oldMovable), getStateHashKey(x, y, movable));
+		if (oldMovable != null) {
+			changeBucketCount(x, y, oldMovable, -1);
+		}
+
+		this.movableGrid[idx] = movable;
+		occupiedPositions.set(idx, movable != null);
+		if (movable != null) {
+			changeBucketCount(x, y, movable, 1);
+			if (movable.getMovableType() == EMovableType.BEARER) {
+				ground.walkOn(x, y);
+			}
 		}
 	}
 
@@ -105,28 +221,78 @@ public final class MovableGrid implements Serializable {
 	 *            If false, only a circle is informed if the given movable is attackable.
 	 */
 	public void informMovables(ILogicMovable movable, short x, short y, boolean informFullArea) {
-		// inform all movables of the given movable
-		CoordinateStream area;
-		if (informFullArea) {
-			area = HexGridArea.stream(x, y, (short) 1, Constants.SOLDIER_SEARCH_RADIUS);
-		} else {
-			area = HexGridArea.streamBorder(x, y, Constants.SOLDIER_SEARCH_RADIUS - 1);
-		}
+		int startRadius = informFullArea ? 1 : Constants.SOLDIER_SEARCH_RADIUS - 1;
+		int maxRadius = informFullArea ? Constants.SOLDIER_SEARCH_RADIUS : Constants.SOLDIER_SEARCH_RADIUS - 1;
 
-		MutableBoolean foundOne = new MutableBoolean();
 		IPlayer movablePlayer = movable.getPlayer();
+		byte[] ownTeamMovablesInBucket = getTeamMovablesInBucket(movablePlayer.getTeamId());
+
+		int minX = Math.max(0, x - maxRadius);
+		int maxX = Math.min(width - 1, x + maxRadius);
+		int minY = Math.max(0, y - maxRadius);
+		int maxY = Math.min(height - 1, y + maxRadius);
 
-		area.filterBounds(width, height).forEach((currX, currY) -> {
-			ILogicMovable currMovable = getMovableAt(currX, currY);
-			if (currMovable != null && isEnemy(movablePlayer, currMovable)) {
-				currMovable.informAboutAttackable(movable);
+		// Collect the enemies in the buckets containing movables of other teams. They are sorted by the order in which HexGridArea.stream() visits
+		// their positions. Therefore the movables are informed in the same order as if the area was streamed.
+		long[] enemies = null;
+		int numberOfEnemies = 0;
 
-				if (!foundOne.value) { // the first found movable is the one closest to the given movable.
-					movable.informAboutAttackable(currMovable);
-					foundOne.value = true;
+		for (int bucketY = minY >> BUCKET_SIZE_SHIFT; bucketY <= maxY >> BUCKET_SIZE_SHIFT; bucketY++) {
+			for (int bucketX = minX >> BUCKET_SIZE_SHIFT; bucketX <= maxX >> BUCKET_SIZE_SHIFT; bucketX++) {
+				int bucket = bucketX + bucketY * bucketsWidth;
+				if (movablesInBucket[bucket] == ownTeamMovablesInBucket[bucket]) {
+					continue; // the bucket contains no movables of other teams
 				}
+
+				int bucketMinX = Math.max(minX, bucketX << BUCKET_SIZE_SHIFT);
+				int bucketMaxX = Math.min(maxX, ((bucketX + 1) << BUCKET_SIZE_SHIFT) - 1);
+				int bucketMinY = Math.max(minY, bucketY << BUCKET_SIZE_SHIFT);
+				int bucketMaxY = Math.min(maxY, ((bucketY + 1) << BUCKET_SIZE_SHIFT) - 1);
+				if (getMaxOnGridDist(bucketMinX - x, bucketMaxX - x, bucketMinY - y, bucketMaxY - y) < startRadius) {
+					continue; // the bucket lies inside of the inner radius
+				}
+
+				for (int currY = bucketMinY; currY <= bucketMaxY; currY++) {
+					for (int currX = bucketMinX; currX <= bucketMaxX; currX++) {
+						int index = currX + currY * width;
+						ILogicMovable currMovable = movableGrid[index];
+						if (currMovable == null) {
+							continue;
+						}
+
+						int radius = ShortPoint2D.getOnGridDist(currX - x, currY - y);
+						if (startRadius <= radius && radius <= maxRadius && isEnemy(movablePlayer, currMovable)) {
+							if (enemies == null) {
+								enemies = new long[16];
+							} else if (numberOfEnemies == enemies.length) {
+								enemies = Arrays.copyOf(enemies, numberOfEnemies * 2);
+							}
+							long streamOrder = (long) radius << 16 | HexGridArea.getIndexInRing(currX - x, currY - y, radius);
+							enemies[numberOfEnemies++] = streamOrder << 32 | index;
+						}
+					}
+				}
+			}
+		}
+
+		if (enemies == null) {
+			return;
+		}
+
+		Arrays.sort(enemies, 0, numberOfEnemies);
+		for (int i = 0; i < numberOfEnemies; i++) {
+			ILogicMovable currMovable = movableGrid[(int) enemies[i]];
+			currMovable.informAboutAttackable(movable);
+
+			if (i == 0) { // the first movable is the one closest to the given movable.
+				movable.informAboutAttackable(currMovable);
 			}
-		});
+		}
+	}
+
+	private static int getMaxOnGridDist(int minDx, int maxDx, int minDy, int maxDy) {
+		return Math.max(Math.max(ShortPoint2D.getOnGridDist(minDx, minDy), ShortPoint2D.getOnGridDist(minDx, maxDy)),
+				Math.max(ShortPoint2D.getOnGridDist(maxDx, minDy), ShortPoint2D.getOnGridDist(maxDx, maxDy)));
 	}
 
 	/**
@@ -40,6 +40,8 @@ public interface IMapObjectsManagerGrid extends Serializable, IArrowAttackableGr
 
 	boolean removeMapObject(int x, int y, AbstractHexMapObject mapObject);
 
+	void mapObjectTypeChanged(int x, int y, AbstractHexMapObject mapObject, EMapObjectType oldType);
+
 	short getWidth();
 
 	short getHeight();
@@ -91,7 +91,7 @@ public final class MapObjectsManager implements IScheduledTimerable, Serializabl
 			if (curr.shouldRemoveObject()) {
 				removeMapObject(curr.mapObject.getX(), curr.mapObject.getY(), curr.mapObject);
 			} else {
-				curr.getMapObject().changeState();
+				changeState(curr.getMapObject());
 			}
 
 			curr = timingQueue.peek();
@@ -100,6 +100,19 @@ public final class MapObjectsManager implements IScheduledTimerable, Serializabl
 		return 100;
 	}
 
+	private void changeState(AbstractObjectsManagerObject mapObject) {
+		EMapObjectType oldType = mapObject.getObjectType();
+		mapObject.changeState();
+		grid.mapObjectTypeChanged(mapObject.getX(), mapObject.getY(), mapObject, oldType);
+	}
+
+	private boolean cutOff(AbstractObjectsManagerObject mapObject) {
+		EMapObjectType oldType = mapObject.getObjectType();
+		boolean cut = mapObject.cutOff();
+		grid.mapObjectTypeChanged(mapObject.getX(), mapObject.getY(), mapObject, oldType);
+		return cut;
+	}
+
 	@Override
 	public void kill() {
 		killed = true;
@@ -174,7 +187,7 @@ public final class MapObjectsManager implements IScheduledTimerable, Serializabl
 		short y = (short) (pos.y - 1);
 		if (grid.isInBounds(x, y)) {
 			AbstractObjectsManagerObject tree = (AbstractObjectsManagerObject) grid.getMapObject(x, y, EMapObjectType.TREE_ADULT);
-			if (tree != null && tree.cutOff()) {
+			if (tree != null && cutOff(tree)) {
 				schedule(tree, Tree.DECOMPOSE_DURATION, true);
 				return true;
 			}
@@ -196,7 +209,7 @@ public final class MapObjectsManager implements IScheduledTimerable, Serializabl
 		short y = pos.y;
 		if (grid.isInBounds(x, y)) {
 			AbstractObjectsManagerObject corn = (AbstractObjectsManagerObject) grid.getMapObject(x, y, EMapObjectType.CORN_ADULT);
-			if (corn != null && corn.cutOff()) {
+			if (corn != null && cutOff(corn)) {
 				schedule(corn, Corn.REMOVE_DURATION, true);
 				return true;
 			}
@@ -218,7 +231,7 @@ public final class MapObjectsManager implements IScheduledTimerable, Serializabl
 		short y = pos.y;
 		if (grid.isInBounds(x, y)) {
 			AbstractObjectsManagerObject wine = (AbstractObjectsManagerObject) grid.getMapObject(x, y, EMapObjectType.WINE_HARVESTABLE);
-			if (wine != null && wine.cutOff()) {
+			if (wine != null && cutOff(wine)) {
 				schedule(wine, Wine.REMOVE_DURATION, true);
 				return true;
 			}
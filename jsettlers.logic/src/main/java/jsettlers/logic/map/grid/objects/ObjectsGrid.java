@@ -25,10 +25,14 @@ import jsettlers.common.map.shapes.HexGridArea;
 import jsettlers.common.mapobject.EMapObjectType;
 import jsettlers.common.movable.EDirection;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.common.utils.collections.AtomicBitSet;
 import jsettlers.common.utils.coordinates.CoordinateStream;
 import jsettlers.logic.SerializationUtils;
 import jsettlers.logic.buildings.Building;
 import jsettlers.logic.constants.Constants;
+import jsettlers.logic.constants.GameStateHash;
+import jsettlers.logic.constants.GameStateHash.EKind;
+import jsettlers.logic.map.grid.IGridChangedListener;
 import jsettlers.logic.movable.interfaces.IAttackable;
 import jsettlers.logic.movable.interfaces.IInformable;
 
@@ -46,12 +50,19 @@ public final class ObjectsGrid implements Serializable {
 
 	private transient AbstractHexMapObject[] objectsGrid;
 	private transient Building[] buildingsGrid;
+	/**
+	 * The positions with at least one map object. Lets the graphics skip the positions without map objects.
+	 */
+	private transient AtomicBitSet occupiedPositions;
+	private transient GameStateHash stateHash = new GameStateHash();
+	private transient IGridChangedListener gridChangedListener = null;
 
 	public ObjectsGrid(short width, short height) {
 		this.width = width;
 		this.height = height;
 		this.objectsGrid = new AbstractHexMapObject[width * height];
 		this.buildingsGrid = new Building[width * height];
+		this.occupiedPositions = new AtomicBitSet(width * height);
 	}
 
 	private final void writeObject(ObjectOutputStream oos) throws IOException {
@@ -86,11 +97,13 @@ public final class ObjectsGrid implements Serializable {
 
 		int length = ois.readInt();
 		objectsGrid = new AbstractHexMapObject[length];
+		occupiedPositions = new AtomicBitSet(length);
 
 		int index = ois.readInt();
 		while (index >= 0) {
 			AbstractHexMapObject currObject = (AbstractHexMapObject) ois.readObject();
 			objectsGrid[index] = currObject;
+			occupiedPositions.set(index, currObject != null);
 
 			while (currObject != null) {
 				AbstractHexMapObject newObject = (AbstractHexMapObject) ois.readObject();
@@ -100,12 +113,84 @@ public final class ObjectsGrid implements Serializable {
 
 			index = ois.readInt();
 		}
+
+		stateHash = new GameStateHash();
+	}
+
+	/**
+	 * Sets the hash that is updated with every change of the persistent map objects.
+	 */
+	public void setStateHash(GameStateHash stateHash) {
+		this.stateHash = stateHash;
+	}
+
+	/**
+	 * Sets the listener informed about changes of the persistent map objects or null if no listener should be informed.
+	 */
+	public void setGridChangedListener(IGridChangedListener gridChangedListener) {
+		this.gridChangedListener = gridChangedListener;
+	}
+
+	/**
+	 * @return The hash of the types of the persistent map objects at all positions calculated from scratch.
+	 */
+	public long calculateStateHash() {
+		long hash = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				for (AbstractHexMapObject curr = objectsGrid[x + y * width]; curr != null; curr = curr.getNextObject()) {
+					hash ^= getStateHashKey(x, y, curr.getObjectType());
+				}
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * Only the persistent map objects are part of the hash, because the others are not saved and not all of them are created by the game thread.
+	 */
+	private static long getStateHashKey(int x, int y, EMapObjectType mapObjectType) {
+		return mapObjectType.persistent ? GameStateHash.key(EKind.MAP_OBJECT, x, y, mapObjectType.ordinal() + 1) : 0;
+	}
+
+	private void notifyGridChangedListener(int x, int y, EMapObjectType mapObjectType) {
+		if (gridChangedListener != null && mapObjectType.persistent) {
+			gridChangedListener.positionChangedAt(x, y);
+		}
+	}
+
+	/**
+	 * Updates the hash after the type of the given map object changed (e.g. a tree has grown).
+	 *
+	 * @param oldType
+	 *            The type of the map object before the change.
+	 */
+	public void mapObjectTypeChanged(int x, int y, AbstractHexMapObject mapObject, EMapObjectType oldType) {
+		for (AbstractHexMapObject curr = objectsGrid[x + y * width]; curr != null; curr = curr.getNextObject()) {
+			if (curr == mapObject) { // the object may already have been removed
+				stateHash.change(getStateHashKey(x, y, oldType), getStateHashKey(x, y, mapObject.getObjectType()));
+				notifyGridChangedListener(x, y, mapObject.getObjectType());
+				return;
+			}
+		}
 	}
 
 	public final AbstractHexMapObject getObjectsAt(int x, int y) {
 		return objectsGrid[x + y * width];
 	}
 
+	/**
+	 * Searches the next position with map objects in the given row.
+	 *
+	 * @return The x coordinate of the first position in [fromX, toX) with map objects<br>
+	 *         or -1 if there is no such position.
+	 */
+	public final int nextOccupiedX(int fromX, int toX, int y) {
+		int rowStart = y * width;
+		int index = occupiedPositions.nextSetBit(rowStart + fromX, rowStart + toX);
+		return index < 0 ? -1 : index - rowStart;
+	}
+
 	public final AbstractHexMapObject getMapObjectAt(int x, int y, EMapObjectType mapObjectType) {
 		AbstractHexMapObject mapObjectHead = objectsGrid[x + y * width];
 
@@ -116,6 +201,13 @@ public final class ObjectsGrid implements Serializable {
 		final int idx = x + y * width;
 		AbstractHexMapObject mapObjectHead = objectsGrid[idx];
 
+		for (AbstractHexMapObject curr = mapObjectHead; curr != null; curr = curr.getNextObject()) {
+			if (mapObjectTypes.contains(curr.getObjectType())) {
+				stateHash.toggle(getStateHashKey(x, y, curr.getObjectType()));
+				notifyGridChangedListener(x, y, curr.getObjectType());
+			}
+		}
+
 		while (mapObjectHead != null && mapObjectTypes.contains(mapObjectHead.getObjectType())) {
 			mapObjectHead = mapObjectHead.getNextObject();
 			objectsGrid[idx] = mapObjectHead;
@@ -123,6 +215,8 @@ public final class ObjectsGrid implements Serializable {
 
 		if (mapObjectHead != null) {
 			mapObjectHead.removeMapObjectTypes(mapObjectTypes);
+		} else {
+			occupiedPositions.clear(idx);
 		}
 	}
 
@@ -133,11 +227,16 @@ public final class ObjectsGrid implements Serializable {
 			boolean removed;
 			if (mapObjectHead == mapObject) {
 				objectsGrid[idx] = mapObjectHead.getNextObject();
+				occupiedPositions.set(idx, objectsGrid[idx] != null);
 				removed = true;
 			} else {
 				removed = mapObjectHead.removeMapObject(mapObject);
 			}
 
+			if (removed) {
+				stateHash.toggle(getStateHashKey(x, y, mapObject.getObjectType()));
+				notifyGridChangedListener(x, y, mapObject.getObjectType());
+			}
 			return removed;
 		} else
 			return false;
@@ -150,9 +249,12 @@ public final class ObjectsGrid implements Serializable {
 
 		if (mapObjectHead == null) {
 			objectsGrid[idx] = mapObject;
+			occupiedPositions.set(idx);
 		} else {
 			mapObjectHead.addMapObject(mapObject);
 		}
+		stateHash.toggle(getStateHashKey(x, y, mapObject.getObjectType()));
+		notifyGridChangedListener(x, y, mapObject.getObjectType());
 	}
 
 	public final boolean hasCuttableObject(int x, int y, EMapObjectType mapObjectType) {
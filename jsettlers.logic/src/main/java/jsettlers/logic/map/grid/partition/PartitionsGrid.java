@@ -44,6 +44,9 @@ import jsettlers.common.position.ShortPoint2D;
 import jsettlers.common.utils.Tuple;
 import jsettlers.common.utils.coordinates.CoordinateStream;
 import jsettlers.common.utils.mutables.MutableInt;
+import jsettlers.logic.constants.GameStateHash;
+import jsettlers.logic.constants.GameStateHash.EKind;
+import jsettlers.logic.map.grid.IGridChangedListener;
 import jsettlers.logic.map.grid.partition.manager.settings.MaterialProductionSettings;
 import jsettlers.logic.map.grid.partition.PartitionsListingBorderVisitor.BorderPartitionInfo;
 import jsettlers.logic.map.grid.partition.manager.PartitionManager;
@@ -82,6 +85,8 @@ public final class PartitionsGrid implements Serializable {
 	Partition[] partitionObjects = new Partition[NUMBER_OF_START_PARTITION_OBJECTS];
 
 	private transient IPlayerChangedListener playerChangedListener = IPlayerChangedListener.DEFAULT_IMPLEMENTATION;
+	private transient GameStateHash stateHash = new GameStateHash();
+	private transient IGridChangedListener gridChangedListener = null;
 
 	public PartitionsGrid(short width, short height, PlayerSetting[] playerSettings, IBlockingProvider blockingProvider) {
 		this.width = width;
@@ -129,12 +134,39 @@ public final class PartitionsGrid implements Serializable {
 
 	private void writeObject(ObjectOutputStream oos) throws IOException {
 		int normalizedPartitions = checkNormalizePartitions(0);
-		System.out.println("Normalized " + normalizedPartitions + " partitions");
+		int releasedPartitions = releaseEmptyPartitions();
+		System.out.println("Normalized " + normalizedPartitions + " partitions, released " + releasedPartitions + " empty partitions");
 		oos.defaultWriteObject();
 	}
 
 	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
 		ois.defaultReadObject();
+		stateHash = new GameStateHash();
+	}
+
+	/**
+	 * Sets the hash that is updated with every change of the player owning a position.
+	 */
+	public void setStateHash(GameStateHash stateHash) {
+		this.stateHash = stateHash;
+	}
+
+	/**
+	 * @return The hash of the players owning the positions calculated from scratch. The partition ids are not part of the hash, because they change
+	 *         when the partitions are normalized for saving.
+	 */
+	public long calculateStateHash() {
+		long hash = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				hash ^= getStateHashKey(x, y, partitionObjects[partitions[x + y * width]].playerId);
+			}
+		}
+		return hash;
+	}
+
+	private static long getStateHashKey(int x, int y, byte playerId) {
+		return GameStateHash.key(EKind.PLAYER, x, y, playerId + 1); // no player (-1) has the key 0
 	}
 
 	public boolean isDefaultPartition(short partitionId) {
@@ -268,7 +300,7 @@ public final class PartitionsGrid implements Serializable {
 
 	private void occupyAreaOfTower(PartitionOccupyingTower tower) {
 		// set the tower counter of the groundArea to 0 => the ground area will be occupied
-		tower.groundArea.stream().forEach((x, y) -> towers[x + y * width] = 0);
+		tower.groundArea.stream().forEach((x, y) -> setTowerCountAt(x, y, 0));
 
 		// occupy the area for the new player
 		occupyAreaByTower(tower.playerId, tower.area.stream(), tower.areaBorders);
@@ -308,13 +340,13 @@ public final class PartitionsGrid implements Serializable {
 	 * @param area
 	 */
 	private void recalculateTowerCounter(PartitionOccupyingTower tower, IMapArea area) {
-		area.stream().forEach((x, y) -> towers[x + y * width] = 0);
+		area.stream().forEach((x, y) -> setTowerCountAt(x, y, 0));
 
 		List<Tuple<Integer, PartitionOccupyingTower>> towersInRange = occupyingTowers.getTowersInRange(tower.position, tower.radius, currTower -> currTower.playerId == tower.playerId);
 		stream(towersInRange)
 				.forEach(currTower -> area.stream()
 						.filter(currTower.e2.area::contains)
-						.forEach((x, y) -> towers[x + y * width]++));
+						.forEach((x, y) -> setTowerCountAt(x, y, towers[x + y * width] + 1)));
 	}
 
 	/**
@@ -494,7 +526,17 @@ public final class PartitionsGrid implements Serializable {
 	private void changeTowerCounter(final byte playerId, CoordinateStream influencingArea, int delta) {
 		influencingArea
 				.filter((x, y) -> partitionObjects[partitions[x + y * width]].playerId == playerId)
-				.forEach((x, y) -> towers[x + y * width] += delta);
+				.forEach((x, y) -> setTowerCountAt(x, y, towers[x + y * width] + delta));
+	}
+
+	private void setTowerCountAt(int x, int y, int towerCount) {
+		int index = x + y * width;
+		boolean wasEnforcedByTower = towers[index] > 0;
+		towers[index] = (byte) towerCount;
+
+		if (gridChangedListener != null && wasEnforcedByTower != towerCount > 0) {
+			gridChangedListener.blockingChangedAt(x, y);
+		}
 	}
 
 	/**
@@ -534,6 +576,8 @@ public final class PartitionsGrid implements Serializable {
 		smallerPartitionObject.stopManager();
 
 		partitionObjects[smallerPartition] = biggerPartitionObject;
+		BitSet mergedPartitions = new BitSet();
+		mergedPartitions.set(smallerPartition);
 
 		/**
 		 * Flatten all hierarchies: <br>
@@ -546,12 +590,53 @@ public final class PartitionsGrid implements Serializable {
 		for (int i = 1; i < numberOfPartitions; i++) {
 			if (partitionObjects[i] == smallerPartitionObject) {
 				partitionObjects[i] = biggerPartitionObject;
+				mergedPartitions.set(i);
 			}
 		}
 
+		notifyPartitionChangedAtMergeBorder(mergedPartitions);
+
 		return biggerPartition;
 	}
 
+	/**
+	 * Informs the grid changed listener about the positions of a merged partition next to the partition it has been merged into. The merge changed
+	 * the partition ids of all positions of the merged partition, but every connected area containing positions of both partitions contains one of
+	 * these positions.
+	 *
+	 * @param mergedPartitions
+	 *            The partitions that have been merged into another one.
+	 */
+	private void notifyPartitionChangedAtMergeBorder(BitSet mergedPartitions) {
+		if (gridChangedListener == null) {
+			return;
+		}
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (mergedPartitions.get(partitions[x + y * width]) && isNextToOtherPartOfPartition(x, y, mergedPartitions)) {
+					gridChangedListener.partitionChangedAt(x, y);
+				}
+			}
+		}
+	}
+
+	private boolean isNextToOtherPartOfPartition(int x, int y, BitSet mergedPartitions) {
+		Partition partitionObject = partitionObjects[partitions[x + y * width]];
+
+		for (EDirection direction : EDirection.VALUES) {
+			int neighborX = x + direction.gridDeltaX;
+			int neighborY = y + direction.gridDeltaY;
+			if (neighborX >= 0 && neighborX < width && neighborY >= 0 && neighborY < height) {
+				short neighborPartition = partitions[neighborX + neighborY * width];
+				if (partitionObjects[neighborPartition] == partitionObject && !mergedPartitions.get(neighborPartition)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Divides the given partition. The both positions must be on the border of the given partition and be on the parts that are now distinct and shall be divided. NOTE: There will be no check if the
 	 * partition is really divided!
@@ -620,6 +705,14 @@ public final class PartitionsGrid implements Serializable {
 		synchronized (this) {
 			partitions[idx] = newPartition;
 		}
+		stateHash.change(getStateHashKey(x, y, oldPartitionObject.playerId), getStateHashKey(x, y, newPartitionObject.playerId));
+		if (gridChangedListener != null) {
+			if (oldPartitionObject.playerId != newPartitionObject.playerId) {
+				gridChangedListener.playerChangedAt(x, y);
+			} else if (oldPartitionObject != newPartitionObject) {
+				gridChangedListener.partitionChangedAt(x, y);
+			}
+		}
 
 		return newPartitionObject.playerId;
 	}
@@ -678,6 +771,16 @@ public final class PartitionsGrid implements Serializable {
 		}
 	}
 
+	/**
+	 * Sets the listener informed about positions changing their player, their partition or their enforcement by towers.
+	 *
+	 * @param listener
+	 *            The listener to be set or null if no listener should be set.
+	 */
+	public void setGridChangedListener(IGridChangedListener listener) {
+		this.gridChangedListener = listener;
+	}
+
 	public byte getNumberOfPlayers() {
 		return (byte) players.length;
 	}
@@ -723,6 +826,35 @@ public final class PartitionsGrid implements Serializable {
 		return counter;
 	}
 
+	/**
+	 * Removes the partitions that don't contain any positions anymore. Their managers have been stopped and no position can reference them again,
+	 * but they would still be saved with all their lists. The no player partition and the blocked partitions of the players are kept.
+	 * <p>
+	 * This must be called after the partitions have been normalized.
+	 *
+	 * @return the number of released partitions.
+	 */
+	private int releaseEmptyPartitions() {
+		int counter = 0;
+
+		synchronized (this) {
+			for (int i = 1; i < partitionObjects.length; i++) {
+				Partition partitionObject = partitionObjects[i];
+
+				if (partitionObject != null && partitionObject.isEmpty() && partitionObject.isStopped() && !isBlockedPartition(partitionObject)) {
+					partitionObjects[i] = null;
+					counter++;
+				}
+			}
+		}
+
+		return counter;
+	}
+
+	private boolean isBlockedPartition(Partition partitionObject) {
+		return partitionObject.playerId >= 0 && blockedPartitionsForPlayers[partitionObject.playerId] == partitionObject.partitionId;
+	}
+
 	public IPartitionData getPartitionDataForManagerAt(int x, int y) {
 		return getPartitionAt(x, y).getPartitionData();
 	}
@@ -171,6 +171,10 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 		this.joblessBearer.remove(bearer);
 	}
 
+	public void joblessPositionChanged(IManageableBearer bearer, ShortPoint2D oldPosition) {
+		this.joblessBearer.positionChanged(bearer, oldPosition);
+	}
+
 	public void addJobless(IManageableDigger digger) {
 		joblessDiggers.insert(digger);
 	}
@@ -179,6 +183,10 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 		joblessDiggers.remove(digger);
 	}
 
+	public void joblessPositionChanged(IManageableDigger digger, ShortPoint2D oldPosition) {
+		joblessDiggers.positionChanged(digger, oldPosition);
+	}
+
 	public void addJobless(IManageableBricklayer bricklayer) {
 		joblessBricklayers.insert(bricklayer);
 	}
@@ -187,6 +195,10 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 		joblessBricklayers.remove(bricklayer);
 	}
 
+	public void joblessPositionChanged(IManageableBricklayer bricklayer, ShortPoint2D oldPosition) {
+		joblessBricklayers.positionChanged(bricklayer, oldPosition);
+	}
+
 	public void addJobless(IManageableWorker worker) {
 		joblessWorkers.insert(worker);
 	}
@@ -195,6 +207,10 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 		joblessWorkers.remove(worker);
 	}
 
+	public void joblessPositionChanged(IManageableWorker worker, ShortPoint2D oldPosition) {
+		joblessWorkers.positionChanged(worker, oldPosition);
+	}
+
 	/**
 	 * @param x
 	 * 		x coordinate of the position to be removed from this manager and added to the given manager
@@ -213,23 +229,24 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 
 		if (newHasSamePlayer) {
 			materialsManager.movePositionTo(position, newManager.materialsManager);
+		}
 
-			IManageableBearer bearer = joblessBearer.removeObjectAt(position);
-			if (bearer != null) {
-				newManager.addJobless(bearer);
-			}
-			IManageableBricklayer bricklayer = joblessBricklayers.removeObjectAt(position);
-			if (bricklayer != null) {
-				newManager.addJobless(bricklayer);
-			}
-			IManageableDigger digger = joblessDiggers.removeObjectAt(position);
-			if (digger != null) {
-				newManager.addJobless(digger);
-			}
-			IManageableWorker worker = joblessWorkers.removeObjectAt(position);
-			if (worker != null) {
-				newManager.addJobless(worker);
-			}
+		// jobless movables on ground of another player flee and register again when they are back on their ground, so they must not stay in this manager
+		IManageableBearer bearer = joblessBearer.removeObjectAt(position);
+		if (bearer != null && newHasSamePlayer) {
+			newManager.addJobless(bearer);
+		}
+		IManageableBricklayer bricklayer = joblessBricklayers.removeObjectAt(position);
+		if (bricklayer != null && newHasSamePlayer) {
+			newManager.addJobless(bricklayer);
+		}
+		IManageableDigger digger = joblessDiggers.removeObjectAt(position);
+		if (digger != null && newHasSamePlayer) {
+			newManager.addJobless(digger);
+		}
+		IManageableWorker worker = joblessWorkers.removeObjectAt(position);
+		if (worker != null && newHasSamePlayer) {
+			newManager.addJobless(worker);
 		}
 
 		removePositionTo(position, this.workerCreationRequests, newManager.workerCreationRequests, newHasSamePlayer);
@@ -14,11 +14,16 @@
  *******************************************************************************/
 package jsettlers.logic.map.grid.partition.manager.datastructures;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.NoSuchElementException;
 
 import java8.util.function.Consumer;
+import java8.util.function.Predicate;
 import jsettlers.common.position.ILocatable;
 import jsettlers.common.position.ShortPoint2D;
 import jsettlers.common.utils.MathUtils;
@@ -26,31 +31,59 @@ import jsettlers.common.utils.MathUtils;
 /**
  * This is a data structure for storing and retrieving objects at given positions.<br>
  * It is also possible to find the nearest object around a given position.
+ * <p>
+ * The objects are kept in insertion order and additionally in buckets of {@link #BUCKET_SIZE}x{@link #BUCKET_SIZE} positions. Lookups by position only
+ * visit one bucket and nearest neighbor queries search the buckets in rings around the given position. If several objects have the same distance, the
+ * one inserted first is returned, so the results are the same as with a linear search over the insertion order.
+ * <p>
+ * Objects that change their position while they are in the list (e.g. a jobless bearer being pushed away) must be reported with
+ * {@link #positionChanged(ILocatable, ShortPoint2D)}, so that they are moved to the bucket of their new position.
  *
  * @param <T>
  * @author Andreas Eberle
  */
 public class PositionableList<T extends ILocatable> implements Serializable {
-	private static final long serialVersionUID = 414099060331344505L;
+	private static final long serialVersionUID = 414099060331344506L;
 
-	protected final LinkedList<T> data;
+	private static final int BUCKET_SHIFT = 4;
+	private static final int BUCKET_SIZE = 1 << BUCKET_SHIFT;
+	private static final int LINEAR_SEARCH_LIMIT = 16;
+
+	private transient Entry<T> first;
+	private transient Entry<T> last;
+	private transient int size;
+	private transient long nextSequence;
+
+	private transient HashMap<Integer, Entry<T>> buckets;
+	private transient int minBucketX;
+	private transient int maxBucketX;
+	private transient int minBucketY;
+	private transient int maxBucketY;
 
 	public PositionableList() {
-		data = new LinkedList<>();
+		buckets = new HashMap<>();
 	}
 
 	public void insert(T object) {
-		data.add(object);
+		Entry<T> entry = new Entry<>(object, nextSequence++);
+
+		entry.previous = last;
+		if (last == null) {
+			first = entry;
+		} else {
+			last.next = entry;
+		}
+		last = entry;
+		size++;
+
+		addToBucket(entry, object.getPosition());
 	}
 
 	public T removeObjectAt(ShortPoint2D position) {
-		Iterator<T> iterator = data.iterator();
-		while (iterator.hasNext()) {
-			T curr = iterator.next();
-			if (curr.getPosition().equals(position)) {
-				iterator.remove();
-				return curr;
-			}
+		Entry<T> entry = getEntryAt(position);
+		if (entry != null) {
+			removeEntry(entry);
+			return entry.object;
 		}
 		return null;
 	}
@@ -63,12 +96,8 @@ public class PositionableList<T extends ILocatable> implements Serializable {
 	 * @return Returns the found object at the given position or null if no object has been found.
 	 */
 	public T getObjectAt(ShortPoint2D position) {
-		for (T curr : data) {
-			if (curr.getPosition().equals(position)) {
-				return curr;
-			}
-		}
-		return null;
+		Entry<T> entry = getEntryAt(position);
+		return entry != null ? entry.object : null;
 	}
 
 	/**
@@ -82,68 +111,375 @@ public class PositionableList<T extends ILocatable> implements Serializable {
 		T currBest = getObjectCloseTo(position);
 
 		if (currBest != null) {
-			data.remove(currBest);
+			remove(currBest);
 		}
 
 		return currBest;
 	}
 
 	protected T getObjectCloseTo(ShortPoint2D position) {
-		int bestDistance = Integer.MAX_VALUE;
-		T currBest = null;
+		return getObjectCloseTo(position, null);
+	}
+
+	/**
+	 * Finds the object that's closest to the given position and accepted by the given predicate. Objects for which {@link #isOutdated(ILocatable)}
+	 * returns true are removed when they are visited.
+	 *
+	 * @param position
+	 * 		position to be used to find the nearest accepted neighbor around it.
+	 * @param acceptor
+	 * 		if acceptor != null => the result is accepted by the acceptor. <br>
+	 * 		if acceptor == null every entry is accepted.
+	 * @return accepted object that's nearest to position or null if there is none.
+	 */
+	protected T getObjectCloseTo(ShortPoint2D position, Predicate<T> acceptor) {
+		Entry<T> best = size <= LINEAR_SEARCH_LIMIT ? findClosestLinear(position, acceptor) : findClosestInBuckets(position, acceptor);
+		return best != null ? best.object : null;
+	}
 
-		for (T currEntry : data) {
-			int currDist = MathUtils.squareHypot(position, currEntry.getPosition());
+	/**
+	 * Objects for which this method returns true are removed from the list by lookups visiting them.
+	 *
+	 * @param object
+	 * 		object to check
+	 * @return true if the object is no longer needed.
+	 */
+	protected boolean isOutdated(T object) {
+		return false;
+	}
 
-			if (bestDistance > currDist) {
-				bestDistance = currDist;
-				currBest = currEntry;
+	/**
+	 * @return an iterator over the objects of this list in insertion order. The iterator supports {@link Iterator#remove()}.
+	 */
+	protected Iterator<T> iterator() {
+		return new Iterator<T>() {
+			private Entry<T> next = first;
+			private Entry<T> current;
+
+			@Override
+			public boolean hasNext() {
+				return next != null;
 			}
-		}
-		return currBest;
+
+			@Override
+			public T next() {
+				if (next == null) {
+					throw new NoSuchElementException();
+				}
+				current = next;
+				next = next.next;
+				return current.object;
+			}
+
+			@Override
+			public void remove() {
+				if (current == null) {
+					throw new IllegalStateException();
+				}
+				removeEntry(current);
+				current = null;
+			}
+		};
 	}
 
 	@Override
 	public String toString() {
-		return data.toString();
+		StringBuilder builder = new StringBuilder("[");
+		for (Entry<T> entry = first; entry != null; entry = entry.next) {
+			builder.append(entry.object);
+			if (entry.next != null) {
+				builder.append(", ");
+			}
+		}
+		return builder.append(']').toString();
 	}
 
 	public void moveAll(PositionableList<T> otherList) {
-		LinkedList<T> othersData = otherList.data;
-		data.addAll(othersData);
-		othersData.clear();
+		moveAll(otherList, null);
 	}
 
 	public void moveAll(PositionableList<T> otherList, Consumer<T> movedVisitor) {
-		LinkedList<T> othersData = otherList.data;
-		for (T othersDatum : othersData) {
-			movedVisitor.accept(othersDatum);
-			data.add(othersDatum);
+		for (Entry<T> entry = otherList.first; entry != null; entry = entry.next) {
+			if (movedVisitor != null) {
+				movedVisitor.accept(entry.object);
+			}
+			insert(entry.object);
 		}
-		othersData.clear();
+		otherList.clear();
 	}
 
 	public void remove(T object) {
-		this.data.remove(object);
+		Entry<T> entry = findEntryInBucket(object, object.getPosition());
+		if (entry != null) {
+			removeEntry(entry);
+		}
+	}
+
+	/**
+	 * Moves the given object to the bucket of its new position. This must be called whenever an object of this list changes its position.
+	 *
+	 * @param object
+	 * 		The object that has changed its position. If it is not in this list, nothing happens.
+	 * @param oldPosition
+	 * 		The position of the object before the change.
+	 */
+	public void positionChanged(T object, ShortPoint2D oldPosition) {
+		ShortPoint2D newPosition = object.getPosition();
+		if (getBucketKey(oldPosition) == getBucketKey(newPosition)) {
+			return;
+		}
+
+		Entry<T> entry = findEntryInBucket(object, oldPosition);
+		if (entry != null) {
+			removeFromBucket(entry);
+			addToBucket(entry, newPosition);
+		}
 	}
 
 	public boolean isEmpty() {
-		return data.isEmpty();
+		return size == 0;
 	}
 
 	public void moveObjectsAtPositionTo(ShortPoint2D position, PositionableList<T> newList, Consumer<T> movedVisitor) {
-		Iterator<T> iterator = data.iterator();
-		while (iterator.hasNext()) {
-			T curr = iterator.next();
-			if (curr.getPosition().equals(position)) {
-				iterator.remove();
-				movedVisitor.accept(curr);
-				newList.data.add(curr);
-			}
+		Entry<T> entry;
+		while ((entry = getEntryAt(position)) != null) {
+			removeEntry(entry);
+			movedVisitor.accept(entry.object);
+			newList.insert(entry.object);
 		}
 	}
 
 	public int size() {
-		return data.size();
+		return size;
+	}
+
+	private void clear() {
+		first = null;
+		last = null;
+		size = 0;
+		buckets.clear();
+	}
+
+	private Entry<T> getEntryAt(ShortPoint2D position) {
+		Entry<T> found = null;
+		Entry<T> entry = buckets.get(getBucketKey(position));
+		while (entry != null) {
+			Entry<T> next = entry.bucketNext;
+			if (isOutdated(entry.object)) {
+				removeEntry(entry);
+			} else if (entry.object.getPosition().equals(position) && (found == null || entry.sequence < found.sequence)) {
+				found = entry;
+			}
+			entry = next;
+		}
+		return found;
+	}
+
+	private Entry<T> findEntryInBucket(T object, ShortPoint2D position) {
+		for (Entry<T> entry = buckets.get(getBucketKey(position)); entry != null; entry = entry.bucketNext) {
+			if (entry.object == object) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	private Entry<T> findClosestLinear(ShortPoint2D position, Predicate<T> acceptor) {
+		int bestDistance = Integer.MAX_VALUE;
+		Entry<T> currBest = null;
+
+		Entry<T> entry = first;
+		while (entry != null) {
+			Entry<T> next = entry.next;
+			T object = entry.object;
+
+			if (isOutdated(object)) {
+				removeEntry(entry);
+
+			} else if (acceptor == null || acceptor.test(object)) {
+				int currDist = MathUtils.squareHypot(position, object.getPosition());
+
+				if (bestDistance > currDist) {
+					bestDistance = currDist;
+					currBest = entry;
+				}
+			}
+			entry = next;
+		}
+		return currBest;
+	}
+
+	private Entry<T> findClosestInBuckets(ShortPoint2D position, Predicate<T> acceptor) {
+		int centerX = position.x >> BUCKET_SHIFT;
+		int centerY = position.y >> BUCKET_SHIFT;
+		int maxRadius = Math.max(Math.max(centerX - minBucketX, maxBucketX - centerX), Math.max(centerY - minBucketY, maxBucketY - centerY));
+
+		Closest<T> closest = new Closest<>();
+		int visitedBuckets = 0;
+
+		for (int radius = 0; radius <= maxRadius; radius++) {
+			if (closest.entry != null && radius > 0) {
+				int minDelta = (radius - 1) * BUCKET_SIZE + 1;
+				if (minDelta * minDelta > closest.distance) {
+					break;
+				}
+			}
+
+			int fromX = Math.max(centerX - radius, minBucketX);
+			int toX = Math.min(centerX + radius, maxBucketX);
+			int fromY = Math.max(centerY - radius, minBucketY);
+			int toY = Math.min(centerY + radius, maxBucketY);
+
+			int bucketsOnRing = 0;
+			for (int bucketY = fromY; bucketY <= toY; bucketY++) {
+				if (bucketY == centerY - radius || bucketY == centerY + radius) {
+					for (int bucketX = fromX; bucketX <= toX; bucketX++) {
+						searchBucket(bucketX, bucketY, position, acceptor, closest);
+					}
+					bucketsOnRing += toX - fromX + 1;
+				} else {
+					if (centerX - radius >= fromX) {
+						searchBucket(centerX - radius, bucketY, position, acceptor, closest);
+						bucketsOnRing++;
+					}
+					if (centerX + radius <= toX) {
+						searchBucket(centerX + radius, bucketY, position, acceptor, closest);
+						bucketsOnRing++;
+					}
+				}
+			}
+
+			visitedBuckets += bucketsOnRing;
+			if (closest.entry == null && visitedBuckets > size) { // the buckets are too sparse, a linear search is faster
+				return findClosestLinear(position, acceptor);
+			}
+		}
+		return closest.entry;
+	}
+
+	private void searchBucket(int bucketX, int bucketY, ShortPoint2D position, Predicate<T> acceptor, Closest<T> closest) {
+		Entry<T> entry = buckets.get(getBucketKey(bucketX, bucketY));
+		while (entry != null) {
+			Entry<T> next = entry.bucketNext;
+			T object = entry.object;
+
+			if (isOutdated(object)) {
+				removeEntry(entry);
+
+			} else if (acceptor == null || acceptor.test(object)) {
+				int currDist = MathUtils.squareHypot(position, object.getPosition());
+
+				if (currDist < closest.distance || (currDist == closest.distance && entry.sequence < closest.entry.sequence)) {
+					closest.distance = currDist;
+					closest.entry = entry;
+				}
+			}
+			entry = next;
+		}
+	}
+
+	private void removeEntry(Entry<T> entry) {
+		if (entry.previous == null) {
+			first = entry.next;
+		} else {
+			entry.previous.next = entry.next;
+		}
+		if (entry.next == null) {
+			last = entry.previous;
+		} else {
+			entry.next.previous = entry.previous;
+		}
+		entry.previous = null;
+		entry.next = null;
+		size--;
+
+		removeFromBucket(entry);
+	}
+
+	private void addToBucket(Entry<T> entry, ShortPoint2D position) {
+		int bucketX = position.x >> BUCKET_SHIFT;
+		int bucketY = position.y >> BUCKET_SHIFT;
+
+		if (buckets.isEmpty()) {
+			minBucketX = maxBucketX = bucketX;
+			minBucketY = maxBucketY = bucketY;
+		} else {
+			minBucketX = Math.min(minBucketX, bucketX);
+			maxBucketX = Math.max(maxBucketX, bucketX);
+			minBucketY = Math.min(minBucketY, bucketY);
+			maxBucketY = Math.max(maxBucketY, bucketY);
+		}
+
+		entry.bucketKey = getBucketKey(bucketX, bucketY);
+		Entry<T> head = buckets.put(entry.bucketKey, entry);
+		entry.bucketPrevious = null;
+		entry.bucketNext = head;
+		if (head != null) {
+			head.bucketPrevious = entry;
+		}
+	}
+
+	private void removeFromBucket(Entry<T> entry) {
+		if (entry.bucketPrevious != null) {
+			entry.bucketPrevious.bucketNext = entry.bucketNext;
+		} else if (entry.bucketNext != null) {
+			buckets.put(entry.bucketKey, entry.bucketNext);
+		} else {
+			buckets.remove(entry.bucketKey);
+		}
+
+		if (entry.bucketNext != null) {
+			entry.bucketNext.bucketPrevious = entry.bucketPrevious;
+		}
+		entry.bucketPrevious = null;
+		entry.bucketNext = null;
+	}
+
+	private static int getBucketKey(ShortPoint2D position) {
+		return getBucketKey(position.x >> BUCKET_SHIFT, position.y >> BUCKET_SHIFT);
+	}
+
+	private static int getBucketKey(int bucketX, int bucketY) {
+		return bucketX << 16 | bucketY;
+	}
+
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		oos.defaultWriteObject();
+		oos.writeInt(size);
+		for (Entry<T> entry = first; entry != null; entry = entry.next) {
+			oos.writeObject(entry.object);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ois.defaultReadObject();
+		buckets = new HashMap<>();
+		int numberOfObjects = ois.readInt();
+		for (int i = 0; i < numberOfObjects; i++) {
+			insert((T) ois.readObject());
+		}
+	}
+
+	private static final class Entry<T> {
+		private final T object;
+		private final long sequence;
+
+		private Entry<T> previous;
+		private Entry<T> next;
+
+		private int bucketKey;
+		private Entry<T> bucketPrevious;
+		private Entry<T> bucketNext;
+
+		private Entry(T object, long sequence) {
+			this.object = object;
+			this.sequence = sequence;
+		}
+	}
+
+	private static final class Closest<T> {
+		private Entry<T> entry;
+		private int distance = Integer.MAX_VALUE;
 	}
 }
@@ -42,25 +42,41 @@ public abstract class MapLoader implements IGameCreator, Comparable<MapLoader>,
 	public abstract MapFileHeader getFileHeader();
 
 	public static MapLoader getLoaderForListedMap(IListedMap listedMap) throws MapLoadException {
-		if ((checkExtention(listedMap.getFileName(), MapLoader.MAP_EXTENSION_ORIGINAL))
-				|| (checkExtention(listedMap.getFileName(), MapLoader.MAP_EXTENSION_ORIGINAL_MAP_EDITOR))) {
+		if (isOriginalMap(listedMap.getFileName())) {
 			// - original Siedler 3 Map
 			return new OriginalMapLoader(listedMap);
 		} else {
 			// - Siedler 3 Remake Savegame or Map
-			MapFileHeader header = RemakeMapLoader.loadHeader(listedMap);
+			return getLoaderForHeader(listedMap, RemakeMapLoader.loadHeader(listedMap));
+		}
+	}
 
-			switch (header.getType()) {
-			case NORMAL:
-				return new FreshMapLoader(listedMap, header);
-			case SAVED_SINGLE:
-				return new SavegameLoader(listedMap, header);
-			default:
-				throw new MapLoadException("Unkown EMapType: " + header.getType());
-			}
+	/**
+	 * Creates the loader for a Siedler 3 Remake map or savegame whose header has already been read.
+	 * 
+	 * @param listedMap
+	 *            The map or savegame.
+	 * @param header
+	 *            The header of the map or savegame.
+	 * @return The loader of the map or savegame.
+	 * @throws MapLoadException
+	 *             If the type of the header is not supported.
+	 */
+	public static RemakeMapLoader getLoaderForHeader(IListedMap listedMap, MapFileHeader header) throws MapLoadException {
+		switch (header.getType()) {
+		case NORMAL:
+			return new FreshMapLoader(listedMap, header);
+		case SAVED_SINGLE:
+			return new SavegameLoader(listedMap, header);
+		default:
+			throw new MapLoadException("Unkown EMapType: " + header.getType());
 		}
 	}
 
+	public static boolean isOriginalMap(String filename) {
+		return checkExtention(filename, MAP_EXTENSION_ORIGINAL) || checkExtention(filename, MAP_EXTENSION_ORIGINAL_MAP_EDITOR);
+	}
+
 	public static boolean checkExtention(String filename, String Extention) {
 		if (filename == null)
 			return false;
@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.loading.list;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.newmap.MapFileHeader;
+import jsettlers.logic.map.loading.newmap.RemakeMapLoader;
+
+/**
+ * This index stores the headers of the remake maps and savegames in a file, so that the {@link MapList} does not need to open every map file on
+ * startup. A header is only taken from the index if the size and the modification time of the map file did not change since the header has been
+ * read.
+ * <p>
+ * The index stores the bytes of the headers as they are in the map files. Therefore the headers read from the index equal the ones read from the
+ * files, regardless of the version of the map files.
+ */
+public class MapHeaderIndex {
+	private static final int VERSION = 1;
+
+	private final File               indexFile;
+	private final Map<String, Entry> entries = new HashMap<>();
+
+	private boolean changed = false;
+
+	/**
+	 * Creates a new index and reads the entries of the given index file, if it exists.
+	 *
+	 * @param indexFile
+	 *            The file to read the index from and to save it to.
+	 */
+	public MapHeaderIndex(File indexFile) {
+		this.indexFile = indexFile;
+
+		if (indexFile.isFile()) {
+			try {
+				readEntries();
+			} catch (IOException e) {
+				System.err.println("Map header index " + indexFile + " could not be read: " + e.getMessage());
+				entries.clear();
+			}
+		}
+	}
+
+	private void readEntries() throws IOException {
+		try (DataInputStream in = new DataInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(indexFile))))) {
+			if (in.readInt() != VERSION) {
+				return;
+			}
+
+			int numberOfEntries = in.readInt();
+			for (int i = 0; i < numberOfEntries; i++) {
+				String path = in.readUTF();
+				long length = in.readLong();
+				long lastModified = in.readLong();
+				byte[] headerBytes = new byte[in.readInt()];
+				in.readFully(headerBytes);
+
+				entries.put(path, new Entry(length, lastModified, headerBytes));
+			}
+		}
+	}
+
+	/**
+	 * Gets the indexed header of the given map file.
+	 *
+	 * @param mapFile
+	 *            The map file.
+	 * @return The header of the map file<br>
+	 *         or null if the file is not indexed or has been changed since it has been indexed.
+	 */
+	public MapFileHeader getHeader(File mapFile) {
+		Entry entry;
+		synchronized (this) {
+			entry = entries.get(mapFile.getAbsolutePath());
+		}
+
+		if (entry == null || entry.length != mapFile.length() || entry.lastModified != mapFile.lastModified()) {
+			return null;
+		}
+
+		try {
+			return MapFileHeader.readFromStream(new ByteArrayInputStream(entry.headerBytes));
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Reads the header of the given map from its file and adds it to the index.
+	 *
+	 * @param listedMap
+	 *            A remake map or savegame that is stored in a file.
+	 * @return The header of the map.
+	 * @throws MapLoadException
+	 *             If the header could not be read.
+	 */
+	public MapFileHeader loadHeader(IListedMap listedMap) throws MapLoadException {
+		File mapFile = listedMap.getFile();
+		long length = mapFile.length();
+		long lastModified = mapFile.lastModified();
+
+		try (RecordingInputStream stream = new RecordingInputStream(RemakeMapLoader.getMapInputStream(listedMap))) {
+			MapFileHeader header = MapFileHeader.readFromStream(stream);
+
+			synchronized (this) {
+				entries.put(mapFile.getAbsolutePath(), new Entry(length, lastModified, stream.getRecordedBytes()));
+				changed = true;
+			}
+			return header;
+		} catch (IOException e) {
+			throw new MapLoadException("Error during header request for map " + listedMap + " exception: ", e);
+		}
+	}
+
+	/**
+	 * Saves the index to its file if it has been changed. Entries of map files that do not exist anymore are removed.
+	 */
+	public synchronized void save() {
+		for (Iterator<String> iterator = entries.keySet().iterator(); iterator.hasNext();) {
+			if (!new File(iterator.next()).isFile()) {
+				iterator.remove();
+				changed = true;
+			}
+		}
+
+		if (!changed) {
+			return;
+		}
+
+		File tempFile = new File(indexFile.getPath() + ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))) {
+				out.writeInt(VERSION);
+				out.writeInt(entries.size());
+				for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+					out.writeUTF(entry.getKey());
+					out.writeLong(entry.getValue().length);
+					out.writeLong(entry.getValue().lastModified);
+					out.writeInt(entry.getValue().headerBytes.length);
+					out.write(entry.getValue().headerBytes);
+				}
+			}
+
+			indexFile.delete();
+			if (!tempFile.renameTo(indexFile)) {
+				throw new IOException("Could not rename " + tempFile + " to " + indexFile);
+			}
+			changed = false;
+		} catch (IOException e) {
+			System.err.println("Map header index " + indexFile + " could not be saved: " + e.getMessage());
+			tempFile.delete();
+		}
+	}
+
+	private static class Entry {
+		final long   length;
+		final long   lastModified;
+		final byte[] headerBytes;
+
+		Entry(long length, long lastModified, byte[] headerBytes) {
+			this.length = length;
+			this.lastModified = lastModified;
+			this.headerBytes = headerBytes;
+		}
+	}
+
+	/**
+	 * Remembers all bytes read from the underlying stream.
+	 */
+	private static class RecordingInputStream extends FilterInputStream {
+		private final ByteArrayOutputStream recordedBytes = new ByteArrayOutputStream();
+
+		RecordingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int value = super.read();
+			if (value >= 0) {
+				recordedBytes.write(value);
+			}
+			return value;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int readBytes = super.read(buffer, offset, length);
+			if (readBytes > 0) {
+				recordedBytes.write(buffer, offset, readBytes);
+			}
+			return readBytes;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			throw new IOException("Skipping is not supported while recording.");
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+
+		byte[] getRecordedBytes() {
+			return recordedBytes.toByteArray();
+		}
+	}
+}
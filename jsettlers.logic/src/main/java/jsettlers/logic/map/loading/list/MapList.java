@@ -21,6 +21,8 @@ import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import jsettlers.common.CommonConstants;
 import jsettlers.common.logging.MilliStopWatch;
@@ -29,6 +31,7 @@ import jsettlers.input.PlayerState;
 import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.map.grid.GameSerializer;
 import jsettlers.logic.map.grid.MainGrid;
+import jsettlers.logic.map.loading.MapLoadException;
 import jsettlers.logic.map.loading.MapLoader;
 import jsettlers.logic.map.loading.data.IMapData;
 import jsettlers.logic.map.loading.list.IMapLister.IMapListerCallable;
@@ -38,18 +41,30 @@ import jsettlers.logic.map.loading.newmap.MapFileHeader.MapType;
 import jsettlers.logic.map.loading.newmap.RemakeMapLoader;
 import jsettlers.logic.timer.RescheduleTimer;
 
+import java8.util.stream.StreamSupport;
+
 /**
  * This is the main map list.
  * <p>
  * It lists all available maps, and it can be used to add maps to the game.
  * <p>
- * TODO: load maps before they are needed, to decrease startup time.
+ * The headers of remake maps and savegames are taken from the {@link MapHeaderIndex}, if one is given. The maps that are not indexed are read in
+ * parallel and added to the lists as soon as they have been read. {@link #startLoading()} lists the maps in the background, so a user interface can
+ * show the maps that have been found so far by {@link #getLoadedFreshMaps()} and {@link #getLoadedSavedMaps()} and update them when its
+ * {@link IMapListListener} is informed.
  * 
  * @author michael
  * @author Andreas Eberle
  */
 public class MapList implements IMapListerCallable {
 
+	/**
+	 * This listener is informed whenever maps have been added to or removed from a {@link MapList}. It may be called by any thread.
+	 */
+	public interface IMapListListener {
+		void mapListChanged(MapList mapList);
+	}
+
 	/**
 	 * Gives the currently used map extension for saving a map.
 	 * 
@@ -65,49 +80,159 @@ public class MapList implements IMapListerCallable {
 
 	private final ArrayList<IMapLister> mapDirectories;
 	private final IMapLister saveDirectory;
+	private final MapHeaderIndex headerIndex;
 
 	private final ChangingList<MapLoader> freshMaps = new ChangingList<>();
 	private final ChangingList<RemakeMapLoader> savedMaps = new ChangingList<>();
 
+	private final Object mapsLock = new Object();
+	private final List<IMapListListener> listeners = new CopyOnWriteArrayList<>();
+
 	private boolean fileListLoaded = false;
 
 	public MapList(Collection<IMapLister> mapDirectories, IMapLister saveDirectory) {
+		this(mapDirectories, saveDirectory, null);
+	}
+
+	/**
+	 * Creates a new map list.
+	 * 
+	 * @param mapDirectories
+	 *            The listers of the maps and savegames.
+	 * @param saveDirectory
+	 *            The lister to save the savegames with.
+	 * @param headerIndex
+	 *            The index of the map headers. This parameter is optional. If it is null, every map is read on every listing.
+	 */
+	public MapList(Collection<IMapLister> mapDirectories, IMapLister saveDirectory, MapHeaderIndex headerIndex) {
 		this.mapDirectories = new ArrayList<>(mapDirectories);
 		this.saveDirectory = saveDirectory;
+		this.headerIndex = headerIndex;
 	}
 
 	private void loadFileList() {
-		freshMaps.clear();
-		savedMaps.clear();
+		MilliStopWatch watch = new MilliStopWatch();
+		synchronized (mapsLock) {
+			freshMaps.clear();
+			savedMaps.clear();
+		}
+		notifyListeners();
 
+		List<IListedMap> listedMaps = new ArrayList<>();
 		for (IMapLister dir : mapDirectories) {
-			dir.listMaps(this);
+			dir.listMaps(listedMaps::add);
+		}
+
+		List<IListedMap> unindexedMaps = new ArrayList<>();
+		for (IListedMap listedMap : listedMaps) {
+			MapFileHeader header = isIndexable(listedMap) ? headerIndex.getHeader(listedMap.getFile()) : null;
+			if (header == null) {
+				unindexedMaps.add(listedMap);
+				continue;
+			}
+
+			try {
+				addMap(MapLoader.getLoaderForHeader(listedMap, header));
+			} catch (MapLoadException e) {
+				unindexedMaps.add(listedMap);
+			}
+		}
+
+		StreamSupport.parallelStream(unindexedMaps).forEach(this::foundMap);
+
+		if (headerIndex != null) {
+			headerIndex.save();
 		}
+		watch.stop("Listing " + listedMaps.size() + " maps (" + unindexedMaps.size() + " not indexed) required");
 	}
 
+	private boolean isIndexable(IListedMap listedMap) {
+		return headerIndex != null && listedMap instanceof DirectoryMapLister.ListedMapFile && !MapLoader.isOriginalMap(listedMap.getFileName());
+	}
+
+	/**
+	 * Reads the given map and adds it to the list. This method may be called by multiple threads at the same time.
+	 */
 	@Override
-	public synchronized void foundMap(IListedMap map) {
+	public void foundMap(IListedMap map) {
 		MapLoader loader;
 
 		try {
-			loader = MapLoader.getLoaderForListedMap(map);
+			if (isIndexable(map)) {
+				loader = MapLoader.getLoaderForHeader(map, headerIndex.loadHeader(map));
+			} else {
+				loader = MapLoader.getLoaderForListedMap(map);
+			}
 		} catch (Exception e) {
 			System.err.println("Cought exception while loading header for " + map.getFileName());
 			e.printStackTrace();
 			return;
 		}
 
+		addMap(loader);
+	}
+
+	private void addMap(MapLoader loader) {
 		MapFileHeader mapHead = loader.getFileHeader();
 
 		// - if the map can't be load (e.g. caused by wrong format) the mapHead gets NULL! -> hide/ignore this map from user
 		if (mapHead != null) {
 			MapType type = loader.getFileHeader().getType();
 
-			if ((type == MapType.SAVED_SINGLE)) {
-				savedMaps.add((RemakeMapLoader) loader);
-			} else {
-				freshMaps.add(loader);
+			synchronized (mapsLock) {
+				if ((type == MapType.SAVED_SINGLE)) {
+					savedMaps.add((RemakeMapLoader) loader);
+				} else {
+					freshMaps.add(loader);
+				}
 			}
+			notifyListeners();
+		}
+	}
+
+	private void notifyListeners() {
+		for (IMapListListener listener : listeners) {
+			listener.mapListChanged(this);
+		}
+	}
+
+	public void addListener(IMapListListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(IMapListListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Starts listing the maps in a background thread, if they have not been listed yet. The maps taken from the {@link MapHeaderIndex} are available
+	 * right away, the other ones as soon as they have been read. {@link #getFreshMaps()} and {@link #getSavedMaps()} still wait for the complete list.
+	 */
+	public void startLoading() {
+		Thread thread = new Thread(this::getFreshMaps, "MapListLoader");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Gives the fresh maps that have been found so far without waiting for the listing to finish.
+	 * 
+	 * @return A copy of the list of fresh maps.
+	 */
+	public List<MapLoader> getLoadedFreshMaps() {
+		synchronized (mapsLock) {
+			return new ArrayList<>(freshMaps.getItems());
+		}
+	}
+
+	/**
+	 * Gives the savegames that have been found so far without waiting for the listing to finish.
+	 * 
+	 * @return A copy of the list of savegames.
+	 */
+	public List<RemakeMapLoader> getLoadedSavedMaps() {
+		synchronized (mapsLock) {
+			return new ArrayList<>(savedMaps.getItems());
 		}
 	}
 
@@ -238,8 +363,11 @@ public class MapList implements IMapListerCallable {
 	}
 
 	public static class DefaultMapListFactory implements IMapListFactory {
+		public static final String HEADER_INDEX_FILE_NAME = "mapheaders.index";
+
 		protected ArrayList<IMapLister> directories = new ArrayList<>();
 		protected IMapLister saveDirectory = null;
+		protected File headerIndexFile = null;
 
 		public void addMapDirectory(String directory, boolean create) {
 			directories.add(new DirectoryMapLister(new File(directory), create));
@@ -256,13 +384,24 @@ public class MapList implements IMapListerCallable {
 			if (saveDirectory == null) {
 				throw new RuntimeException("Savegame directory not set.");
 			}
-			return new MapList(getMapListers(), saveDirectory);
+			return new MapList(getMapListers(), saveDirectory, headerIndexFile == null ? null : new MapHeaderIndex(headerIndexFile));
 		}
 
 		public void addResourcesDirectory(File resources) {
 			addMapDirectory(new DirectoryMapLister(new File(resources, "maps"), true));
 			saveDirectory = new DirectoryMapLister(new File(resources, "save"), true);
 			addMapDirectory(saveDirectory);
+			headerIndexFile = new File(resources, HEADER_INDEX_FILE_NAME);
+		}
+
+		/**
+		 * Sets the file of the {@link MapHeaderIndex}.
+		 * 
+		 * @param headerIndexFile
+		 *            The file of the index or null if the headers should not be indexed.
+		 */
+		public void setHeaderIndexFile(File headerIndexFile) {
+			this.headerIndexFile = headerIndexFile;
 		}
 
 		protected IMapLister getSave() {
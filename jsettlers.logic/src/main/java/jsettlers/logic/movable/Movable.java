@@ -18,7 +18,6 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -38,6 +37,8 @@ import jsettlers.common.selectable.ESelectionType;
 import jsettlers.logic.buildings.military.IBuildingOccupyableMovable;
 import jsettlers.logic.buildings.military.occupying.IOccupyableBuilding;
 import jsettlers.logic.constants.Constants;
+import jsettlers.logic.constants.GameContext;
+import jsettlers.logic.constants.GameStateHash;
 import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.movable.interfaces.AbstractMovableGrid;
 import jsettlers.logic.movable.interfaces.IAttackable;
@@ -53,12 +54,9 @@ import jsettlers.logic.timer.RescheduleTimer;
  * @author Andreas Eberle
  */
 public final class Movable implements ILogicMovable {
+	private static final long serialVersionUID = 466166544869088901L;
 	private static final int SHIP_PUSH_DISTANCE = 10;
 
-	private static final HashMap<Integer, ILogicMovable>      movablesByID = new HashMap<>();
-	private static final ConcurrentLinkedQueue<ILogicMovable> allMovables  = new ConcurrentLinkedQueue<>();
-	private static       int                                  nextID       = Integer.MIN_VALUE;
-
 	protected final AbstractMovableGrid grid;
 	private final   int                 id;
 	private final   Player              player;
@@ -78,6 +76,7 @@ public final class Movable implements ILogicMovable {
 	private ShortPoint2D position;
 
 	private ShortPoint2D requestedTargetPosition = null;
+	private ShortPoint2D requestedGroupTargetPosition = null; // stays null when loading savegames from before group move orders
 	private Path         path;
 
 	private float         health;
@@ -89,6 +88,7 @@ public final class Movable implements ILogicMovable {
 	private int     flockDelay  = 700;
 
 	private EMaterialType takeDropMaterial;
+	private long          timerHandle = RescheduleTimer.NOT_SCHEDULED;
 
 	private transient boolean selected    = false;
 	private transient boolean soundPlayed = false;
@@ -106,27 +106,31 @@ public final class Movable implements ILogicMovable {
 
 		this.direction = EDirection.VALUES[MatchConstants.random().nextInt(EDirection.NUMBER_OF_DIRECTIONS)];
 
-		RescheduleTimer.add(this, Constants.MOVABLE_INTERRUPT_PERIOD);
+		timerHandle = RescheduleTimer.add(this, Constants.MOVABLE_INTERRUPT_PERIOD);
 
-		this.id = nextID++;
-		movablesByID.put(this.id, this);
-		allMovables.offer(this);
+		GameContext context = GameContext.get();
+		this.id = context.createMovableID();
+		context.getMovablesByID().put(this.id, this);
+		context.getAllMovables().offer(this);
+		context.getStateHash().toggle(getStateHashKey());
 
 		grid.enterPosition(position, this, true);
 	}
 
 	@SuppressWarnings("unchecked")
 	public static void readStaticState(ObjectInputStream ois) throws IOException, ClassNotFoundException {
-		nextID = ois.readInt();
-		allMovables.clear();
-		allMovables.addAll((Collection<? extends ILogicMovable>) ois.readObject());
-		movablesByID.putAll((Map<? extends Integer, ? extends ILogicMovable>) ois.readObject());
+		GameContext context = GameContext.get();
+		context.setNextMovableID(ois.readInt());
+		context.getAllMovables().clear();
+		context.getAllMovables().addAll((Collection<? extends ILogicMovable>) ois.readObject());
+		context.getMovablesByID().putAll((Map<? extends Integer, ? extends ILogicMovable>) ois.readObject());
 	}
 
 	public static void writeStaticState(ObjectOutputStream oos) throws IOException {
-		oos.writeInt(nextID);
-		oos.writeObject(allMovables);
-		oos.writeObject(movablesByID);
+		GameContext context = GameContext.get();
+		oos.writeInt(context.getNextMovableID());
+		oos.writeObject(context.getAllMovables());
+		oos.writeObject(context.getMovablesByID());
 	}
 
 	/**
@@ -136,8 +140,21 @@ public final class Movable implements ILogicMovable {
 	 * 		Desired position the movable should move to
 	 */
 	public final void moveTo(ShortPoint2D targetPosition) {
+		moveTo(targetPosition, null);
+	}
+
+	/**
+	 * Tests if this movable can receive moveTo requests and if so, directs it to go to the given position together with other movables.
+	 *
+	 * @param targetPosition
+	 * 		Desired position the movable should move to
+	 * @param groupTargetPosition
+	 * 		The target of the group of movables this movable is sent with or null if it is sent alone.
+	 */
+	public final void moveTo(ShortPoint2D targetPosition, ShortPoint2D groupTargetPosition) {
 		if (movableType.isPlayerControllable() && strategy.canBeControlledByPlayer() && !alreadyWalkingToPosition(targetPosition)) {
 			this.requestedTargetPosition = targetPosition;
+			this.requestedGroupTargetPosition = groupTargetPosition;
 		}
 	}
 
@@ -167,6 +184,14 @@ public final class Movable implements ILogicMovable {
 
 	@Override
 	public int timerEvent() {
+		int delay = update();
+		if (delay > 0 && state != EMovableState.DEAD) {
+			timerHandle = RescheduleTimer.add(this, delay); // scheduled here to keep the handle for cancelling it when this movable is killed
+		}
+		return -1;
+	}
+
+	private int update() {
 		if (state == EMovableState.DEAD) {
 			return -1;
 		}
@@ -223,8 +248,9 @@ public final class Movable implements ILogicMovable {
 					case DOING_NOTHING:
 						ShortPoint2D oldTargetPos = path != null ? path.getTargetPosition() : null;
 						ShortPoint2D oldPos = position;
-						boolean foundPath = goToPos(requestedTargetPosition); // progress is reset in here
+						boolean foundPath = goToPos(requestedTargetPosition, requestedGroupTargetPosition); // progress is reset in here
 						requestedTargetPosition = null;
+						requestedGroupTargetPosition = null;
 
 						if (foundPath) {
 							this.strategy.moveToPathSet(oldPos, oldTargetPos, path.getTargetPosition());
@@ -238,6 +264,7 @@ public final class Movable implements ILogicMovable {
 				}
 			} else {
 				requestedTargetPosition = null;
+				requestedGroupTargetPosition = null;
 			}
 		}
 
@@ -375,9 +402,14 @@ public final class Movable implements ILogicMovable {
 
 	@Override
 	public void leaveFerryAt(ShortPoint2D position) {
+		ShortPoint2D oldPosition = this.position;
+		long oldStateHashKey = getStateHashKey();
 		this.position = position;
+		stateHashChanged(oldStateHashKey);
+		strategy.positionChanged(oldPosition);
 		setState(EMovableState.DOING_NOTHING);
 		requestedTargetPosition = null;
+		requestedGroupTargetPosition = null;
 		grid.enterPosition(position, this, true);
 	}
 
@@ -391,7 +423,11 @@ public final class Movable implements ILogicMovable {
 		playAnimation(EMovableAction.WALKING, movableType.getStepDurationMs());
 		grid.leavePosition(this.position, this);
 		grid.enterPosition(position, this, false);
+		ShortPoint2D oldPosition = this.position;
+		long oldStateHashKey = getStateHashKey();
 		this.position = position;
+		stateHashChanged(oldStateHashKey);
+		strategy.positionChanged(oldPosition);
 		isRightstep = !isRightstep;
 	}
 
@@ -655,9 +691,23 @@ public final class Movable implements ILogicMovable {
 	 * false if it wasn't possible to get a path.
 	 */
 	final boolean goToPos(ShortPoint2D targetPos) {
+		return goToPos(targetPos, null);
+	}
+
+	/**
+	 * Lets this movable go to the given position together with other movables.
+	 *
+	 * @param targetPos
+	 * 		position to move to.
+	 * @param groupTargetPos
+	 * 		target of the group of movables or null if this movable moves alone.
+	 * @return true if it was possible to calculate a path to the given position<br>
+	 * false if it wasn't possible to get a path.
+	 */
+	private boolean goToPos(ShortPoint2D targetPos, ShortPoint2D groupTargetPos) {
 		assert state == EMovableState.DOING_NOTHING : "can't do goToPos() if state isn't DOING_NOTHING. curr state: " + state;
 
-		Path path = grid.calculatePathTo(this, targetPos);
+		Path path = groupTargetPos != null ? grid.calculatePathTo(this, targetPos, groupTargetPos) : grid.calculatePathTo(this, targetPos);
 		if (path == null) {
 			if (ferryToEnter != null) {
 				enterFerry();
@@ -715,7 +765,11 @@ public final class Movable implements ILogicMovable {
 			grid.enterPosition(position, this, true);
 		}
 
+		ShortPoint2D oldPosition = this.position;
+		long oldStateHashKey = getStateHashKey();
 		this.position = position;
+		stateHashChanged(oldStateHashKey);
+		strategy.positionChanged(oldPosition);
 	}
 
 	final void setVisible(boolean visible) {
@@ -782,7 +836,29 @@ public final class Movable implements ILogicMovable {
 	 * @param newState
 	 */
 	private void setState(EMovableState newState) {
+		long oldStateHashKey = getStateHashKey();
 		this.state = newState;
+		stateHashChanged(oldStateHashKey);
+	}
+
+	private void setHealth(float health) {
+		long oldStateHashKey = getStateHashKey();
+		this.health = health;
+		stateHashChanged(oldStateHashKey);
+	}
+
+	private void stateHashChanged(long oldStateHashKey) {
+		GameContext.get().getStateHash().change(oldStateHashKey, getStateHashKey());
+	}
+
+	@Override
+	public long getStateHashKey() {
+		if (state == EMovableState.DEAD) {
+			return 0; // dead movables are no longer part of the game state
+		}
+		long value = (long) movableType.ordinal() << 56 | (long) (player.playerId & 0xFF) << 48 | (long) state.ordinal() << 40
+				| Float.floatToIntBits(health) & 0xFFFFFFFFL;
+		return GameStateHash.key(GameStateHash.EKind.MOVABLE, id, position.x << 16 | position.y, value);
 	}
 
 	/**
@@ -794,17 +870,15 @@ public final class Movable implements ILogicMovable {
 	 * or null if the id can not be found
 	 */
 	public static ILogicMovable getMovableByID(int id) {
-		return movablesByID.get(id);
+		return GameContext.get().getMovablesByID().get(id);
 	}
 
 	public static ConcurrentLinkedQueue<ILogicMovable> getAllMovables() {
-		return allMovables;
+		return GameContext.get().getAllMovables();
 	}
 
 	public static void resetState() {
-		allMovables.clear();
-		movablesByID.clear();
-		nextID = Integer.MIN_VALUE;
+		GameContext.get().clearMovables();
 	}
 
 	/**
@@ -817,18 +891,21 @@ public final class Movable implements ILogicMovable {
 		}
 
 		grid.leavePosition(this.position, this);
-		this.health = -200;
+		setHealth(-200);
 		this.strategy.strategyKilledEvent(path != null ? path.getTargetPosition() : null);
 
 		if (state != EMovableState.ON_FERRY) { // position of the movable on a ferry is the position it loaded into the ferry => not correct => don't show ghost
 			grid.addSelfDeletingMapObject(position, EMapObjectType.GHOST, Constants.GHOST_PLAY_DURATION, player);
 		}
 
-		this.state = EMovableState.DEAD;
+		setState(EMovableState.DEAD);
 		this.selected = false;
+		RescheduleTimer.cancel(timerHandle);
+		timerHandle = RescheduleTimer.NOT_SCHEDULED;
 
-		movablesByID.remove(this.getID());
-		allMovables.remove(this);
+		GameContext context = GameContext.get();
+		context.getMovablesByID().remove(this.getID());
+		context.getAllMovables().remove(this);
 	}
 
 	/**
@@ -950,8 +1027,10 @@ public final class Movable implements ILogicMovable {
 			return; // can't convert between this types
 		}
 
+		long oldStateHashKey = getStateHashKey();
 		this.health = (this.health * newMovableType.getHealth()) / this.movableType.getHealth();
 		this.movableType = newMovableType;
+		stateHashChanged(oldStateHashKey);
 		setVisible(true); // ensure the movable is visible
 		setStrategy(MovableStrategy.getStrategy(this, newMovableType));
 	}
@@ -1000,7 +1079,7 @@ public final class Movable implements ILogicMovable {
 	@Override
 	public final void receiveHit(float hitStrength, ShortPoint2D attackerPos, byte attackingPlayer) {
 		if (strategy.receiveHit()) {
-			this.health -= hitStrength;
+			setHealth(health - hitStrength);
 			if (health <= 0) {
 				this.kill();
 			}
@@ -239,6 +239,15 @@ public abstract class MovableStrategy implements Serializable {
 	protected void strategyKilledEvent(ShortPoint2D pathTarget) { // used in overriding methods
 	}
 
+	/**
+	 * This method is called whenever the movable has changed its position.
+	 *
+	 * @param oldPosition
+	 * 		The position of the movable before the change.
+	 */
+	protected void positionChanged(ShortPoint2D oldPosition) { // used in overriding methods
+	}
+
 	/**
 	 * @param oldPosition
 	 * 		The position the movable was positioned before the new path has been calculated and the first step on the new path has been done.
@@ -54,6 +54,8 @@ public interface ILogicMovable extends IScheduledTimerable, IPathCalculatable, I
 
 	void moveTo(ShortPoint2D targetPosition);
 
+	void moveTo(ShortPoint2D targetPosition, ShortPoint2D groupTargetPosition);
+
 	void unloadFerry();
 
 	boolean addPassenger(ILogicMovable movable);
@@ -61,4 +63,9 @@ public interface ILogicMovable extends IScheduledTimerable, IPathCalculatable, I
 	void moveToFerry(ILogicMovable ferry, ShortPoint2D entrancePosition);
 
 	void leaveFerryAt(ShortPoint2D position);
+
+	/**
+	 * @return The key of this movable's type, player, state, health and position in the {@link jsettlers.logic.constants.GameStateHash}.
+	 */
+	long getStateHashKey();
 }
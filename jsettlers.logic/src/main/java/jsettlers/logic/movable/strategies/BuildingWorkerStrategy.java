@@ -67,7 +67,8 @@ public final class BuildingWorkerStrategy extends MovableStrategy implements IMa
 		if (currentJobName.equals("null")) {
 			currentJob = null;
 		} else {
-			currentJob = building.getBuildingType().getJobByName(currentJobName);
+			// the building might not be completely deserialized yet => resolve the job after the whole graph has been read
+			ois.registerValidation(() -> currentJob = building.getBuildingType().getJobByName(currentJobName), 0);
 		}
 	}
 
@@ -506,6 +507,13 @@ public final class BuildingWorkerStrategy extends MovableStrategy implements IMa
 		}
 	}
 
+	@Override
+	protected void positionChanged(ShortPoint2D oldPosition) {
+		if (isJobless()) {
+			super.getGrid().joblessPositionChanged(this, oldPosition);
+		}
+	}
+
 	@Override
 	protected void strategyKilledEvent(ShortPoint2D pathTarget) { // used in overriding methods
 		killed = true;
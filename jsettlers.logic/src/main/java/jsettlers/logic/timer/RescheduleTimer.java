@@ -19,117 +19,325 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 
 import jsettlers.logic.map.loading.MapLoadException;
-import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.constants.GameContext;
 import jsettlers.network.client.interfaces.IGameClock;
 import jsettlers.network.synchronic.timer.INetworkTimerable;
 
+/**
+ * Hierarchical timing wheel scheduling {@link IScheduledTimerable}s in slices of {@link #TIME_SLICE} milliseconds.
+ * <p />
+ * Delays shorter than one revolution of the wheel ({@link #FUTURE_TIME}) are stored directly in the slots of the wheel. The slots are plain
+ * arrays that are reused for the whole game, so no collections need to be grown, copied or cleared while the game is running. Longer delays
+ * are stored in a second level wheel with one bucket per revolution and are moved into the first level when their revolution starts.
+ * <p />
+ * Every scheduling returns a handle that can be used to {@link #cancel(long)} it in O(1). Cancelling releases the timerable immediately; the
+ * emptied entry is dropped when its slot is visited.
+ * <p />
+ * The timerables of a slot are fired in the order they have been scheduled. This order is part of the lockstep determinism and must not be
+ * changed.
+ */
 public final class RescheduleTimer implements INetworkTimerable, Serializable {
-	private static final long serialVersionUID = -1962430988827211391L;
+	private static final long serialVersionUID = -1962430988827211392L;
 
 	private static final int FUTURE_TIME = 32000;
 	private static final short TIME_SLICE = 25; // ms
 	private static final int TIME_SLOTS = FUTURE_TIME / TIME_SLICE;
 
-	private static RescheduleTimer uniIns;
+	private static final int INITIAL_SLOT_CAPACITY = 16;
+
+	private static final int HANDLE_INDEX_BITS = 21;
+	private static final int HANDLE_SLOT_BITS = 11;
+	private static final int HANDLE_EPOCH_BITS = 30;
+	private static final long HANDLE_INDEX_MASK = (1L << HANDLE_INDEX_BITS) - 1;
+	private static final long HANDLE_SLOT_MASK = (1L << HANDLE_SLOT_BITS) - 1;
+	private static final long HANDLE_EPOCH_MASK = (1L << HANDLE_EPOCH_BITS) - 1;
+	private static final long HANDLE_LONG_DELAY_FLAG = 1L << 62;
+
+	/**
+	 * Handle returned if a timerable has not been scheduled. Cancelling this handle has no effect.
+	 */
+	public static final long NOT_SCHEDULED = -1;
+
+	private final IScheduledTimerable[][] slots = new IScheduledTimerable[TIME_SLOTS][];
+	private final int[] slotSizes = new int[TIME_SLOTS];
+	private final int[] slotEpochs = new int[TIME_SLOTS]; // number of times a slot has been fired, used to validate handles
 
 	@SuppressWarnings("unchecked")
-	private final ArrayList<IScheduledTimerable> timerables[] = new ArrayList[TIME_SLOTS];
-	private int currTimeSlot = 0;
+	private final ArrayList<LongDelayEntry>[] longDelayBuckets = new ArrayList[TIME_SLOTS];
+	private final HashMap<Long, LongDelayEntry> longDelayEntries = new HashMap<>();
+	private final ArrayList<Long> movedLongDelayStamps = new ArrayList<>();
+	private long nextLongDelayStamp = 0;
+
+	private long currTick = 0;
+	private int scheduledCount = 0;
 
-	protected RescheduleTimer() {
+	private transient GameContext context;
+	private transient volatile boolean stopped;
+
+	RescheduleTimer() {
 		for (int i = 0; i < TIME_SLOTS; i++) {
-			timerables[i] = new ArrayList<>();
+			slots[i] = new IScheduledTimerable[INITIAL_SLOT_CAPACITY];
+			longDelayBuckets[i] = new ArrayList<>();
 		}
 	}
 
-	public static synchronized void stopAndClear() {
-		if (uniIns != null) {
-			if (MatchConstants.clock() != null) {
-				MatchConstants.clock().remove(uniIns);
+	/**
+	 * Stops and removes the timer of the {@link GameContext} of the current thread.
+	 */
+	public static void stopAndClear() {
+		stopAndClear(GameContext.get());
+	}
+
+	public static void stopAndClear(GameContext context) {
+		RescheduleTimer timer;
+		synchronized (context) {
+			timer = context.getRescheduleTimer();
+			context.setRescheduleTimer(null);
+		}
+
+		if (timer != null) {
+			timer.stopped = true;
+			if (context.getClock() != null) {
+				context.getClock().remove(timer);
 			}
-			uniIns = null;
-			try {
-				Thread.sleep(100L); // stopping takes some time
-			} catch (InterruptedException e) {
+			synchronized (timer) { // waits until a running timerEvent() has seen the stop
 			}
 		}
 	}
 
 	/**
-	 * Schedules the given {@link IScheduledTimerable} in max delay milliseconds.
+	 * Schedules the given {@link IScheduledTimerable} in delay milliseconds.
 	 * 
 	 * @param t
+	 *            The timerable to be scheduled.
 	 * @param delay
+	 *            The delay in milliseconds. If the delay is zero or negative, the timerable is not scheduled.
+	 * @return Returns a handle that can be used to {@link #cancel(long)} the scheduling or {@link #NOT_SCHEDULED}.
+	 */
+	public static long add(IScheduledTimerable t, int delay) {
+		return get().addTimerable(t, delay);
+	}
+
+	/**
+	 * Cancels the scheduling identified by the given handle. If the timerable has already been fired or the handle has already been cancelled,
+	 * nothing happens.
+	 * 
+	 * @param handle
+	 *            A handle returned by {@link #add(IScheduledTimerable, int)}.
+	 * @return true if the scheduling has been cancelled.
 	 */
-	public static void add(IScheduledTimerable t, int delay) {
-		get().addTimerable(t, delay);
+	public static boolean cancel(long handle) {
+		return get().cancelTimerable(handle);
 	}
 
-	private void addTimerable(IScheduledTimerable t, int delay) {
+	long addTimerable(IScheduledTimerable t, int delay) {
 		if (delay <= 0) {
-			return; // don't schedule if requested delay is negative or zero
+			return NOT_SCHEDULED; // don't schedule if requested delay is negative or zero
 		}
 
 		int delaySlots = delay / TIME_SLICE;
 		delaySlots = delaySlots > 0 ? delaySlots : 1; // ensure at least one slot delay
 
-		assert delaySlots < TIME_SLOTS : "SCHEDULED TO FAR IN THE FUTURE! " + delay + "ms";
+		if (delaySlots < TIME_SLOTS) {
+			scheduledCount++;
+			return addToSlot(t, (int) ((currTick + delaySlots) % TIME_SLOTS));
+		} else {
+			LongDelayEntry entry = new LongDelayEntry(t, currTick + delaySlots, nextLongDelayStamp++);
+			longDelayBuckets[(int) (entry.dueTick / TIME_SLOTS % TIME_SLOTS)].add(entry);
+			longDelayEntries.put(entry.stamp, entry);
+			scheduledCount++;
+			return HANDLE_LONG_DELAY_FLAG | entry.stamp;
+		}
+	}
+
+	private long addToSlot(IScheduledTimerable t, int slot) {
+		int index = slotSizes[slot];
+		assert index <= HANDLE_INDEX_MASK : "TOO MANY TIMERABLES IN ONE SLOT!";
+
+		if (index == slots[slot].length) {
+			slots[slot] = Arrays.copyOf(slots[slot], index * 2);
+		}
+		slots[slot][index] = t;
+		slotSizes[slot] = index + 1;
+
+		return ((slotEpochs[slot] & HANDLE_EPOCH_MASK) << (HANDLE_SLOT_BITS + HANDLE_INDEX_BITS)) | ((long) slot << HANDLE_INDEX_BITS) | index;
+	}
+
+	boolean cancelTimerable(long handle) {
+		if (handle < 0) {
+			return false;
+		}
+
+		if ((handle & HANDLE_LONG_DELAY_FLAG) != 0) {
+			LongDelayEntry entry = longDelayEntries.remove(handle & ~HANDLE_LONG_DELAY_FLAG);
+			if (entry == null) {
+				return false;
+			} else if (entry.slotHandle != NOT_SCHEDULED) { // entry has already been moved into the wheel
+				return cancelTimerable(entry.slotHandle);
+			} else {
+				entry.timerable = null; // the entry is dropped when its bucket is moved into the wheel
+				scheduledCount--;
+				return true;
+			}
+		}
+
+		int slot = (int) ((handle >>> HANDLE_INDEX_BITS) & HANDLE_SLOT_MASK);
+		int index = (int) (handle & HANDLE_INDEX_MASK);
+		long epoch = handle >>> (HANDLE_SLOT_BITS + HANDLE_INDEX_BITS);
+
+		if (slot >= TIME_SLOTS || epoch != (slotEpochs[slot] & HANDLE_EPOCH_MASK) || index >= slotSizes[slot] || slots[slot][index] == null) {
+			return false;
+		}
+
+		slots[slot][index] = null; // the entry is dropped when its slot is visited
+		scheduledCount--;
+		return true;
+	}
 
-		timerables[(currTimeSlot + delaySlots) % TIME_SLOTS].add(t);
+	/**
+	 * @return Returns the number of currently scheduled timerables.
+	 */
+	int size() {
+		return scheduledCount;
 	}
 
-	private static synchronized RescheduleTimer get() {
-		if (uniIns == null) {
-			uniIns = new RescheduleTimer();
+	static RescheduleTimer get() {
+		GameContext context = GameContext.get();
+		synchronized (context) {
+			RescheduleTimer timer = context.getRescheduleTimer();
+			if (timer == null) {
+				timer = new RescheduleTimer();
+				timer.context = context;
+				context.setRescheduleTimer(timer);
+			}
+			return timer;
 		}
-		return uniIns;
 	}
 
 	@Override
-	public void timerEvent() {
-		ArrayList<IScheduledTimerable> queue = timerables[currTimeSlot];
+	public synchronized void timerEvent() {
+		if (context == null) {
+			fireCurrentSlot(null);
+			return;
+		}
+
+		GameContext previousContext = context.bindToCurrentThread(); // the timerables of this timer may use the static accessors of the context
+		try {
+			fireCurrentSlot(context.getTickProfiler());
+		} finally {
+			GameContext.bindToCurrentThread(previousContext);
+		}
+	}
+
+	private void fireCurrentSlot(TickProfiler profiler) {
+		final int slot = (int) (currTick % TIME_SLOTS);
+		if (slot == 0) {
+			moveLongDelaysIntoWheel();
+		}
 
-		for (IScheduledTimerable curr : queue) {
-			if (uniIns != this) { // fast stop when stopAndClear() is called.
+		final IScheduledTimerable[] timerables = slots[slot];
+		final int size = slotSizes[slot]; // no timerable can be added to the current slot while it's fired
+
+		for (int i = 0; i < size; i++) {
+			if (stopped) { // fast stop when stopAndClear() is called.
 				return;
 			}
 
-			try {
-				int delay = curr.timerEvent();
-				addTimerable(curr, delay);
-			} catch (Throwable t) {
-				System.err.println("RescheduleTimer catched: ");
-				t.printStackTrace();
+			final IScheduledTimerable curr = timerables[i];
+			if (curr != null) { // null if cancelled
+				timerables[i] = null;
+				scheduledCount--;
+
 				try {
-					curr.kill();
-				} catch (Throwable t2) {
-					System.err.println("RescheduleTimer had trouble killing bad timerable!");
-					t2.printStackTrace();
+					int delay;
+					if (profiler == null) {
+						delay = curr.timerEvent();
+					} else {
+						long start = System.nanoTime();
+						delay = curr.timerEvent();
+						profiler.add(TickProfiler.getSubsystem(curr), System.nanoTime() - start);
+					}
+					addTimerable(curr, delay);
+				} catch (Throwable t) {
+					System.err.println("RescheduleTimer catched: ");
+					t.printStackTrace();
+					try {
+						curr.kill();
+					} catch (Throwable t2) {
+						System.err.println("RescheduleTimer had trouble killing bad timerable!");
+						t2.printStackTrace();
+					}
 				}
 			}
 		}
 
-		queue.clear();
-		currTimeSlot = (currTimeSlot + 1) % TIME_SLOTS;
+		slotSizes[slot] = 0;
+		slotEpochs[slot]++;
+		currTick++;
+	}
+
+	private void moveLongDelaysIntoWheel() {
+		for (Long stamp : movedLongDelayStamps) { // these have all been fired in the last revolution
+			longDelayEntries.remove(stamp);
+		}
+		movedLongDelayStamps.clear();
+
+		long revolution = currTick / TIME_SLOTS;
+		ArrayList<LongDelayEntry> bucket = longDelayBuckets[(int) (revolution % TIME_SLOTS)];
+		int remaining = 0;
+		for (LongDelayEntry entry : bucket) {
+			if (entry.timerable == null) {
+				continue; // cancelled
+			}
+
+			if (entry.dueTick / TIME_SLOTS == revolution) {
+				entry.slotHandle = addToSlot(entry.timerable, (int) (entry.dueTick % TIME_SLOTS));
+				entry.timerable = null;
+				movedLongDelayStamps.add(entry.stamp);
+			} else {
+				bucket.set(remaining++, entry); // due in a later revolution
+			}
+		}
+		bucket.subList(remaining, bucket.size()).clear();
 	}
 
 	public static void loadFrom(ObjectInputStream ois) throws MapLoadException {
 		try {
-			stopAndClear();
-			uniIns = (RescheduleTimer) ois.readObject();
+			GameContext context = GameContext.get();
+			stopAndClear(context);
+			RescheduleTimer timer = (RescheduleTimer) ois.readObject();
+			timer.context = context;
+			context.setRescheduleTimer(timer);
 		} catch (Throwable t) {
 			throw new MapLoadException(t);
 		}
 	}
 
 	public static void saveTo(ObjectOutputStream oos) throws IOException {
-		oos.writeObject(uniIns);
+		oos.writeObject(GameContext.get().getRescheduleTimer());
 		oos.flush();
 	}
 
 	public static void schedule(IGameClock gameClock) {
 		gameClock.schedule(get(), TIME_SLICE);
 	}
+
+	private static final class LongDelayEntry implements Serializable {
+		private static final long serialVersionUID = 5049426125467497453L;
+
+		private final long dueTick;
+		private final long stamp;
+		private IScheduledTimerable timerable;
+		private long slotHandle = NOT_SCHEDULED;
+
+		LongDelayEntry(IScheduledTimerable timerable, long dueTick, long stamp) {
+			this.timerable = timerable;
+			this.dueTick = dueTick;
+			this.stamp = stamp;
+		}
+	}
 }
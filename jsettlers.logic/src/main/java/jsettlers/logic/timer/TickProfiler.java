@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.timer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import jsettlers.logic.buildings.Building;
+import jsettlers.logic.map.grid.objects.MapObjectsManager;
+import jsettlers.logic.map.grid.partition.manager.PartitionManager;
+import jsettlers.logic.movable.interfaces.ILogicMovable;
+
+/**
+ * Accumulates the time the game logic spends in its subsystems.
+ * <p />
+ * The time is only measured if a profiler has been set to the {@link jsettlers.logic.constants.GameContext} of a game before it is started, so normal
+ * games don't pay for the measurements.
+ */
+public final class TickProfiler {
+	public enum ESubsystem {
+		MOVABLES,
+		BUILDINGS,
+		PARTITIONS,
+		MAP_OBJECTS,
+		AI,
+		BORDERS,
+		OTHER;
+
+		public static final ESubsystem[] VALUES = values();
+	}
+
+	private final AtomicLongArray nanos = new AtomicLongArray(ESubsystem.VALUES.length); // the borders are calculated by their own thread
+	private final AtomicLongArray calls = new AtomicLongArray(ESubsystem.VALUES.length);
+
+	public void add(ESubsystem subsystem, long nanos) {
+		this.nanos.addAndGet(subsystem.ordinal(), nanos);
+		this.calls.incrementAndGet(subsystem.ordinal());
+	}
+
+	public long getNanos(ESubsystem subsystem) {
+		return nanos.get(subsystem.ordinal());
+	}
+
+	public long getCalls(ESubsystem subsystem) {
+		return calls.get(subsystem.ordinal());
+	}
+
+	static ESubsystem getSubsystem(IScheduledTimerable timerable) {
+		if (timerable instanceof ILogicMovable) {
+			return ESubsystem.MOVABLES;
+		} else if (timerable instanceof Building) {
+			return ESubsystem.BUILDINGS;
+		} else if (timerable instanceof PartitionManager) {
+			return ESubsystem.PARTITIONS;
+		} else if (timerable instanceof MapObjectsManager) {
+			return ESubsystem.MAP_OBJECTS;
+		} else {
+			return ESubsystem.OTHER;
+		}
+	}
+}
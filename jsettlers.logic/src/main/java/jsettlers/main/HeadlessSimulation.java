@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.main;
+
+import java.util.Locale;
+
+import jsettlers.algorithms.path.cache.PathCache;
+import jsettlers.common.menu.IStartedGame;
+import jsettlers.logic.constants.GameContext;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.map.loading.savegame.SavegameLoader;
+import jsettlers.logic.player.PlayerSetting;
+import jsettlers.logic.timer.TickProfiler;
+import jsettlers.logic.timer.TickProfiler.ESubsystem;
+import jsettlers.main.replay.ReplayUtils;
+import jsettlers.main.replay.ReplayUtils.IReplayStreamProvider;
+import jsettlers.network.client.OfflineNetworkConnector;
+import jsettlers.network.client.interfaces.IGameClock;
+
+/**
+ * Plays a map or a replay without graphics as fast as possible to a target game time and measures the simulation speed and the time spent in the
+ * subsystems of the game logic.
+ */
+public class HeadlessSimulation {
+	private final String name;
+	private final JSettlersGame game;
+	private final OfflineNetworkConnector networkConnector;
+
+	private HeadlessSimulation(String name, JSettlersGame game, OfflineNetworkConnector networkConnector) {
+		this.name = name;
+		this.game = game;
+		this.networkConnector = networkConnector;
+		game.useOwnContext(); // simulations are run in parallel
+
+	}
+
+	public static HeadlessSimulation ofMap(MapLoader map, long randomSeed, PlayerSetting[] playerSettings) throws MapLoadException {
+		if (!(map instanceof SavegameLoader)) {
+			map.getMapData(); // the map data is cached by the loader => reading the file is not part of the game start
+		}
+		OfflineNetworkConnector networkConnector = createPausingNetworkConnector();
+		JSettlersGame game = new JSettlersGame(map, randomSeed, networkConnector, (byte) 0, playerSettings);
+		return new HeadlessSimulation(map.getMapName(), game, networkConnector);
+	}
+
+	public static HeadlessSimulation ofReplay(IReplayStreamProvider replay) throws MapLoadException {
+		OfflineNetworkConnector networkConnector = createPausingNetworkConnector();
+		ReplayStartInformation replayStartInformation = new ReplayStartInformation();
+		JSettlersGame game = JSettlersGame.loadFromReplayFile(replay, networkConnector, replayStartInformation);
+		return new HeadlessSimulation("replay of " + replayStartInformation.getMapName(), game, networkConnector);
+	}
+
+	private static OfflineNetworkConnector createPausingNetworkConnector() {
+		OfflineNetworkConnector networkConnector = new OfflineNetworkConnector();
+		networkConnector.getGameClock().setPausing(true);
+		return networkConnector;
+	}
+
+	/**
+	 * Starts the game, plays it to the given game time and stops it.
+	 *
+	 * @param targetGameTimeMs
+	 *            game time in milliseconds the game is played to.
+	 * @return the measurements of the simulation.
+	 */
+	public Result run(int targetGameTimeMs) {
+		TickProfiler profiler = new TickProfiler();
+		GameContext gameContext = game.getGameContext();
+		gameContext.setTickProfiler(profiler);
+
+		IStartedGame startedGame = ReplayUtils.waitForGameStartup(game.start());
+		IGameClock gameClock = networkConnector.getGameClock();
+		int startGameTime = gameClock.getTime();
+
+		long wallNanos;
+		GameContext previousContext = gameContext.bindToCurrentThread(); // fast forwarding executes the game on this thread
+		try {
+			long start = System.nanoTime();
+			gameClock.fastForwardTo(targetGameTimeMs);
+			wallNanos = System.nanoTime() - start;
+		} finally {
+			GameContext.bindToCurrentThread(previousContext);
+		}
+		int simulatedMs = gameClock.getTime() - startGameTime;
+		PathCache pathCache = ((JSettlersGame.GameRunner) startedGame).getMainGrid().getPathCache();
+
+		ReplayUtils.awaitShutdown(startedGame);
+		return new Result(name, startGameTime, simulatedMs, wallNanos, profiler, pathCache);
+	}
+
+	/**
+	 * The measurements of a {@link HeadlessSimulation}.
+	 */
+	public static class Result {
+		private final String name;
+		private final int startGameTimeMs;
+		private final int simulatedMs;
+		private final long wallNanos;
+		private final TickProfiler profiler;
+		private final long pathCacheHits;
+		private final long pathCacheMisses;
+		private final long pathCacheSavedNanos;
+
+		Result(String name, int startGameTimeMs, int simulatedMs, long wallNanos, TickProfiler profiler, PathCache pathCache) {
+			this.name = name;
+			this.startGameTimeMs = startGameTimeMs;
+			this.simulatedMs = simulatedMs;
+			this.wallNanos = wallNanos;
+			this.profiler = profiler;
+			this.pathCacheHits = pathCache.getHits();
+			this.pathCacheMisses = pathCache.getMisses();
+			this.pathCacheSavedNanos = pathCache.getSavedNanos();
+		}
+
+		public int getSimulatedMs() {
+			return simulatedMs;
+		}
+
+		public double getWallMs() {
+			return wallNanos / 1e6;
+		}
+
+		public double getSimulatedMsPerWallMs() {
+			return simulatedMs / Math.max(getWallMs(), 1e-3);
+		}
+
+		public double getSubsystemMs(ESubsystem subsystem) {
+			return profiler.getNanos(subsystem) / 1e6;
+		}
+
+		public long getSubsystemCalls(ESubsystem subsystem) {
+			return profiler.getCalls(subsystem);
+		}
+
+		public long getPathCacheHits() {
+			return pathCacheHits;
+		}
+
+		public long getPathCacheMisses() {
+			return pathCacheMisses;
+		}
+
+		public double getPathCacheHitRate() {
+			return pathCacheHits / (double) Math.max(pathCacheHits + pathCacheMisses, 1);
+		}
+
+		/**
+		 * @return the time the A* searches of the paths taken from the cache needed when they were searched first.
+		 */
+		public double getPathCacheSavedMs() {
+			return pathCacheSavedNanos / 1e6;
+		}
+
+		/**
+		 * @return the measurements as JSON object. The time of the borders is measured on their own thread and is therefore not part of the wall
+		 *         time of the game clock.
+		 */
+		public String toJson() {
+			StringBuilder json = new StringBuilder();
+			json.append("{\n");
+			json.append("  \"name\": \"").append(name.replace("\\", "\\\\").replace("\"", "\\\"")).append("\",\n");
+			json.append("  \"startGameTimeMs\": ").append(startGameTimeMs).append(",\n");
+			json.append("  \"simulatedMs\": ").append(simulatedMs).append(",\n");
+			json.append("  \"wallMs\": ").append(format(getWallMs())).append(",\n");
+			json.append("  \"simulatedMsPerWallMs\": ").append(format(getSimulatedMsPerWallMs())).append(",\n");
+			json.append("  \"subsystems\": {\n");
+			for (ESubsystem subsystem : ESubsystem.VALUES) {
+				json.append("    \"").append(subsystem.name().toLowerCase(Locale.ENGLISH)).append("\": { \"ms\": ").append(format(getSubsystemMs(subsystem)))
+						.append(", \"calls\": ").append(getSubsystemCalls(subsystem)).append(" }");
+				json.append(subsystem.ordinal() < ESubsystem.VALUES.length - 1 ? ",\n" : "\n");
+			}
+			json.append("  },\n");
+			json.append("  \"pathCache\": { \"hits\": ").append(pathCacheHits).append(", \"misses\": ").append(pathCacheMisses)
+					.append(", \"hitRate\": ").append(format(getPathCacheHitRate())).append(", \"savedMs\": ").append(format(getPathCacheSavedMs()))
+					.append(" }\n");
+			json.append("}");
+			return json.toString();
+		}
+
+		private static String format(double value) {
+			return String.format(Locale.ENGLISH, "%.3f", value);
+		}
+	}
+}
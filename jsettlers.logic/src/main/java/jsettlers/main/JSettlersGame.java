@@ -45,6 +45,7 @@ import jsettlers.input.PlayerState;
 import jsettlers.logic.buildings.Building;
 import jsettlers.logic.buildings.trading.HarborBuilding;
 import jsettlers.logic.buildings.trading.MarketBuilding;
+import jsettlers.logic.constants.GameContext;
 import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.map.grid.MainGrid;
 import jsettlers.logic.map.grid.partition.PartitionsGrid;
@@ -76,6 +77,7 @@ public class JSettlersGame {
 	private final INetworkConnector networkConnector;
 	private final boolean multiplayer;
 	private final DataInputStream replayFileInputStream;
+	private GameContext gameContext = GameContext.getShared();
 
 	private final GameRunner gameRunner;
 
@@ -207,6 +209,7 @@ public class JSettlersGame {
 				}
 				updateProgressListener(EProgressState.LOADING, 0.1f);
 
+				gameContext.bindToCurrentThread(); // threads started by this thread inherit the context
 				clearState();
 				MatchConstants.init(networkConnector.getGameClock(), randomSeed);
 				try {
@@ -220,6 +223,8 @@ public class JSettlersGame {
 
 				MainGridWithUiSettings gridWithUiState = mapCreator.loadMainGrid(playerSettings);
 				mainGrid = gridWithUiState.getMainGrid();
+				mainGrid.initStateHash();
+				MatchConstants.clock().setStateChecksumSupplier(mainGrid::getStateHash);
 				PlayerState playerState = gridWithUiState.getPlayerState(playerId);
 
 				RescheduleTimer.schedule(MatchConstants.clock()); // schedule timer
@@ -416,6 +421,27 @@ public class JSettlersGame {
 		return LOG_DATE_FORMATTER;
 	}
 
+	/**
+	 * Lets this game use a {@link GameContext} of its own instead of the shared one, so it can be played in parallel to other games. The UI threads
+	 * can't access the state of such a game. Must be called before the game is started.
+	 */
+	public void useOwnContext() {
+		if (started) {
+			throw new IllegalStateException("The game has already been started.");
+		}
+		gameContext = new GameContext();
+	}
+
+	/**
+	 * @return the {@link GameContext} holding the state of this game.
+	 */
+	public GameContext getGameContext() {
+		return gameContext;
+	}
+
+	/**
+	 * Clears the state of the {@link GameContext} of the current thread.
+	 */
 	public static void clearState() {
 		RescheduleTimer.stopAndClear();
 		Movable.resetState();
@@ -29,7 +29,8 @@ import jsettlers.common.resources.ResourceManager;
 import jsettlers.common.utils.mutables.MutableInt;
 import jsettlers.input.tasks.EGuiAction;
 import jsettlers.input.tasks.SimpleGuiTask;
-import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.constants.GameContext;
+import jsettlers.logic.map.grid.MainGrid;
 import jsettlers.logic.map.loading.MapLoadException;
 import jsettlers.logic.map.loading.MapLoader;
 import jsettlers.logic.map.loading.list.MapList;
@@ -41,6 +42,9 @@ import jsettlers.network.NetworkConstants;
 import jsettlers.network.client.OfflineNetworkConnector;
 import jsettlers.network.client.interfaces.IGameClock;
 import jsettlers.network.client.interfaces.INetworkConnector;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+
+import java8.util.function.Consumer;
 
 import static java8.util.J8Arrays.stream;
 
@@ -57,8 +61,8 @@ public class ReplayUtils {
 		JSettlersGame game = loadGameFromReplay(replayFile, networkConnector, replayStartInformation);
 
 		IStartedGame startedGame = startGame(game); // before we can save the clock reference, the game must be started
-		IGameClock gameClock = MatchConstants.clock(); // after the game, the clock cannot be accessed any more => save reference before the game
-		MapLoader newSavegame = playGameToTargetTimeAndGetSavegames(startedGame, networkConnector, targetGameTimeMinutes)[0];
+		IGameClock gameClock = networkConnector.getGameClock();
+		MapLoader newSavegame = playGameToTargetTimeAndGetSavegames(startedGame, game.getGameContext(), networkConnector, targetGameTimeMinutes)[0];
 
 		// create a jsettlers.integration.replay basing on the savegame and containing the remaining tasks.
 		createReplayOfRemainingTasks(newSavegame, replayStartInformation, newReplayFile, gameClock);
@@ -80,6 +84,29 @@ public class ReplayUtils {
 		return newSavegame;
 	}
 
+	/**
+	 * Replays the given replay file and calls the given visitor every time one of the target game times has been reached. While the visitor is
+	 * called, the game is paused and the state of the game can be inspected.
+	 */
+	public static void replayAndVisitTargetTimes(IReplayStreamProvider replayFile, Consumer<MainGrid> visitor, int... targetGameTimeMinutes)
+			throws MapLoadException {
+		OfflineNetworkConnector networkConnector = createPausingOfflineNetworkConnector();
+		JSettlersGame game = loadGameFromReplay(replayFile, networkConnector, new ReplayStartInformation());
+		IStartedGame startedGame = startGame(game);
+
+		GameContext previousContext = game.getGameContext().bindToCurrentThread(); // fast forwarding executes the game on this thread
+		try {
+			for (int targetGameTimeMs : getGameTimeMsFromMinutes(targetGameTimeMinutes)) {
+				networkConnector.getGameClock().fastForwardTo(targetGameTimeMs);
+				visitor.accept(((GameRunner) startedGame).getMainGrid());
+			}
+		} finally {
+			GameContext.bindToCurrentThread(previousContext);
+		}
+
+		awaitShutdown(startedGame);
+	}
+
 	private static OfflineNetworkConnector createPausingOfflineNetworkConnector() {
 		OfflineNetworkConnector networkConnector = new OfflineNetworkConnector();
 		networkConnector.getGameClock().setPausing(true);
@@ -88,22 +115,29 @@ public class ReplayUtils {
 
 	private static MapLoader[] playGameToTargetTimeAndGetSavegames(JSettlersGame game, OfflineNetworkConnector networkConnector, final int... targetGameTimesMinutes) {
 		IStartedGame startedGame = startGame(game);
-		return playGameToTargetTimeAndGetSavegames(startedGame, networkConnector, targetGameTimesMinutes);
+		return playGameToTargetTimeAndGetSavegames(startedGame, game.getGameContext(), networkConnector, targetGameTimesMinutes);
 	}
 
-	private static MapLoader[] playGameToTargetTimeAndGetSavegames(IStartedGame startedGame, OfflineNetworkConnector networkConnector, final int... targetGameTimesMinutes) {
+	private static MapLoader[] playGameToTargetTimeAndGetSavegames(IStartedGame startedGame, GameContext gameContext, OfflineNetworkConnector networkConnector,
+			final int... targetGameTimesMinutes) {
 		final int[] targetGameTimesMs = getGameTimeMsFromMinutes(targetGameTimesMinutes);
 
 		// schedule the save task and run the game to the target game time
 		MapLoader[] savegames = new MapLoader[targetGameTimesMs.length];
-		for (int i = 0; i < targetGameTimesMs.length; i++) {
-			final int targetGameTimeMs = targetGameTimesMs[i];
-
-			networkConnector.scheduleTaskAt(targetGameTimeMs / NetworkConstants.Client.LOCKSTEP_PERIOD,
-				new SimpleGuiTask(EGuiAction.QUICK_SAVE, (byte) 0)
-			);
-			MatchConstants.clock().fastForwardTo(targetGameTimeMs + 1000);
-			savegames[i] = getNewestSavegame();
+		GameContext previousContext = gameContext.bindToCurrentThread(); // fast forwarding executes the game on this thread
+		try {
+			for (int i = 0; i < targetGameTimesMs.length; i++) {
+				final int targetGameTimeMs = targetGameTimesMs[i];
+
+				networkConnector.scheduleTaskAt(targetGameTimeMs / NetworkConstants.Client.LOCKSTEP_PERIOD,
+					new SimpleGuiTask(EGuiAction.QUICK_SAVE, (byte) 0)
+				);
+				// stop right after saving, the later tasks remain for createReplayOfRemainingTasks(); the first tick is at TIME_SLICE
+				networkConnector.getGameClock().fastForwardTo(Math.max(targetGameTimeMs, NetworkTimer.TIME_SLICE));
+				savegames[i] = getNewestSavegame();
+			}
+		} finally {
+			GameContext.bindToCurrentThread(previousContext);
 		}
 
 		awaitShutdown(startedGame);
@@ -165,7 +199,9 @@ public class ReplayUtils {
 
 	private static JSettlersGame loadGameFromReplay(IReplayStreamProvider replayFile, INetworkConnector networkConnector, ReplayStartInformation replayStartInformation) throws MapLoadException {
 		System.out.println("Found loadable jsettlers.integration.replay file. Started loading it: " + replayFile);
-		return JSettlersGame.loadFromReplayFile(replayFile, networkConnector, replayStartInformation);
+		JSettlersGame game = JSettlersGame.loadFromReplayFile(replayFile, networkConnector, replayStartInformation);
+		game.useOwnContext(); // replays may be played in parallel
+		return game;
 	}
 
 	private static void createReplayOfRemainingTasks(MapLoader newSavegame, ReplayStartInformation replayStartInformation, String newReplayFile, IGameClock gameClock) throws IOException {
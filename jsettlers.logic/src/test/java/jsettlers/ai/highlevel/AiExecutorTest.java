@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.ai.highlevel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import jsettlers.integration.replay.AutoReplaySetting;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.MainGrid;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.player.PlayerSetting;
+import jsettlers.main.JSettlersGame;
+import jsettlers.network.client.interfaces.ITaskScheduler;
+import jsettlers.network.client.task.packets.TaskPacket;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+import jsettlers.testutils.TestUtils;
+import jsettlers.testutils.map.MapUtils;
+
+/**
+ * Checks that the AI players schedule the same tasks in the same order, regardless of whether they plan in parallel or one after another.
+ */
+public class AiExecutorTest {
+	private static final int STEPS = 5;
+
+	@BeforeClass
+	public static void setupResourceManager() throws IOException {
+		TestUtils.setupTempResourceManager();
+	}
+
+	@Test
+	public void testParallelTasksEqualSerialTasks() throws MapLoadException {
+		List<String> serialTasks = executeAi(false);
+		List<String> parallelTasks = executeAi(true);
+
+		assertTrue(serialTasks.size() > STEPS); // the ais scheduled tasks besides the step markers
+		assertEquals(serialTasks, parallelTasks);
+	}
+
+	private static List<String> executeAi(boolean parallel) throws MapLoadException {
+		MapLoader savegame = MapUtils.getMap(AutoReplaySetting.class, "fullproduction/savegame-40m.zmap");
+		MatchConstants.init(new NetworkTimer(true), 0L);
+		PlayerSetting[] playerSettings = PlayerSetting.createDefaultSettings((byte) 0, (byte) savegame.getMaxPlayers());
+		MainGrid mainGrid = savegame.loadMainGrid(playerSettings).getMainGrid();
+
+		try {
+			List<String> tasks = new ArrayList<>();
+			AiExecutor aiExecutor = new AiExecutor(playerSettings, mainGrid, new RecordingTaskScheduler(tasks));
+			aiExecutor.setParallel(parallel);
+
+			for (int step = 0; step < STEPS; step++) {
+				tasks.add("step " + step);
+				aiExecutor.timerEvent();
+			}
+
+			for (byte playerId = 0; playerId < playerSettings.length; playerId++) {
+				if (playerSettings[playerId].isAvailable() && playerSettings[playerId].getPlayerType().isAi()) {
+					assertNotNull(aiExecutor.getApplyRulesStopWatchOf(playerId));
+					System.out.println("player " + playerId + " applyRules()" + aiExecutor.getApplyRulesStopWatchOf(playerId));
+				}
+			}
+			return tasks;
+		} finally {
+			mainGrid.stopThreads();
+			JSettlersGame.clearState();
+		}
+	}
+
+	/**
+	 * Records the serialized form of every scheduled task.
+	 */
+	private static class RecordingTaskScheduler implements ITaskScheduler {
+		private final List<String> tasks;
+
+		RecordingTaskScheduler(List<String> tasks) {
+			this.tasks = tasks;
+		}
+
+		@Override
+		public void scheduleTask(TaskPacket task) {
+			try {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				task.serialize(new DataOutputStream(bytes));
+				tasks.add(Arrays.toString(bytes.toByteArray()));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+}
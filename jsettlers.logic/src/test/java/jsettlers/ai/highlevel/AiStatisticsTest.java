@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.ai.highlevel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import jsettlers.common.CommonConstants;
+import jsettlers.common.buildings.EBuildingType;
+import jsettlers.common.landscape.ELandscapeType;
+import jsettlers.common.landscape.EResourceType;
+import jsettlers.common.map.shapes.FreeMapArea;
+import jsettlers.common.map.shapes.MapCircle;
+import jsettlers.common.mapobject.EMapObjectType;
+import jsettlers.common.movable.EMovableType;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.integration.replay.AutoReplaySetting;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.MainGrid;
+import jsettlers.logic.map.grid.partition.PartitionsGrid;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.objects.stone.Stone;
+import jsettlers.logic.player.PlayerSetting;
+import jsettlers.main.JSettlersGame;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+import jsettlers.testutils.TestUtils;
+import jsettlers.testutils.map.MapUtils;
+
+/**
+ * Checks that the incrementally updated {@link AiStatistics} equal statistics calculated from scratch after the grids have been changed.
+ */
+public class AiStatisticsTest {
+	private static final int CHANGES = 300;
+
+	@BeforeClass
+	public static void setupResourceManager() throws IOException {
+		TestUtils.setupTempResourceManager();
+	}
+
+	@Test
+	public void testIncrementalUpdateEqualsCompleteUpdate() throws MapLoadException {
+		MapLoader savegame = MapUtils.getMap(AutoReplaySetting.class, "fullproduction/savegame-40m.zmap");
+		MatchConstants.init(new NetworkTimer(true), 0L);
+		MainGrid mainGrid = savegame.loadMainGrid(PlayerSetting.createDefaultSettings((byte) 0, (byte) savegame.getMaxPlayers())).getMainGrid();
+
+		try {
+			AiStatistics incrementalStatistics = new AiStatistics(mainGrid);
+			incrementalStatistics.updateStatistics();
+
+			Random random = new Random(1);
+			for (int round = 0; round < 3; round++) {
+				changeGrids(mainGrid, random);
+				incrementalStatistics.updateStatistics();
+			}
+
+			AiStatistics completeStatistics = new AiStatistics(mainGrid);
+			completeStatistics.updateStatistics();
+			assertStatisticsEqual(mainGrid, completeStatistics, incrementalStatistics);
+		} finally {
+			mainGrid.stopThreads();
+			JSettlersGame.clearState();
+		}
+	}
+
+	private static void changeGrids(MainGrid mainGrid, Random random) {
+		PartitionsGrid partitionsGrid = mainGrid.getPartitionsGrid();
+		byte numberOfPlayers = partitionsGrid.getNumberOfPlayers();
+
+		for (int i = 0; i < 3; i++) {
+			ShortPoint2D towerPosition = randomPosition(mainGrid, random);
+			partitionsGrid.addTowerAndOccupyArea((byte) random.nextInt(numberOfPlayers), new MapCircle(towerPosition, CommonConstants.TOWER_RADIUS),
+					new FreeMapArea(towerPosition, EBuildingType.TOWER.getProtectedTiles()));
+			if (random.nextBoolean()) {
+				partitionsGrid.removeTowerAndFreeOccupiedArea(towerPosition);
+			}
+		}
+
+		for (int i = 0; i < CHANGES; i++) {
+			ShortPoint2D position = randomPosition(mainGrid, random);
+			short x = position.x;
+			short y = position.y;
+
+			switch (random.nextInt(6)) {
+			case 0:
+				partitionsGrid.changePlayerAt(x, y, (byte) random.nextInt(numberOfPlayers));
+				break;
+			case 1:
+				mainGrid.getLandscapeGrid().setLandscapeTypeAt(x, y, random.nextBoolean() ? ELandscapeType.RIVER1 : ELandscapeType.GRASS);
+				break;
+			case 2:
+				mainGrid.getLandscapeGrid().setResourceAt(x, y, EResourceType.VALUES[random.nextInt(EResourceType.VALUES.length)], (byte) random.nextInt(3));
+				break;
+			case 3:
+				mainGrid.getFlagsGrid().setBlockedAndProtected(x, y, random.nextBoolean(), random.nextBoolean());
+				break;
+			case 4:
+				if (mainGrid.getObjectsGrid().hasMapObjectType(x, y, EMapObjectType.STONE)) {
+					mainGrid.getObjectsGrid().removeMapObjectTypes(x, y, EnumSet.of(EMapObjectType.STONE));
+				} else {
+					mainGrid.getObjectsGrid().addMapObjectAt(x, y, new Stone());
+				}
+				break;
+			case 5:
+				mainGrid.getFlagsGrid().setProtected(x, y, !mainGrid.getFlagsGrid().isProtected(x, y));
+				break;
+			}
+		}
+	}
+
+	private static ShortPoint2D randomPosition(MainGrid mainGrid, Random random) {
+		return new ShortPoint2D(10 + random.nextInt(mainGrid.getWidth() - 20), 10 + random.nextInt(mainGrid.getHeight() - 20));
+	}
+
+	private static void assertStatisticsEqual(MainGrid mainGrid, AiStatistics expected, AiStatistics actual) {
+		assertArrayEquals(expected.getAiMapInformation().resourceAndGrassCount, actual.getAiMapInformation().resourceAndGrassCount);
+
+		for (EResourceType resourceType : EResourceType.VALUES) {
+			assertEquals(expected.resourceCountInDefaultPartition(resourceType), actual.resourceCountInDefaultPartition(resourceType));
+		}
+		ShortPoint2D center = new ShortPoint2D(mainGrid.getWidth() / 2, mainGrid.getHeight() / 2);
+		assertEquals(getAllPositions(filter -> expected.getNearestRiverPointInDefaultPartitionFor(center, Integer.MAX_VALUE, filter)),
+				getAllPositions(filter -> actual.getNearestRiverPointInDefaultPartitionFor(center, Integer.MAX_VALUE, filter)));
+		for (EMapObjectType cuttableObject : new EMapObjectType[] { EMapObjectType.TREE_ADULT, EMapObjectType.STONE }) {
+			assertEquals(
+					getAllPositions(filter -> expected.getNearestCuttableObjectPointInDefaultPartitionFor(center, cuttableObject, Integer.MAX_VALUE, filter)),
+					getAllPositions(filter -> actual.getNearestCuttableObjectPointInDefaultPartitionFor(center, cuttableObject, Integer.MAX_VALUE, filter)));
+		}
+
+		for (byte playerId = 0; playerId < mainGrid.getPartitionsGrid().getNumberOfPlayers(); playerId++) {
+			final byte currentPlayerId = playerId;
+			for (EResourceType resourceType : EResourceType.VALUES) {
+				assertEquals(expected.resourceCountOfPlayer(resourceType, playerId), actual.resourceCountOfPlayer(resourceType, playerId));
+				assertEquals(
+						getAllPositions(filter -> expected.getNearestResourcePointForPlayer(center, resourceType, currentPlayerId, Integer.MAX_VALUE, filter)),
+						getAllPositions(filter -> actual.getNearestResourcePointForPlayer(center, resourceType, currentPlayerId, Integer.MAX_VALUE, filter)));
+			}
+			for (EMovableType movableType : EMovableType.VALUES) {
+				assertEquals(expected.getPositionsOfMovablesWithTypeForPlayer(playerId, movableType),
+						actual.getPositionsOfMovablesWithTypeForPlayer(playerId, movableType));
+			}
+			assertEquals(expected.getPositionsOfJoblessBearersForPlayer(playerId), actual.getPositionsOfJoblessBearersForPlayer(playerId));
+			assertEquals(expected.getTotalWineCountForPlayer(playerId), actual.getTotalWineCountForPlayer(playerId));
+			assertPositionsEqual(expected.getLandForPlayer(playerId), actual.getLandForPlayer(playerId));
+			assertPositionsEqual(expected.getStonesForPlayer(playerId), actual.getStonesForPlayer(playerId));
+			assertPositionsEqual(expected.getTreesForPlayer(playerId), actual.getTreesForPlayer(playerId));
+			assertPositionsEqual(expected.getRiversForPlayer(playerId), actual.getRiversForPlayer(playerId));
+			assertPositionsEqual(expected.getStonesNearBy(playerId), actual.getStonesNearBy(playerId));
+			assertPositionsEqual(expected.getBorderIngestibleByPioneersOf(playerId), actual.getBorderIngestibleByPioneersOf(playerId));
+			assertPositionsEqual(expected.getOtherPartitionBorderOf(playerId), actual.getOtherPartitionBorderOf(playerId));
+			assertPositionsEqual(expected.getEnemiesInTownOf(playerId), actual.getEnemiesInTownOf(playerId));
+		}
+	}
+
+	private static void assertPositionsEqual(AiPositions expected, AiPositions actual) {
+		assertEquals(expected.stream().toList(), actual.stream().toList());
+	}
+
+	/**
+	 * Collects all positions of a set by a nearest point search with a filter that rejects every position.
+	 */
+	private static List<ShortPoint2D> getAllPositions(INearestPointSearch search) {
+		List<ShortPoint2D> positions = new ArrayList<>();
+		search.getNearestPoint((x, y) -> {
+			positions.add(new ShortPoint2D(x, y));
+			return false;
+		});
+		return positions;
+	}
+
+	private interface INearestPointSearch {
+		ShortPoint2D getNearestPoint(AiPositions.AiPositionFilter filter);
+	}
+}
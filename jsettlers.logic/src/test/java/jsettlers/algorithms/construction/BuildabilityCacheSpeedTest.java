@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.construction;
+
+import java.io.IOException;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import jsettlers.common.buildings.EBuildingType;
+import jsettlers.common.logging.MilliStopWatch;
+import jsettlers.integration.replay.AutoReplaySetting;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.MainGrid;
+import jsettlers.logic.map.grid.partition.PartitionsGrid;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.player.PlayerSetting;
+import jsettlers.main.JSettlersGame;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+import jsettlers.testutils.TestUtils;
+import jsettlers.testutils.map.MapUtils;
+
+/**
+ * Compares the construction checks using the {@link BuildabilityCache} with the former implementation that checked the whole building area on every
+ * call. Like the construction position finders of the AI, every pass checks every building type on the land of every player.
+ */
+public class BuildabilityCacheSpeedTest {
+	private static final int PASSES = 5;
+
+	@BeforeClass
+	public static void setupResourceManager() throws IOException {
+		TestUtils.setupTempResourceManager();
+	}
+
+	@Test
+	public void testSpeed() throws MapLoadException {
+		MapLoader savegame = MapUtils.getMap(AutoReplaySetting.class, "fullproduction/savegame-40m.zmap");
+		MatchConstants.init(new NetworkTimer(true), 0L);
+		MainGrid mainGrid = savegame.loadMainGrid(PlayerSetting.createDefaultSettings((byte) 0, (byte) savegame.getMaxPlayers())).getMainGrid();
+
+		try {
+			AbstractConstructionMarkableMap map = mainGrid.getConstructionMarksGrid();
+			checkLandOfPlayers(mainGrid, map, false); // warm up
+			checkLandOfPlayers(mainGrid, map, true);
+
+			MilliStopWatch watch = new MilliStopWatch();
+			long newChecksum = 0;
+			for (int pass = 0; pass < PASSES; pass++) {
+				newChecksum += checkLandOfPlayers(mainGrid, map, false);
+			}
+			watch.stop(PASSES + " passes with cached buildabilities needed");
+
+			watch.restart();
+			long oldChecksum = 0;
+			for (int pass = 0; pass < PASSES; pass++) {
+				oldChecksum += checkLandOfPlayers(mainGrid, map, true);
+			}
+			watch.stop(PASSES + " passes checking the building areas needed");
+
+			if (oldChecksum != newChecksum) {
+				throw new AssertionError("constructible positions differ");
+			}
+		} finally {
+			mainGrid.stopThreads();
+			JSettlersGame.clearState();
+		}
+	}
+
+	private static long checkLandOfPlayers(MainGrid mainGrid, AbstractConstructionMarkableMap map, boolean withoutCache) {
+		PartitionsGrid partitionsGrid = mainGrid.getPartitionsGrid();
+		long checksum = 0;
+
+		for (int y = 0; y < mainGrid.getHeight(); y++) {
+			for (int x = 0; x < mainGrid.getWidth(); x++) {
+				byte playerId = partitionsGrid.getPlayerIdAt(x, y);
+				if (playerId < 0) {
+					continue;
+				}
+
+				for (EBuildingType buildingType : EBuildingType.VALUES) {
+					boolean canConstruct = withoutCache
+						? BuildabilityCacheTest.canConstructAtWithoutCache(map, x, y, buildingType, playerId)
+						: map.canConstructAt(x, y, buildingType, playerId);
+					if (canConstruct) {
+						checksum += x * 31 + y * 7919 + buildingType.ordinal;
+					}
+				}
+			}
+		}
+		return checksum;
+	}
+}
@@ -0,0 +1,262 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.construction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import jsettlers.common.CommonConstants;
+import jsettlers.common.buildings.BuildingAreaBitSet;
+import jsettlers.common.buildings.EBuildingType;
+import jsettlers.common.landscape.ELandscapeType;
+import jsettlers.common.map.shapes.FreeMapArea;
+import jsettlers.common.map.shapes.MapCircle;
+import jsettlers.common.position.RelativePoint;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.integration.replay.AutoReplaySetting;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.MainGrid;
+import jsettlers.logic.map.grid.partition.PartitionsGrid;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.player.PlayerSetting;
+import jsettlers.main.JSettlersGame;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+import jsettlers.testutils.TestUtils;
+import jsettlers.testutils.map.MapUtils;
+
+/**
+ * Checks that the construction checks using the {@link BuildabilityCache} equal the checks without cache after the grids have been changed.
+ */
+public class BuildabilityCacheTest {
+	private static final int CHANGES = 300;
+	private static final int SPLIT_AREA_SIZE = 30;
+
+	@BeforeClass
+	public static void setupResourceManager() throws IOException {
+		TestUtils.setupTempResourceManager();
+	}
+
+	@Test
+	public void testCachedBuildabilitiesEqualCalculatedBuildabilities() throws MapLoadException {
+		MapLoader savegame = MapUtils.getMap(AutoReplaySetting.class, "fullproduction/savegame-40m.zmap");
+		MatchConstants.init(new NetworkTimer(true), 0L);
+		MainGrid mainGrid = savegame.loadMainGrid(PlayerSetting.createDefaultSettings((byte) 0, (byte) savegame.getMaxPlayers())).getMainGrid();
+
+		try {
+			AbstractConstructionMarkableMap map = mainGrid.getConstructionMarksGrid();
+			Random random = new Random(1);
+
+			assertTrue(assertCanConstructAt(mainGrid, map) > 0);
+			for (int round = 0; round < 3; round++) {
+				changeGrids(mainGrid, random);
+				assertCanConstructAt(mainGrid, map);
+			}
+		} finally {
+			mainGrid.stopThreads();
+			JSettlersGame.clearState();
+		}
+	}
+
+	@Test
+	public void testSplittingPartitionUnderCachedAreaInvalidatesIt() throws MapLoadException {
+		MapLoader savegame = MapUtils.getMap(AutoReplaySetting.class, "fullproduction/savegame-40m.zmap");
+		MatchConstants.init(new NetworkTimer(true), 0L);
+		MainGrid mainGrid = savegame.loadMainGrid(PlayerSetting.createDefaultSettings((byte) 0, (byte) savegame.getMaxPlayers())).getMainGrid();
+
+		try {
+			AbstractConstructionMarkableMap map = mainGrid.getConstructionMarksGrid();
+			PartitionsGrid partitionsGrid = mainGrid.getPartitionsGrid();
+			ShortPoint2D corner = findFreeArea(mainGrid, SPLIT_AREA_SIZE);
+			assertNotNull(corner);
+
+			// occupy the free area and cache its buildabilities
+			for (int y = corner.y; y < corner.y + SPLIT_AREA_SIZE; y++) {
+				for (int x = corner.x; x < corner.x + SPLIT_AREA_SIZE; x++) {
+					partitionsGrid.changePlayerAt(x, y, (byte) 0);
+				}
+			}
+			short[] partitionsBefore = new short[SPLIT_AREA_SIZE * SPLIT_AREA_SIZE];
+			int buildable = 0;
+			for (int y = corner.y; y < corner.y + SPLIT_AREA_SIZE; y++) {
+				for (int x = corner.x; x < corner.x + SPLIT_AREA_SIZE; x++) {
+					partitionsBefore[(x - corner.x) + (y - corner.y) * SPLIT_AREA_SIZE] = map.getPartitionIdAt(x, y);
+					buildable += map.canConstructAt(x, y, EBuildingType.LUMBERJACK, (byte) 0) ? 1 : 0;
+				}
+			}
+			assertTrue(buildable > 0);
+
+			// split the partition with a row of another player, the smaller part gets a new partition id
+			int invalidationsBeforeSplit = map.getBuildabilityCache().getInvalidations();
+			int splitY = corner.y + SPLIT_AREA_SIZE / 3;
+			for (int x = corner.x; x < corner.x + SPLIT_AREA_SIZE; x++) {
+				partitionsGrid.changePlayerAt(x, splitY, (byte) 1);
+			}
+
+			BitSet invalidatedPositions = new BitSet(map.getWidth() * map.getHeight());
+			assertTrue(map.getBuildabilityCache().forEachInvalidatedPositionSince(invalidationsBeforeSplit,
+					(x, y) -> invalidatedPositions.set(x + y * map.getWidth())));
+
+			int relabeled = 0;
+			for (int y = corner.y; y < corner.y + SPLIT_AREA_SIZE; y++) {
+				for (int x = corner.x; x < corner.x + SPLIT_AREA_SIZE; x++) {
+					if (y != splitY && map.getPartitionIdAt(x, y) != partitionsBefore[(x - corner.x) + (y - corner.y) * SPLIT_AREA_SIZE]) {
+						assertEquals("cached buildability at " + x + "|" + y, BuildabilityCache.UNKNOWN,
+								map.getBuildabilityCache().getCachedBuildability(x, y, EBuildingType.LUMBERJACK));
+						assertTrue("invalidation log at " + x + "|" + y, invalidatedPositions.get(x + y * map.getWidth()));
+						relabeled++;
+					}
+				}
+			}
+			assertTrue(relabeled > 0);
+
+			for (EBuildingType buildingType : EBuildingType.VALUES) {
+				for (int y = corner.y; y < corner.y + SPLIT_AREA_SIZE; y++) {
+					for (int x = corner.x; x < corner.x + SPLIT_AREA_SIZE; x++) {
+						for (byte playerId = 0; playerId < 2; playerId++) {
+							assertEquals(buildingType + " at " + x + "|" + y + " for player " + playerId, canConstructAtWithoutCache(map, x, y, buildingType, playerId),
+									map.canConstructAt(x, y, buildingType, playerId));
+						}
+					}
+				}
+			}
+		} finally {
+			mainGrid.stopThreads();
+			JSettlersGame.clearState();
+		}
+	}
+
+	/**
+	 * @return The upper left corner of an area of the given size that is not occupied by any player and not blocked or null if there is no such area.
+	 */
+	private static ShortPoint2D findFreeArea(MainGrid mainGrid, int size) {
+		for (int cornerY = 10; cornerY + size < mainGrid.getHeight() - 10; cornerY += size / 2) {
+			for (int cornerX = 10; cornerX + size < mainGrid.getWidth() - 10; cornerX += size / 2) {
+				if (isFreeArea(mainGrid, cornerX, cornerY, size)) {
+					return new ShortPoint2D(cornerX, cornerY);
+				}
+			}
+		}
+		return null;
+	}
+
+	private static boolean isFreeArea(MainGrid mainGrid, int cornerX, int cornerY, int size) {
+		for (int y = cornerY; y < cornerY + size; y++) {
+			for (int x = cornerX; x < cornerX + size; x++) {
+				if (mainGrid.getPartitionsGrid().getPlayerIdAt(x, y) >= 0 || mainGrid.getFlagsGrid().isBlocked(x, y)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static void changeGrids(MainGrid mainGrid, Random random) {
+		PartitionsGrid partitionsGrid = mainGrid.getPartitionsGrid();
+		byte numberOfPlayers = partitionsGrid.getNumberOfPlayers();
+
+		for (int i = 0; i < 3; i++) {
+			ShortPoint2D towerPosition = randomPosition(mainGrid, random);
+			partitionsGrid.addTowerAndOccupyArea((byte) random.nextInt(numberOfPlayers), new MapCircle(towerPosition, CommonConstants.TOWER_RADIUS),
+					new FreeMapArea(towerPosition, EBuildingType.TOWER.getProtectedTiles()));
+			if (random.nextBoolean()) {
+				partitionsGrid.removeTowerAndFreeOccupiedArea(towerPosition);
+			}
+		}
+
+		for (int i = 0; i < CHANGES; i++) {
+			ShortPoint2D position = randomPosition(mainGrid, random);
+			short x = position.x;
+			short y = position.y;
+
+			switch (random.nextInt(5)) {
+			case 0:
+				partitionsGrid.changePlayerAt(x, y, (byte) random.nextInt(numberOfPlayers));
+				break;
+			case 1:
+				mainGrid.getLandscapeGrid().setLandscapeTypeAt(x, y, random.nextBoolean() ? ELandscapeType.RIVER1 : ELandscapeType.GRASS);
+				break;
+			case 2:
+				mainGrid.getLandscapeGrid().setHeightAt(x, y, (byte) random.nextInt(30));
+				break;
+			case 3:
+				mainGrid.getFlagsGrid().setBlockedAndProtected(x, y, random.nextBoolean(), random.nextBoolean());
+				break;
+			case 4:
+				mainGrid.getFlagsGrid().setProtected(x, y, !mainGrid.getFlagsGrid().isProtected(x, y));
+				break;
+			}
+		}
+	}
+
+	private static ShortPoint2D randomPosition(MainGrid mainGrid, Random random) {
+		return new ShortPoint2D(10 + random.nextInt(mainGrid.getWidth() - 20), 10 + random.nextInt(mainGrid.getHeight() - 20));
+	}
+
+	/**
+	 * @return The number of positions at which a building can be constructed.
+	 */
+	private static int assertCanConstructAt(MainGrid mainGrid, AbstractConstructionMarkableMap map) {
+		byte numberOfPlayers = mainGrid.getPartitionsGrid().getNumberOfPlayers();
+		int constructible = 0;
+
+		for (EBuildingType buildingType : EBuildingType.VALUES) {
+			for (int y = 0; y < mainGrid.getHeight(); y++) {
+				for (int x = 0; x < mainGrid.getWidth(); x++) {
+					for (byte playerId = 0; playerId < numberOfPlayers; playerId++) {
+						boolean expected = canConstructAtWithoutCache(map, x, y, buildingType, playerId);
+						assertEquals(buildingType + " at " + x + "|" + y + " for player " + playerId, expected, map.canConstructAt(x, y, buildingType, playerId));
+						constructible += expected ? 1 : 0;
+					}
+				}
+			}
+		}
+		return constructible;
+	}
+
+	/**
+	 * The former implementation of {@link AbstractConstructionMarkableMap#canConstructAt(int, int, EBuildingType, byte)}.
+	 */
+	static boolean canConstructAtWithoutCache(AbstractConstructionMarkableMap map, int x, int y, EBuildingType buildingType, byte playerId) {
+		RelativePoint[] buildingArea = buildingType.getBuildingArea();
+		BuildingAreaBitSet areaBitSet = buildingType.getBuildingAreaBitSet();
+		if (!map.isInBounds(areaBitSet.minX + x, areaBitSet.minY + y) || !map.isInBounds(areaBitSet.maxX + x, areaBitSet.maxY + y)) {
+			return false;
+		}
+
+		short partitionId = map.getPartitionIdAt(areaBitSet.aPosition.calculateX(x), areaBitSet.aPosition.calculateY(y));
+
+		if (!map.canPlayerConstructOnPartition(playerId, partitionId)) {
+			return false;
+		}
+		for (RelativePoint curr : buildingArea) {
+			int currX = curr.calculateX(x);
+			int currY = curr.calculateY(y);
+
+			if (!map.canUsePositionForConstruction(currX, currY, buildingType.getRequiredGroundTypeAt(currX, currY), partitionId)) {
+				return false;
+			}
+		}
+		return !buildingType.needsFlattenedGround() || map.calculateConstructionMarkValue(x, y, buildingArea) >= 0;
+	}
+}
@@ -15,6 +15,7 @@
 package jsettlers.algorithms.construction;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.util.BitSet;
 import java.util.Set;
@@ -67,6 +68,83 @@ public class ConstructionMarksAlgorithmTest {
 		}
 	}
 
+	@Test
+	public void testIncrementalCalculation() {
+		CachingTestMap map = new CachingTestMap(new boolean[30][40]);
+		BuildingAreaBitSet buildingSet = new BuildingAreaBitSet(EBuildingType.TOWER.getBuildingArea());
+		NewConstructionMarksAlgorithm algorithm = new NewConstructionMarksAlgorithm(map, (byte) 0);
+
+		MapRectangle mapArea = new MapRectangle(0, 0, 30, 20);
+		algorithm.calculateConstructMarks(mapArea, EBuildingType.TOWER);
+		int allPositions = algorithm.getEvaluatedPositions();
+		assertMarks(map, mapArea, buildingSet);
+
+		algorithm.calculateConstructMarks(mapArea, EBuildingType.TOWER);
+		assertEquals(0, algorithm.getEvaluatedPositions());
+
+		map.setBlocked(12, 8);
+		map.setBlocked(13, 8);
+		MapRectangle movedMapArea = new MapRectangle(3, 2, 30, 20);
+		algorithm.calculateConstructMarks(movedMapArea, EBuildingType.TOWER);
+		assertTrue(algorithm.getEvaluatedPositions() > 0);
+		assertTrue(algorithm.getEvaluatedPositions() < allPositions / 2);
+		assertMarks(map, movedMapArea, buildingSet);
+	}
+
+	@Test
+	public void testBuildabilityCacheIsOnlyRead() {
+		CachingTestMap map = new CachingTestMap(new boolean[30][40]);
+		map.setBlocked(12, 8);
+		NewConstructionMarksAlgorithm algorithm = new NewConstructionMarksAlgorithm(map, (byte) 0);
+
+		MapRectangle mapArea = new MapRectangle(0, 0, 30, 20);
+		algorithm.calculateConstructMarks(mapArea, EBuildingType.TOWER);
+		assertMarks(map, mapArea, new BuildingAreaBitSet(EBuildingType.TOWER.getBuildingArea()));
+
+		for (int y = 0; y < map.height; y++) {
+			for (int x = 0; x < map.width; x++) {
+				assertEquals(x + "|" + y, BuildabilityCache.UNKNOWN, map.getBuildabilityCache().getCachedBuildability(x, y, EBuildingType.TOWER));
+			}
+		}
+	}
+
+	@Test
+	public void testMergedPartitionsAreCalculatedAgain() {
+		CachingTestMap map = new CachingTestMap(new boolean[30][40]);
+		for (int y = 0; y < map.height; y++) {
+			for (int x = 20; x < map.width; x++) {
+				map.partitions[x + y * map.width] = 1;
+			}
+		}
+		BuildingAreaBitSet buildingSet = new BuildingAreaBitSet(EBuildingType.TOWER.getBuildingArea());
+		NewConstructionMarksAlgorithm algorithm = new NewConstructionMarksAlgorithm(map, (byte) 0);
+
+		MapRectangle mapArea = new MapRectangle(0, 0, 30, 20);
+		algorithm.calculateConstructMarks(mapArea, EBuildingType.TOWER);
+		assertMarks(map, mapArea, buildingSet);
+
+		// merge the partitions, only the positions at the merge border are reported like by the PartitionsGrid
+		for (int y = 0; y < map.height; y++) {
+			for (int x = 20; x < map.width; x++) {
+				map.partitions[x + y * map.width] = 0;
+			}
+			map.partitionChangedAt(19, y);
+			map.partitionChangedAt(20, y);
+		}
+		algorithm.calculateConstructMarks(mapArea, EBuildingType.TOWER);
+		assertTrue(algorithm.getEvaluatedPositions() > 0);
+		assertMarks(map, mapArea, buildingSet);
+	}
+
+	private void assertMarks(TestMap map, MapRectangle mapArea, BuildingAreaBitSet buildingSet) {
+		for (int y = 0; y < map.height; y++) {
+			for (int x = 0; x < map.width; x++) {
+				boolean expected = mapArea.contains(x, y) && canCostructAt(map, x, y, buildingSet);
+				assertEquals(x + "|" + y, expected, map.marksSet[x + y * map.width] > 0);
+			}
+		}
+	}
+
 	@SuppressWarnings("unused")
 	private void print(TestMap map, boolean[][] blocked, BuildingAreaBitSet buildingSet) {
 		System.out.println("blocked | marksSet | canConstruct");
@@ -110,12 +188,18 @@ public class ConstructionMarksAlgorithmTest {
 	}
 
 	private boolean canCostructAt(TestMap map, int x, int y, BuildingAreaBitSet buildingSet) {
+		if (!map.isInBounds(buildingSet.aPosition.calculateX(x), buildingSet.aPosition.calculateY(y))) {
+			return false;
+		}
+		short partitionId = map.getPartitionIdAt(buildingSet.aPosition.calculateX(x), buildingSet.aPosition.calculateY(y));
+
 		for (int dx = 0; dx < buildingSet.width; dx++) {
 			for (int dy = 0; dy < buildingSet.height; dy++) {
 				int currX = dx + x + buildingSet.minX;
 				int currY = dy + y + buildingSet.minY;
 				if (buildingSet.bitSet.get(dx + dy * buildingSet.width)
-						&& (!map.isInBounds(currX, currY) || map.blockedSet.get(currX + currY * map.width))) {
+						&& (!map.isInBounds(currX, currY) || map.blockedSet.get(currX + currY * map.width)
+								|| map.getPartitionIdAt(currX, currY) != partitionId)) {
 					return false;
 				}
 			}
@@ -130,6 +214,7 @@ public class ConstructionMarksAlgorithmTest {
 
 		int[] marksSet;
 		BitSet blockedSet;
+		short[] partitions;
 
 		public TestMap(boolean[][] blocked) {
 			height = (short) blocked.length;
@@ -137,6 +222,7 @@ public class ConstructionMarksAlgorithmTest {
 
 			marksSet = new int[width * height];
 			blockedSet = new BitSet(width * height);
+			partitions = new short[width * height];
 
 			for (int y = 0; y < height; y++) {
 				for (int x = 0; x < width; x++) {
@@ -168,7 +254,7 @@ public class ConstructionMarksAlgorithmTest {
 
 		@Override
 		public boolean canUsePositionForConstruction(int x, int y, Set<ELandscapeType> landscapeTypes, short partitionId) {
-			return isInBounds(x, y) && !blockedSet.get(x + y * width);
+			return isInBounds(x, y) && !blockedSet.get(x + y * width) && partitions[x + y * width] == partitionId;
 		}
 
 		@Override
@@ -187,7 +273,7 @@ public class ConstructionMarksAlgorithmTest {
 
 		@Override
 		public short getPartitionIdAt(int x, int y) {
-			return 0;
+			return partitions[x + y * width];
 		}
 
 		@Override
@@ -206,4 +292,32 @@ public class ConstructionMarksAlgorithmTest {
 		}
 
 	}
+
+	public class CachingTestMap extends TestMap {
+		private final BuildabilityCache buildabilityCache;
+
+		public CachingTestMap(boolean[][] blocked) {
+			super(blocked);
+			buildabilityCache = new BuildabilityCache(this);
+		}
+
+		public void setBlocked(int x, int y) {
+			blockedSet.set(x + y * width);
+			buildabilityCache.invalidateAround(x, y);
+		}
+
+		public void partitionChangedAt(int x, int y) {
+			buildabilityCache.invalidateAround(x, y);
+		}
+
+		@Override
+		public byte calculateConstructionMarkValue(int mapX, int mapY, final RelativePoint[] flattenPositions) {
+			return 0;
+		}
+
+		@Override
+		public BuildabilityCache getBuildabilityCache() {
+			return buildabilityCache;
+		}
+	}
 }
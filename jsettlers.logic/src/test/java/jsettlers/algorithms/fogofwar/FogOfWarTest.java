@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.fogofwar;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jsettlers.common.CommonConstants;
+import jsettlers.common.player.IPlayer;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.constants.MatchConstants;
+
+/**
+ * Tests the incremental update of the {@link FogOfWar} against a full rebuild of the sight.
+ */
+public class FogOfWarTest {
+	private static final short WIDTH = 150;
+	private static final short HEIGHT = 130;
+	private static final byte TEAM = 0;
+
+	private final FogOfWar fogOfWar = new FogOfWar(WIDTH, HEIGHT, new IPlayer.DummyPlayer(TEAM));
+	private final byte[] expectedSight = new byte[WIDTH * HEIGHT];
+	private final byte[] expectedView = new byte[WIDTH * HEIGHT];
+	private final FogOfWar.CircleDrawer expectedDrawer = fogOfWar.new CircleDrawer(expectedView);
+
+	@Before
+	public void setUp() {
+		// the defaults depend on constants that may have been changed by other tests
+		MatchConstants.ENABLE_ALL_PLAYER_FOG_OF_WAR = false;
+		fogOfWar.setEnabled(true);
+	}
+
+	@Test
+	public void testEmptyMapStaysUnexplored() {
+		fogOfWar.updateSight(Collections.emptyList(), Collections.emptyList());
+
+		assertArrayEquals(new byte[WIDTH * HEIGHT], fogOfWar.sight);
+		assertEquals(0, fogOfWar.getLastDrawnCircles());
+		assertEquals(0, fogOfWar.getLastUpdatedBlocks());
+	}
+
+	@Test
+	public void testRemovedViewerDimsDownToExplored() {
+		List<ViewDistancable> viewers = new ArrayList<>();
+		viewers.add(new ViewDistancable(TEAM, 40, 50, 8));
+
+		updateAndAssertEqual(viewers, Collections.emptyList());
+		assertEquals(CommonConstants.FOG_OF_WAR_VISIBLE, fogOfWar.getVisibleStatus(40, 50));
+
+		viewers.clear();
+		for (int i = 0; i < 10; i++) {
+			updateAndAssertEqual(viewers, Collections.emptyList());
+		}
+		assertEquals(CommonConstants.FOG_OF_WAR_EXPLORED, fogOfWar.getVisibleStatus(40, 50));
+		assertEquals(0, fogOfWar.getLastUpdatedBlocks());
+	}
+
+	@Test
+	public void testLoadedSightDimsDownWithoutViewers() throws IOException, ClassNotFoundException {
+		List<ViewDistancable> viewers = new ArrayList<>();
+		viewers.add(new ViewDistancable(TEAM, 40, 50, 8));
+		updateAndAssertEqual(viewers, Collections.emptyList());
+
+		FogOfWar loadedFogOfWar = serializeAndDeserialize(fogOfWar);
+		assertEquals(CommonConstants.FOG_OF_WAR_VISIBLE, loadedFogOfWar.getVisibleStatus(40, 50));
+
+		for (int i = 0; i < 10; i++) {
+			loadedFogOfWar.updateSight(Collections.emptyList(), Collections.emptyList());
+		}
+		assertEquals(CommonConstants.FOG_OF_WAR_EXPLORED, loadedFogOfWar.getVisibleStatus(40, 50));
+		assertEquals(0, loadedFogOfWar.getLastUpdatedBlocks());
+	}
+
+	@Test
+	public void testStaticViewersOnlyDrawOnce() {
+		List<ViewDistancable> viewers = new ArrayList<>();
+		viewers.add(new ViewDistancable(TEAM, 20, 20, 10));
+		viewers.add(new ViewDistancable(TEAM, 120, 100, 15));
+
+		updateAndAssertEqual(viewers, Collections.emptyList());
+		assertEquals(2, fogOfWar.getLastDrawnCircles());
+
+		for (int i = 0; i < 3; i++) {
+			updateAndAssertEqual(viewers, Collections.emptyList());
+			assertEquals(0, fogOfWar.getLastDrawnCircles());
+		}
+	}
+
+	@Test
+	public void testRandomMovementMatchesFullRebuild() {
+		Random random = new Random(4711);
+		List<ViewDistancable> buildings = new ArrayList<>();
+		List<ViewDistancable> movables = new ArrayList<>();
+
+		for (int i = 0; i < 10; i++) {
+			buildings.add(randomViewer(random));
+		}
+		for (int i = 0; i < 60; i++) {
+			movables.add(randomViewer(random));
+		}
+
+		for (int cycle = 0; cycle < 40; cycle++) {
+			for (ViewDistancable movable : movables) {
+				if (random.nextInt(3) == 0) {
+					movable.move(random.nextInt(5) - 2, random.nextInt(5) - 2);
+				}
+			}
+			if (random.nextInt(4) == 0) {
+				movables.remove(random.nextInt(movables.size()));
+			}
+			if (random.nextInt(4) == 0) {
+				movables.add(randomViewer(random));
+			}
+			if (random.nextInt(10) == 0) {
+				buildings.get(random.nextInt(buildings.size())).viewDistance = 0;
+			}
+
+			updateAndAssertEqual(buildings, movables);
+		}
+	}
+
+	private void updateAndAssertEqual(List<ViewDistancable> buildings, List<ViewDistancable> movables) {
+		fogOfWar.updateSight(buildings, movables);
+		rebuildExpectedSight(buildings, movables);
+		assertArrayEquals(expectedSight, fogOfWar.sight);
+	}
+
+	private void rebuildExpectedSight(List<ViewDistancable> buildings, List<ViewDistancable> movables) {
+		for (int i = 0; i < expectedSight.length; i++) {
+			byte sight = expectedSight[i];
+			if (sight >= CommonConstants.FOG_OF_WAR_EXPLORED) {
+				sight = (byte) Math.max(sight - 10, CommonConstants.FOG_OF_WAR_EXPLORED);
+			}
+			expectedView[i] = sight;
+		}
+
+		drawExpected(buildings);
+		drawExpected(movables);
+		System.arraycopy(expectedView, 0, expectedSight, 0, expectedSight.length);
+	}
+
+	private void drawExpected(List<ViewDistancable> viewers) {
+		for (ViewDistancable viewer : viewers) {
+			if (viewer.getPlayer().getTeamId() == TEAM && viewer.viewDistance > 0) {
+				expectedDrawer.drawCircleToBuffer(viewer.x, viewer.y, viewer.viewDistance);
+			}
+		}
+	}
+
+	private static FogOfWar serializeAndDeserialize(FogOfWar fogOfWar) throws IOException, ClassNotFoundException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(fogOfWar);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			return (FogOfWar) in.readObject();
+		}
+	}
+
+	private static ViewDistancable randomViewer(Random random) {
+		byte team = random.nextInt(4) == 0 ? 1 : TEAM;
+		return new ViewDistancable(team, random.nextInt(WIDTH), random.nextInt(HEIGHT), 3 + random.nextInt(20));
+	}
+
+	private static class ViewDistancable implements IViewDistancable {
+		private final IPlayer player;
+		private int x;
+		private int y;
+		private short viewDistance;
+
+		ViewDistancable(byte team, int x, int y, int viewDistance) {
+			this.player = new IPlayer.DummyPlayer(team);
+			this.x = x;
+			this.y = y;
+			this.viewDistance = (short) viewDistance;
+		}
+
+		void move(int dx, int dy) {
+			x = Math.max(0, Math.min(WIDTH - 1, x + dx));
+			y = Math.max(0, Math.min(HEIGHT - 1, y + dy));
+		}
+
+		@Override
+		public short getViewDistance() {
+			return viewDistance;
+		}
+
+		@Override
+		public ShortPoint2D getPosition() {
+			return new ShortPoint2D(x, y);
+		}
+
+		@Override
+		public IPlayer getPlayer() {
+			return player;
+		}
+	}
+}
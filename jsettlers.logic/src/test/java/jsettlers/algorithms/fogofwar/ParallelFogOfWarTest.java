@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.fogofwar;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import jsettlers.common.CommonConstants;
+import jsettlers.common.player.IPlayer;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.integration.replay.AutoReplaySetting;
+import jsettlers.logic.buildings.Building;
+import jsettlers.logic.constants.Constants;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.movable.Movable;
+import jsettlers.main.replay.ReplayUtils;
+import jsettlers.testutils.TestUtils;
+
+/**
+ * Tests that the parallel update of the {@link FogOfWar} creates exactly the same sight as the serial update. The positions of the buildings and
+ * movables are recorded while playing the fullproduction replay.
+ */
+public class ParallelFogOfWarTest {
+	private static final int[] RECORDED_MINUTES = { 1, 2, 3, 4, 6, 8, 10 };
+	private static final int CYCLES_PER_SNAPSHOT = 3;
+	private static final short WIDTH = 500;
+	private static final short HEIGHT = 500;
+
+	@BeforeClass
+	public static void setupConstants() {
+		CommonConstants.CONTROL_ALL = true;
+		Constants.FOG_OF_WAR_DEFAULT_ENABLED = false;
+
+		TestUtils.setupTempResourceManager();
+	}
+
+	@Test
+	public void testParallelEqualsSerialOnReplayPositions() throws MapLoadException {
+		List<Snapshot> snapshots = new ArrayList<>();
+		AutoReplaySetting replay = AutoReplaySetting.getDefaultSettings().iterator().next();
+		ReplayUtils.replayAndVisitTargetTimes(replay.getReplayFile(), mainGrid -> snapshots.add(new Snapshot(Building.getAllBuildings(), Movable.getAllMovables())),
+				RECORDED_MINUTES);
+		assertFalse(snapshots.isEmpty());
+
+		for (byte team = 0; team < 2; team++) {
+			FogOfWar serial = new FogOfWar(WIDTH, HEIGHT, new IPlayer.DummyPlayer(team));
+			FogOfWar parallel = new FogOfWar(WIDTH, HEIGHT, new IPlayer.DummyPlayer(team));
+			parallel.setParallel(true);
+
+			for (Snapshot snapshot : snapshots) {
+				for (int cycle = 0; cycle < CYCLES_PER_SNAPSHOT; cycle++) {
+					serial.updateSight(snapshot.buildings, snapshot.movables);
+					parallel.updateSight(snapshot.buildings, snapshot.movables);
+
+					assertArrayEquals(serial.sight, parallel.sight);
+				}
+			}
+
+			System.out.println("team " + team + " serial" + serial.getUpdateStopWatch());
+			System.out.println("team " + team + " parallel" + parallel.getUpdateStopWatch());
+		}
+	}
+
+	private static class Snapshot {
+		private final List<RecordedViewDistancable> buildings = new ArrayList<>();
+		private final List<RecordedViewDistancable> movables = new ArrayList<>();
+
+		Snapshot(Iterable<? extends IViewDistancable> buildings, Iterable<? extends IViewDistancable> movables) {
+			record(buildings, this.buildings);
+			record(movables, this.movables);
+		}
+
+		private static void record(Iterable<? extends IViewDistancable> objects, List<RecordedViewDistancable> recorded) {
+			for (IViewDistancable object : objects) {
+				recorded.add(new RecordedViewDistancable(object));
+			}
+		}
+	}
+
+	/**
+	 * A copy of an {@link IViewDistancable} that stays valid after the state of the game has been cleared.
+	 */
+	private static class RecordedViewDistancable implements IViewDistancable {
+		private final IPlayer player;
+		private final ShortPoint2D position;
+		private final short viewDistance;
+
+		RecordedViewDistancable(IViewDistancable original) {
+			this.player = new IPlayer.DummyPlayer(original.getPlayer().getTeamId());
+			this.position = original.getPosition();
+			this.viewDistance = original.getViewDistance();
+		}
+
+		@Override
+		public short getViewDistance() {
+			return viewDistance;
+		}
+
+		@Override
+		public ShortPoint2D getPosition() {
+			return position;
+		}
+
+		@Override
+		public IPlayer getPlayer() {
+			return player;
+		}
+	}
+}
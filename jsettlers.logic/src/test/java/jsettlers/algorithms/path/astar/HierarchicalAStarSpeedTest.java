@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.astar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.common.Color;
+import jsettlers.common.logging.MilliStopWatch;
+import jsettlers.common.player.IPlayer;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.MainGrid;
+import jsettlers.logic.map.grid.MainGridDataAccessor;
+import jsettlers.logic.map.grid.flags.FlagsGrid;
+import jsettlers.logic.map.grid.landscape.LandscapeGrid;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.map.loading.list.MapList;
+import jsettlers.main.JSettlersGame;
+import jsettlers.main.swing.resources.SwingResourceLoader;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+
+/**
+ * Compares the speed and the path lengths of the {@link BucketQueueAStar} and the {@link HierarchicalAStar} for long paths on all maps in the
+ * maps folder.
+ */
+public class HierarchicalAStarSpeedTest {
+	private static final int NUMBER_OF_PATHS = 200;
+	private static final int MIN_PATH_DISTANCE = 100;
+
+	@BeforeClass
+	public static void setupTest() {
+		SwingResourceLoader.setupMapListFactory("../maps", null);
+	}
+
+	@Test
+	public void testSpeedOnAllMaps() throws MapLoadException {
+		for (MapLoader mapLoader : MapList.getDefaultList().getFreshMaps().getItems()) {
+			MatchConstants.init(new NetworkTimer(true), 0);
+			try {
+				MainGrid grid = mapLoader.loadMainGrid(null).getMainGrid();
+				testSpeed(mapLoader.getMapName(), new MainGridDataAccessor(grid));
+			} finally {
+				JSettlersGame.clearState();
+			}
+		}
+	}
+
+	private void testSpeed(String mapName, MainGridDataAccessor gridAccessor) {
+		short width = gridAccessor.getWidth();
+		short height = gridAccessor.getHeight();
+		GridPathMap map = new GridPathMap(gridAccessor.getFlagsGrid(), gridAccessor.getLandscapeGrid());
+
+		List<ShortPoint2D[]> requests = createRequests(map, width, height);
+		if (requests.isEmpty()) {
+			System.out.println(mapName + ": no long paths found");
+			return;
+		}
+
+		BucketQueueAStar aStar = new BucketQueueAStar(map, width, height);
+		HierarchicalAStar hierarchicalAStar = new HierarchicalAStar(map, width, height);
+
+		for (ShortPoint2D[] request : requests) { // warm up the jit and build the entrance graphs
+			hierarchicalAStar.findPath(new Requester(request[0]), request[1]);
+			aStar.findPath(new Requester(request[0]), request[1]);
+		}
+		MilliStopWatch watch = new MilliStopWatch();
+		long flatLength = 0;
+		for (ShortPoint2D[] request : requests) {
+			flatLength += aStar.findPath(new Requester(request[0]), request[1]).getLength();
+		}
+		long flatTime = watch.getDiff();
+
+		watch.restart();
+		long hierarchicalLength = 0;
+		for (ShortPoint2D[] request : requests) {
+			hierarchicalLength += hierarchicalAStar.findPath(new Requester(request[0]), request[1]).getLength();
+		}
+		long hierarchicalTime = watch.getDiff();
+
+		System.out.println(mapName + " (" + width + "x" + height + "): " + requests.size() + " paths, BucketQueueAStar: " + flatTime
+				+ " ms, HierarchicalAStar: " + hierarchicalTime + " ms, path lengths: " + flatLength + " / " + hierarchicalLength);
+	}
+
+	private static List<ShortPoint2D[]> createRequests(GridPathMap map, short width, short height) {
+		Random random = new Random(4711);
+		BucketQueueAStar aStar = new BucketQueueAStar(map, width, height);
+		List<ShortPoint2D[]> requests = new ArrayList<>();
+
+		for (int i = 0; i < 100 * NUMBER_OF_PATHS && requests.size() < NUMBER_OF_PATHS; i++) {
+			ShortPoint2D start = new ShortPoint2D(random.nextInt(width), random.nextInt(height));
+			ShortPoint2D target = new ShortPoint2D(random.nextInt(width), random.nextInt(height));
+
+			if (start.getOnGridDistTo(target) >= MIN_PATH_DISTANCE && !map.isBlocked(null, start.x, start.y) && !map.isBlocked(null, target.x, target.y)
+					&& map.getBlockedPartition(start.x, start.y) == map.getBlockedPartition(target.x, target.y)
+					&& aStar.findPath(new Requester(start), target) != null) {
+				requests.add(new ShortPoint2D[] { start, target });
+			}
+		}
+		return requests;
+	}
+
+	private static class GridPathMap implements IAStarPathMap {
+		private final FlagsGrid flagsGrid;
+		private final LandscapeGrid landscapeGrid;
+
+		GridPathMap(FlagsGrid flagsGrid, LandscapeGrid landscapeGrid) {
+			this.flagsGrid = flagsGrid;
+			this.landscapeGrid = landscapeGrid;
+		}
+
+		@Override
+		public boolean isBlocked(IPathCalculatable requester, int x, int y) {
+			return flagsGrid.isBlocked(x, y);
+		}
+
+		@Override
+		public float getCost(int sx, int sy, int tx, int ty) {
+			return 1;
+		}
+
+		@Override
+		public void markAsOpen(int x, int y) {
+		}
+
+		@Override
+		public void markAsClosed(int x, int y) {
+		}
+
+		@Override
+		public void setDebugColor(int x, int y, Color color) {
+		}
+
+		@Override
+		public short getBlockedPartition(int x, int y) {
+			return landscapeGrid.getBlockedPartitionAt(x, y);
+		}
+	}
+
+	private static class Requester implements IPathCalculatable {
+		private static final long serialVersionUID = 1L;
+
+		private final ShortPoint2D position;
+
+		Requester(ShortPoint2D position) {
+			this.position = position;
+		}
+
+		@Override
+		public ShortPoint2D getPosition() {
+			return position;
+		}
+
+		@Override
+		public IPlayer getPlayer() {
+			return new IPlayer.DummyPlayer();
+		}
+
+		@Override
+		public boolean needsPlayersGround() {
+			return false;
+		}
+
+		@Override
+		public boolean isShip() {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.astar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.common.player.IPlayer;
+import jsettlers.common.position.ShortPoint2D;
+
+public class HierarchicalAStarTest {
+	private static final short WIDTH = 200;
+	private static final short HEIGHT = 200;
+	private static final float MAX_LENGTH_FACTOR = 1.1f;
+
+	private final DummyEmptyAStarMap map = new DummyEmptyAStarMap(WIDTH, HEIGHT);
+	private final HierarchicalAStar hierarchicalAStar = new HierarchicalAStar(map, WIDTH, HEIGHT);
+	private final BucketQueueAStar aStar = new BucketQueueAStar(map, WIDTH, HEIGHT);
+
+	@Test
+	public void testPathLengthOnEmptyMap() {
+		for (short sx = 10; sx < 190; sx += 30) {
+			for (short sy = 10; sy < 190; sy += 30) {
+				short tx = (short) (WIDTH - 1 - sx);
+				short ty = (short) (HEIGHT - 1 - sy);
+				if (sx == tx && sy == ty) {
+					continue;
+				}
+
+				Path path = hierarchicalAStar.findPath(getPathable(sx, sy), new ShortPoint2D(tx, ty));
+				assertEquals(ShortPoint2D.getOnGridDist(tx - sx, ty - sy), path.getLength());
+			}
+		}
+	}
+
+	@Test
+	public void testPathsOnRandomMapMatchFlatAStar() {
+		Random random = new Random(1234);
+		createRandomWalls(random);
+
+		int foundPaths = 0;
+		for (int i = 0; i < 300; i++) {
+			short sx = (short) random.nextInt(WIDTH);
+			short sy = (short) random.nextInt(HEIGHT);
+			short tx = (short) random.nextInt(WIDTH);
+			short ty = (short) random.nextInt(HEIGHT);
+			if (map.isBlocked(null, sx, sy) || map.isBlocked(null, tx, ty) || (sx == tx && sy == ty)) {
+				continue;
+			}
+
+			Path expected = aStar.findPath(getPathable(sx, sy), new ShortPoint2D(tx, ty));
+			Path actual = hierarchicalAStar.findPath(getPathable(sx, sy), new ShortPoint2D(tx, ty));
+
+			if (expected == null) {
+				assertNull(actual);
+			} else {
+				assertValidPath(actual, sx, sy, tx, ty);
+				assertTrue(actual.getLength() <= expected.getLength() * MAX_LENGTH_FACTOR);
+				foundPaths++;
+			}
+		}
+
+		assertTrue(foundPaths > 100);
+	}
+
+	@Test
+	public void testChangedBlockingIsUsed() {
+		for (int y = 0; y < HEIGHT; y++) {
+			map.setBlocked(100, y, y != 100);
+		}
+
+		Path path = findPath(20, 100, 180, 100);
+		assertValidPath(path, 20, 100, 180, 100);
+
+		map.setBlocked(100, 100, true);
+		hierarchicalAStar.invalidate(100, 100);
+		assertNull(findPath(20, 100, 180, 100));
+
+		map.setBlocked(100, 20, false);
+		hierarchicalAStar.invalidate(100, 20);
+		path = findPath(20, 100, 180, 100);
+		assertTrue(assertValidPath(path, 20, 100, 180, 100).contains(new ShortPoint2D(100, 20)));
+	}
+
+	private Path findPath(int sx, int sy, int tx, int ty) {
+		return hierarchicalAStar.findPath(getPathable((short) sx, (short) sy), new ShortPoint2D(tx, ty));
+	}
+
+	private void createRandomWalls(Random random) {
+		for (int i = 0; i < 40; i++) {
+			int x = random.nextInt(WIDTH);
+			int y = random.nextInt(HEIGHT);
+			int length = 10 + random.nextInt(60);
+			boolean horizontal = random.nextBoolean();
+
+			for (int j = 0; j < length; j++) {
+				int currX = horizontal ? x + j : x;
+				int currY = horizontal ? y : y + j;
+				if (currX < WIDTH && currY < HEIGHT) {
+					map.setBlocked(currX, currY, true);
+				}
+			}
+		}
+	}
+
+	private List<ShortPoint2D> assertValidPath(Path path, int sx, int sy, int tx, int ty) {
+		assertNotNull(path);
+
+		List<ShortPoint2D> positions = new ArrayList<>();
+		int x = sx;
+		int y = sy;
+		while (path.hasNextStep()) {
+			ShortPoint2D next = path.getNextPos();
+			// every step has to go to a free neighbor
+			assertEquals(1, ShortPoint2D.getOnGridDist(next.x - x, next.y - y));
+			assertFalse(map.isBlocked(null, next.x, next.y));
+
+			positions.add(next);
+			x = next.x;
+			y = next.y;
+			path.goToNextStep();
+		}
+		assertEquals(tx, x);
+		assertEquals(ty, y);
+		return positions;
+	}
+
+	private IPathCalculatable getPathable(final short x, final short y) {
+		return new IPathCalculatable() {
+			@Override
+			public ShortPoint2D getPosition() {
+				return new ShortPoint2D(x, y);
+			}
+
+			@Override
+			public IPlayer getPlayer() {
+				return new IPlayer.DummyPlayer();
+			}
+
+			@Override
+			public boolean needsPlayersGround() {
+				return false;
+			}
+
+			@Override
+			public boolean isShip() {
+				return false;
+			}
+		};
+	}
+}
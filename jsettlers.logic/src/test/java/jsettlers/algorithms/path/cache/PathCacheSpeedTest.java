@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.cache;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import jsettlers.common.CommonConstants;
+import jsettlers.integration.replay.AutoReplaySetting;
+import jsettlers.logic.constants.Constants;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.player.PlayerSetting;
+import jsettlers.logic.timer.TickProfiler.ESubsystem;
+import jsettlers.main.HeadlessSimulation;
+import jsettlers.testutils.TestUtils;
+import jsettlers.testutils.map.MapUtils;
+
+/**
+ * Plays the mature economy of the full production savegame after 40 minutes for some minutes and prints how many paths were taken from the
+ * {@link PathCache} and how long their A* searches took.
+ */
+public class PathCacheSpeedTest {
+	private static final int SAVEGAME_MINUTES = 40;
+	private static final int SIMULATED_MINUTES = 3;
+
+	@BeforeClass
+	public static void setupConstants() {
+		CommonConstants.CONTROL_ALL = true;
+		Constants.FOG_OF_WAR_DEFAULT_ENABLED = false;
+
+		TestUtils.setupTempResourceManager();
+	}
+
+	@Test
+	public void testSpeed() throws MapLoadException {
+		MapLoader savegame = MapUtils.getMap(AutoReplaySetting.class, "fullproduction/savegame-" + SAVEGAME_MINUTES + "m.zmap");
+		PlayerSetting[] playerSettings = PlayerSetting.createDefaultSettings((byte) 0, (byte) savegame.getMaxPlayers());
+
+		HeadlessSimulation.Result result = HeadlessSimulation.ofMap(savegame, 0L, playerSettings).run((SAVEGAME_MINUTES + SIMULATED_MINUTES) * 60 * 1000);
+
+		System.out.println(result.toJson());
+		System.out.println(String.format("Path cache in %d minutes of the mature economy: %d of %d paths cached (%.1f%%), %.1f ms of %.1f ms movables time saved",
+				SIMULATED_MINUTES, result.getPathCacheHits(), result.getPathCacheHits() + result.getPathCacheMisses(), 100 * result.getPathCacheHitRate(),
+				result.getPathCacheSavedMs(), result.getSubsystemMs(ESubsystem.MOVABLES)));
+	}
+}
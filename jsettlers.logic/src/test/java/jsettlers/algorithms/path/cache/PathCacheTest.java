@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.AbstractAStar;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.DummyEmptyAStarMap;
+import jsettlers.common.player.IPlayer;
+import jsettlers.common.position.ShortPoint2D;
+
+public class PathCacheTest {
+	private static final short WIDTH = 100;
+	private static final short HEIGHT = 100;
+	private static final ShortPoint2D TARGET = new ShortPoint2D(60, 20);
+
+	private final DummyEmptyAStarMap map = new DummyEmptyAStarMap(WIDTH, HEIGHT);
+	private final CountingAStar aStar = new CountingAStar(new BucketQueueAStar(map, WIDTH, HEIGHT));
+	private final PathCache cache = new PathCache(WIDTH, HEIGHT);
+
+	@Test
+	public void testRepeatedRouteIsCached() {
+		Path path = cache.findPath(aStar, getPathable(20, 20, false, false, 0), TARGET);
+		path.goToNextStep();
+		path.goToNextStep();
+
+		Path cachedPath = cache.findPath(aStar, getPathable(20, 20, false, false, 0), TARGET);
+
+		assertEquals(1, aStar.searches);
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(-1, cachedPath.getStep()); // the cached path isn't influenced by the walked steps of the first one
+		assertEquals(path.toString(), cachedPath.toString());
+	}
+
+	@Test
+	public void testRoutesAreSeparatedByBlockingClass() {
+		cache.findPath(aStar, getPathable(20, 20, false, false, 0), TARGET);
+		cache.findPath(aStar, getPathable(20, 20, false, true, 0), TARGET);
+		cache.findPath(aStar, getPathable(20, 20, false, true, 1), TARGET);
+		cache.findPath(aStar, getPathable(20, 20, true, false, 0), TARGET);
+		cache.findPath(aStar, getPathable(21, 20, false, false, 0), TARGET);
+		assertEquals(5, aStar.searches);
+
+		cache.findPath(aStar, getPathable(20, 20, false, true, 1), TARGET);
+		assertEquals(5, aStar.searches);
+		assertEquals(5, cache.size());
+	}
+
+	@Test
+	public void testChangeOnRouteInvalidatesPath() {
+		Path path = cache.findPath(aStar, getPathable(20, 20, false, false, 0), TARGET);
+		path.goToNextStep();
+		ShortPoint2D blockedPosition = path.getNextPos();
+
+		map.setBlocked(blockedPosition.x, blockedPosition.y, true);
+		cache.invalidate(blockedPosition.x, blockedPosition.y);
+
+		Path newPath = cache.findPath(aStar, getPathable(20, 20, false, false, 0), TARGET);
+		assertEquals(2, aStar.searches);
+		assertFalse(newPath.toString().contains("(" + blockedPosition.x + "|" + blockedPosition.y + ")"));
+	}
+
+	@Test
+	public void testChangeAwayFromRouteKeepsPath() {
+		cache.findPath(aStar, getPathable(20, 20, false, false, 0), TARGET);
+
+		map.setBlocked(40, 80, true);
+		cache.invalidate(40, 80);
+
+		cache.findPath(aStar, getPathable(20, 20, false, false, 0), TARGET);
+		assertEquals(1, aStar.searches);
+	}
+
+	@Test
+	public void testUnreachableTargetIsNotCached() {
+		for (int y = 0; y < HEIGHT; y++) {
+			map.setBlocked(40, y, true);
+		}
+
+		assertNull(cache.findPath(aStar, getPathable(20, 20, false, false, 0), TARGET));
+		assertNull(cache.findPath(aStar, getPathable(20, 20, false, false, 0), TARGET));
+		assertEquals(2, aStar.searches);
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testEvictsLeastRecentlyUsedRoute() {
+		for (int i = 0; i <= PathCache.MAX_ENTRIES; i++) {
+			cache.findPath(aStar, getPathable(i % WIDTH, i / WIDTH, false, false, 0), TARGET);
+			cache.findPath(aStar, getPathable(0, 0, false, false, 0), TARGET); // keep the first route in use
+		}
+		assertEquals(PathCache.MAX_ENTRIES, cache.size());
+		assertEquals(PathCache.MAX_ENTRIES + 1, aStar.searches);
+
+		cache.findPath(aStar, getPathable(1, 0, false, false, 0), TARGET); // the second route has been dropped
+		assertEquals(PathCache.MAX_ENTRIES + 2, aStar.searches);
+	}
+
+	@Test
+	public void testCacheIsSaved() throws IOException, ClassNotFoundException {
+		cache.findPath(aStar, getPathable(20, 20, false, false, 0), TARGET);
+
+		PathCache loadedCache = serializeAndDeserialize(cache);
+		Path path = loadedCache.findPath(aStar, getPathable(20, 20, false, false, 0), TARGET);
+
+		assertNotNull(path);
+		assertEquals(1, aStar.searches);
+
+		map.setBlocked(path.getFirstX(), path.getFirstY(), true);
+		loadedCache.invalidate(path.getFirstX(), path.getFirstY());
+		loadedCache.findPath(aStar, getPathable(20, 20, false, false, 0), TARGET);
+		assertEquals(2, aStar.searches);
+	}
+
+	private static PathCache serializeAndDeserialize(PathCache cache) throws IOException, ClassNotFoundException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+			oos.writeObject(cache);
+		}
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+			return (PathCache) ois.readObject();
+		}
+	}
+
+	private static IPathCalculatable getPathable(int x, int y, boolean isShip, boolean needsPlayersGround, int playerId) {
+		return new IPathCalculatable() {
+			@Override
+			public ShortPoint2D getPosition() {
+				return new ShortPoint2D(x, y);
+			}
+
+			@Override
+			public IPlayer getPlayer() {
+				return new IPlayer.DummyPlayer((byte) playerId);
+			}
+
+			@Override
+			public boolean needsPlayersGround() {
+				return needsPlayersGround;
+			}
+
+			@Override
+			public boolean isShip() {
+				return isShip;
+			}
+		};
+	}
+
+	private static class CountingAStar extends AbstractAStar {
+		private final AbstractAStar aStar;
+		private int searches;
+
+		CountingAStar(AbstractAStar aStar) {
+			this.aStar = aStar;
+		}
+
+		@Override
+		public Path findPath(IPathCalculatable requester, short sx, short sy, short tx, short ty) {
+			searches++;
+			return aStar.findPath(requester, sx, sy, tx, ty);
+		}
+
+		@Override
+		public Path findPath(IPathCalculatable requester, ShortPoint2D targetPos) {
+			searches++;
+			return aStar.findPath(requester, targetPos);
+		}
+	}
+}
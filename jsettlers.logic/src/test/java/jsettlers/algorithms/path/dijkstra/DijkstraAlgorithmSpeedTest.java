@@ -0,0 +1,284 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.dijkstra;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.IAStarPathMap;
+import jsettlers.common.Color;
+import jsettlers.common.buildings.EBuildingType;
+import jsettlers.common.logging.MilliStopWatch;
+import jsettlers.common.material.ESearchType;
+import jsettlers.common.player.IPlayer;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.MainGrid;
+import jsettlers.logic.map.grid.MainGridDataAccessor;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.map.loading.list.MapList;
+import jsettlers.logic.movable.interfaces.AbstractMovableGrid;
+import jsettlers.main.JSettlersGame;
+import jsettlers.main.swing.resources.SwingResourceLoader;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+
+/**
+ * Compares the speed of the {@link DijkstraAlgorithm} with the former search, that scanned the rings around the center and calculated a path to
+ * every fitting position with the AStar, for the searches of lumberjacks, stonecutters and fishers on the large maps in the maps folder.
+ * <p />
+ * The searches are done on the open map and on a map whose territory is split into stripes by foreign ground. In the split territory, many of
+ * the fitting positions can't be reached by the workers.
+ */
+public class DijkstraAlgorithmSpeedTest {
+	private static final int MIN_MAP_SIZE = 500 * 500;
+	private static final int NUMBER_OF_SEARCHES = 1000;
+	private static final int STRIPE_WIDTH = 16;
+	private static final int FOREIGN_STRIPE_WIDTH = 2;
+
+	private static final EBuildingType[] BUILDING_TYPES = { EBuildingType.LUMBERJACK, EBuildingType.STONECUTTER, EBuildingType.FISHER };
+	private static final ESearchType[] SEARCH_TYPES = { ESearchType.CUTTABLE_TREE, ESearchType.CUTTABLE_STONE, ESearchType.FISHABLE };
+
+	private static final byte[] directionIncreaseX = { -1, 0, 1, 1, 0, -1 };
+	private static final byte[] directionIncreaseY = { 0, 1, 1, 0, -1, -1 };
+
+	@BeforeClass
+	public static void setupTest() {
+		SwingResourceLoader.setupMapListFactory("../maps", null);
+	}
+
+	@Test
+	public void testSpeedOnLargeMaps() throws MapLoadException {
+		for (MapLoader mapLoader : MapList.getDefaultList().getFreshMaps().getItems()) {
+			MatchConstants.init(new NetworkTimer(true), 0);
+			try {
+				MainGrid grid = mapLoader.loadMainGrid(null).getMainGrid();
+				MainGridDataAccessor gridAccessor = new MainGridDataAccessor(grid);
+				if (gridAccessor.getWidth() * gridAccessor.getHeight() < MIN_MAP_SIZE) {
+					continue;
+				}
+
+				for (boolean splitTerritory : new boolean[] { false, true }) {
+					for (int i = 0; i < BUILDING_TYPES.length; i++) {
+						testSpeed(mapLoader.getMapName(), new SearchMap(gridAccessor, splitTerritory), BUILDING_TYPES[i], SEARCH_TYPES[i]);
+					}
+				}
+			} finally {
+				JSettlersGame.clearState();
+			}
+		}
+	}
+
+	private void testSpeed(String mapName, SearchMap map, EBuildingType buildingType, ESearchType searchType) {
+		short width = map.gridAccessor.getWidth();
+		short height = map.gridAccessor.getHeight();
+		short radius = buildingType.getWorkRadius();
+		List<Search> searches = createSearches(map, buildingType);
+
+		BucketQueueAStar aStar = new BucketQueueAStar(map, width, height);
+		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(map, map, aStar, width, height);
+
+		for (Search search : searches) { // warm up the jit
+			findWithRingScan(map, aStar, search, radius, searchType);
+			dijkstra.find(search, search.centerX, search.centerY, (short) 0, radius, searchType);
+		}
+
+		MilliStopWatch watch = new MilliStopWatch();
+		int ringScanFound = 0;
+		long ringScanLength = 0;
+		for (Search search : searches) {
+			Path path = findWithRingScan(map, aStar, search, radius, searchType);
+			if (path != null) {
+				ringScanFound++;
+				ringScanLength += path.getLength();
+			}
+		}
+		long ringScanTime = watch.getDiff();
+
+		watch.restart();
+		int dijkstraFound = 0;
+		long dijkstraLength = 0;
+		for (Search search : searches) {
+			Path path = dijkstra.find(search, search.centerX, search.centerY, (short) 0, radius, searchType);
+			if (path != null) {
+				dijkstraFound++;
+				dijkstraLength += path.getLength();
+			}
+		}
+		long dijkstraTime = watch.getDiff();
+
+		System.out.println(mapName + (map.splitTerritory ? " (split territory) " : " ") + buildingType + ": " + searches.size()
+				+ " searches, ring scan with AStar: " + ringScanTime + " ms (" + ringScanFound + " found, path lengths " + ringScanLength
+				+ "), DijkstraAlgorithm: " + dijkstraTime + " ms (" + dijkstraFound + " found, path lengths " + dijkstraLength + ")");
+	}
+
+	private static List<Search> createSearches(SearchMap map, EBuildingType buildingType) {
+		short width = map.gridAccessor.getWidth();
+		short height = map.gridAccessor.getHeight();
+		Random random = new Random(4711);
+		List<Search> searches = new ArrayList<>();
+
+		while (searches.size() < NUMBER_OF_SEARCHES) {
+			ShortPoint2D position = new ShortPoint2D(random.nextInt(width), random.nextInt(height));
+			ShortPoint2D center = buildingType.getDefaultWorkcenter().calculatePoint(position);
+
+			if (map.isInBounds(center.x, center.y) && !map.isBlocked(null, position.x, position.y)) {
+				searches.add(new Search(position, center));
+			}
+		}
+		return searches;
+	}
+
+	/**
+	 * The search as it has been implemented before: The rings around the center are scanned and for every fitting position, a path is
+	 * calculated.
+	 */
+	private static Path findWithRingScan(SearchMap map, BucketQueueAStar aStar, Search search, short maxRadius, ESearchType searchType) {
+		Path path = findPathIfFitting(map, aStar, search, search.centerX, search.centerY, searchType);
+		if (path != null) {
+			return path;
+		}
+
+		for (short radius = 1; radius < maxRadius; radius++) {
+			int x = search.centerX, y = search.centerY - radius;
+			for (byte direction = 0; direction < 6; direction++) {
+				for (short length = 0; length < radius; length++) {
+					x += directionIncreaseX[direction];
+					y += directionIncreaseY[direction];
+
+					path = findPathIfFitting(map, aStar, search, x, y, searchType);
+					if (path != null) {
+						return path;
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	private static Path findPathIfFitting(SearchMap map, BucketQueueAStar aStar, Search search, int x, int y, ESearchType searchType) {
+		if (map.isInBounds(x, y) && map.fitsSearchType(x, y, searchType, search)) {
+			return aStar.findPath(search, search.position.x, search.position.y, (short) x, (short) y);
+		}
+		return null;
+	}
+
+	/**
+	 * Map for the searches of the workers of a player that owns the whole map, or the whole map except of some stripes of foreign ground.
+	 */
+	private static class SearchMap implements IAStarPathMap, IDijkstraPathMap {
+		private final MainGridDataAccessor gridAccessor;
+		private final AbstractMovableGrid movableGrid;
+		private final boolean splitTerritory;
+
+		SearchMap(MainGridDataAccessor gridAccessor, boolean splitTerritory) {
+			this.gridAccessor = gridAccessor;
+			this.movableGrid = gridAccessor.getMovableGrid();
+			this.splitTerritory = splitTerritory;
+		}
+
+		boolean isInBounds(int x, int y) {
+			return movableGrid.isInBounds(x, y);
+		}
+
+		@Override
+		public boolean isBlocked(IPathCalculatable requester, int x, int y) {
+			return gridAccessor.getFlagsGrid().isBlocked(x, y) || (splitTerritory && x % STRIPE_WIDTH < FOREIGN_STRIPE_WIDTH);
+		}
+
+		@Override
+		public boolean fitsSearchType(int x, int y, ESearchType type, IPathCalculatable requester) {
+			return movableGrid.fitsSearchType(requester, x, y, type);
+		}
+
+		@Override
+		public boolean fitsSearchType(int x, int y, Set<ESearchType> types, IPathCalculatable requester) {
+			for (ESearchType type : types) {
+				if (fitsSearchType(x, y, type, requester)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public float getCost(int sx, int sy, int tx, int ty) {
+			return 1;
+		}
+
+		@Override
+		public short getBlockedPartition(int x, int y) {
+			return gridAccessor.getLandscapeGrid().getBlockedPartitionAt(x, y);
+		}
+
+		@Override
+		public void setDijkstraSearched(int x, int y) {
+		}
+
+		@Override
+		public void markAsOpen(int x, int y) {
+		}
+
+		@Override
+		public void markAsClosed(int x, int y) {
+		}
+
+		@Override
+		public void setDebugColor(int x, int y, Color color) {
+		}
+	}
+
+	private static class Search implements IPathCalculatable {
+		private static final long serialVersionUID = 1L;
+
+		private final ShortPoint2D position;
+		private final short centerX;
+		private final short centerY;
+
+		Search(ShortPoint2D position, ShortPoint2D center) {
+			this.position = position;
+			this.centerX = center.x;
+			this.centerY = center.y;
+		}
+
+		@Override
+		public ShortPoint2D getPosition() {
+			return position;
+		}
+
+		@Override
+		public IPlayer getPlayer() {
+			return new IPlayer.DummyPlayer((byte) -1); // the player of the positions nobody owns
+		}
+
+		@Override
+		public boolean needsPlayersGround() {
+			return true;
+		}
+
+		@Override
+		public boolean isShip() {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.dijkstra;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.DummyEmptyAStarMap;
+import jsettlers.algorithms.path.dijkstra.DijkstraAlgorithm.DijkstraContinuableRequest;
+import jsettlers.common.material.ESearchType;
+import jsettlers.common.movable.EDirection;
+import jsettlers.common.player.IPlayer;
+import jsettlers.common.position.ShortPoint2D;
+
+public class DijkstraAlgorithmTest {
+	private static final short WIDTH = 200;
+	private static final short HEIGHT = 200;
+
+	private final DummyEmptyAStarMap pathMap = new DummyEmptyAStarMap(WIDTH, HEIGHT);
+	private final DummyDijkstraMap map = new DummyDijkstraMap();
+	private final DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(map, pathMap, new BucketQueueAStar(pathMap, WIDTH, HEIGHT), WIDTH, HEIGHT);
+
+	@Test
+	public void testFindsNearestTarget() {
+		map.targets.add(new ShortPoint2D(110, 100));
+		map.targets.add(new ShortPoint2D(104, 100));
+		map.targets.add(new ShortPoint2D(100, 120));
+
+		Path path = find(100, 100, 100, 100, 30);
+
+		assertPath(path, 100, 100, 104, 100);
+	}
+
+	@Test
+	public void testUnreachableTargetIsSkipped() {
+		map.targets.add(new ShortPoint2D(104, 100));
+		map.targets.add(new ShortPoint2D(100, 110));
+		for (EDirection direction : EDirection.VALUES) {
+			ShortPoint2D neighbor = direction.getNextHexPoint(new ShortPoint2D(104, 100));
+			pathMap.setBlocked(neighbor.x, neighbor.y, true);
+		}
+
+		Path path = find(100, 100, 100, 100, 30);
+
+		assertPath(path, 100, 100, 100, 110);
+	}
+
+	@Test
+	public void testBlockedTargetIsSkipped() {
+		map.targets.add(new ShortPoint2D(104, 100));
+		map.targets.add(new ShortPoint2D(100, 110));
+		pathMap.setBlocked(104, 100, true);
+
+		Path path = find(100, 100, 100, 100, 30);
+
+		assertPath(path, 100, 100, 100, 110);
+	}
+
+	@Test
+	public void testTargetAtStartIsSkipped() {
+		map.targets.add(new ShortPoint2D(100, 100));
+		map.targets.add(new ShortPoint2D(100, 105));
+
+		Path path = find(100, 100, 100, 100, 30);
+
+		assertPath(path, 100, 100, 100, 105);
+	}
+
+	@Test
+	public void testTargetsOutsideOfRadiusAreIgnored() {
+		map.targets.add(new ShortPoint2D(140, 100));
+
+		assertNull(find(100, 100, 100, 100, 30));
+	}
+
+	@Test
+	public void testNoTarget() {
+		assertNull(find(100, 100, 100, 100, 30));
+	}
+
+	@Test
+	public void testRequesterOutsideOfSearchArea() {
+		map.targets.add(new ShortPoint2D(150, 150));
+		map.targets.add(new ShortPoint2D(155, 150));
+
+		Path path = find(20, 30, 150, 152, 10);
+
+		assertPath(path, 20, 30, 150, 150);
+	}
+
+	@Test
+	public void testRequesterOnBlockedPosition() {
+		map.targets.add(new ShortPoint2D(100, 110));
+		pathMap.setBlocked(100, 100, true);
+		pathMap.setBlocked(100, 101, true);
+
+		Path path = find(100, 100, 100, 100, 30);
+
+		assertPath(path, 100, 100, 100, 110);
+	}
+
+	@Test
+	public void testContinuableRequestSearchesNextRingsInEveryCall() {
+		map.targets.add(new ShortPoint2D(100, 110));
+		DijkstraContinuableRequest request = new DijkstraContinuableRequest(getPathable(100, 100), (short) 100, (short) 100, (short) 1, (short) 20);
+		request.setSearchTypes(EnumSet.of(ESearchType.SOLDIER_BOWMAN));
+
+		assertNull(dijkstra.find(request));
+		assertPath(dijkstra.find(request), 100, 100, 100, 110);
+	}
+
+	private Path find(int sx, int sy, int cx, int cy, int radius) {
+		return dijkstra.find(getPathable(sx, sy), (short) cx, (short) cy, (short) 0, (short) radius, ESearchType.CUTTABLE_TREE);
+	}
+
+	private static void assertPath(Path path, int sx, int sy, int tx, int ty) {
+		assertNotNull(path);
+		assertEquals(ShortPoint2D.getOnGridDist(tx - sx, ty - sy), path.getLength());
+		assertEquals(new ShortPoint2D(tx, ty), path.getTargetPosition());
+	}
+
+	private static IPathCalculatable getPathable(final int x, final int y) {
+		return new IPathCalculatable() {
+			@Override
+			public ShortPoint2D getPosition() {
+				return new ShortPoint2D(x, y);
+			}
+
+			@Override
+			public IPlayer getPlayer() {
+				return new IPlayer.DummyPlayer();
+			}
+
+			@Override
+			public boolean needsPlayersGround() {
+				return false;
+			}
+
+			@Override
+			public boolean isShip() {
+				return false;
+			}
+		};
+	}
+
+	private static class DummyDijkstraMap implements IDijkstraPathMap {
+		private final Set<ShortPoint2D> targets = new HashSet<>();
+
+		@Override
+		public boolean fitsSearchType(int x, int y, ESearchType type, IPathCalculatable requester) {
+			return targets.contains(new ShortPoint2D(x, y));
+		}
+
+		@Override
+		public boolean fitsSearchType(int x, int y, Set<ESearchType> types, IPathCalculatable requester) {
+			return targets.contains(new ShortPoint2D(x, y));
+		}
+
+		@Override
+		public void setDijkstraSearched(int x, int y) {
+		}
+	}
+}
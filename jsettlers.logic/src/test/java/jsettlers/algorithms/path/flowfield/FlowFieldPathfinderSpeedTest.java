@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.flowfield;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.DummyEmptyAStarMap;
+import jsettlers.algorithms.path.astar.HierarchicalAStar;
+import jsettlers.common.map.shapes.HexGridArea;
+import jsettlers.common.player.IPlayer;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Measures the path calculations of move orders of 50, 200 and 500 movables, which are all done within a few ticks. The movables stand together
+ * about 90 steps away from the target and get their targets on rings around it like in the GuiTaskExecutor. Every movable searching its path with
+ * the {@link HierarchicalAStar} is compared with the {@link FlowFieldPathfinder}, whose cache is empty at the start of every move order.
+ */
+public class FlowFieldPathfinderSpeedTest {
+	private static final short MAP_SIZE = 512;
+	private static final int[] GROUP_SIZES = { 50, 200, 500 };
+	private static final int ROUNDS = 20;
+	private static final ShortPoint2D GROUP_POSITION = new ShortPoint2D(150, 170);
+	private static final ShortPoint2D TARGET_POSITION = new ShortPoint2D(240, 250);
+
+	private final DummyEmptyAStarMap map = new DummyEmptyAStarMap(MAP_SIZE, MAP_SIZE);
+
+	@Test
+	public void testSpeed() {
+		createRandomWalls(new Random(1));
+		HierarchicalAStar aStar = new HierarchicalAStar(map, MAP_SIZE, MAP_SIZE);
+
+		for (int groupSize : GROUP_SIZES) {
+			List<IPathCalculatable> movables = createMovables(groupSize);
+			List<ShortPoint2D> targets = createTargets(groupSize);
+
+			measureAStar(aStar, movables, targets); // warm up
+			measureFlowField(movables, targets);
+
+			long aStarNanos = Long.MAX_VALUE;
+			long flowFieldNanos = Long.MAX_VALUE;
+			long aStarSteps = 0;
+			long flowFieldSteps = 0;
+			for (int round = 0; round < ROUNDS; round++) {
+				long start = System.nanoTime();
+				aStarSteps = measureAStar(aStar, movables, targets);
+				aStarNanos = Math.min(aStarNanos, System.nanoTime() - start);
+
+				start = System.nanoTime();
+				flowFieldSteps = measureFlowField(movables, targets);
+				flowFieldNanos = Math.min(flowFieldNanos, System.nanoTime() - start);
+			}
+
+			System.out.println(String.format("Move order of %d movables: A* %.2f ms (%d steps), flow field %.2f ms (%d steps)", groupSize,
+					aStarNanos / 1e6, aStarSteps, flowFieldNanos / 1e6, flowFieldSteps));
+		}
+	}
+
+	private static long measureAStar(HierarchicalAStar aStar, List<IPathCalculatable> movables, List<ShortPoint2D> targets) {
+		long steps = 0;
+		for (int i = 0; i < movables.size(); i++) {
+			steps += getLength(aStar.findPath(movables.get(i), targets.get(i)));
+		}
+		return steps;
+	}
+
+	private long measureFlowField(List<IPathCalculatable> movables, List<ShortPoint2D> targets) {
+		FlowFieldPathfinder pathfinder = new FlowFieldPathfinder(map, MAP_SIZE, MAP_SIZE);
+		ShortPoint2D groupTarget = targets.get(0);
+
+		long steps = 0;
+		for (int i = 0; i < movables.size(); i++) {
+			Path path = pathfinder.findPath(movables.get(i), targets.get(i), groupTarget);
+			if (path == null) {
+				throw new AssertionError("no path found for " + movables.get(i).getPosition() + " to " + targets.get(i));
+			}
+			steps += path.getLength();
+		}
+		return steps;
+	}
+
+	private static int getLength(Path path) {
+		return path == null ? 0 : path.getLength();
+	}
+
+	private List<IPathCalculatable> createMovables(int groupSize) {
+		List<IPathCalculatable> movables = new ArrayList<>();
+		for (ShortPoint2D position : getFreePositions(GROUP_POSITION, groupSize, 1)) {
+			movables.add(getPathable(position));
+		}
+		return movables;
+	}
+
+	private List<ShortPoint2D> createTargets(int groupSize) {
+		return getFreePositions(TARGET_POSITION, groupSize, 2);
+	}
+
+	/**
+	 * Gets the free positions on the rings around the center. Of every ring, only every nth position is used.
+	 */
+	private List<ShortPoint2D> getFreePositions(ShortPoint2D center, int numberOfPositions, int every) {
+		List<ShortPoint2D> positions = new ArrayList<>();
+		for (int radius = 0; positions.size() < numberOfPositions; radius++) {
+			HexGridArea.streamBorder(center, radius).getEvery(every).forEach((x, y) -> {
+				if (positions.size() < numberOfPositions && !map.isBlocked(null, x, y)) {
+					positions.add(new ShortPoint2D(x, y));
+				}
+			});
+		}
+		return positions;
+	}
+
+	private void createRandomWalls(Random random) {
+		for (int i = 0; i < 200; i++) {
+			int x = random.nextInt(MAP_SIZE);
+			int y = random.nextInt(MAP_SIZE);
+			int length = 10 + random.nextInt(40);
+			boolean horizontal = random.nextBoolean();
+
+			for (int j = 0; j < length; j++) {
+				int currX = horizontal ? x + j : x;
+				int currY = horizontal ? y : y + j;
+				if (currX < MAP_SIZE && currY < MAP_SIZE) {
+					map.setBlocked(currX, currY, true);
+				}
+			}
+		}
+
+		// keep the areas of the group and the target free
+		HexGridArea.stream(GROUP_POSITION.x, GROUP_POSITION.y, 0, 20).forEach((x, y) -> map.setBlocked(x, y, false));
+		HexGridArea.stream(TARGET_POSITION.x, TARGET_POSITION.y, 0, 35).forEach((x, y) -> map.setBlocked(x, y, false));
+	}
+
+	private static IPathCalculatable getPathable(ShortPoint2D position) {
+		return new IPathCalculatable() {
+			@Override
+			public ShortPoint2D getPosition() {
+				return position;
+			}
+
+			@Override
+			public IPlayer getPlayer() {
+				return new IPlayer.DummyPlayer();
+			}
+
+			@Override
+			public boolean needsPlayersGround() {
+				return false;
+			}
+
+			@Override
+			public boolean isShip() {
+				return false;
+			}
+		};
+	}
+}
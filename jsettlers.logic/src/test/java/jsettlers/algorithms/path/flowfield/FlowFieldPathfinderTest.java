@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.flowfield;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.DummyEmptyAStarMap;
+import jsettlers.common.player.IPlayer;
+import jsettlers.common.position.ShortPoint2D;
+
+public class FlowFieldPathfinderTest {
+	private static final short WIDTH = 200;
+	private static final short HEIGHT = 200;
+	private static final ShortPoint2D GROUP_TARGET = new ShortPoint2D(100, 100);
+
+	private final DummyEmptyAStarMap map = new DummyEmptyAStarMap(WIDTH, HEIGHT);
+	private final FlowFieldPathfinder pathfinder = new FlowFieldPathfinder(map, WIDTH, HEIGHT);
+	private final BucketQueueAStar aStar = new BucketQueueAStar(map, WIDTH, HEIGHT);
+
+	@Test
+	public void testPathLengthOnEmptyMap() {
+		ShortPoint2D target = new ShortPoint2D(103, 98);
+		for (int sx = 40; sx < 160; sx += 20) {
+			for (int sy = 40; sy < 160; sy += 20) {
+				Path path = findPath(sx, sy, target);
+				assertValidPath(path, sx, sy, target);
+				assertMaxDetour(path, ShortPoint2D.getOnGridDist(target.x - sx, target.y - sy), ShortPoint2D.getOnGridDist(target.x - GROUP_TARGET.x, target.y - GROUP_TARGET.y));
+			}
+		}
+	}
+
+	@Test
+	public void testPathsOnRandomMap() {
+		Random random = new Random(1234);
+		createRandomWalls(random);
+
+		int foundPaths = 0;
+		for (int i = 0; i < 300; i++) {
+			int sx = 30 + random.nextInt(140);
+			int sy = 30 + random.nextInt(140);
+			ShortPoint2D target = new ShortPoint2D(GROUP_TARGET.x - 10 + random.nextInt(21), GROUP_TARGET.y - 10 + random.nextInt(21));
+			if (map.isBlocked(null, sx, sy) || map.isBlocked(null, target.x, target.y) || target.equals(new ShortPoint2D(sx, sy))) {
+				continue;
+			}
+
+			Path expected = aStar.findPath(getPathable(sx, sy, false), target);
+			Path actual = findPath(sx, sy, target);
+			if (actual == null) {
+				continue; // not connected to the group target
+			}
+
+			assertNotNull(expected);
+			assertValidPath(actual, sx, sy, target);
+			Path targetToGroupTarget = aStar.findPath(getPathable(target.x, target.y, false), GROUP_TARGET);
+			assertMaxDetour(actual, expected.getLength(), targetToGroupTarget == null ? 0 : targetToGroupTarget.getLength());
+			foundPaths++;
+		}
+
+		assertTrue(foundPaths > 100);
+	}
+
+	@Test
+	public void testPathsDontDependOnCachedFields() {
+		Random random = new Random(42);
+		createRandomWalls(random);
+
+		for (int i = 0; i < 100; i++) {
+			int sx = 30 + random.nextInt(140);
+			int sy = 30 + random.nextInt(140);
+			ShortPoint2D target = new ShortPoint2D(GROUP_TARGET.x - 10 + random.nextInt(21), GROUP_TARGET.y - 10 + random.nextInt(21));
+
+			Path cachedPath = findPath(sx, sy, target);
+			Path uncachedPath = new FlowFieldPathfinder(map, WIDTH, HEIGHT).findPath(getPathable(sx, sy, false), target, GROUP_TARGET);
+			assertEquals(String.valueOf(uncachedPath), String.valueOf(cachedPath));
+		}
+	}
+
+	@Test
+	public void testChangedBlockingIsUsed() {
+		for (int y = 0; y < HEIGHT; y++) {
+			map.setBlocked(80, y, y != 100);
+		}
+		ShortPoint2D target = new ShortPoint2D(105, 100);
+
+		assertTrue(assertValidPath(findPath(40, 60, target), 40, 60, target).contains(new ShortPoint2D(80, 100)));
+
+		map.setBlocked(80, 100, true);
+		pathfinder.invalidate(80, 100);
+		assertNull(findPath(40, 60, target));
+
+		map.setBlocked(80, 50, false);
+		pathfinder.invalidate(80, 50);
+		assertTrue(assertValidPath(findPath(40, 60, target), 40, 60, target).contains(new ShortPoint2D(80, 50)));
+	}
+
+	@Test
+	public void testUnsupportedRequests() {
+		assertNull(pathfinder.findPath(getPathable(50, 50, true), new ShortPoint2D(100, 100), GROUP_TARGET));
+		assertNull(findPath(100, 100, new ShortPoint2D(100, 100)));
+		assertNull(findPath(GROUP_TARGET.x - FlowField.MAX_DISTANCE - 1, GROUP_TARGET.y, GROUP_TARGET));
+
+		map.setBlocked(102, 100, true);
+		assertNull(findPath(50, 50, new ShortPoint2D(102, 100)));
+	}
+
+	/**
+	 * The detour over the way to the group target is limited by the distance of the target to the group target.
+	 */
+	private static void assertMaxDetour(Path path, int shortestLength, int targetToGroupTargetLength) {
+		assertTrue(path.getLength() >= shortestLength);
+		assertTrue(path.getLength() <= shortestLength + 2 * targetToGroupTargetLength);
+	}
+
+	private Path findPath(int sx, int sy, ShortPoint2D target) {
+		return pathfinder.findPath(getPathable(sx, sy, false), target, GROUP_TARGET);
+	}
+
+	private void createRandomWalls(Random random) {
+		for (int i = 0; i < 40; i++) {
+			int x = random.nextInt(WIDTH);
+			int y = random.nextInt(HEIGHT);
+			int length = 10 + random.nextInt(60);
+			boolean horizontal = random.nextBoolean();
+
+			for (int j = 0; j < length; j++) {
+				int currX = horizontal ? x + j : x;
+				int currY = horizontal ? y : y + j;
+				if (currX < WIDTH && currY < HEIGHT) {
+					map.setBlocked(currX, currY, true);
+				}
+			}
+		}
+		map.setBlocked(GROUP_TARGET.x, GROUP_TARGET.y, false);
+	}
+
+	private List<ShortPoint2D> assertValidPath(Path path, int sx, int sy, ShortPoint2D target) {
+		assertNotNull(path);
+
+		List<ShortPoint2D> positions = new ArrayList<>();
+		int x = sx;
+		int y = sy;
+		while (path.hasNextStep()) {
+			ShortPoint2D next = path.getNextPos();
+			// every step has to go to a free neighbor
+			assertEquals(1, ShortPoint2D.getOnGridDist(next.x - x, next.y - y));
+			assertFalse(map.isBlocked(null, next.x, next.y));
+
+			positions.add(next);
+			x = next.x;
+			y = next.y;
+			path.goToNextStep();
+		}
+		assertEquals(target, new ShortPoint2D(x, y));
+		return positions;
+	}
+
+	private static IPathCalculatable getPathable(final int x, final int y, final boolean needsPlayersGround) {
+		return new IPathCalculatable() {
+			@Override
+			public ShortPoint2D getPosition() {
+				return new ShortPoint2D(x, y);
+			}
+
+			@Override
+			public IPlayer getPlayer() {
+				return new IPlayer.DummyPlayer();
+			}
+
+			@Override
+			public boolean needsPlayersGround() {
+				return needsPlayersGround;
+			}
+
+			@Override
+			public boolean isShip() {
+				return false;
+			}
+		};
+	}
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.integration.replay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import jsettlers.common.CommonConstants;
+import jsettlers.logic.buildings.Building;
+import jsettlers.logic.constants.Constants;
+import jsettlers.logic.constants.GameContext;
+import jsettlers.logic.map.grid.MainGrid;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.movable.interfaces.ILogicMovable;
+import jsettlers.main.replay.ReplayUtils;
+import jsettlers.testutils.TestUtils;
+
+/**
+ * Plays the fullproduction replay several times in parallel in one JVM and checks that every match reaches exactly the same state as a match played
+ * alone. This makes sure the matches don't share any state through static fields.
+ */
+public class ParallelReplayIT {
+	private static final int PARALLEL_MATCHES = 3;
+	private static final int[] TARGET_MINUTES = { 1, 3, 5 };
+
+	@BeforeClass
+	public static void setupConstants() {
+		CommonConstants.ENABLE_CONSOLE_LOGGING = true;
+		CommonConstants.CONTROL_ALL = true;
+		Constants.FOG_OF_WAR_DEFAULT_ENABLED = false;
+
+		TestUtils.setupTempResourceManager();
+	}
+
+	@Test
+	public void testParallelMatchesEqualSingleMatch() throws Exception {
+		List<String> expected = playMatch();
+		assertFalse(expected.isEmpty());
+
+		ExecutorService executor = Executors.newFixedThreadPool(PARALLEL_MATCHES);
+		try {
+			List<Future<List<String>>> matches = new ArrayList<>();
+			for (int i = 0; i < PARALLEL_MATCHES; i++) {
+				matches.add(executor.submit(ParallelReplayIT::playMatch));
+			}
+
+			for (Future<List<String>> match : matches) {
+				assertEquals(expected, match.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static List<String> playMatch() throws MapLoadException {
+		AutoReplaySetting replay = AutoReplaySetting.getDefaultSettings().iterator().next();
+		List<String> fingerprints = new ArrayList<>();
+		ReplayUtils.replayAndVisitTargetTimes(replay.getReplayFile(), mainGrid -> fingerprints.add(createFingerprint(mainGrid)), TARGET_MINUTES);
+		return fingerprints;
+	}
+
+	private static String createFingerprint(MainGrid mainGrid) {
+		GameContext context = mainGrid.getGameContext();
+		assertEquals("incrementally updated state hash differs from recalculated one", mainGrid.calculateStateHash(), mainGrid.getStateHash());
+
+		StringBuilder fingerprint = new StringBuilder();
+		fingerprint.append("time: ").append(context.getClock().getTime()).append('\n');
+		fingerprint.append("state hash: ").append(Long.toHexString(mainGrid.getStateHash())).append('\n');
+
+		for (ILogicMovable movable : context.getAllMovables()) {
+			fingerprint.append(movable.getID()).append(' ').append(movable.getMovableType()).append(' ').append(movable.getPosition()).append(' ')
+					.append(movable.getHealth()).append('\n');
+		}
+		for (Building building : context.getAllBuildings()) {
+			fingerprint.append(building.getBuildingType()).append(' ').append(building.getPosition()).append(' ')
+					.append(building.getPlayer().getPlayerId()).append(' ').append(building.getStateProgress()).append('\n');
+		}
+		return fingerprint.toString();
+	}
+}
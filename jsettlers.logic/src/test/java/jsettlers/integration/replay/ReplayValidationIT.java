@@ -17,6 +17,7 @@ package jsettlers.integration.replay;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
+import java.io.File;
 import java.io.IOException;
 
 import org.junit.BeforeClass;
@@ -45,6 +46,7 @@ import jsettlers.testutils.map.MapUtils;
  */
 public class ReplayValidationIT {
 	private static final String REMAINING_REPLAY_FILENAME = "out/remainingReplay.log";
+	private static final String CONTINUED_REPLAY_FILENAME = "out/continuedReplay.log";
 
 	@BeforeClass
 	public static void loadSettings() {
@@ -108,6 +110,33 @@ public class ReplayValidationIT {
 		MapUtils.compareMapFiles(savegame, savegameOfSavegame);
 	}
 
+	@Test
+	public void testIfLoadedSavegameContinuesLikeOriginalPlay() throws IOException, MapLoadException {
+		final int savegameTimeMinutes = 10;
+		final int targetTimeMinutes = 15;
+		ReplayUtils.IReplayStreamProvider replay = AutoReplaySetting.getDefaultSettings().iterator().next().getReplayFile();
+
+		MapLoader originalSavegame = ReplayUtils.replayAndCreateSavegames(replay, new int[] { savegameTimeMinutes, targetTimeMinutes })[1];
+
+		// continue the game from a savegame with the remaining tasks of the replay
+		ReplayUtils.replayAndCreateSavegame(replay, savegameTimeMinutes, REMAINING_REPLAY_FILENAME);
+		MapLoader continuedSavegame = ReplayUtils.replayAndCreateSavegame(new ReplayUtils.ReplayFile(new File(REMAINING_REPLAY_FILENAME)), targetTimeMinutes,
+				CONTINUED_REPLAY_FILENAME);
+
+		assertEquals(calculateStateHash(originalSavegame), calculateStateHash(continuedSavegame));
+	}
+
+	private static long calculateStateHash(MapLoader savegame) throws MapLoadException {
+		MatchConstants.init(new NetworkTimer(true), 0L);
+		MainGrid mainGrid = savegame.loadMainGrid(PlayerSetting.createDefaultSettings((byte) 0, (byte) savegame.getMaxPlayers())).getMainGrid();
+		try {
+			return mainGrid.calculateStateHash();
+		} finally {
+			mainGrid.stopThreads();
+			JSettlersGame.clearState();
+		}
+	}
+
 	@Ignore
 	@Test
 	public void testReplayForSavegame() throws IOException, MapLoadException, ClassNotFoundException {
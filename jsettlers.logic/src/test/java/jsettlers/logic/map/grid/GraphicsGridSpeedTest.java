@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.grid;
+
+import java.io.IOException;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import jsettlers.common.logging.MilliStopWatch;
+import jsettlers.common.map.IGraphicsGrid;
+import jsettlers.common.map.shapes.MapRectangle;
+import jsettlers.integration.replay.AutoReplaySetting;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.player.PlayerSetting;
+import jsettlers.main.JSettlersGame;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+import jsettlers.testutils.TestUtils;
+import jsettlers.testutils.map.MapUtils;
+
+/**
+ * Walks the screen area of the map drawing over the savegames of the full production replay like the graphics do for every frame. The tiles visited
+ * with {@link IGraphicsGrid#nextDrawableX(int, int, int)} are compared with visiting every tile. Every tile with an object, a movable or a border must
+ * be visited.
+ */
+public class GraphicsGridSpeedTest {
+	private static final int[] SAVEGAME_MINUTES = { 0, 20, 40 };
+	private static final int SCREEN_WIDTH = 60;
+	private static final int SCREEN_HEIGHT = 40;
+	private static final int FRAMES = 2000;
+
+	@BeforeClass
+	public static void setupResourceManager() throws IOException {
+		TestUtils.setupTempResourceManager();
+	}
+
+	@Test
+	public void testSpeed() throws MapLoadException, InterruptedException {
+		for (int minutes : SAVEGAME_MINUTES) {
+			walkFrames(minutes);
+		}
+	}
+
+	private static void walkFrames(int minutes) throws MapLoadException, InterruptedException {
+		MapLoader savegame = MapUtils.getMap(AutoReplaySetting.class, "fullproduction/savegame-" + minutes + "m.zmap");
+
+		MatchConstants.init(new NetworkTimer(true), 0L);
+		MainGrid mainGrid = savegame.loadMainGrid(PlayerSetting.createDefaultSettings((byte) 0, (byte) savegame.getMaxPlayers())).getMainGrid();
+		try {
+			calculateBorders(mainGrid);
+			IGraphicsGrid grid = mainGrid.getGraphicsGrid();
+
+			walkAllFrames(grid, false, true); // warm up and check the skipped tiles
+			walkAllFrames(grid, true, false);
+
+			MilliStopWatch watch = new MilliStopWatch();
+			long skippingVisits = walkAllFrames(grid, false, false);
+			watch.stop("Skipping empty tiles in " + FRAMES + " frames of minute " + minutes + " needed");
+
+			watch.restart();
+			long allVisits = walkAllFrames(grid, true, false);
+			watch.stop("Visiting all tiles in " + FRAMES + " frames of minute " + minutes + " needed");
+
+			System.out.println("Tiles visited per frame in minute " + minutes + ": " + skippingVisits / FRAMES + " instead of " + allVisits / FRAMES);
+		} finally {
+			mainGrid.stopThreads();
+			JSettlersGame.clearState();
+		}
+	}
+
+	/**
+	 * Lets the borders thread calculate the borders of the whole map. The thread is stopped when the number of borders doesn't change anymore.
+	 */
+	private static void calculateBorders(MainGrid mainGrid) throws InterruptedException {
+		IGraphicsGrid grid = mainGrid.getGraphicsGrid();
+		mainGrid.startThreads();
+
+		int borders = -1;
+		int newBorders = countBorders(grid);
+		while (newBorders != borders) {
+			Thread.sleep(200);
+			borders = newBorders;
+			newBorders = countBorders(grid);
+		}
+
+		mainGrid.stopThreads();
+		Thread.sleep(50);
+	}
+
+	private static int countBorders(IGraphicsGrid grid) {
+		int borders = 0;
+		for (int y = 0; y < grid.getHeight(); y++) {
+			for (int x = 0; x < grid.getWidth(); x++) {
+				if (grid.isBorder(x, y)) {
+					borders++;
+				}
+			}
+		}
+		return borders;
+	}
+
+	private static long walkAllFrames(IGraphicsGrid grid, boolean visitAllTiles, boolean checkSkippedTiles) {
+		int width = grid.getWidth();
+		int height = grid.getHeight();
+		int framesPerLine = (int) Math.sqrt(FRAMES);
+
+		long visitedTiles = 0;
+		for (int frame = 0; frame < FRAMES; frame++) {
+			int minX = (frame % framesPerLine) * (width - SCREEN_WIDTH / 2) / framesPerLine;
+			int minY = (frame / framesPerLine % framesPerLine) * (height - SCREEN_HEIGHT) / framesPerLine;
+			visitedTiles += walkFrame(grid, new MapRectangle(minX, minY, SCREEN_WIDTH, SCREEN_HEIGHT), visitAllTiles, checkSkippedTiles);
+		}
+		return visitedTiles;
+	}
+
+	/**
+	 * Visits the tiles of the area like MapContent.drawMain().
+	 */
+	private static int walkFrame(IGraphicsGrid grid, MapRectangle area, boolean visitAllTiles, boolean checkSkippedTiles) {
+		int width = grid.getWidth();
+		int visitedTiles = 0;
+
+		for (int line = 0; line < area.getHeight(); line++) {
+			int y = area.getLineY(line);
+			int endX = Math.min(area.getLineEndX(line), width - 1);
+			int startX = Math.max(area.getLineStartX(line), 0);
+
+			int lastX = startX - 1;
+			for (int x = startX; x <= endX; x = visitAllTiles ? x + 1 : grid.nextDrawableX(x, y, endX)) {
+				if (checkSkippedTiles) {
+					checkSkippedTiles(grid, lastX + 1, x, y);
+				}
+				lastX = x;
+				visitedTiles++;
+			}
+			if (checkSkippedTiles) {
+				checkSkippedTiles(grid, lastX + 1, endX + 1, y);
+			}
+		}
+		return visitedTiles;
+	}
+
+	private static void checkSkippedTiles(IGraphicsGrid grid, int fromX, int toX, int y) {
+		for (int x = fromX; x < toX; x++) {
+			if (isDrawable(grid, x, y)) {
+				throw new AssertionError("drawable tile " + x + "|" + y + " has been skipped");
+			}
+		}
+	}
+
+	private static boolean isDrawable(IGraphicsGrid grid, int x, int y) {
+		return grid.getMapObjectsAt(x, y) != null || grid.getMovableAt(x, y) != null || grid.isBorder(x, y);
+	}
+}
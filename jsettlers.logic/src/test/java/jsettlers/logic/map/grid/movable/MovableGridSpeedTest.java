@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.grid.movable;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import jsettlers.common.ai.EPlayerType;
+import jsettlers.common.logging.MilliStopWatch;
+import jsettlers.common.map.shapes.HexGridArea;
+import jsettlers.common.movable.EMovableType;
+import jsettlers.common.player.ECivilisation;
+import jsettlers.common.player.IPlayer;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.common.utils.coordinates.CoordinateStream;
+import jsettlers.common.utils.mutables.MutableBoolean;
+import jsettlers.logic.constants.Constants;
+import jsettlers.logic.movable.interfaces.ILogicMovable;
+import jsettlers.logic.player.Player;
+import jsettlers.logic.player.Team;
+
+/**
+ * Compares {@link MovableGrid#informMovables(ILogicMovable, short, short, boolean)} with the former implementation that streamed the whole search
+ * area. Two armies of 500 soldiers face each other while 2000 workers of every team are spread over the map. Every soldier informs the full area
+ * and the border of the area around it. The armies are measured while approaching each other and in battle, where most of the time is spent
+ * informing the enemies.
+ */
+public class MovableGridSpeedTest {
+	private static final short MAP_SIZE = 512;
+	private static final int SOLDIERS_PER_TEAM = 500;
+	private static final int WORKERS_PER_TEAM = 2000;
+	private static final int ROUNDS = 10;
+
+	private final long[] checksum = new long[1];
+
+	@Test
+	public void testSpeedApproaching() {
+		testSpeed("approaching", 90);
+	}
+
+	@Test
+	public void testSpeedInBattle() {
+		testSpeed("in battle", 32);
+	}
+
+	private void testSpeed(String situation, int armiesDistance) {
+		MovableGrid grid = new MovableGrid(MAP_SIZE, MAP_SIZE, (x, y) -> {
+		});
+		List<ILogicMovable> soldiers = createMovables(grid, armiesDistance);
+
+		informAll(grid, soldiers, false); // warm up
+		informAll(grid, soldiers, true);
+
+		MilliStopWatch watch = new MilliStopWatch();
+		long newChecksum = informAll(grid, soldiers, false);
+		watch.stop("Bucketed search with " + 2 * SOLDIERS_PER_TEAM + " soldiers " + situation + " needed");
+
+		watch.restart();
+		long oldChecksum = informAll(grid, soldiers, true);
+		watch.stop("Streamed search with " + 2 * SOLDIERS_PER_TEAM + " soldiers " + situation + " needed");
+
+		if (oldChecksum != newChecksum) {
+			throw new AssertionError("informed movables differ");
+		}
+	}
+
+	private long informAll(MovableGrid grid, List<ILogicMovable> soldiers, boolean formerImplementation) {
+		checksum[0] = 0;
+		for (int round = 0; round < ROUNDS; round++) {
+			for (ILogicMovable soldier : soldiers) {
+				ShortPoint2D position = soldier.getPosition();
+				boolean informFullArea = round % 2 == 0;
+
+				if (formerImplementation) {
+					informMovables(grid, soldier, position.x, position.y, informFullArea);
+				} else {
+					grid.informMovables(soldier, position.x, position.y, informFullArea);
+				}
+			}
+		}
+		return checksum[0];
+	}
+
+	private List<ILogicMovable> createMovables(MovableGrid grid, int armiesDistance) {
+		Player[] players = new Player[2];
+		for (byte playerId = 0; playerId < players.length; playerId++) {
+			players[playerId] = new Player(playerId, new Team(playerId), (byte) players.length, EPlayerType.HUMAN, ECivilisation.ROMAN);
+		}
+
+		List<ILogicMovable> soldiers = new ArrayList<>();
+		int id = 0;
+		for (int i = 0; i < SOLDIERS_PER_TEAM; i++) { // two blocks of 25x20 soldiers
+			int x = 200 + i % 25;
+			int y = 200 + i / 25;
+			soldiers.add(createMovable(grid, id++, players[0], EMovableType.SWORDSMAN_L1, x, y));
+			soldiers.add(createMovable(grid, id++, players[1], EMovableType.SWORDSMAN_L1, x + armiesDistance, y));
+		}
+
+		Random random = new Random(1);
+		for (int i = 0; i < 2 * WORKERS_PER_TEAM; i++) {
+			int x, y;
+			do {
+				x = random.nextInt(MAP_SIZE);
+				y = random.nextInt(MAP_SIZE);
+			} while (grid.getMovableAt(x, y) != null);
+			createMovable(grid, id++, players[i % 2], EMovableType.BEARER, x, y);
+		}
+		return soldiers;
+	}
+
+	private ILogicMovable createMovable(MovableGrid grid, int id, Player player, EMovableType type, int x, int y) {
+		ShortPoint2D position = new ShortPoint2D(x, y);
+		ILogicMovable movable = (ILogicMovable) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ILogicMovable.class },
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+					case "getID":
+					case "hashCode":
+						return id;
+					case "getPlayer":
+						return player;
+					case "getMovableType":
+						return type;
+					case "getPosition":
+						return position;
+					case "isAttackable":
+						return true;
+					case "informAboutAttackable":
+						checksum[0] = checksum[0] * 31 + id * 7919 + ((ILogicMovable) args[0]).getID();
+						return null;
+					case "equals":
+						return proxy == args[0];
+					default:
+						throw new UnsupportedOperationException(method.getName());
+					}
+				});
+		grid.movableEntered(position, movable);
+		return movable;
+	}
+
+	/**
+	 * The former implementation of {@link MovableGrid#informMovables(ILogicMovable, short, short, boolean)}.
+	 */
+	private static void informMovables(MovableGrid grid, ILogicMovable movable, short x, short y, boolean informFullArea) {
+		CoordinateStream area;
+		if (informFullArea) {
+			area = HexGridArea.stream(x, y, (short) 1, Constants.SOLDIER_SEARCH_RADIUS);
+		} else {
+			area = HexGridArea.streamBorder(x, y, Constants.SOLDIER_SEARCH_RADIUS - 1);
+		}
+
+		MutableBoolean foundOne = new MutableBoolean();
+		IPlayer movablePlayer = movable.getPlayer();
+
+		area.filterBounds(MAP_SIZE, MAP_SIZE).forEach((currX, currY) -> {
+			ILogicMovable currMovable = grid.getMovableAt(currX, currY);
+			if (currMovable != null && MovableGrid.isEnemy(movablePlayer, currMovable)) {
+				currMovable.informAboutAttackable(movable);
+
+				if (!foundOne.value) {
+					movable.informAboutAttackable(currMovable);
+					foundOne.value = true;
+				}
+			}
+		});
+	}
+}
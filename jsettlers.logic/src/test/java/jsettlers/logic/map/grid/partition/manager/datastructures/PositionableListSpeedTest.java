@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.grid.partition.manager.datastructures;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import jsettlers.common.logging.MilliStopWatch;
+import jsettlers.common.position.ILocatable;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.common.utils.MathUtils;
+
+/**
+ * Compares the {@link PositionableList} with the former implementation that searched a {@link LinkedList}. One partition with 5000 jobless bearers and
+ * 2000 offers is simulated: Every request takes the offer closest to it and the bearer closest to the offer. The bearer becomes jobless again at the
+ * position of the request and a new offer is created somewhere in the partition.
+ */
+public class PositionableListSpeedTest {
+	private static final int BEARERS = 5000;
+	private static final int OFFERS = 2000;
+	private static final int REQUESTS = 20000;
+	private static final int PARTITION_SIZE = 400;
+
+	@Test
+	public void testSpeed() {
+		runLinkedLists(); // warm up
+		runPositionableLists();
+
+		MilliStopWatch watch = new MilliStopWatch();
+		long newChecksum = runPositionableLists();
+		watch.stop("PositionableList with " + BEARERS + " bearers and " + OFFERS + " offers needed");
+
+		watch.restart();
+		long oldChecksum = runLinkedLists();
+		watch.stop("LinkedList with " + BEARERS + " bearers and " + OFFERS + " offers needed");
+
+		if (oldChecksum != newChecksum) {
+			throw new AssertionError("chosen bearers and offers differ");
+		}
+	}
+
+	private static long runPositionableLists() {
+		Random random = new Random(1);
+		PositionableList<BenchmarkObject> bearers = new PositionableList<>();
+		PositionableList<BenchmarkObject> offers = new PositionableList<>();
+		for (int i = 0; i < BEARERS; i++) {
+			bearers.insert(new BenchmarkObject(i, randomPosition(random)));
+		}
+		for (int i = 0; i < OFFERS; i++) {
+			offers.insert(new BenchmarkObject(i, randomPosition(random)));
+		}
+
+		long checksum = 0;
+		for (int i = 0; i < REQUESTS; i++) {
+			ShortPoint2D request = randomPosition(random);
+			BenchmarkObject offer = offers.removeObjectNextTo(request);
+			BenchmarkObject bearer = bearers.removeObjectNextTo(offer.position);
+			checksum = checksum * 31 + offer.id * 7919 + bearer.id;
+
+			bearer.position = request;
+			bearers.insert(bearer);
+			offers.insert(new BenchmarkObject(OFFERS + i, randomPosition(random)));
+		}
+		return checksum;
+	}
+
+	private static long runLinkedLists() {
+		Random random = new Random(1);
+		LinkedList<BenchmarkObject> bearers = new LinkedList<>();
+		LinkedList<BenchmarkObject> offers = new LinkedList<>();
+		for (int i = 0; i < BEARERS; i++) {
+			bearers.add(new BenchmarkObject(i, randomPosition(random)));
+		}
+		for (int i = 0; i < OFFERS; i++) {
+			offers.add(new BenchmarkObject(i, randomPosition(random)));
+		}
+
+		long checksum = 0;
+		for (int i = 0; i < REQUESTS; i++) {
+			ShortPoint2D request = randomPosition(random);
+			BenchmarkObject offer = removeObjectNextTo(offers, request);
+			BenchmarkObject bearer = removeObjectNextTo(bearers, offer.position);
+			checksum = checksum * 31 + offer.id * 7919 + bearer.id;
+
+			bearer.position = request;
+			bearers.add(bearer);
+			offers.add(new BenchmarkObject(OFFERS + i, randomPosition(random)));
+		}
+		return checksum;
+	}
+
+	private static ShortPoint2D randomPosition(Random random) {
+		return new ShortPoint2D(100 + random.nextInt(PARTITION_SIZE), 100 + random.nextInt(PARTITION_SIZE));
+	}
+
+	/**
+	 * The former implementation of {@link PositionableList#removeObjectNextTo(ShortPoint2D)}.
+	 */
+	private static BenchmarkObject removeObjectNextTo(LinkedList<BenchmarkObject> data, ShortPoint2D position) {
+		int bestDistance = Integer.MAX_VALUE;
+		BenchmarkObject currBest = null;
+
+		for (BenchmarkObject currEntry : data) {
+			int currDist = MathUtils.squareHypot(position, currEntry.getPosition());
+
+			if (bestDistance > currDist) {
+				bestDistance = currDist;
+				currBest = currEntry;
+			}
+		}
+
+		for (Iterator<BenchmarkObject> iterator = data.iterator(); iterator.hasNext(); ) {
+			if (iterator.next() == currBest) {
+				iterator.remove();
+				break;
+			}
+		}
+		return currBest;
+	}
+
+	private static class BenchmarkObject implements ILocatable {
+		private final int id;
+		private ShortPoint2D position;
+
+		BenchmarkObject(int id, ShortPoint2D position) {
+			this.id = id;
+			this.position = position;
+		}
+
+		@Override
+		public ShortPoint2D getPosition() {
+			return position;
+		}
+	}
+}
@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.grid.partition.manager.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import java8.util.function.Predicate;
+import jsettlers.common.position.ILocatable;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.common.utils.MathUtils;
+import jsettlers.testutils.TestUtils;
+
+/**
+ * Tests the {@link PositionableList} and the {@link PredicatedPositionableList} against a linear search over the insertion order.
+ */
+public class PositionableListTest {
+
+	@Test
+	public void testClosestObjectIsRemoved() {
+		PositionableList<TestObject> list = new PositionableList<>();
+		TestObject far = new TestObject(0, 100, 100);
+		TestObject close = new TestObject(1, 12, 10);
+		list.insert(far);
+		list.insert(close);
+
+		assertSame(close, list.removeObjectNextTo(new ShortPoint2D(10, 10)));
+		assertSame(far, list.removeObjectNextTo(new ShortPoint2D(10, 10)));
+		assertNull(list.removeObjectNextTo(new ShortPoint2D(10, 10)));
+		assertTrue(list.isEmpty());
+	}
+
+	@Test
+	public void testEqualDistancesReturnFirstInserted() {
+		PositionableList<TestObject> list = new PositionableList<>();
+		for (int i = 0; i < 100; i++) { // enough objects to use the buckets
+			list.insert(new TestObject(i, 300 + i, 300));
+		}
+		TestObject first = new TestObject(100, 55, 50);
+		TestObject second = new TestObject(101, 45, 50);
+		TestObject third = new TestObject(102, 50, 55);
+		list.insert(first);
+		list.insert(second);
+		list.insert(third);
+
+		ShortPoint2D center = new ShortPoint2D(50, 50);
+		assertSame(first, list.removeObjectNextTo(center));
+		assertSame(second, list.removeObjectNextTo(center));
+		assertSame(third, list.removeObjectNextTo(center));
+	}
+
+	@Test
+	public void testObjectsAtPosition() {
+		PositionableList<TestObject> list = new PositionableList<>();
+		ShortPoint2D position = new ShortPoint2D(20, 20);
+		TestObject first = new TestObject(0, 20, 20);
+		TestObject other = new TestObject(1, 21, 20);
+		TestObject second = new TestObject(2, 20, 20);
+		list.insert(first);
+		list.insert(other);
+		list.insert(second);
+
+		assertSame(first, list.getObjectAt(position));
+		assertSame(first, list.removeObjectAt(position));
+		assertSame(second, list.removeObjectAt(position));
+		assertNull(list.removeObjectAt(position));
+		assertEquals(1, list.size());
+	}
+
+	@Test
+	public void testMovedObjectIsFoundAndRemoved() {
+		PositionableList<TestObject> list = new PositionableList<>();
+		for (int i = 0; i < 100; i++) {
+			list.insert(new TestObject(i, 200 + i, 200));
+		}
+		TestObject moving = new TestObject(100, 14, 14);
+		list.insert(moving);
+
+		move(list, moving, 17, 17); // moved into the next bucket
+		assertSame(moving, list.removeObjectNextTo(new ShortPoint2D(18, 18)));
+		assertEquals(100, list.size());
+
+		list.insert(moving);
+		move(list, moving, 30, 30);
+		list.remove(moving);
+		assertEquals(100, list.size());
+		assertNull(list.getObjectAt(moving.position));
+	}
+
+	@Test
+	public void testObjectMovedCloserFromFarBucketIsFound() {
+		PositionableList<TestObject> list = new PositionableList<>();
+		for (int i = 0; i < 100; i++) {
+			list.insert(new TestObject(i, 200 + i, 200));
+		}
+		TestObject near = new TestObject(100, 60, 60);
+		TestObject moving = new TestObject(101, 180, 180);
+		list.insert(near);
+		list.insert(moving);
+
+		move(list, moving, 52, 51); // moved from a far bucket next to the searched position
+		ShortPoint2D center = new ShortPoint2D(50, 50);
+		assertSame(moving, list.getObjectCloseTo(center));
+		assertSame(moving, list.getObjectAt(moving.position));
+		assertSame(moving, list.removeObjectNextTo(center));
+		assertSame(near, list.removeObjectNextTo(center));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testRandomOperationsMatchLinearSearch() throws IOException, ClassNotFoundException {
+		Random random = new Random(42);
+		PredicatedPositionableList<TestObject> list = new PredicatedPositionableList<>();
+		PredicatedPositionableList<TestObject> otherList = new PredicatedPositionableList<>();
+		LinkedList<TestObject> expected = new LinkedList<>();
+		LinkedList<TestObject> otherExpected = new LinkedList<>();
+		Predicate<TestObject> evenIds = object -> object.id % 2 == 0;
+
+		int nextId = 0;
+		for (int i = 0; i < 20000; i++) {
+			ShortPoint2D position = randomPosition(random);
+			int operation = random.nextInt(100);
+
+			if (operation < 45) {
+				TestObject object = new TestObject(nextId++, position.x, position.y);
+				list.insert(object);
+				expected.add(object);
+			} else if (operation < 65) {
+				assertSame(removeClosest(expected, position, null), list.removeObjectNextTo(position));
+			} else if (operation < 80) {
+				assertSame(removeClosest(expected, position, evenIds), list.removeObjectNextTo(position, evenIds));
+			} else if (operation < 85 && !expected.isEmpty()) {
+				TestObject object = expected.remove(random.nextInt(expected.size()));
+				list.remove(object);
+			} else if (operation < 90 && !expected.isEmpty()) {
+				ShortPoint2D existing = expected.get(random.nextInt(expected.size())).position;
+				assertSame(getAt(expected, existing), list.getObjectAt(existing));
+				list.moveObjectsAtPositionTo(existing, otherList, object -> {
+				});
+				for (Iterator<TestObject> iterator = expected.iterator(); iterator.hasNext(); ) {
+					TestObject object = iterator.next();
+					if (object.position.equals(existing)) {
+						iterator.remove();
+						otherExpected.add(object);
+					}
+				}
+			} else if (operation < 92 && !expected.isEmpty()) {
+				TestObject object = expected.get(random.nextInt(expected.size()));
+				move(list, object, position.x, position.y);
+			} else if (operation < 94) {
+				list.moveAll(otherList);
+				expected.addAll(otherExpected);
+				otherExpected.clear();
+			} else if (operation < 95) {
+				Object[] state = TestUtils.serializeAndDeserialize(new Object[] { list, otherList, expected, otherExpected });
+				list = (PredicatedPositionableList<TestObject>) state[0];
+				otherList = (PredicatedPositionableList<TestObject>) state[1];
+				expected = (LinkedList<TestObject>) state[2];
+				otherExpected = (LinkedList<TestObject>) state[3];
+			}
+			assertEquals(expected.size(), list.size());
+		}
+		assertEquals(expected.toString(), list.toString());
+	}
+
+	private static void move(PositionableList<TestObject> list, TestObject object, int x, int y) {
+		ShortPoint2D oldPosition = object.position;
+		object.position = new ShortPoint2D(x, y);
+		list.positionChanged(object, oldPosition);
+	}
+
+	private static ShortPoint2D randomPosition(Random random) {
+		if (random.nextBoolean()) {
+			return new ShortPoint2D(100 + random.nextInt(40), 100 + random.nextInt(40)); // dense area with many equal distances
+		} else {
+			return new ShortPoint2D(random.nextInt(500), random.nextInt(500));
+		}
+	}
+
+	private static TestObject removeClosest(List<TestObject> objects, ShortPoint2D position, Predicate<TestObject> predicate) {
+		int bestDistance = Integer.MAX_VALUE;
+		TestObject best = null;
+		for (TestObject object : objects) {
+			int distance = MathUtils.squareHypot(position, object.position);
+			if ((predicate == null || predicate.test(object)) && distance < bestDistance) {
+				bestDistance = distance;
+				best = object;
+			}
+		}
+		objects.remove(best);
+		return best;
+	}
+
+	private static TestObject getAt(List<TestObject> objects, ShortPoint2D position) {
+		for (TestObject object : objects) {
+			if (object.position.equals(position)) {
+				return object;
+			}
+		}
+		return null;
+	}
+
+	private static class TestObject implements ILocatable, Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final int id;
+		private ShortPoint2D position;
+
+		TestObject(int id, int x, int y) {
+			this.id = id;
+			this.position = new ShortPoint2D(x, y);
+		}
+
+		@Override
+		public ShortPoint2D getPosition() {
+			return position;
+		}
+
+		@Override
+		public String toString() {
+			return id + "@" + position;
+		}
+	}
+}
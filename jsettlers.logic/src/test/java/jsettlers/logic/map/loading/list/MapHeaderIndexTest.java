@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.loading.list;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jsettlers.integration.replay.AutoReplaySetting;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.map.loading.newmap.MapFileHeader;
+import jsettlers.logic.map.loading.newmap.RemakeMapLoader;
+
+/**
+ * Checks that the {@link MapHeaderIndex} returns the same headers as the map files and that it notices changed map files.
+ */
+public class MapHeaderIndexTest {
+	private static final String[] MAPS = { "fullproduction/savegame-40m.zmap", "fullproduction/base.rmap" };
+
+	private File directory;
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = Files.createTempDirectory("map-header-index").toFile();
+		for (String map : MAPS) {
+			try (InputStream in = AutoReplaySetting.class.getResourceAsStream(map);
+					OutputStream out = new FileOutputStream(new File(directory, new File(map).getName()))) {
+				copy(in, out);
+			}
+		}
+	}
+
+	@After
+	public void deleteDirectory() {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void testIndexedHeadersEqualFileHeaders() throws MapLoadException, IOException {
+		File indexFile = new File(directory, "headers.index");
+		MapHeaderIndex index = new MapHeaderIndex(indexFile);
+
+		for (String map : MAPS) {
+			DirectoryMapLister.ListedMapFile listedMap = getListedMap(map);
+			assertNull(index.getHeader(listedMap.getFile()));
+			assertHeaderEquals(RemakeMapLoader.loadHeader(listedMap), index.loadHeader(listedMap));
+		}
+		index.save();
+		assertTrue(indexFile.isFile());
+
+		MapHeaderIndex readIndex = new MapHeaderIndex(indexFile);
+		for (String map : MAPS) {
+			DirectoryMapLister.ListedMapFile listedMap = getListedMap(map);
+			MapFileHeader indexedHeader = readIndex.getHeader(listedMap.getFile());
+			assertNotNull(indexedHeader);
+			assertHeaderEquals(RemakeMapLoader.loadHeader(listedMap), indexedHeader);
+		}
+	}
+
+	@Test
+	public void testChangedFilesAreNotTakenFromIndex() throws MapLoadException {
+		File indexFile = new File(directory, "headers.index");
+		MapHeaderIndex index = new MapHeaderIndex(indexFile);
+		File savegame = getListedMap(MAPS[0]).getFile();
+		index.loadHeader(getListedMap(MAPS[0]));
+		index.save();
+
+		assertTrue(savegame.setLastModified(savegame.lastModified() - 10000));
+		assertNull(new MapHeaderIndex(indexFile).getHeader(savegame));
+	}
+
+	@Test
+	public void testMapListUsesIndex() {
+		File indexFile = new File(directory, "headers.index");
+		DirectoryMapLister lister = new DirectoryMapLister(directory, false);
+
+		MapList mapList = new MapList(Collections.singletonList(lister), lister, new MapHeaderIndex(indexFile));
+		assertEquals(1, mapList.getFreshMaps().getItems().size());
+		assertEquals(1, mapList.getSavedMaps().getItems().size());
+		assertTrue(indexFile.isFile());
+
+		MapHeaderIndex index = new MapHeaderIndex(indexFile);
+		for (String map : MAPS) {
+			assertNotNull(index.getHeader(getListedMap(map).getFile()));
+		}
+
+		MapList indexedMapList = new MapList(Collections.singletonList(lister), lister, index);
+		MapLoader freshMap = indexedMapList.getFreshMaps().getItems().get(0);
+		assertEquals(mapList.getFreshMaps().getItems().get(0).getMapId(), freshMap.getMapId());
+		assertEquals(mapList.getSavedMaps().getItems().get(0).getMapId(), indexedMapList.getSavedMaps().getItems().get(0).getMapId());
+
+		assertTrue(getListedMap(MAPS[0]).getFile().delete());
+		index.save();
+		assertNotNull(new MapHeaderIndex(indexFile).getHeader(getListedMap(MAPS[1]).getFile()));
+	}
+
+	@Test
+	public void testListenersSeeLoadedMaps() throws InterruptedException {
+		DirectoryMapLister lister = new DirectoryMapLister(directory, false);
+		MapList mapList = new MapList(Collections.singletonList(lister), lister, new MapHeaderIndex(new File(directory, "headers.index")));
+		CountDownLatch bothMapsLoaded = new CountDownLatch(1);
+		mapList.addListener(list -> {
+			if (list.getLoadedFreshMaps().size() + list.getLoadedSavedMaps().size() == MAPS.length) {
+				bothMapsLoaded.countDown();
+			}
+		});
+		assertTrue(mapList.getLoadedFreshMaps().isEmpty());
+
+		mapList.startLoading();
+
+		assertTrue(bothMapsLoaded.await(10, TimeUnit.SECONDS));
+		assertEquals(mapList.getFreshMaps().getItems(), mapList.getLoadedFreshMaps());
+		assertEquals(mapList.getSavedMaps().getItems(), mapList.getLoadedSavedMaps());
+	}
+
+	private DirectoryMapLister.ListedMapFile getListedMap(String map) {
+		return new DirectoryMapLister.ListedMapFile(new File(directory, new File(map).getName()));
+	}
+
+	private static void assertHeaderEquals(MapFileHeader expected, MapFileHeader actual) throws IOException {
+		ByteArrayOutputStream expectedBytes = new ByteArrayOutputStream();
+		expected.writeTo(expectedBytes);
+		ByteArrayOutputStream actualBytes = new ByteArrayOutputStream();
+		actual.writeTo(actualBytes);
+
+		assertEquals(expected.getBaseMapId(), actual.getBaseMapId());
+		assertArrayEquals(expectedBytes.toByteArray(), actualBytes.toByteArray());
+	}
+
+	private static void copy(InputStream in, OutputStream out) throws IOException {
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) >= 0) {
+			out.write(buffer, 0, read);
+		}
+	}
+}
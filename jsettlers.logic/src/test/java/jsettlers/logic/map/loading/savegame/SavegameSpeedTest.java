@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.loading.savegame;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.zip.DeflaterOutputStream;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import jsettlers.common.logging.MilliStopWatch;
+import jsettlers.integration.replay.AutoReplaySetting;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.GameSerializer;
+import jsettlers.logic.map.grid.MainGrid;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.player.PlayerSetting;
+import jsettlers.main.JSettlersGame;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+import jsettlers.testutils.TestUtils;
+import jsettlers.testutils.map.MapUtils;
+
+/**
+ * Measures loading and saving the savegames of the full production replay. Every savegame is saved twice to check that saving doesn't change the
+ * saved state.
+ */
+public class SavegameSpeedTest {
+	private static final int[] SAVEGAME_MINUTES = { 0, 10, 20, 40, 65, 90 };
+
+	@BeforeClass
+	public static void setupResourceManager() throws IOException {
+		TestUtils.setupTempResourceManager();
+	}
+
+	@Test
+	public void testSpeed() throws MapLoadException, IOException {
+		loadAndSave(SAVEGAME_MINUTES[SAVEGAME_MINUTES.length - 1]); // warm up
+
+		for (int minutes : SAVEGAME_MINUTES) {
+			loadAndSave(minutes);
+		}
+	}
+
+	private static void loadAndSave(int minutes) throws MapLoadException, IOException {
+		MapLoader savegame = MapUtils.getMap(AutoReplaySetting.class, "fullproduction/savegame-" + minutes + "m.zmap");
+
+		MatchConstants.init(new NetworkTimer(true), 0L);
+		MilliStopWatch watch = new MilliStopWatch();
+		MainGrid mainGrid = savegame.loadMainGrid(PlayerSetting.createDefaultSettings((byte) 0, (byte) savegame.getMaxPlayers())).getMainGrid();
+		watch.stop("Loading savegame of minute " + minutes + " required");
+
+		try {
+			watch.restart();
+			byte[] saved = save(mainGrid);
+			watch.stop("Saving savegame of minute " + minutes + " required");
+
+			assertArrayEquals(saved, save(mainGrid));
+			System.out.println("Savegame of minute " + minutes + " has " + saved.length + " bytes, " + deflate(saved).length + " bytes compressed");
+		} finally {
+			mainGrid.stopThreads();
+			JSettlersGame.clearState();
+		}
+	}
+
+	private static byte[] save(MainGrid mainGrid) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+			new GameSerializer().save(mainGrid, oos);
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] deflate(byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (DeflaterOutputStream deflater = new DeflaterOutputStream(out)) {
+			deflater.write(data);
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.timer;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import jsettlers.common.logging.MilliStopWatch;
+
+/**
+ * Compares the {@link RescheduleTimer} with the former implementation that used an {@link ArrayList} per time slot.
+ */
+public class RescheduleTimerSpeedTest {
+	private static final int[] TIMERABLE_COUNTS = { 10000, 50000, 200000 };
+	private static final int SIMULATED_TICKS = 2000; // 50 seconds of game time
+
+	@Test
+	public void testSpeed() {
+		for (int count : TIMERABLE_COUNTS) {
+			runArrayListTimer(count); // warm up
+			RescheduleTimer.stopAndClear();
+			runRescheduleTimer(count);
+			RescheduleTimer.stopAndClear();
+
+			MilliStopWatch watch = new MilliStopWatch();
+			long newChecksum = runRescheduleTimer(count);
+			watch.stop("RescheduleTimer with " + count + " timerables needed");
+			RescheduleTimer.stopAndClear();
+
+			watch.restart();
+			long oldChecksum = runArrayListTimer(count);
+			watch.stop("ArrayList timer with " + count + " timerables needed");
+
+			if (oldChecksum != newChecksum) {
+				throw new AssertionError("firing order differs for " + count + " timerables");
+			}
+		}
+	}
+
+	private static long runRescheduleTimer(int count) {
+		RescheduleTimer timer = RescheduleTimer.get();
+		OrderChecksum checksum = new OrderChecksum();
+		for (int i = 0; i < count; i++) {
+			timer.addTimerable(new BenchmarkTimerable(i, checksum), BenchmarkTimerable.delay(i, 0));
+		}
+		for (int i = 0; i < SIMULATED_TICKS; i++) {
+			timer.timerEvent();
+		}
+		return checksum.value;
+	}
+
+	private static long runArrayListTimer(int count) {
+		ArrayListTimer timer = new ArrayListTimer();
+		OrderChecksum checksum = new OrderChecksum();
+		for (int i = 0; i < count; i++) {
+			timer.add(new BenchmarkTimerable(i, checksum), BenchmarkTimerable.delay(i, 0));
+		}
+		for (int i = 0; i < SIMULATED_TICKS; i++) {
+			timer.timerEvent();
+		}
+		return checksum.value;
+	}
+
+	private static class OrderChecksum {
+		long value = 0;
+	}
+
+	private static class BenchmarkTimerable implements IScheduledTimerable {
+		private static final long serialVersionUID = 1L;
+
+		private final int id;
+		private final OrderChecksum checksum;
+		private int calls = 0;
+
+		BenchmarkTimerable(int id, OrderChecksum checksum) {
+			this.id = id;
+			this.checksum = checksum;
+		}
+
+		static int delay(int id, int calls) {
+			return 25 + ((id * 31 + calls * 17) % 80) * 25; // between 25 and 2000 ms, like movables and buildings
+		}
+
+		@Override
+		public int timerEvent() {
+			checksum.value = checksum.value * 31 + id;
+			calls++;
+			return id % 50 == calls ? -1 : delay(id, calls);
+		}
+
+		@Override
+		public void kill() {
+		}
+	}
+
+	/**
+	 * The former implementation of the {@link RescheduleTimer}.
+	 */
+	private static class ArrayListTimer {
+		private static final int TIME_SLOTS = 32000 / 25;
+
+		@SuppressWarnings("unchecked")
+		private final ArrayList<IScheduledTimerable>[] timerables = (ArrayList<IScheduledTimerable>[]) new ArrayList<?>[TIME_SLOTS];
+		private int currTimeSlot = 0;
+
+		ArrayListTimer() {
+			for (int i = 0; i < TIME_SLOTS; i++) {
+				timerables[i] = new ArrayList<>();
+			}
+		}
+
+		void add(IScheduledTimerable t, int delay) {
+			if (delay <= 0) {
+				return;
+			}
+			int delaySlots = Math.max(1, delay / 25);
+			timerables[(currTimeSlot + delaySlots) % TIME_SLOTS].add(t);
+		}
+
+		void timerEvent() {
+			ArrayList<IScheduledTimerable> queue = timerables[currTimeSlot];
+			for (IScheduledTimerable curr : queue) {
+				add(curr, curr.timerEvent());
+			}
+			queue.clear();
+			currTimeSlot = (currTimeSlot + 1) % TIME_SLOTS;
+		}
+	}
+}
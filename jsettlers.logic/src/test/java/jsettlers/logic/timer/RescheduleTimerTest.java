@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class RescheduleTimerTest {
+
+	private final List<Integer> fired = new ArrayList<>();
+	private RescheduleTimer timer;
+
+	@Before
+	public void setUp() {
+		RescheduleTimer.stopAndClear();
+		timer = RescheduleTimer.get();
+	}
+
+	@Test
+	public void testFiringOrderWithinSlot() {
+		for (int i = 0; i < 10; i++) {
+			RescheduleTimer.add(new RecordingTimerable(i, -1), 50 + (i % 2)); // all fall into the same slot
+		}
+
+		tick(2);
+		assertEquals(0, fired.size());
+		tick(1);
+		assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), fired);
+		assertEquals(0, timer.size());
+	}
+
+	@Test
+	public void testRescheduling() {
+		RescheduleTimer.add(new RecordingTimerable(1, 50), 25);
+		RescheduleTimer.add(new RecordingTimerable(2, 25), 50);
+
+		tick(6);
+		assertEquals(Arrays.asList(1, 2, 1, 2, 2, 1, 2), fired);
+		assertEquals(2, timer.size());
+	}
+
+	@Test
+	public void testCancel() {
+		long handle1 = RescheduleTimer.add(new RecordingTimerable(1, -1), 100);
+		long handle2 = RescheduleTimer.add(new RecordingTimerable(2, -1), 100);
+		RescheduleTimer.add(new RecordingTimerable(3, -1), 100);
+
+		assertTrue(RescheduleTimer.cancel(handle2));
+		assertFalse(RescheduleTimer.cancel(handle2));
+		assertEquals(2, timer.size());
+
+		tick(5);
+		assertEquals(Arrays.asList(1, 3), fired);
+		assertFalse(RescheduleTimer.cancel(handle1)); // already fired
+		assertFalse(RescheduleTimer.cancel(RescheduleTimer.NOT_SCHEDULED));
+		assertEquals(RescheduleTimer.NOT_SCHEDULED, RescheduleTimer.add(new RecordingTimerable(4, -1), 0));
+	}
+
+	@Test
+	public void testCancelOtherTimerableOfSameSlot() {
+		final long[] handles = new long[2];
+		RescheduleTimer.add(new RecordingTimerable(1, -1) {
+			@Override
+			public int timerEvent() {
+				RescheduleTimer.cancel(handles[1]);
+				return super.timerEvent();
+			}
+		}, 25);
+		handles[0] = RescheduleTimer.add(new RecordingTimerable(2, -1), 25);
+		handles[1] = RescheduleTimer.add(new RecordingTimerable(3, -1), 25);
+
+		tick(2);
+		assertEquals(Arrays.asList(1, 2), fired);
+		assertEquals(0, timer.size());
+	}
+
+	@Test
+	public void testDelaysLongerThanOneRevolution() {
+		RescheduleTimer.add(new RecordingTimerable(1, -1), 32000);
+		RescheduleTimer.add(new RecordingTimerable(2, -1), 100000);
+		RescheduleTimer.add(new RecordingTimerable(3, -1), 32025);
+
+		tick(32000 / 25);
+		assertEquals(0, fired.size());
+		tick(1);
+		assertEquals(Arrays.asList(1), fired);
+		tick(1);
+		assertEquals(Arrays.asList(1, 3), fired);
+		tick(100000 / 25 - 32000 / 25 - 2);
+		assertEquals(Arrays.asList(1, 3), fired);
+		tick(1);
+		assertEquals(Arrays.asList(1, 3, 2), fired);
+	}
+
+	@Test
+	public void testCancelLongDelays() {
+		long handle1 = RescheduleTimer.add(new RecordingTimerable(1, -1), 40000);
+		long handle2 = RescheduleTimer.add(new RecordingTimerable(2, -1), 40000);
+		long handle3 = RescheduleTimer.add(new RecordingTimerable(3, -1), 40000);
+
+		assertTrue(RescheduleTimer.cancel(handle1));
+		tick(32000 / 25 + 1); // moves the remaining timerables into the wheel
+		assertTrue(RescheduleTimer.cancel(handle2));
+		assertFalse(RescheduleTimer.cancel(handle2));
+		assertEquals(1, timer.size());
+
+		tick(40000 / 25);
+		assertEquals(Arrays.asList(3), fired);
+		assertFalse(RescheduleTimer.cancel(handle3));
+		assertEquals(0, timer.size());
+	}
+
+	@Test
+	public void testCrashingTimerableIsKilled() {
+		final boolean[] killed = new boolean[1];
+		RescheduleTimer.add(new IScheduledTimerable() {
+			@Override
+			public int timerEvent() {
+				throw new IllegalStateException("expected by test");
+			}
+
+			@Override
+			public void kill() {
+				killed[0] = true;
+			}
+		}, 25);
+
+		tick(2);
+		assertTrue(killed[0]);
+		assertEquals(0, timer.size());
+	}
+
+	private void tick(int ticks) {
+		for (int i = 0; i < ticks; i++) {
+			timer.timerEvent();
+		}
+	}
+
+	private class RecordingTimerable implements IScheduledTimerable {
+		private static final long serialVersionUID = 1L;
+
+		private final int id;
+		private final int delay;
+
+		RecordingTimerable(int id, int delay) {
+			this.id = id;
+			this.delay = delay;
+		}
+
+		@Override
+		public int timerEvent() {
+			fired.add(id);
+			return delay;
+		}
+
+		@Override
+		public void kill() {
+		}
+	}
+}
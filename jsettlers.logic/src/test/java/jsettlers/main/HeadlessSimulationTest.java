@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import jsettlers.common.CommonConstants;
+import jsettlers.integration.replay.AutoReplaySetting;
+import jsettlers.logic.constants.Constants;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.timer.TickProfiler.ESubsystem;
+import jsettlers.testutils.TestUtils;
+
+public class HeadlessSimulationTest {
+
+	@BeforeClass
+	public static void setupConstants() {
+		CommonConstants.CONTROL_ALL = true;
+		Constants.FOG_OF_WAR_DEFAULT_ENABLED = false;
+
+		TestUtils.setupTempResourceManager();
+	}
+
+	@Test
+	public void testReplayIsProfiled() throws MapLoadException {
+		AutoReplaySetting replay = AutoReplaySetting.getDefaultSettings().iterator().next();
+		HeadlessSimulation.Result result = HeadlessSimulation.ofReplay(replay.getReplayFile()).run(2 * 60 * 1000);
+
+		System.out.println(result.toJson());
+		assertEquals(2 * 60 * 1000, result.getSimulatedMs());
+		assertTrue(result.getSimulatedMsPerWallMs() > 0);
+		assertTrue(result.getSubsystemCalls(ESubsystem.MOVABLES) > 0);
+		assertTrue(result.getSubsystemCalls(ESubsystem.BUILDINGS) > 0);
+		assertTrue(result.getSubsystemCalls(ESubsystem.PARTITIONS) > 0);
+		assertTrue(result.getSubsystemCalls(ESubsystem.MAP_OBJECTS) > 0);
+		assertTrue(result.toJson().contains("\"movables\": { \"ms\": "));
+	}
+}
@@ -183,6 +183,18 @@ public class AndroidControls implements IControls, ActionFireable, TaskControls
 		return null;
 	}
 
+	@Override
+	public void backgroundChangedAt(int x, int y) {
+	}
+
+	@Override
+	public void playerChangedAt(int x, int y) {
+	}
+
+	@Override
+	public void fogOfWarChangedIn(int minX, int minY, int maxX, int maxY) {
+	}
+
 	@Override
 	public void stop() {
 	}
@@ -20,7 +20,6 @@ import static java8.util.stream.StreamSupport.stream;
 import java.util.List;
 
 import jsettlers.common.menu.IJoinPhaseMultiplayerGameConnector;
-import jsettlers.common.utils.collections.ChangingList;
 import jsettlers.logic.map.loading.MapLoader;
 import jsettlers.main.android.core.AndroidPreferences;
 import jsettlers.main.android.core.GameManager;
@@ -75,25 +74,19 @@ public class PresenterFactory {
 	public static NewSinglePlayerPickerPresenter createNewSinglePlayerPickerPresenter(Activity activity, MapPickerView view) {
 		MainMenuNavigator navigator = (MainMenuNavigator) activity;
 		GameStarter gameStarter = (GameStarter) activity.getApplication();
-		ChangingList<MapLoader> changingMaps = gameStarter.getMapList().getFreshMaps();
-
-		return new NewSinglePlayerPickerPresenter(view, navigator, gameStarter, changingMaps);
+		return new NewSinglePlayerPickerPresenter(view, navigator, gameStarter, gameStarter.getMapList());
 	}
 
 	public static LoadSinglePlayerPickerPresenter createLoadSinglePlayerPickerPresenter(Activity activity, LoadSinglePlayerPickerView view) {
 		MainMenuNavigator navigator = (MainMenuNavigator) activity;
 		GameStarter gameStarter = (GameStarter) activity.getApplication();
-		ChangingList<? extends MapLoader> changingMaps = gameStarter.getMapList().getSavedMaps();
-
-		return new LoadSinglePlayerPickerPresenter(view, navigator, gameStarter, changingMaps);
+		return new LoadSinglePlayerPickerPresenter(view, navigator, gameStarter, gameStarter.getMapList());
 	}
 
 	public static NewMultiPlayerPickerPresenter createNewMultiPlayerPickerPresenter(Activity activity, NewMultiPlayerPickerView view) {
 		MainMenuNavigator navigator = (MainMenuNavigator) activity;
 		GameStarter gameStarter = (GameStarter) activity.getApplication();
-		ChangingList<MapLoader> changingMaps = gameStarter.getMapList().getFreshMaps();
-
-		return new NewMultiPlayerPickerPresenter(view, navigator, gameStarter, new AndroidPreferences(activity), changingMaps);
+		return new NewMultiPlayerPickerPresenter(view, navigator, gameStarter, new AndroidPreferences(activity), gameStarter.getMapList());
 	}
 
 	public static JoinMultiPlayerPickerPresenter createJoinMultiPlayerPickerPresenter(Activity activity, JoinMultiPlayerPickerView view) {
@@ -145,7 +138,7 @@ public class PresenterFactory {
 	}
 
 	private static MapLoader getMapById(String mapId, GameStarter gameStarter) {
-		List<MapLoader> maps = gameStarter.getMapList().getFreshMaps().getItems();
+		List<MapLoader> maps = gameStarter.getMapList().getLoadedFreshMaps(); // the map has been picked from the maps loaded so far
 		return stream(maps)
 				.filter(x -> mapId.equals(x.getMapId()))
 				.findFirst()
@@ -19,8 +19,8 @@ import static java8.util.stream.StreamSupport.stream;
 
 import java.util.List;
 
-import jsettlers.common.utils.collections.ChangingList;
 import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.map.loading.list.MapList;
 import jsettlers.logic.map.loading.newmap.MapFileHeader;
 import jsettlers.logic.player.PlayerSetting;
 import jsettlers.main.JSettlersGame;
@@ -38,8 +38,8 @@ public class LoadSinglePlayerPickerPresenter extends MapPickerPresenter {
 	private final GameStarter gameStarter;
 	private final MainMenuNavigator navigator;
 
-	public LoadSinglePlayerPickerPresenter(LoadSinglePlayerPickerView view, MainMenuNavigator navigator, GameStarter gameStarter, ChangingList<? extends MapLoader> changingMaps) {
-		super(view, navigator, gameStarter, changingMaps);
+	public LoadSinglePlayerPickerPresenter(LoadSinglePlayerPickerView view, MainMenuNavigator navigator, GameStarter gameStarter, MapList mapList) {
+		super(view, navigator, gameStarter, mapList);
 		this.view = view;
 		this.navigator = navigator;
 		this.gameStarter = gameStarter;
@@ -55,6 +55,11 @@ public class LoadSinglePlayerPickerPresenter extends MapPickerPresenter {
 		navigator.showGame();
 	}
 
+	@Override
+	protected List<? extends MapLoader> getLoadedMaps(MapList mapList) {
+		return mapList.getLoadedSavedMaps();
+	}
+
 	@Override
 	protected void updateViewItems(List<? extends MapLoader> items) {
 		List<? extends MapLoader> sortedList = stream(items)
@@ -18,9 +18,8 @@ package jsettlers.main.android.mainmenu.presenters.picker;
 import java.util.List;
 
 import java8.util.stream.Collectors;
-import jsettlers.common.utils.collections.ChangingList;
-import jsettlers.common.utils.collections.IChangingListListener;
 import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.map.loading.list.MapList;
 import jsettlers.main.android.core.GameStarter;
 import jsettlers.main.android.mainmenu.navigation.MainMenuNavigator;
 import jsettlers.main.android.mainmenu.views.MapPickerView;
@@ -30,23 +29,24 @@ import static java8.util.stream.StreamSupport.stream;
 /**
  * Created by tompr on 22/01/2017.
  */
-public abstract class MapPickerPresenter implements IChangingListListener<MapLoader> {
+public abstract class MapPickerPresenter implements MapList.IMapListListener {
 	private final MapPickerView view;
 	private final GameStarter gameStarter;
 	private final MainMenuNavigator navigator;
-	private final ChangingList<? extends MapLoader> changingMaps;
+	private final MapList mapList;
 
-	public MapPickerPresenter(MapPickerView view, MainMenuNavigator navigator, GameStarter gameStarter,			ChangingList<? extends MapLoader> changingMaps) {
+	public MapPickerPresenter(MapPickerView view, MainMenuNavigator navigator, GameStarter gameStarter, MapList mapList) {
 		this.view = view;
 		this.gameStarter = gameStarter;
 		this.navigator = navigator;
-		this.changingMaps = changingMaps;
+		this.mapList = mapList;
 
-		changingMaps.setListener(this);
+		mapList.addListener(this);
 	}
 
 	public void initView() {
-		sortAndUpdateItems(changingMaps.getItems());
+		sortAndUpdateItems(getLoadedMaps(mapList));
+		mapList.startLoading(); // the maps are shown as soon as they have been read
 	}
 
 	public void viewFinished() {
@@ -59,11 +59,18 @@ public abstract class MapPickerPresenter implements IChangingListListener<MapLoa
 	}
 
 	public void dispose() {
-		changingMaps.removeListener(this);
+		mapList.removeListener(this);
 	}
 
 	public abstract void itemSelected(MapLoader mapLoader);
 
+	/**
+	 * @return the maps of the given list that are shown by this picker.
+	 */
+	protected List<? extends MapLoader> getLoadedMaps(MapList mapList) {
+		return mapList.getLoadedFreshMaps();
+	}
+
 	protected void updateViewItems(List<? extends MapLoader> items) {
 		view.setItems(items);
 	}
@@ -77,10 +84,10 @@ public abstract class MapPickerPresenter implements IChangingListListener<MapLoa
 	}
 
 	/**
-	 * ChangingListListener implementation
+	 * IMapListListener implementation
 	 */
 	@Override
-	public void listChanged(ChangingList<? extends MapLoader> list) {
-		sortAndUpdateItems(list.getItems());
+	public void mapListChanged(MapList mapList) {
+		sortAndUpdateItems(getLoadedMaps(mapList));
 	}
 }
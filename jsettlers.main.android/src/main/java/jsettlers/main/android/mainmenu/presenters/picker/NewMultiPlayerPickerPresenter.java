@@ -21,9 +21,9 @@ import jsettlers.common.menu.IJoiningGame;
 import jsettlers.common.menu.IJoiningGameListener;
 import jsettlers.common.menu.IMapDefinition;
 import jsettlers.common.menu.IOpenMultiplayerGameInfo;
-import jsettlers.common.utils.collections.ChangingList;
 import jsettlers.graphics.localization.Labels;
 import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.map.loading.list.MapList;
 import jsettlers.main.android.core.AndroidPreferences;
 import jsettlers.main.android.core.GameStarter;
 import jsettlers.main.android.mainmenu.navigation.MainMenuNavigator;
@@ -42,9 +42,9 @@ public class NewMultiPlayerPickerPresenter extends MapPickerPresenter implements
 	private IMapDefinition tempMapDefinition;
 
 	public NewMultiPlayerPickerPresenter(NewMultiPlayerPickerView view, MainMenuNavigator navigator, GameStarter gameStarter, AndroidPreferences androidPreferences,
-			ChangingList<? extends MapLoader> changingMaps) {
+			MapList mapList) {
 
-		super(view, navigator, gameStarter, changingMaps);
+		super(view, navigator, gameStarter, mapList);
 		this.view = view;
 		this.navigator = navigator;
 		this.gameStarter = gameStarter;
@@ -15,8 +15,8 @@
 
 package jsettlers.main.android.mainmenu.presenters.picker;
 
-import jsettlers.common.utils.collections.ChangingList;
 import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.map.loading.list.MapList;
 import jsettlers.main.android.core.GameStarter;
 import jsettlers.main.android.mainmenu.navigation.MainMenuNavigator;
 import jsettlers.main.android.mainmenu.views.MapPickerView;
@@ -27,8 +27,8 @@ import jsettlers.main.android.mainmenu.views.MapPickerView;
 public class NewSinglePlayerPickerPresenter extends MapPickerPresenter {
 	private final MainMenuNavigator navigator;
 
-	public NewSinglePlayerPickerPresenter(MapPickerView view, MainMenuNavigator navigator, GameStarter gameStarter, ChangingList<? extends MapLoader> changingMaps) {
-		super(view, navigator, gameStarter, changingMaps);
+	public NewSinglePlayerPickerPresenter(MapPickerView view, MainMenuNavigator navigator, GameStarter gameStarter, MapList mapList) {
+		super(view, navigator, gameStarter, mapList);
 		this.navigator = navigator;
 	}
 
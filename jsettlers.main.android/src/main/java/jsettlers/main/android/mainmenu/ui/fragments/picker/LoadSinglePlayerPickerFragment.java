@@ -16,6 +16,7 @@
 package jsettlers.main.android.mainmenu.ui.fragments.picker;
 
 import org.androidannotations.annotations.EFragment;
+import org.androidannotations.annotations.UiThread;
 import org.androidannotations.annotations.ViewById;
 
 import jsettlers.main.android.R;
@@ -56,11 +57,13 @@ public class LoadSinglePlayerPickerFragment extends MapPickerFragment implements
 	}
 
 	@Override
+	@UiThread
 	public void hideNoGamesView() {
 		noSavedGamesView.setVisibility(View.GONE);
 	}
 
 	@Override
+	@UiThread
 	public void showNoGamesView() {
 		noSavedGamesView.setVisibility(View.VISIBLE);
 	}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.main.swing;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import jsettlers.common.CommonConstants;
+import jsettlers.common.ai.EPlayerType;
+import jsettlers.common.player.ECivilisation;
+import jsettlers.common.resources.ResourceManager;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.map.loading.list.DirectoryMapLister;
+import jsettlers.logic.map.loading.newmap.MapFileHeader;
+import jsettlers.logic.player.PlayerSetting;
+import jsettlers.main.HeadlessSimulation;
+import jsettlers.main.replay.ReplayUtils;
+import jsettlers.main.swing.resources.SwingResourceLoader;
+import jsettlers.main.swing.resources.SwingResourceProvider;
+import jsettlers.main.swing.settings.SettingsManager;
+import jsettlers.network.NetworkConstants;
+
+/**
+ * Plays a map or a replay without graphics as fast as possible and prints the simulation speed and the time spent in the subsystems of the game
+ * logic as JSON.
+ * <p />
+ * Parameters:
+ * <ul>
+ * <li>--map-file=&lt;file&gt; or --replay-file=&lt;file&gt;: the map or replay to play.</li>
+ * <li>--target-time=&lt;minutes&gt;: the game time the game is played to.</li>
+ * <li>--ai-players=&lt;types&gt;: comma separated {@link EPlayerType}s of the players of a map (e.g. HUMAN,AI_HARD,AI_VERY_HARD). By default, the
+ * first player is human and the others are computer players.</li>
+ * <li>--random=&lt;seed&gt;: the random seed of a map.</li>
+ * <li>--output-file=&lt;file&gt;: the file the JSON is written to. By default, it is printed to the console.</li>
+ * </ul>
+ */
+public class HeadlessSimulationRunner {
+
+	public static void main(String[] args) throws IOException, MapLoadException {
+		ResourceManager.setProvider(new SwingResourceProvider());
+		SettingsManager.setup(args);
+		SettingsManager settings = SettingsManager.getInstance();
+
+		CommonConstants.ENABLE_CONSOLE_LOGGING = settings.useConsoleOutput();
+		CommonConstants.CONTROL_ALL = true; // the AI players must not be restricted by the fog of war of the human player
+		CommonConstants.USE_SAVEGAME_COMPRESSION = true;
+		NetworkConstants.Client.LOG_EXECUTED_TASKS = false;
+		SwingResourceLoader.setupMapListFactory(settings.getAdditionalMapsDirectory(), null); // no graphics => original settlers folder is not needed
+
+		int targetGameTimeMs = settings.getTargetTimeMinutes().orElse(60) * 60 * 1000;
+
+		HeadlessSimulation simulation;
+		if (settings.getReplayFile().isPresent()) {
+			simulation = HeadlessSimulation.ofReplay(new ReplayUtils.ReplayFile(new File(settings.getReplayFile().get())));
+		} else if (settings.getMapFile() != null) {
+			MapLoader map = MapLoader.getLoaderForListedMap(new DirectoryMapLister.ListedMapFile(new File(settings.getMapFile())));
+			long randomSeed = settings.getRandom().orElse(0L);
+			simulation = HeadlessSimulation.ofMap(map, randomSeed, createPlayerSettings(map, settings.getAiPlayers().orElse(null)));
+		} else {
+			System.err.println("Please specify the game to simulate with --map-file=<file> or --replay-file=<file>.");
+			System.exit(1);
+			return;
+		}
+
+		String json = simulation.run(targetGameTimeMs).toJson();
+
+		if (settings.getOutputFile().isPresent()) {
+			try (Writer writer = new OutputStreamWriter(new FileOutputStream(settings.getOutputFile().get()), StandardCharsets.UTF_8)) {
+				writer.write(json);
+				writer.write('\n');
+			}
+		} else {
+			System.out.println(json);
+		}
+	}
+
+	private static PlayerSetting[] createPlayerSettings(MapLoader map, String aiPlayers) throws MapLoadException {
+		MapFileHeader header = map.getFileHeader();
+		if (header.getType() != MapFileHeader.MapType.NORMAL) {
+			return header.getPlayerSettings(); // savegames keep their players
+		}
+
+		byte maxPlayers = (byte) map.getMaxPlayers();
+		if (aiPlayers == null) {
+			return PlayerSetting.createDefaultSettings((byte) 0, maxPlayers);
+		}
+
+		String[] playerTypes = aiPlayers.split(",");
+		PlayerSetting[] playerSettings = new PlayerSetting[maxPlayers];
+		for (byte playerId = 0; playerId < maxPlayers; playerId++) {
+			if (playerId < playerTypes.length) {
+				EPlayerType playerType = EPlayerType.valueOf(playerTypes[playerId].trim());
+				playerSettings[playerId] = new PlayerSetting(true, playerType, ECivilisation.ROMAN, playerId);
+			} else {
+				playerSettings[playerId] = new PlayerSetting();
+			}
+		}
+		return playerSettings;
+	}
+}
@@ -76,9 +76,10 @@ public class MainMenuPanel extends SplitedBackgroundPanel {
 	public MainMenuPanel(JSettlersFrame settlersFrame, IMultiplayerConnector multiPlayerConnector) {
 		this.settlersFrame = settlersFrame;
 
-		OpenPanel openSinglePlayerPanel = new OpenPanel(MapList.getDefaultList().getFreshMaps().getItems(), settlersFrame::showNewSinglePlayerGameMenu);
-		OpenPanel openSaveGamePanel = new OpenPanel(MapList.getDefaultList().getSavedMaps(), this::loadSavegame);
-		OpenPanel newMultiPlayerGamePanel = new OpenPanel(MapList.getDefaultList().getFreshMaps().getItems(), this::showNewMultiplayerGamePanel);
+		MapList mapList = MapList.getDefaultList();
+		OpenPanel openSinglePlayerPanel = new OpenPanel(mapList.getLoadedFreshMaps(), settlersFrame::showNewSinglePlayerGameMenu);
+		OpenPanel openSaveGamePanel = new OpenPanel(mapList.getLoadedSavedMaps(), this::loadSavegame);
+		OpenPanel newMultiPlayerGamePanel = new OpenPanel(mapList.getLoadedFreshMaps(), this::showNewMultiplayerGamePanel);
 		joinMultiPlayerGamePanel = new OpenPanel(Collections.emptyList(), this::showJoinMultiplayerGamePanel);
 		SettingsMenuPanel settingsPanel = new SettingsMenuPanel(this);
 
@@ -94,6 +95,7 @@ public class MainMenuPanel extends SplitedBackgroundPanel {
 		initButtonPanel();
 		SwingUtilities.updateComponentTreeUI(this);
 		addListener(multiPlayerConnector);
+		addListener(mapList, openSinglePlayerPanel, openSaveGamePanel, newMultiPlayerGamePanel);
 	}
 
 	private void initButtonPanel() {
@@ -171,6 +173,19 @@ public class MainMenuPanel extends SplitedBackgroundPanel {
 			});
 	}
 
+	private void addListener(MapList mapList, OpenPanel openSinglePlayerPanel, OpenPanel openSaveGamePanel, OpenPanel newMultiPlayerGamePanel) {
+		mapList.addListener(changedMapList -> {
+			List<MapLoader> freshMaps = changedMapList.getLoadedFreshMaps();
+			List<? extends MapLoader> savedMaps = changedMapList.getLoadedSavedMaps();
+			SwingUtilities.invokeLater(() -> {
+				openSinglePlayerPanel.setMapLoaders(freshMaps);
+				openSaveGamePanel.setMapLoaders(savedMaps);
+				newMultiPlayerGamePanel.setMapLoaders(freshMaps);
+			});
+		});
+		mapList.startLoading(); // the maps are shown as soon as they have been read
+	}
+
 	public void reset() {
 		setCenter(emptyPanel);
 		getTitleLabel().setVisible(false);
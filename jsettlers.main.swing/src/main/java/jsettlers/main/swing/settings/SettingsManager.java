@@ -63,6 +63,8 @@ public class SettingsManager implements ISoundSettingsProvider {
 	private static final String SETTING_RANDOM = "random";
 	private static final String SETTING_REPLAY_FILE = "replay-file";
 	private static final String SETTING_TARGET_TIME = "target-time";
+	private static final String SETTING_AI_PLAYERS = "ai-players";
+	private static final String SETTING_OUTPUT_FILE = "output-file";
 	private static final String SETTING_MAPS = "maps";
 
 	private static SettingsManager manager;
@@ -273,6 +275,14 @@ public class SettingsManager implements ISoundSettingsProvider {
 		return getAsOptional(SETTING_TARGET_TIME).map(Integer::valueOf);
 	}
 
+	public Optional<String> getAiPlayers() {
+		return getAsOptional(SETTING_AI_PLAYERS);
+	}
+
+	public Optional<String> getOutputFile() {
+		return getAsOptional(SETTING_OUTPUT_FILE);
+	}
+
 	public String getAdditionalMapsDirectory() {
 		return get(SETTING_MAPS);
 	}
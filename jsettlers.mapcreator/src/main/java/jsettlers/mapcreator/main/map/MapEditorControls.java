@@ -137,6 +137,18 @@ public class MapEditorControls implements IControls {
 		return point.toString();
 	}
 
+	@Override
+	public void backgroundChangedAt(int x, int y) {
+	}
+
+	@Override
+	public void playerChangedAt(int x, int y) {
+	}
+
+	@Override
+	public void fogOfWarChangedIn(int minX, int minY, int maxX, int maxY) {
+	}
+
 	@Override
 	public void stop() {
 		/* we ignore this. stop means exit... */
@@ -74,6 +74,14 @@ public final class NetworkConstants {
 		 * The number of steps the server can run ahead of the clients.
 		 */
 		public static int LOCKSTEP_DEFAULT_LEAD_STEPS = 3;
+		/**
+		 * The number of locksteps between two game state checksums sent to the server.
+		 */
+		public static int STATE_CHECKSUM_LOCKSTEPS = 10;
+		/**
+		 * If true, every scheduled and executed task is printed to the console. Disabled by headless simulations that execute thousands of tasks.
+		 */
+		public static boolean LOG_EXECUTED_TASKS = true;
 	}
 
 	/**
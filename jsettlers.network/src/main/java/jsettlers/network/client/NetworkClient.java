@@ -25,6 +25,7 @@ import jsettlers.network.client.interfaces.INetworkConnector;
 import jsettlers.network.client.interfaces.ITaskScheduler;
 import jsettlers.network.client.receiver.IPacketReceiver;
 import jsettlers.network.client.task.TaskPacketListener;
+import jsettlers.network.client.task.packets.TaskDictionary;
 import jsettlers.network.client.task.packets.TaskPacket;
 import jsettlers.network.client.time.ISynchronizableClock;
 import jsettlers.network.client.time.TimeSyncSenderTimerTask;
@@ -46,6 +47,7 @@ import jsettlers.network.infrastructure.channel.packet.EmptyPacket;
 import jsettlers.network.infrastructure.channel.packet.Packet;
 import jsettlers.network.infrastructure.channel.reject.RejectPacket;
 import jsettlers.network.server.match.EPlayerState;
+import jsettlers.network.server.packets.ServersideTaskPacket;
 import jsettlers.network.synchronic.timer.NetworkTimer;
 
 /**
@@ -65,6 +67,7 @@ public class NetworkClient implements ITaskScheduler, INetworkConnector, INetwor
 	private PlayerInfoPacket playerInfo;
 
 	private MatchInfoPacket matchInfo;
+	private TaskDictionary taskDictionary = new TaskDictionary();
 
 	/**
 	 * 
@@ -178,11 +181,19 @@ public class NetworkClient implements ITaskScheduler, INetworkConnector, INetwor
 		channel.registerListener(new MatchStartedListener(this, matchStartedListener));
 		channel.registerListener(generateDefaultListener(ENetworkKey.CHAT_MESSAGE, ChatMessagePacket.class, chatMessageReceiver));
 		channel.registerListener(new TaskPacketListener(clock));
+
+		synchronized (this) {
+			taskDictionary = new TaskDictionary();
+		}
 	}
 
 	@Override
-	public void scheduleTask(TaskPacket task) {
-		channel.sendPacketAsync(NetworkConstants.ENetworkKey.SYNCHRONOUS_TASK, task);
+	public synchronized void scheduleTask(TaskPacket task) {
+		try { // the tasks must be sent in the order they are encoded, because they change the dictionary
+			channel.sendPacketAsync(NetworkConstants.ENetworkKey.SYNCHRONOUS_TASK, new ServersideTaskPacket(task.encode(taskDictionary)));
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
 	}
 
 	private <T extends Packet> DefaultClientPacketListener<T> generateDefaultListener(ENetworkKey key, Class<T> classType,
@@ -241,6 +252,7 @@ public class NetworkClient implements ITaskScheduler, INetworkConnector, INetwor
 	private void startTimeSynchronization(ISynchronizableClock clock) {
 		channel.registerListener(new TimeSynchronizationListener(channel, clock));
 		TimeSyncSenderTimerTask timeSyncSender = new TimeSyncSenderTimerTask(channel, clock);
+		clock.setStateChecksumListener(timeSyncSender);
 		timer.schedule(timeSyncSender, 0, NetworkConstants.Client.TIME_SYNC_SEND_INTERVALL);
 	}
 
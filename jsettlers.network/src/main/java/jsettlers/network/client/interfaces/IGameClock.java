@@ -19,6 +19,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 
 import jsettlers.network.synchronic.timer.INetworkTimerable;
+import jsettlers.network.synchronic.timer.IStateChecksumSupplier;
 import jsettlers.network.synchronic.timer.ITaskExecutor;
 
 /**
@@ -31,10 +32,24 @@ public interface IGameClock extends IPausingSupplier {
 
 	int getTime();
 
+	/**
+	 * Sets the time of a loaded game. Games are saved by a task, so the next tick of the clock resumes the tick of the given time: It executes the
+	 * remaining tasks of its lockstep and the timerables without advancing the time.
+	 *
+	 * @param newTime
+	 *            The game time the game has been saved at.
+	 */
 	void setTime(int newTime);
 
 	void setTaskExecutor(ITaskExecutor taskExecutor);
 
+	/**
+	 * Sets the supplier of the game state checksums that are sent to the server to detect desynchronized clients.
+	 * 
+	 * @param stateChecksumSupplier
+	 */
+	void setStateChecksumSupplier(IStateChecksumSupplier stateChecksumSupplier);
+
 	void multiplyGameSpeed(float factor);
 
 	void setGameSpeed(float speedFactor);
@@ -15,29 +15,59 @@
 package jsettlers.network.client.task;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.NetworkConstants.ENetworkKey;
 import jsettlers.network.client.task.packets.SyncTasksPacket;
+import jsettlers.network.client.task.packets.TaskDictionary;
+import jsettlers.network.client.task.packets.TaskPacket;
+import jsettlers.network.common.packets.LockstepPacket;
 import jsettlers.network.infrastructure.channel.GenericDeserializer;
 import jsettlers.network.infrastructure.channel.listeners.PacketChannelListener;
+import jsettlers.network.server.packets.ServersideTaskPacket;
 
 /**
+ * Receives the {@link LockstepPacket}s of a match and decodes them into one {@link SyncTasksPacket} per lockstep. Therefore a new listener has to be
+ * used for every match.
  * 
  * @author Andreas Eberle
  * 
  */
-public class TaskPacketListener extends PacketChannelListener<SyncTasksPacket> {
+public class TaskPacketListener extends PacketChannelListener<LockstepPacket> {
 
 	private final ISyncTasksPacketScheduler receiver;
+	private final Map<Integer, TaskDictionary> senderDictionaries = new HashMap<>();
+	private int nextLockstep = 0;
 
 	public TaskPacketListener(ISyncTasksPacketScheduler receiver) {
-		super(NetworkConstants.ENetworkKey.SYNCHRONOUS_TASK, new GenericDeserializer<>(SyncTasksPacket.class));
+		super(NetworkConstants.ENetworkKey.SYNCHRONOUS_TASK, new GenericDeserializer<>(LockstepPacket.class));
 		this.receiver = receiver;
 	}
 
 	@Override
-	protected void receivePacket(ENetworkKey key, SyncTasksPacket packet) throws IOException {
-		receiver.scheduleSyncTasksPacket(packet);
+	protected void receivePacket(ENetworkKey key, LockstepPacket packet) throws IOException {
+		for (int i = 1; i < packet.getNumberOfLocksteps(); i++) {
+			receiver.scheduleSyncTasksPacket(new SyncTasksPacket(nextLockstep++, Collections.<TaskPacket> emptyList()));
+		}
+
+		List<TaskPacket> tasks = new ArrayList<>(packet.getTasks().size());
+		for (ServersideTaskPacket task : packet.getTasks()) {
+			tasks.add(TaskPacket.decode(task.getData(), getSenderDictionary(task.getSenderIndex())));
+		}
+		receiver.scheduleSyncTasksPacket(new SyncTasksPacket(nextLockstep++, tasks));
+	}
+
+	private TaskDictionary getSenderDictionary(int senderIndex) {
+		TaskDictionary dictionary = senderDictionaries.get(senderIndex);
+		if (dictionary == null) {
+			dictionary = new TaskDictionary();
+			senderDictionaries.put(senderIndex, dictionary);
+		}
+		return dictionary;
 	}
 }
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.client.task.packets;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jsettlers.network.infrastructure.utils.VarInt;
+
+/**
+ * The dictionary used by the compact network encoding of the {@link TaskPacket}s of one sender. It replaces the class names of the tasks and
+ * recently sent id lists (e.g. the selections of movable tasks) by short references.
+ * <p />
+ * The sender encodes its tasks with its own dictionary and every receiver decodes them with a separate dictionary for this sender. Both
+ * dictionaries are updated the same way, so they stay equal as long as the tasks are decoded in the order they have been encoded.
+ */
+public class TaskDictionary {
+	private static final int RECENT_ID_LISTS = 32;
+
+	private final List<String> classNames = new ArrayList<>();
+	private final Map<String, Integer> classNameIndexes = new HashMap<>();
+
+	private final List<List<Integer>> recentIdLists = new ArrayList<>(RECENT_ID_LISTS);
+	private int nextIdListSlot = 0;
+
+	void writeClassName(DataOutputStream dos, String className) throws IOException {
+		Integer index = classNameIndexes.get(className);
+		if (index != null) {
+			VarInt.write(dos, index + 1);
+		} else {
+			VarInt.write(dos, 0);
+			dos.writeUTF(className);
+			classNameIndexes.put(className, classNames.size());
+			classNames.add(className);
+		}
+	}
+
+	String readClassName(DataInputStream dis) throws IOException {
+		int reference = VarInt.read(dis);
+		if (reference == 0) {
+			String className = dis.readUTF();
+			classNameIndexes.put(className, classNames.size());
+			classNames.add(className);
+			return className;
+		} else if (reference <= classNames.size()) {
+			return classNames.get(reference - 1);
+		} else {
+			throw new IOException("Unknown class name reference: " + reference);
+		}
+	}
+
+	/**
+	 * Writes a reference to the given list if it has been written recently. Otherwise the differences between the elements are written.
+	 */
+	void writeIdList(DataOutputStream dos, List<Integer> ids) throws IOException {
+		int index = recentIdLists.indexOf(ids);
+		if (index >= 0) {
+			VarInt.write(dos, index + 1);
+			return;
+		}
+
+		VarInt.write(dos, 0);
+		VarInt.write(dos, ids.size());
+		int previous = 0;
+		for (Integer id : ids) {
+			VarInt.writeSigned(dos, id - previous);
+			previous = id;
+		}
+		addRecentIdList(new ArrayList<>(ids));
+	}
+
+	List<Integer> readIdList(DataInputStream dis) throws IOException {
+		int reference = VarInt.read(dis);
+		if (reference > 0) {
+			if (reference > recentIdLists.size()) {
+				throw new IOException("Unknown id list reference: " + reference);
+			}
+			return new ArrayList<>(recentIdLists.get(reference - 1));
+		}
+
+		int size = VarInt.read(dis);
+		List<Integer> ids = new ArrayList<>(size);
+		int previous = 0;
+		for (int i = 0; i < size; i++) {
+			previous += VarInt.readSigned(dis);
+			ids.add(previous);
+		}
+		addRecentIdList(new ArrayList<>(ids));
+		return ids;
+	}
+
+	private void addRecentIdList(List<Integer> ids) {
+		if (recentIdLists.size() < RECENT_ID_LISTS) {
+			recentIdLists.add(ids);
+		} else {
+			recentIdLists.set(nextIdListSlot, ids);
+			nextIdListSlot = (nextIdListSlot + 1) % RECENT_ID_LISTS;
+		}
+	}
+}
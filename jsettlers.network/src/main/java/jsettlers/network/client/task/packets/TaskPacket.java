@@ -14,15 +14,26 @@
  *******************************************************************************/
 package jsettlers.network.client.task.packets;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import jsettlers.network.infrastructure.channel.IDeserializingable;
 import jsettlers.network.infrastructure.channel.packet.Packet;
+import jsettlers.network.infrastructure.utils.VarInt;
 
 /**
+ * Base class of the tasks that are executed synchronously on all clients.
+ * <p />
+ * A task has two serialized forms: The one of {@link #serialize(DataOutputStream)} is used for replay files. The compact one of
+ * {@link #encode(TaskDictionary)} is used for the network. Subclasses write the same fields to both forms. They should use the
+ * {@link #writeCompactInt(DataOutputStream, int)} and {@link #writeIdList(DataOutputStream, List)} methods for values that can be stored compactly.
  * 
  * @author Andreas Eberle
  * 
@@ -31,10 +42,7 @@ public abstract class TaskPacket extends Packet {
 	public static final IDeserializingable<TaskPacket> DEFAULT_DESERIALIZER = (key, dis) -> {
 		try {
 			dis.readInt(); // read the length in bytes from the stream. We don't need it here, only the server needs it.
-			String className = dis.readUTF();
-			@SuppressWarnings("unchecked")
-			Class<? extends TaskPacket> taskClass = (Class<? extends TaskPacket>) Class.forName(className);
-			TaskPacket packet = taskClass.newInstance();
+			TaskPacket packet = createTask(dis.readUTF());
 			packet.deserializeTask(dis);
 			return packet;
 		} catch (Exception e) {
@@ -42,6 +50,12 @@ public abstract class TaskPacket extends Packet {
 		}
 	};
 
+	private static TaskPacket createTask(String className) throws ReflectiveOperationException {
+		@SuppressWarnings("unchecked")
+		Class<? extends TaskPacket> taskClass = (Class<? extends TaskPacket>) Class.forName(className);
+		return taskClass.newInstance();
+	}
+
 	@Override
 	public final void serialize(DataOutputStream dos) throws IOException {
 		ByteArrayOutputStream bufferOutStream = new ByteArrayOutputStream();
@@ -62,4 +76,111 @@ public abstract class TaskPacket extends Packet {
 	}
 
 	protected abstract void deserializeTask(DataInputStream dis) throws IOException;
+
+	/**
+	 * Encodes this task in the compact network format.
+	 * 
+	 * @param dictionary
+	 *            The dictionary of the sender of this task.
+	 * @return The encoded task.
+	 * @throws IOException
+	 *             If the task could not be serialized.
+	 */
+	public final byte[] encode(TaskDictionary dictionary) throws IOException {
+		ByteArrayOutputStream bufferOutStream = new ByteArrayOutputStream();
+		CompactOutputStream compactOutStream = new CompactOutputStream(bufferOutStream, dictionary);
+
+		dictionary.writeClassName(compactOutStream, this.getClass().getName());
+		serializeTask(compactOutStream);
+		compactOutStream.flush();
+
+		return bufferOutStream.toByteArray();
+	}
+
+	/**
+	 * Decodes a task encoded with {@link #encode(TaskDictionary)}.
+	 * 
+	 * @param data
+	 *            The encoded task.
+	 * @param dictionary
+	 *            The dictionary of the sender of the task.
+	 * @return The decoded task.
+	 * @throws IOException
+	 *             If the task could not be decoded.
+	 */
+	public static TaskPacket decode(byte[] data, TaskDictionary dictionary) throws IOException {
+		CompactInputStream compactInStream = new CompactInputStream(new ByteArrayInputStream(data), dictionary);
+		try {
+			TaskPacket packet = createTask(dictionary.readClassName(compactInStream));
+			packet.deserializeTask(compactInStream);
+			return packet;
+		} catch (ReflectiveOperationException | ClassCastException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Writes a value that is usually small, like the ordinal of an enum.
+	 */
+	protected static void writeCompactInt(DataOutputStream dos, int value) throws IOException {
+		if (dos instanceof CompactOutputStream) {
+			VarInt.writeSigned(dos, value);
+		} else {
+			dos.writeInt(value);
+		}
+	}
+
+	protected static int readCompactInt(DataInputStream dis) throws IOException {
+		if (dis instanceof CompactInputStream) {
+			return VarInt.readSigned(dis);
+		} else {
+			return dis.readInt();
+		}
+	}
+
+	/**
+	 * Writes a list of ids, like the ids of selected movables. In the compact format, the list is delta encoded or replaced by a reference if
+	 * the sender wrote the same list recently.
+	 */
+	protected static void writeIdList(DataOutputStream dos, List<Integer> ids) throws IOException {
+		if (dos instanceof CompactOutputStream) {
+			((CompactOutputStream) dos).dictionary.writeIdList(dos, ids);
+		} else {
+			dos.writeInt(ids.size());
+			for (Integer id : ids) {
+				dos.writeInt(id);
+			}
+		}
+	}
+
+	protected static List<Integer> readIdList(DataInputStream dis) throws IOException {
+		if (dis instanceof CompactInputStream) {
+			return ((CompactInputStream) dis).dictionary.readIdList(dis);
+		} else {
+			int numberOfElements = dis.readInt();
+			List<Integer> ids = new ArrayList<>(numberOfElements);
+			for (int i = 0; i < numberOfElements; i++) {
+				ids.add(dis.readInt());
+			}
+			return ids;
+		}
+	}
+
+	private static class CompactOutputStream extends DataOutputStream {
+		final TaskDictionary dictionary;
+
+		CompactOutputStream(OutputStream out, TaskDictionary dictionary) {
+			super(out);
+			this.dictionary = dictionary;
+		}
+	}
+
+	private static class CompactInputStream extends DataInputStream {
+		final TaskDictionary dictionary;
+
+		CompactInputStream(InputStream in, TaskDictionary dictionary) {
+			super(in);
+			this.dictionary = dictionary;
+		}
+	}
 }
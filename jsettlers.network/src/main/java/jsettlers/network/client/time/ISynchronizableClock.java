@@ -35,4 +35,13 @@ public interface ISynchronizableClock {
 	 */
 	void pauseClockFor(int timeDelta);
 
+	/**
+	 * Sets the listener that receives the game state checksums calculated every {@link jsettlers.network.NetworkConstants.Client#STATE_CHECKSUM_LOCKSTEPS}
+	 * locksteps. If no listener is set, no checksums are calculated.
+	 * 
+	 * @param listener
+	 *            The listener or null to stop the calculation.
+	 */
+	void setStateChecksumListener(IStateChecksumListener listener);
+
 }
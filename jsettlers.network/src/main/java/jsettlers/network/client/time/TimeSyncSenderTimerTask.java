@@ -14,21 +14,26 @@
  *******************************************************************************/
 package jsettlers.network.client.time;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.TimerTask;
 
 import jsettlers.network.NetworkConstants;
+import jsettlers.network.common.packets.StateChecksumPacket;
 import jsettlers.network.common.packets.TimeSyncPacket;
 import jsettlers.network.infrastructure.channel.AsyncChannel;
 
 /**
+ * Regularly sends the clock's time to the server. The game state checksums calculated by the clock in the meantime are sent with it.
  * 
  * @author Andreas Eberle
  * 
  */
-public class TimeSyncSenderTimerTask extends TimerTask {
+public class TimeSyncSenderTimerTask extends TimerTask implements IStateChecksumListener {
 
 	private final AsyncChannel channel;
 	private final ISynchronizableClock clock;
+	private final List<StateChecksumPacket> stateChecksums = new ArrayList<>();
 
 	public TimeSyncSenderTimerTask(AsyncChannel channel, ISynchronizableClock clock) {
 		this.channel = channel;
@@ -40,7 +45,22 @@ public class TimeSyncSenderTimerTask extends TimerTask {
 		int localTime = clock.getTime();
 		int expectedTimeAtServer = localTime + channel.getRoundTripTime().getRtt() / 2;
 
-		channel.sendPacketAsync(NetworkConstants.ENetworkKey.TIME_SYNC, new TimeSyncPacket(expectedTimeAtServer));
+		channel.sendPacketAsync(NetworkConstants.ENetworkKey.TIME_SYNC, new TimeSyncPacket(expectedTimeAtServer, pollStateChecksums()));
+	}
+
+	@Override
+	public void stateChecksumCalculated(int lockstep, long checksum) {
+		synchronized (stateChecksums) {
+			stateChecksums.add(new StateChecksumPacket(lockstep, checksum));
+		}
+	}
+
+	private List<StateChecksumPacket> pollStateChecksums() {
+		synchronized (stateChecksums) {
+			List<StateChecksumPacket> result = new ArrayList<>(stateChecksums);
+			stateChecksums.clear();
+			return result;
+		}
 	}
 
 }
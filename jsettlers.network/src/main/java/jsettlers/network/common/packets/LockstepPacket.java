@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.common.packets;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import jsettlers.network.client.task.packets.SyncTasksPacket;
+import jsettlers.network.client.task.packets.TaskDictionary;
+import jsettlers.network.infrastructure.channel.packet.Packet;
+import jsettlers.network.infrastructure.utils.VarInt;
+import jsettlers.network.server.packets.ServersideTaskPacket;
+
+/**
+ * The compact network representation of one or more consecutive locksteps. The packet unlocks the given number of locksteps. The tasks belong to
+ * the last of them, the other locksteps are empty. The lockstep numbers are not sent, the client counts them.
+ * <p />
+ * The tasks are encoded with the {@link TaskDictionary} of their senders, so the server only forwards the bytes it received. The client decodes
+ * them into the same {@link SyncTasksPacket}s the server used to send.
+ */
+public class LockstepPacket extends Packet {
+	private int numberOfLocksteps;
+	private List<ServersideTaskPacket> tasks;
+
+	public LockstepPacket() {
+	}
+
+	public LockstepPacket(int numberOfLocksteps, List<ServersideTaskPacket> tasks) {
+		this.numberOfLocksteps = numberOfLocksteps;
+		this.tasks = tasks;
+	}
+
+	@Override
+	public void serialize(DataOutputStream dos) throws IOException {
+		VarInt.write(dos, numberOfLocksteps);
+		VarInt.write(dos, tasks.size());
+
+		for (ServersideTaskPacket task : tasks) {
+			VarInt.write(dos, task.getSenderIndex());
+			VarInt.write(dos, task.getData().length);
+			dos.write(task.getData());
+		}
+	}
+
+	@Override
+	public void deserialize(DataInputStream dis) throws IOException {
+		numberOfLocksteps = VarInt.read(dis);
+		int numberOfTasks = VarInt.read(dis);
+		tasks = new ArrayList<>(numberOfTasks);
+
+		for (int i = 0; i < numberOfTasks; i++) {
+			int senderIndex = VarInt.read(dis);
+			byte[] data = new byte[VarInt.read(dis)];
+			dis.readFully(data);
+			tasks.add(new ServersideTaskPacket(data, senderIndex));
+		}
+	}
+
+	public int getNumberOfLocksteps() {
+		return numberOfLocksteps;
+	}
+
+	public List<ServersideTaskPacket> getTasks() {
+		return tasks;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + numberOfLocksteps;
+		result = prime * result + ((tasks == null) ? 0 : tasks.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		LockstepPacket other = (LockstepPacket) obj;
+		if (numberOfLocksteps != other.numberOfLocksteps)
+			return false;
+		if (tasks == null) {
+			if (other.tasks != null)
+				return false;
+		} else if (!tasks.equals(other.tasks))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "locksteps: " + numberOfLocksteps + " tasks: " + tasks.size();
+	}
+}
@@ -17,28 +17,54 @@ package jsettlers.network.common.packets;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import jsettlers.network.infrastructure.channel.packet.Packet;
 
+/**
+ * Sent by the clients to synchronize their clocks. The server uses the time as acknowledge of the locksteps executed by the client. The packet also
+ * carries the game state checksums the client calculated since its last {@link TimeSyncPacket}.
+ */
 public class TimeSyncPacket extends Packet {
 
 	private int time;
+	private List<StateChecksumPacket> stateChecksums;
 
 	public TimeSyncPacket() {
 	}
 
 	public TimeSyncPacket(int time) {
+		this(time, Collections.<StateChecksumPacket> emptyList());
+	}
+
+	public TimeSyncPacket(int time, List<StateChecksumPacket> stateChecksums) {
 		this.time = time;
+		this.stateChecksums = stateChecksums;
 	}
 
 	@Override
 	public void serialize(DataOutputStream dos) throws IOException {
 		dos.writeInt(time);
+		dos.writeInt(stateChecksums.size());
+
+		for (StateChecksumPacket curr : stateChecksums) {
+			curr.serialize(dos);
+		}
 	}
 
 	@Override
 	public void deserialize(DataInputStream dis) throws IOException {
 		time = dis.readInt();
+		int numberOfChecksums = dis.readInt();
+		stateChecksums = new ArrayList<>(numberOfChecksums);
+
+		for (int i = 0; i < numberOfChecksums; i++) {
+			StateChecksumPacket curr = new StateChecksumPacket();
+			curr.deserialize(dis);
+			stateChecksums.add(curr);
+		}
 	}
 
 	/*
@@ -51,6 +77,7 @@ public class TimeSyncPacket extends Packet {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + time;
+		result = prime * result + ((stateChecksums == null) ? 0 : stateChecksums.hashCode());
 		return result;
 	}
 
@@ -68,10 +95,21 @@ public class TimeSyncPacket extends Packet {
 		if (getClass() != obj.getClass())
 			return false;
 		TimeSyncPacket other = (TimeSyncPacket) obj;
-		return time == other.time;
+		if (time != other.time)
+			return false;
+		if (stateChecksums == null) {
+			if (other.stateChecksums != null)
+				return false;
+		} else if (!stateChecksums.equals(other.stateChecksums))
+			return false;
+		return true;
 	}
 
 	public int getTime() {
 		return time;
 	}
+
+	public List<StateChecksumPacket> getStateChecksums() {
+		return stateChecksums;
+	}
 }
@@ -14,6 +14,8 @@
  *******************************************************************************/
 package jsettlers.network.infrastructure.channel;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
@@ -26,6 +28,7 @@ import java.util.HashMap;
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.NetworkConstants.ENetworkKey;
 import jsettlers.network.infrastructure.channel.packet.Packet;
+import jsettlers.network.infrastructure.channel.packet.SerializedPacket;
 import jsettlers.network.infrastructure.channel.ping.IPingUpdateListener;
 import jsettlers.network.infrastructure.channel.ping.IRoundTripTimeSupplier;
 import jsettlers.network.infrastructure.channel.ping.PingPacket;
@@ -34,6 +37,7 @@ import jsettlers.network.infrastructure.channel.ping.RoundTripTime;
 import jsettlers.network.infrastructure.channel.reject.RejectPacket;
 import jsettlers.network.infrastructure.channel.socket.ISocket;
 import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
+import jsettlers.network.infrastructure.channel.socket.nio.NioSocket;
 import jsettlers.network.infrastructure.log.ConsoleLogger;
 import jsettlers.network.infrastructure.log.Logger;
 import jsettlers.network.infrastructure.log.SwitchableLogger;
@@ -41,6 +45,9 @@ import jsettlers.network.infrastructure.log.SwitchableLogger;
 /**
  * This class builds up a logical channel between to network partners. The class allows to send data of type {@link Packet} to the partner and to
  * register {@link IChannelListener}s to receive incoming data as a callback.
+ * <p />
+ * The packets are received by a thread of the channel. If the channel is created with a {@link NioSocket}, the packets are received by the selector
+ * thread of the socket instead.
  * 
  * @author Andreas Eberle
  * 
@@ -56,6 +63,10 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 	private final ByteArrayOutputStream byteBufferOutStream = new ByteArrayOutputStream();
 	private final DataOutputStream bufferDataOutStream = new DataOutputStream(byteBufferOutStream);
 
+	private byte[] receiveBuffer = new byte[1024];
+	private final ReceiveBufferInputStream receiveBufferInStream = new ReceiveBufferInputStream();
+	private final DataInputStream bufferDataInStream = new DataInputStream(receiveBufferInStream);
+
 	private final HashMap<ENetworkKey, IChannelListener> listenerRegistry = new HashMap<>();
 
 	private final PingPacketListener pingPacketListener;
@@ -83,13 +94,19 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 	public Channel(Logger logger, ISocket socket) throws IOException {
 		this.logger = new SwitchableLogger(logger);
 		this.socket = socket;
-		outStream = new DataOutputStream(socket.getOutputStream());
-		inStream = new DataInputStream(socket.getInputStream());
+
+		if (socket instanceof NioSocket) { // the socket buffers and frames the data on its own
+			outStream = new DataOutputStream(socket.getOutputStream());
+			inStream = new DataInputStream(socket.getInputStream());
+			thread = null;
+		} else {
+			outStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			inStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			thread = new Thread(this, "ChannelForSocket_" + socket);
+		}
 
 		pingPacketListener = new PingPacketListener(this.logger, this);
 		registerListener(pingPacketListener);
-
-		thread = new Thread(this, "ChannelForSocket_" + socket);
 	}
 
 	/**
@@ -104,7 +121,24 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 	 */
 	public void start() {
 		started = true;
-		thread.start();
+
+		if (thread != null) {
+			thread.start();
+		} else {
+			((NioSocket) socket).startReceiving(new NioSocket.IFrameReceiver() {
+				@Override
+				public void frameReceived() throws IOException {
+					ENetworkKey key = ENetworkKey.readFrom(inStream);
+					int length = inStream.readInt();
+					receivePacket(key, length, inStream);
+				}
+
+				@Override
+				public void socketClosed() {
+					channelClosed();
+				}
+			});
+		}
 	}
 
 	public synchronized void sendPacket(ENetworkKey key, Packet packet) {
@@ -118,6 +152,14 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 	}
 
 	private void sendPacketData(ENetworkKey key, Packet packet) throws IOException {
+		if (packet instanceof SerializedPacket) { // the length is already known => no need to copy the data to the buffer
+			key.writeTo(outStream);
+			outStream.writeInt(((SerializedPacket) packet).getLength());
+			packet.serialize(outStream);
+			outStream.flush();
+			return;
+		}
+
 		bufferDataOutStream.flush();
 		byteBufferOutStream.reset();
 
@@ -156,27 +198,8 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 				ENetworkKey key = ENetworkKey.readFrom(inStream);
 				int length = inStream.readInt();
 
-				DataInputStream bufferIn = readBytesToBuffer(inStream, length);
-
-				IChannelListener listener = listenerRegistry.get(key);
-
-				if (listener != null) {
-					try {
-						listener.receive(key, length, bufferIn);
-						if (bufferIn.available() > 0) {
-							logger.warn("Deserialization did not read all bytes of input: " + key + " " + length + " " + bufferIn.available());
-						}
-					} catch (Exception e) { // ignore exceptions thrown in receive
-						e.printStackTrace();
-					}
-				} else {
-					logger.warn("NO LISTENER FOUND for key: " + key + "   (" + socket + ")");
-
-					if (key != NetworkConstants.ENetworkKey.REJECT_PACKET) { // prevent endless loop
-						sendPacket(NetworkConstants.ENetworkKey.REJECT_PACKET,
-								new RejectPacket(NetworkConstants.ENetworkMessage.NO_LISTENER_FOUND, key));
-					}
-				}
+				readBytesToBuffer(inStream, length);
+				receivePacket(key, length, bufferDataInStream);
 
 			} catch (Exception e) {
 				try {
@@ -186,6 +209,32 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 			}
 		}
 
+		channelClosed();
+	}
+
+	private void receivePacket(ENetworkKey key, int length, DataInputStream bufferIn) throws IOException {
+		IChannelListener listener = listenerRegistry.get(key);
+
+		if (listener != null) {
+			try {
+				listener.receive(key, length, bufferIn);
+				if (bufferIn.available() > 0) {
+					logger.warn("Deserialization did not read all bytes of input: " + key + " " + length + " " + bufferIn.available());
+				}
+			} catch (Exception e) { // ignore exceptions thrown in receive
+				e.printStackTrace();
+			}
+		} else {
+			logger.warn("NO LISTENER FOUND for key: " + key + "   (" + socket + ")");
+
+			if (key != NetworkConstants.ENetworkKey.REJECT_PACKET) { // prevent endless loop
+				sendPacket(NetworkConstants.ENetworkKey.REJECT_PACKET,
+						new RejectPacket(NetworkConstants.ENetworkMessage.NO_LISTENER_FOUND, key));
+			}
+		}
+	}
+
+	private void channelClosed() {
 		close(); // release the resources
 
 		if (channelClosedListener != null) {
@@ -194,20 +243,16 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 		logger.info("Channel listener shut down: " + socket);
 	}
 
-	private DataInputStream readBytesToBuffer(DataInputStream inStream, int length) throws IOException {
-		byte[] data = new byte[length];
-
-		int alreadyRead = 0;
-		while (length - alreadyRead > 0) {
-			int numberOfBytesRead = inStream.read(data, alreadyRead, length - alreadyRead);
-			if (numberOfBytesRead < 0) {
-				throw new IOException("Stream ended to early!");
-			}
-
-			alreadyRead += numberOfBytesRead;
+	/**
+	 * Reads the data of a packet into the receive buffer, which is reused for all packets.
+	 */
+	private void readBytesToBuffer(DataInputStream inStream, int length) throws IOException {
+		if (receiveBuffer.length < length) {
+			receiveBuffer = new byte[Math.max(length, 2 * receiveBuffer.length)];
 		}
 
-		return new DataInputStream(new ByteArrayInputStream(data));
+		inStream.readFully(receiveBuffer, 0, length);
+		receiveBufferInStream.setData(receiveBuffer, length);
 	}
 
 	/**
@@ -229,7 +274,9 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 		} catch (IOException e) {
 		}
 
-		thread.interrupt();
+		if (thread != null) {
+			thread.interrupt();
+		}
 	}
 
 	/**
@@ -278,4 +325,20 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 	public void setLogger(Logger newLogger) {
 		this.logger.setLogger(newLogger);
 	}
+
+	/**
+	 * A {@link ByteArrayInputStream} that can be reset to new data.
+	 */
+	private static class ReceiveBufferInputStream extends ByteArrayInputStream {
+		ReceiveBufferInputStream() {
+			super(new byte[0]);
+		}
+
+		void setData(byte[] data, int length) {
+			buf = data;
+			pos = 0;
+			count = length;
+			mark = 0;
+		}
+	}
 }
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.packet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import jsettlers.network.infrastructure.channel.Channel;
+
+/**
+ * A {@link Packet} that has already been serialized. This is used to serialize a packet only once when it is sent to multiple {@link Channel}s.
+ * <p />
+ * A serialized packet can only be sent. It can not be deserialized.
+ */
+public final class SerializedPacket extends Packet {
+	private final byte[] data;
+
+	/**
+	 * Serializes the given packet.
+	 * 
+	 * @param packet
+	 *            The packet to be serialized.
+	 */
+	public SerializedPacket(Packet packet) {
+		ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+		try (DataOutputStream dataOut = new DataOutputStream(byteOut)) {
+			packet.serialize(dataOut);
+		} catch (IOException e) {
+			throw new IllegalStateException("Serializing to a byte array must not fail.", e);
+		}
+		this.data = byteOut.toByteArray();
+	}
+
+	public int getLength() {
+		return data.length;
+	}
+
+	@Override
+	public void serialize(DataOutputStream dos) throws IOException {
+		dos.write(data);
+	}
+
+	@Override
+	public void deserialize(DataInputStream dis) throws IOException {
+		throw new UnsupportedOperationException("A serialized packet can not be deserialized.");
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o != null && o.getClass() == this.getClass() && Arrays.equals(data, ((SerializedPacket) o).data);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(data);
+	}
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.socket.nio;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * This thread reads and writes the data of all {@link NioSocket}s registered with it. The sockets share the {@link ByteBufferPool} of this thread.
+ * <p />
+ * The frames received by the sockets are handed to their receivers on this thread. Therefore the receivers must not block.
+ */
+public class NioSelectorThread extends Thread {
+	private static final int BUFFER_CAPACITY    = 4096;
+	private static final int MAX_POOLED_BUFFERS = 4096;
+
+	private final Selector                         selector;
+	private final ByteBufferPool                   bufferPool = new ByteBufferPool(BUFFER_CAPACITY, MAX_POOLED_BUFFERS);
+	private final ConcurrentLinkedQueue<Runnable> tasks      = new ConcurrentLinkedQueue<>();
+
+	private volatile boolean canceled = false;
+
+	public NioSelectorThread(String name) throws IOException {
+		super(name);
+		this.selector = Selector.open();
+		setDaemon(true);
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (!canceled) {
+				selector.select();
+				runTasks();
+
+				Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+				while (selectedKeys.hasNext()) {
+					SelectionKey key = selectedKeys.next();
+					selectedKeys.remove();
+					handleSelectedKey(key);
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			for (SelectionKey key : selector.keys()) {
+				((NioSocket) key.attachment()).closeNow();
+			}
+			runTasks();
+
+			try {
+				selector.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	private void handleSelectedKey(SelectionKey key) {
+		NioSocket socket = (NioSocket) key.attachment();
+		try {
+			if (key.isReadable()) {
+				socket.read();
+			}
+			if (key.isValid() && key.isWritable()) {
+				socket.write();
+			}
+		} catch (IOException | CancelledKeyException e) {
+			socket.closeNow();
+		} catch (RuntimeException e) { // a broken frame must not stop the thread and thereby disconnect all other sockets
+			e.printStackTrace();
+			socket.closeNow();
+		}
+	}
+
+	private void runTasks() {
+		Runnable task;
+		while ((task = tasks.poll()) != null) {
+			task.run();
+		}
+	}
+
+	/**
+	 * Runs the given task on this thread.
+	 *
+	 * @param task
+	 *            The task to be run.
+	 */
+	void execute(Runnable task) {
+		tasks.offer(task);
+		selector.wakeup();
+	}
+
+	Selector getSelector() {
+		return selector;
+	}
+
+	ByteBufferPool getBufferPool() {
+		return bufferPool;
+	}
+
+	/**
+	 * Stops this thread and closes all sockets registered with it.
+	 */
+	public void shutdown() {
+		canceled = true;
+		selector.wakeup();
+	}
+}
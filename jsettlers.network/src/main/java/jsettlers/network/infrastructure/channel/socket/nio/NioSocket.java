@@ -0,0 +1,455 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.socket.nio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import jsettlers.network.infrastructure.channel.socket.ISocket;
+
+/**
+ * An {@link ISocket} that is read and written by a {@link NioSelectorThread} instead of a thread of its own.
+ * <p />
+ * The received data is split into frames. Like the frames of a {@link jsettlers.network.infrastructure.channel.Channel}, every frame starts with a
+ * one byte key followed by the length of the frame's data as int. Every complete frame is handed to the {@link IFrameReceiver} on the selector
+ * thread. While it's called, the frame can be read from the stream returned by {@link #getInputStream()}. The frame is read directly from the
+ * receive buffer of the socket.
+ * <p />
+ * The data written to the stream returned by {@link #getOutputStream()} is collected in pooled buffers. On flush, the buffers are queued for sending
+ * and as much as possible of the queue is written with one gathering write.
+ * <p />
+ * Frames longer than {@link #MAX_FRAME_LENGTH} are rejected and a peer that doesn't receive more than {@link #MAX_QUEUED_BYTES} of queued data is
+ * disconnected, so a single broken or malicious connection can't exhaust the memory of the server.
+ */
+public class NioSocket implements ISocket {
+	private static final int FRAME_HEADER_LENGTH     = 5;
+	private static final int FRAME_LENGTH_OFFSET     = 1;
+	private static final int MAX_BUFFERS_PER_WRITE   = 16;
+	public static final int  MAX_FRAME_LENGTH        = 1 << 20;
+	public static final int  MAX_QUEUED_BYTES        = 4 << 20;
+
+	/**
+	 * Receives the frames of a {@link NioSocket}. The methods are called by the {@link NioSelectorThread} and must not block.
+	 */
+	public interface IFrameReceiver {
+		/**
+		 * Called for every received frame. The frame can be read from {@link NioSocket#getInputStream()} until this method returns.
+		 *
+		 * @throws IOException
+		 *             If the frame is invalid. The socket is closed in this case.
+		 */
+		void frameReceived() throws IOException;
+
+		/**
+		 * Called once after the socket has been closed.
+		 */
+		void socketClosed();
+	}
+
+	private final SocketChannel     channel;
+	private final NioSelectorThread selectorThread;
+	private final ByteBufferPool    bufferPool;
+	private final String            description;
+
+	private final FrameInputStream  frameInputStream  = new FrameInputStream();
+	private final BufferOutputStream bufferOutputStream = new BufferOutputStream();
+
+	private final Object              writeLock     = new Object();
+	private final ArrayDeque<ByteBuffer> writeQueue = new ArrayDeque<>();
+	private final ByteBuffer[]        gatheredBuffers = new ByteBuffer[MAX_BUFFERS_PER_WRITE];
+	private long                      queuedBytes   = 0;
+
+	private SelectionKey   key;
+	private IFrameReceiver receiver;
+	private ByteBuffer     readBuffer;
+	private boolean        released = false;
+
+	private volatile boolean closed = false;
+
+	/**
+	 * Creates a new socket for the given connected channel. The channel is switched to non blocking mode and Nagle's algorithm is disabled.
+	 *
+	 * @param channel
+	 *            The connected channel.
+	 * @param selectorThread
+	 *            The thread that reads and writes the channel.
+	 * @throws IOException
+	 *             If the channel can not be configured.
+	 */
+	public NioSocket(SocketChannel channel, NioSelectorThread selectorThread) throws IOException {
+		this.channel = channel;
+		this.selectorThread = selectorThread;
+		this.bufferPool = selectorThread.getBufferPool();
+		this.description = "NioSocket[" + channel.socket() + "]";
+
+		channel.configureBlocking(false);
+		channel.socket().setTcpNoDelay(true); // queued frames are gathered into one write anyway
+	}
+
+	/**
+	 * Starts receiving frames. Data written before is sent as soon as the socket has been registered with the selector thread.
+	 *
+	 * @param receiver
+	 *            The receiver of the frames.
+	 */
+	public void startReceiving(IFrameReceiver receiver) {
+		this.receiver = receiver;
+		selectorThread.execute(new Runnable() {
+			@Override
+			public void run() {
+				register();
+			}
+		});
+	}
+
+	private void register() {
+		if (released) {
+			return;
+		}
+
+		try {
+			readBuffer = bufferPool.acquire();
+			synchronized (writeLock) {
+				int interestOps = writeQueue.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+				key = channel.register(selectorThread.getSelector(), interestOps, this);
+			}
+		} catch (ClosedChannelException e) {
+			closeNow();
+		}
+	}
+
+	/**
+	 * Reads the available data and hands all completely received frames to the receiver. Must only be called by the selector thread.
+	 */
+	void read() throws IOException {
+		if (channel.read(readBuffer) < 0) {
+			closeNow();
+			return;
+		}
+
+		readBuffer.flip();
+		while (readBuffer.remaining() >= FRAME_HEADER_LENGTH) {
+			int frameStart = readBuffer.position();
+			int dataLength = readBuffer.getInt(frameStart + FRAME_LENGTH_OFFSET);
+			if (dataLength < 0 || dataLength > MAX_FRAME_LENGTH) {
+				throw new IOException("Invalid frame length: " + dataLength);
+			}
+
+			int frameEnd = frameStart + FRAME_HEADER_LENGTH + dataLength;
+			if (frameEnd > readBuffer.limit()) {
+				if (FRAME_HEADER_LENGTH + dataLength > readBuffer.capacity()) {
+					ByteBuffer largerBuffer = ByteBuffer.allocate(FRAME_HEADER_LENGTH + dataLength);
+					largerBuffer.put(readBuffer);
+					largerBuffer.flip();
+					bufferPool.release(readBuffer);
+					readBuffer = largerBuffer;
+				}
+				break;
+			}
+
+			int limit = readBuffer.limit();
+			readBuffer.limit(frameEnd);
+			frameInputStream.buffer = readBuffer;
+			try {
+				receiver.frameReceived();
+			} finally {
+				frameInputStream.buffer = null;
+			}
+
+			if (released) {
+				return;
+			}
+			readBuffer.limit(limit);
+			readBuffer.position(frameEnd);
+		}
+		readBuffer.compact();
+
+		if (!readBuffer.isDirect() && !isLargeFrameStarted()) {
+			ByteBuffer pooledBuffer = bufferPool.acquire();
+			readBuffer.flip();
+			pooledBuffer.put(readBuffer);
+			readBuffer = pooledBuffer;
+		}
+	}
+
+	private boolean isLargeFrameStarted() {
+		return readBuffer.position() >= FRAME_HEADER_LENGTH
+				&& FRAME_HEADER_LENGTH + readBuffer.getInt(FRAME_LENGTH_OFFSET) > bufferPool.getBufferCapacity();
+	}
+
+	/**
+	 * Writes the queued data. Must only be called by the selector thread.
+	 */
+	void write() throws IOException {
+		synchronized (writeLock) {
+			writeQueued();
+			if (writeQueue.isEmpty()) {
+				key.interestOps(SelectionKey.OP_READ);
+			}
+		}
+	}
+
+	private void send(List<ByteBuffer> buffers) throws IOException {
+		synchronized (writeLock) {
+			if (closed) {
+				for (ByteBuffer buffer : buffers) {
+					bufferPool.release(buffer);
+				}
+				throw new ClosedChannelException();
+			}
+
+			long sentBytes = 0;
+			for (ByteBuffer buffer : buffers) {
+				sentBytes += buffer.remaining();
+			}
+			if (queuedBytes + sentBytes > MAX_QUEUED_BYTES) {
+				for (ByteBuffer buffer : buffers) {
+					bufferPool.release(buffer);
+				}
+				close();
+				throw new IOException("Send queue full: the peer of " + description + " doesn't receive the sent data.");
+			}
+
+			boolean wasEmpty = writeQueue.isEmpty();
+			writeQueue.addAll(buffers);
+			queuedBytes += sentBytes;
+
+			if (wasEmpty && key != null) { // otherwise the selector thread already waits until the socket is writable
+				writeQueued();
+				if (!writeQueue.isEmpty()) {
+					selectorThread.execute(new Runnable() {
+						@Override
+						public void run() {
+							enableWriting();
+						}
+					});
+				}
+			}
+		}
+	}
+
+	private void enableWriting() {
+		synchronized (writeLock) {
+			if (key.isValid() && !writeQueue.isEmpty()) {
+				key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+			}
+		}
+	}
+
+	private void writeQueued() throws IOException {
+		while (!writeQueue.isEmpty()) {
+			int numberOfBuffers = 0;
+			for (Iterator<ByteBuffer> iterator = writeQueue.iterator(); iterator.hasNext() && numberOfBuffers < MAX_BUFFERS_PER_WRITE;) {
+				gatheredBuffers[numberOfBuffers++] = iterator.next();
+			}
+
+			queuedBytes -= channel.write(gatheredBuffers, 0, numberOfBuffers);
+			for (int i = 0; i < numberOfBuffers; i++) {
+				gatheredBuffers[i] = null;
+			}
+
+			int writtenBuffers = 0;
+			while (!writeQueue.isEmpty() && !writeQueue.peekFirst().hasRemaining()) {
+				bufferPool.release(writeQueue.pollFirst());
+				writtenBuffers++;
+			}
+
+			if (writtenBuffers < numberOfBuffers) {
+				return; // the send buffer of the socket is full
+			}
+		}
+	}
+
+	/**
+	 * Closes the socket and releases its buffers. Must only be called by the selector thread.
+	 */
+	void closeNow() {
+		if (released) {
+			return;
+		}
+		released = true;
+		closed = true;
+
+		if (key != null) {
+			key.cancel();
+		}
+		try {
+			channel.close();
+		} catch (IOException e) {
+		}
+
+		synchronized (writeLock) {
+			for (ByteBuffer buffer : writeQueue) {
+				bufferPool.release(buffer);
+			}
+			writeQueue.clear();
+			queuedBytes = 0;
+		}
+		if (readBuffer != null) {
+			bufferPool.release(readBuffer);
+			readBuffer = null;
+		}
+
+		if (receiver != null) {
+			receiver.socketClosed();
+		}
+	}
+
+	/**
+	 * @return The stream of the frame that is currently handed to the {@link IFrameReceiver}.
+	 */
+	@Override
+	public InputStream getInputStream() {
+		return frameInputStream;
+	}
+
+	/**
+	 * @return A stream whose data is sent on flush. Frames written by multiple threads at the same time would be mixed up.
+	 */
+	@Override
+	public OutputStream getOutputStream() {
+		return bufferOutputStream;
+	}
+
+	@Override
+	public boolean isClosed() {
+		return closed;
+	}
+
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		try {
+			channel.close();
+		} finally {
+			selectorThread.execute(new Runnable() {
+				@Override
+				public void run() {
+					closeNow();
+				}
+			});
+		}
+	}
+
+	@Override
+	public String toString() {
+		return description;
+	}
+
+	/**
+	 * Reads the current frame from the receive buffer.
+	 */
+	private static class FrameInputStream extends InputStream {
+		private ByteBuffer buffer;
+
+		@Override
+		public int read() throws IOException {
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			return buffer.get() & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			if (length == 0) {
+				return 0;
+			}
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+
+			int readBytes = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, readBytes);
+			return readBytes;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			int skippedBytes = (int) Math.max(0, Math.min(n, buffer.remaining()));
+			buffer.position(buffer.position() + skippedBytes);
+			return skippedBytes;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return buffer == null ? 0 : buffer.remaining();
+		}
+	}
+
+	/**
+	 * Collects the written data in pooled buffers until the stream is flushed. The stream is synchronized, because a channel may be closed and
+	 * thereby flushed while another thread sends a packet.
+	 */
+	private class BufferOutputStream extends OutputStream {
+		private final ArrayList<ByteBuffer> buffers = new ArrayList<>();
+		private ByteBuffer currentBuffer;
+
+		@Override
+		public synchronized void write(int b) throws IOException {
+			ensureFreeSpace();
+			currentBuffer.put((byte) b);
+		}
+
+		@Override
+		public synchronized void write(byte[] bytes, int offset, int length) throws IOException {
+			while (length > 0) {
+				ensureFreeSpace();
+				int writtenBytes = Math.min(length, currentBuffer.remaining());
+				currentBuffer.put(bytes, offset, writtenBytes);
+				offset += writtenBytes;
+				length -= writtenBytes;
+			}
+		}
+
+		private void ensureFreeSpace() {
+			if (currentBuffer == null || !currentBuffer.hasRemaining()) {
+				currentBuffer = bufferPool.acquire();
+				buffers.add(currentBuffer);
+			}
+		}
+
+		@Override
+		public synchronized void flush() throws IOException {
+			if (buffers.isEmpty()) {
+				return;
+			}
+
+			for (ByteBuffer buffer : buffers) {
+				buffer.flip();
+			}
+			try {
+				send(buffers);
+			} finally {
+				buffers.clear();
+				currentBuffer = null;
+			}
+		}
+
+		@Override
+		public void close() {
+			// the queued buffers are released when the socket is closed
+		}
+	}
+}
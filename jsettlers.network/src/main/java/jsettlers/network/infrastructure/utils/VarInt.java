@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.utils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Writes and reads integers with a variable number of bytes. Every byte stores seven bits of the value, the highest bit marks if another byte
+ * follows. Small values therefore only need a single byte.
+ */
+public final class VarInt {
+	private VarInt() {
+	}
+
+	/**
+	 * Writes the given value. Negative values always need five bytes, use {@link #writeSigned(DataOutputStream, int)} for them.
+	 */
+	public static void write(DataOutputStream dos, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			dos.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		dos.writeByte(value);
+	}
+
+	public static int read(DataInputStream dis) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int currentByte = dis.readUnsignedByte();
+			value |= (currentByte & 0x7F) << shift;
+			if ((currentByte & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Variable length integer is too long.");
+	}
+
+	/**
+	 * Writes the given value in zigzag encoding, so that values close to zero need few bytes, regardless of their sign.
+	 */
+	public static void writeSigned(DataOutputStream dos, int value) throws IOException {
+		write(dos, (value << 1) ^ (value >> 31));
+	}
+
+	public static int readSigned(DataInputStream dis) throws IOException {
+		int value = read(dis);
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
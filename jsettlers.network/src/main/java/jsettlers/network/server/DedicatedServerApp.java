@@ -43,6 +43,9 @@ public class DedicatedServerApp {
 				System.out.println("listing matches (" + matches.size() + "):");
 				for (Match match : matches) {
 					System.out.println("\t" + match);
+					if (match.getLockstepMetrics() != null) {
+						System.out.println("\t\t" + match.getLockstepMetrics());
+					}
 				}
 			}
 		}
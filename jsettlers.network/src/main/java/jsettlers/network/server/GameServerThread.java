@@ -15,13 +15,17 @@
 package jsettlers.network.server;
 
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.net.SocketException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.socket.ISocket;
 import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
+import jsettlers.network.infrastructure.channel.socket.nio.NioSelectorThread;
+import jsettlers.network.infrastructure.channel.socket.nio.NioSocket;
 import jsettlers.network.infrastructure.log.Logger;
 import jsettlers.network.infrastructure.log.LoggerManager;
 import jsettlers.network.server.db.IDBFacade;
@@ -30,6 +34,7 @@ import jsettlers.network.server.lan.LanServerAddressBroadcastListener;
 import jsettlers.network.server.lan.LanServerBroadcastThread;
 
 /**
+ * This thread accepts the connections of the clients. The channels of all clients are read and written by one {@link NioSelectorThread}.
  * 
  * @author Andreas Eberle
  * 
@@ -38,7 +43,8 @@ public final class GameServerThread extends Thread {
 
 	private static final Logger LOGGER = LoggerManager.ROOT_LOGGER;
 
-	private final ServerSocket serverSocket;
+	private final ServerSocketChannel serverSocketChannel;
+	private final NioSelectorThread selectorThread;
 	private final ServerManager manager;
 	private final LanServerBroadcastThread lanBroadcastThread;
 
@@ -47,7 +53,9 @@ public final class GameServerThread extends Thread {
 
 	public GameServerThread(boolean lan) throws IOException {
 		super("GameServer");
-		this.serverSocket = new ServerSocket(NetworkConstants.Server.SERVER_PORT);
+		this.serverSocketChannel = ServerSocketChannel.open();
+		this.serverSocketChannel.socket().bind(new InetSocketAddress(NetworkConstants.Server.SERVER_PORT));
+		this.selectorThread = new NioSelectorThread("GameServerSelector");
 		this.manager = new ServerManager(new InMemoryDB());
 
 		this.setDaemon(true);
@@ -66,20 +74,28 @@ public final class GameServerThread extends Thread {
 		System.out.println("Server up and running!");
 		while (!canceled) {
 			try {
-				Socket clientSocket = serverSocket.accept();
+				SocketChannel clientSocket = serverSocketChannel.accept();
 
-				Channel clientChannel = new Channel(LOGGER, ISocketFactory.DEFAULT_FACTORY.generateSocket(clientSocket));
+				Channel clientChannel = new Channel(LOGGER, createSocket(clientSocket));
 				manager.identifyNewChannel(clientChannel);
 				clientChannel.start();
 
 				LOGGER.log("accepted new client (" + ++counter + "): " + clientSocket);
-			} catch (SocketException e) {
+			} catch (ClosedChannelException e) {
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
 		}
 	}
 
+	private ISocket createSocket(SocketChannel clientSocket) throws IOException {
+		if (NetworkConstants.USE_DELAYED_SOCKETS) { // the delayed sockets need blocking streams
+			return ISocketFactory.DEFAULT_FACTORY.generateSocket(clientSocket.socket());
+		} else {
+			return new NioSocket(clientSocket, selectorThread);
+		}
+	}
+
 	/**
 	 * NOTE: THIS METHOD IS BLOCKING for the given time
 	 * 
@@ -115,15 +131,17 @@ public final class GameServerThread extends Thread {
 	@Override
 	public synchronized void start() {
 		super.start();
+		selectorThread.start();
 		manager.start();
 	}
 
 	public synchronized void shutdown() {
 		canceled = true;
 		try {
-			serverSocket.close();
+			serverSocketChannel.close();
 		} catch (IOException e) {
 		}
+		selectorThread.shutdown();
 
 		if (lanBroadcastThread != null)
 			lanBroadcastThread.shutdown();
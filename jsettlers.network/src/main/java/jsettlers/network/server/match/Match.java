@@ -16,7 +16,6 @@ package jsettlers.network.server.match;
 
 import java.util.Date;
 import java.util.LinkedList;
-import java.util.Timer;
 import java.util.UUID;
 
 import jsettlers.network.NetworkConstants;
@@ -27,13 +26,18 @@ import jsettlers.network.common.packets.MatchInfoPacket;
 import jsettlers.network.common.packets.MatchInfoUpdatePacket;
 import jsettlers.network.common.packets.MatchStartPacket;
 import jsettlers.network.common.packets.PlayerInfoPacket;
+import jsettlers.network.common.packets.StateChecksumPacket;
 import jsettlers.network.common.packets.TimeSyncPacket;
 import jsettlers.network.infrastructure.channel.packet.Packet;
+import jsettlers.network.infrastructure.channel.packet.SerializedPacket;
 import jsettlers.network.infrastructure.log.Logger;
 import jsettlers.network.infrastructure.log.LoggerManager;
 import jsettlers.network.server.exceptions.NotAllPlayersReadyException;
+import jsettlers.network.server.match.lockstep.LockstepMetrics;
+import jsettlers.network.server.match.lockstep.LockstepScheduler;
+import jsettlers.network.server.match.lockstep.StateChecksumVerifier;
 import jsettlers.network.server.match.lockstep.TaskCollectingListener;
-import jsettlers.network.server.match.lockstep.TaskSendingTimerTask;
+import jsettlers.network.server.match.lockstep.TaskSendingTask;
 
 /**
  * 
@@ -54,7 +58,9 @@ public class Match {
 
 	private EMatchState state = EMatchState.OPENED;
 	private TaskCollectingListener taskCollectingListener;
-	private TaskSendingTimerTask taskSendingTimerTask;
+	private int nextSenderIndex = 0;
+	private TaskSendingTask taskSendingTask;
+	private StateChecksumVerifier stateChecksumVerifier;
 
 	public Match(String name, int maxPlayers, MapInfoPacket map, long randomSeed) {
 		this.maxPlayers = maxPlayers;
@@ -163,6 +169,10 @@ public class Match {
 	 */
 	public void sendMessage(Player sendingPlayer, ENetworkKey key, Packet packet) {
 		synchronized (players) {
+			if (players.size() > 1) {
+				packet = new SerializedPacket(packet); // serialize the packet only once for all players
+			}
+
 			for (Player curr : players) {
 				if (sendingPlayer == null || !curr.getId().equals(sendingPlayer.getId())) {
 					curr.sendPacket(key, packet);
@@ -203,7 +213,7 @@ public class Match {
 		}
 	}
 
-	public synchronized void startMatch(Timer timer) throws NotAllPlayersReadyException {
+	public synchronized void startMatch(LockstepScheduler scheduler) throws NotAllPlayersReadyException {
 		if (state == EMatchState.RUNNING || state == EMatchState.FINISHED) {
 			return; // match already started
 		}
@@ -219,8 +229,9 @@ public class Match {
 		state = EMatchState.RUNNING;
 
 		this.taskCollectingListener = new TaskCollectingListener();
-		this.taskSendingTimerTask = new TaskSendingTimerTask(logger, taskCollectingListener, this);
-		timer.schedule(taskSendingTimerTask, NetworkConstants.Client.LOCKSTEP_PERIOD, NetworkConstants.Client.LOCKSTEP_PERIOD / 2 - 2);
+		this.taskSendingTask = new TaskSendingTask(logger, taskCollectingListener, this);
+		this.stateChecksumVerifier = new StateChecksumVerifier(logger);
+		taskSendingTask.schedule(scheduler);
 
 		synchronized (players) {
 			int i = 0;
@@ -228,20 +239,45 @@ public class Match {
 				sendMatchStartPacketToPlayer(player);
 
 				// needed so that the sending task can adapt to the ping
-				player.getChannel().setPingUpdateListener(taskSendingTimerTask.getPingListener(i));
+				player.getChannel().setPingUpdateListener(taskSendingTask.getPingListener(i));
 				i++;
 			}
 		}
 	}
 
 	private void sendMatchStartPacketToPlayer(Player player) {
-		player.matchStarted(taskCollectingListener);
+		player.matchStarted(taskCollectingListener.forSender(nextSenderIndex++));
 		player.sendPacket(NetworkConstants.ENetworkKey.MATCH_STARTED, new MatchStartPacket(new MatchInfoPacket(this), 0L));
 	}
 
 	public void distributeTimeSync(Player player, TimeSyncPacket packet) {
-		sendMessage(player, NetworkConstants.ENetworkKey.TIME_SYNC, packet);
-		taskSendingTimerTask.receivedLockstepAcknowledge(packet.getTime() / NetworkConstants.Client.LOCKSTEP_PERIOD);
+		sendMessage(player, NetworkConstants.ENetworkKey.TIME_SYNC, new TimeSyncPacket(packet.getTime())); // the other players don't need the checksums
+		taskSendingTask.receivedLockstepAcknowledge(packet.getTime() / NetworkConstants.Client.LOCKSTEP_PERIOD);
+
+		if (!packet.getStateChecksums().isEmpty()) {
+			int numberOfPlayers;
+			synchronized (players) {
+				numberOfPlayers = players.size();
+			}
+			for (StateChecksumPacket stateChecksum : packet.getStateChecksums()) {
+				stateChecksumVerifier.receivedChecksum(player.getId(), numberOfPlayers, stateChecksum);
+			}
+		}
+	}
+
+	/**
+	 * @return The first lockstep for which two players reported different game state checksums or -1 if the match is not desynchronized.
+	 */
+	public int getFirstDesyncLockstep() {
+		return stateChecksumVerifier != null ? stateChecksumVerifier.getFirstDesyncLockstep() : -1;
+	}
+
+	/**
+	 * @return The metrics of the lockstep distribution or null if the match is not running.
+	 */
+	public LockstepMetrics getLockstepMetrics() {
+		TaskSendingTask task = taskSendingTask;
+		return task != null ? task.getMetrics() : null;
 	}
 
 	public Logger getMatchLogger() {
@@ -250,8 +286,8 @@ public class Match {
 
 	private void shutdownMatch() {
 		if (state == EMatchState.RUNNING) {
-			taskSendingTimerTask.cancel();
-			taskSendingTimerTask = null;
+			taskSendingTask.cancel();
+			taskSendingTask = null;
 
 			synchronized (players) {
 				if (players.size() > 0) {
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.server.match.lockstep;
+
+import java.util.Locale;
+
+import jsettlers.network.infrastructure.utils.AveragingBoundedBuffer;
+
+/**
+ * Collects the timing of the lockstep distribution of a match. All times are given in microseconds.
+ * <ul>
+ * <li>send jitter: How late the sending task ran compared to its fixed rate schedule.</li>
+ * <li>queue depth: The number of tasks that were waiting to be sent with a lockstep.</li>
+ * <li>broadcast time: The time needed to serialize a lockstep and hand it to the channels of all players.</li>
+ * </ul>
+ */
+public class LockstepMetrics {
+	private static final int AVERAGING_LENGTH = 50;
+
+	private final AveragingBoundedBuffer sendJitter = new AveragingBoundedBuffer(AVERAGING_LENGTH);
+	private final AveragingBoundedBuffer queueDepth = new AveragingBoundedBuffer(AVERAGING_LENGTH);
+	private final AveragingBoundedBuffer broadcastTime = new AveragingBoundedBuffer(AVERAGING_LENGTH);
+
+	private int maxSendJitter;
+	private int maxQueueDepth;
+	private int maxBroadcastTime;
+	private int sentLocksteps;
+
+	synchronized void recordSendJitter(long jitterNanos) {
+		int jitter = toMicros(Math.max(0, jitterNanos));
+		sendJitter.insert(jitter);
+		maxSendJitter = Math.max(maxSendJitter, jitter);
+	}
+
+	synchronized void recordSentLockstep(int queuedTasks, long broadcastNanos) {
+		int time = toMicros(broadcastNanos);
+		queueDepth.insert(queuedTasks);
+		broadcastTime.insert(time);
+		maxQueueDepth = Math.max(maxQueueDepth, queuedTasks);
+		maxBroadcastTime = Math.max(maxBroadcastTime, time);
+		sentLocksteps++;
+	}
+
+	private static int toMicros(long nanos) {
+		return (int) Math.min(Integer.MAX_VALUE, nanos / 1000);
+	}
+
+	public synchronized int getAverageSendJitter() {
+		return sendJitter.getAverage();
+	}
+
+	public synchronized int getMaxSendJitter() {
+		return maxSendJitter;
+	}
+
+	public synchronized int getAverageQueueDepth() {
+		return queueDepth.getAverage();
+	}
+
+	public synchronized int getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+
+	public synchronized int getAverageBroadcastTime() {
+		return broadcastTime.getAverage();
+	}
+
+	public synchronized int getMaxBroadcastTime() {
+		return maxBroadcastTime;
+	}
+
+	public synchronized int getSentLocksteps() {
+		return sentLocksteps;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format(Locale.ENGLISH, "locksteps: %d   send jitter: %dus (max %dus)   queue depth: %d (max %d)   broadcast time: %dus (max %dus)",
+				sentLocksteps, sendJitter.getAverage(), maxSendJitter, queueDepth.getAverage(), maxQueueDepth, broadcastTime.getAverage(),
+				maxBroadcastTime);
+	}
+}
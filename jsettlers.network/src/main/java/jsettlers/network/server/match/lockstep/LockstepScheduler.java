@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.server.match.lockstep;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the {@link TaskSendingTask}s of the running matches. The matches are distributed over several single threaded executors, so that a slow
+ * match only delays the matches sharing its executor.
+ */
+public class LockstepScheduler {
+	private final ScheduledExecutorService[] shards;
+	private int nextShard = 0;
+
+	/**
+	 * Creates a scheduler with one shard per available processor.
+	 */
+	public LockstepScheduler() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	public LockstepScheduler(int numberOfShards) {
+		shards = new ScheduledExecutorService[Math.max(1, numberOfShards)];
+		for (int i = 0; i < shards.length; i++) {
+			final String threadName = "LockstepScheduler-" + i;
+			shards[i] = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, threadName);
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	/**
+	 * Runs the given task at a fixed rate. The runs do not drift, even if single runs are delayed.
+	 * 
+	 * @param task
+	 *            The task to be run.
+	 * @param initialDelayMs
+	 *            The delay before the first run.
+	 * @param periodMs
+	 *            The time between the starts of two runs.
+	 * @return The future that can be used to cancel the task.
+	 */
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialDelayMs, long periodMs) {
+		ScheduledExecutorService shard;
+		synchronized (this) {
+			shard = shards[nextShard];
+			nextShard = (nextShard + 1) % shards.length;
+		}
+		return shard.scheduleAtFixedRate(task, initialDelayMs, periodMs, TimeUnit.MILLISECONDS);
+	}
+
+	public void shutdown() {
+		for (ScheduledExecutorService shard : shards) {
+			shard.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.server.match.lockstep;
+
+import java.util.TreeMap;
+
+import jsettlers.network.common.packets.StateChecksumPacket;
+import jsettlers.network.infrastructure.log.Logger;
+
+/**
+ * Compares the game state checksums the players of a match send with their time sync packets. As soon as two players report different checksums
+ * for the same lockstep, the match is desynchronized. The first lockstep with diverging checksums is logged and remembered.
+ */
+public class StateChecksumVerifier {
+	/**
+	 * Checksums of locksteps that have not been reported by all players (e.g. because a player left) are dropped after this many locksteps.
+	 */
+	private static final int MAX_OPEN_LOCKSTEPS = 100;
+
+	private final Logger logger;
+	private final TreeMap<Integer, ReportedChecksum> reportedChecksums = new TreeMap<>();
+
+	private int firstDesyncLockstep = -1;
+
+	public StateChecksumVerifier(Logger logger) {
+		this.logger = logger;
+	}
+
+	/**
+	 * Compares the given checksum with the checksums the other players reported for the same lockstep.
+	 * 
+	 * @param playerId
+	 *            The id of the reporting player.
+	 * @param numberOfPlayers
+	 *            The number of players that are expected to report a checksum for the lockstep.
+	 * @param stateChecksum
+	 *            The reported checksum.
+	 * @return false if the checksum differs from the checksum reported by another player, true otherwise.
+	 */
+	public synchronized boolean receivedChecksum(String playerId, int numberOfPlayers, StateChecksumPacket stateChecksum) {
+		int lockstep = stateChecksum.getLockstep();
+		ReportedChecksum reported = reportedChecksums.get(lockstep);
+
+		if (reported == null) {
+			reported = new ReportedChecksum(playerId, stateChecksum.getChecksum());
+			reportedChecksums.put(lockstep, reported);
+			while (reportedChecksums.size() > MAX_OPEN_LOCKSTEPS) {
+				reportedChecksums.pollFirstEntry();
+			}
+		} else if (reported.checksum != stateChecksum.getChecksum()) {
+			desyncDetected(lockstep, reported, playerId, stateChecksum.getChecksum());
+			return false;
+		}
+
+		reported.reports++;
+		if (reported.reports >= numberOfPlayers) {
+			reportedChecksums.remove(lockstep);
+		}
+		return true;
+	}
+
+	private void desyncDetected(int lockstep, ReportedChecksum reported, String playerId, long checksum) {
+		if (firstDesyncLockstep >= 0 && firstDesyncLockstep <= lockstep) {
+			return; // only the first diverging lockstep is of interest
+		}
+
+		firstDesyncLockstep = lockstep;
+		logger.warn("DESYNC detected in lockstep " + lockstep + ": player '" + reported.playerId + "' reported checksum "
+				+ Long.toHexString(reported.checksum) + " but player '" + playerId + "' reported " + Long.toHexString(checksum));
+	}
+
+	public synchronized boolean isDesynchronized() {
+		return firstDesyncLockstep >= 0;
+	}
+
+	/**
+	 * @return The first lockstep for which two players reported different checksums or -1 if no desync has been detected.
+	 */
+	public synchronized int getFirstDesyncLockstep() {
+		return firstDesyncLockstep;
+	}
+
+	private static final class ReportedChecksum {
+		final String playerId;
+		final long checksum;
+		int reports;
+
+		ReportedChecksum(String playerId, long checksum) {
+			this.playerId = playerId;
+			this.checksum = checksum;
+		}
+	}
+}
@@ -42,14 +42,31 @@ public class TaskCollectingListener extends PacketChannelListener<ServersideTask
 	 * 
 	 * @return
 	 */
-	public List<ServersideTaskPacket> getAndResetTasks() {
+	public synchronized List<ServersideTaskPacket> getAndResetTasks() {
 		List<ServersideTaskPacket> temp = currTasksList;
 		currTasksList = new LinkedList<>();
 		return temp;
 	}
 
 	@Override
-	protected void receivePacket(ENetworkKey key, ServersideTaskPacket deserialized) {
+	protected synchronized void receivePacket(ENetworkKey key, ServersideTaskPacket deserialized) {
 		currTasksList.add(deserialized);
 	}
+
+	/**
+	 * Creates a listener for the channel of one player. The tasks received by it are collected by this listener and marked with the given
+	 * sender index.
+	 * 
+	 * @param senderIndex
+	 *            The index identifying the player in the match.
+	 * @return The listener for the channel of the player.
+	 */
+	public PacketChannelListener<ServersideTaskPacket> forSender(final int senderIndex) {
+		return new PacketChannelListener<ServersideTaskPacket>(ENetworkKey.SYNCHRONOUS_TASK, new GenericDeserializer<>(ServersideTaskPacket.class)) {
+			@Override
+			protected void receivePacket(ENetworkKey key, ServersideTaskPacket deserialized) {
+				TaskCollectingListener.this.receivePacket(key, new ServersideTaskPacket(deserialized.getData(), senderIndex));
+			}
+		};
+	}
 }
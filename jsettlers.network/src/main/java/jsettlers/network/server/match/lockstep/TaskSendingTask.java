@@ -16,47 +16,91 @@ package jsettlers.network.server.match.lockstep;
 
 import java.util.List;
 import java.util.Locale;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import jsettlers.network.NetworkConstants;
+import jsettlers.network.common.packets.LockstepPacket;
 import jsettlers.network.infrastructure.channel.ping.IPingUpdateListener;
 import jsettlers.network.infrastructure.log.Logger;
 import jsettlers.network.infrastructure.utils.MaximumSlotBuffer;
 import jsettlers.network.server.match.Match;
-import jsettlers.network.server.packets.ServersideSyncTasksPacket;
 import jsettlers.network.server.packets.ServersideTaskPacket;
 
 /**
+ * Collects the tasks of the players of a match and sends them as lockstep to all players. The task is run at a fixed rate by a
+ * {@link LockstepScheduler}.
  * 
  * @author Andreas Eberle
  * 
  */
-public class TaskSendingTimerTask extends TimerTask {
+public class TaskSendingTask implements Runnable {
+	private static final int SENDING_PERIOD = NetworkConstants.Client.LOCKSTEP_PERIOD / 2 - 2;
+
 	private final Logger logger;
 	private final TaskCollectingListener taskCollectingListener;
 	private final Match match;
+	private final LockstepMetrics metrics = new LockstepMetrics();
+
+	private ScheduledFuture<?> scheduledFuture;
+	private long plannedRunNanos;
 
 	private int lockstepCounter = 0;
-	private int currentLockstepMax = NetworkConstants.Client.LOCKSTEP_DEFAULT_LEAD_STEPS;
+	private volatile int currentLockstepMax = NetworkConstants.Client.LOCKSTEP_DEFAULT_LEAD_STEPS;
 
 	private int minimumLeadTimeMs = NetworkConstants.Client.LOCKSTEP_DEFAULT_LEAD_STEPS * NetworkConstants.Client.LOCKSTEP_PERIOD;
 	private int leadSteps = minimumLeadTimeMs / NetworkConstants.Client.LOCKSTEP_PERIOD;
 
-	public TaskSendingTimerTask(Logger logger, TaskCollectingListener taskCollectingListener, Match match) {
+	public TaskSendingTask(Logger logger, TaskCollectingListener taskCollectingListener, Match match) {
 		this.logger = logger;
 		this.taskCollectingListener = taskCollectingListener;
 		this.match = match;
 	}
 
+	/**
+	 * Starts sending the locksteps with the given scheduler.
+	 * 
+	 * @param scheduler
+	 *            The scheduler running this task.
+	 */
+	public synchronized void schedule(LockstepScheduler scheduler) {
+		plannedRunNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(NetworkConstants.Client.LOCKSTEP_PERIOD);
+		scheduledFuture = scheduler.scheduleAtFixedRate(this, NetworkConstants.Client.LOCKSTEP_PERIOD, SENDING_PERIOD);
+	}
+
+	public synchronized void cancel() {
+		if (scheduledFuture != null) {
+			scheduledFuture.cancel(false);
+		}
+	}
+
 	@Override
 	public void run() {
-		if (lockstepCounter > currentLockstepMax) {
+		long startNanos = System.nanoTime();
+		metrics.recordSendJitter(startNanos - plannedRunNanos);
+		plannedRunNanos += TimeUnit.MILLISECONDS.toNanos(SENDING_PERIOD);
+
+		int lockstepMax = currentLockstepMax;
+		if (lockstepCounter > lockstepMax) {
 			return;
 		}
 
-		List<ServersideTaskPacket> tasksList = taskCollectingListener.getAndResetTasks();
-		ServersideSyncTasksPacket syncTasksPacket = new ServersideSyncTasksPacket(lockstepCounter++, tasksList);
-		match.broadcastMessage(NetworkConstants.ENetworkKey.SYNCHRONOUS_TASK, syncTasksPacket);
+		try {
+			List<ServersideTaskPacket> tasksList = taskCollectingListener.getAndResetTasks();
+
+			// tasks are sent with the next lockstep, empty locksteps are unlocked up to the allowed maximum at once
+			int numberOfLocksteps = tasksList.isEmpty() ? lockstepMax - lockstepCounter + 1 : 1;
+			lockstepCounter += numberOfLocksteps;
+			match.broadcastMessage(NetworkConstants.ENetworkKey.SYNCHRONOUS_TASK, new LockstepPacket(numberOfLocksteps, tasksList));
+
+			metrics.recordSentLockstep(tasksList.size(), System.nanoTime() - startNanos);
+		} catch (RuntimeException e) { // an exception would stop the fixed rate execution
+			logger.error(e);
+		}
+	}
+
+	public LockstepMetrics getMetrics() {
+		return metrics;
 	}
 
 	public void receivedLockstepAcknowledge(int acknowledgedLockstep) {
@@ -96,7 +140,7 @@ public class TaskSendingTimerTask extends TimerTask {
 			rttMaximum.insert(index, rtt.getRtt());
 			jitterMaximum.insert(index, rtt.getAveragedJitter());
 
-			TaskSendingTimerTask.this.pingUpdated(rttMaximum.getMax(), jitterMaximum.getMax());
+			TaskSendingTask.this.pingUpdated(rttMaximum.getMax(), jitterMaximum.getMax());
 		};
 	}
 }
@@ -19,23 +19,41 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.Arrays;
 
+import jsettlers.network.common.packets.LockstepPacket;
 import jsettlers.network.infrastructure.channel.packet.Packet;
 
 /**
  * This class extends the {@link Packet} class and does not really deserialize the data. It just stores the bytes to write them back on the stream
  * again.
+ * <p />
+ * The sender index identifies the player that sent the task in a match. It is not part of the serialized data, but is sent with the task in a
+ * {@link LockstepPacket}.
  * 
  * @author Andreas Eberle
  * 
  */
 public final class ServersideTaskPacket extends Packet {
 	private byte[] data;
+	private int senderIndex;
 
 	public ServersideTaskPacket() {
 	}
 
 	public ServersideTaskPacket(byte[] data) {
+		this(data, 0);
+	}
+
+	public ServersideTaskPacket(byte[] data, int senderIndex) {
 		this.data = data;
+		this.senderIndex = senderIndex;
+	}
+
+	public byte[] getData() {
+		return data;
+	}
+
+	public int getSenderIndex() {
+		return senderIndex;
 	}
 
 	@Override
@@ -65,6 +83,7 @@ public final class ServersideTaskPacket extends Packet {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + Arrays.hashCode(data);
+		result = prime * result + senderIndex;
 		return result;
 	}
 
@@ -77,6 +96,6 @@ public final class ServersideTaskPacket extends Packet {
 		if (getClass() != obj.getClass())
 			return false;
 		ServersideTaskPacket other = (ServersideTaskPacket) obj;
-		return Arrays.equals(data, other.data);
+		return senderIndex == other.senderIndex && Arrays.equals(data, other.data);
 	}
 }
@@ -31,6 +31,7 @@ import jsettlers.network.NetworkConstants;
 import jsettlers.network.client.INetworkClientClock;
 import jsettlers.network.client.task.packets.SyncTasksPacket;
 import jsettlers.network.client.task.packets.TaskPacket;
+import jsettlers.network.client.time.IStateChecksumListener;
 
 import java8.util.Comparators;
 
@@ -54,6 +55,7 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 	private final LinkedList<SyncTasksPacket> tasks = new LinkedList<>();
 
 	private int time = 0;
+	private boolean resumingTick = false;
 	private int maxAllowedLockstep = -1;
 
 	private boolean isPausing;
@@ -66,6 +68,9 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 	private ITaskExecutor taskExecutor;
 	private DataOutputStream replayLogStream;
 
+	private IStateChecksumSupplier stateChecksumSupplier;
+	private IStateChecksumListener stateChecksumListener;
+
 	public NetworkTimer() {
 		this.timer = new Timer("NetworkTimer");
 	}
@@ -112,7 +117,11 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 
 	private synchronized void executeRun() {
 		try {
-			time += TIME_SLICE;
+			if (resumingTick) {
+				resumingTick = false;
+			} else {
+				time += TIME_SLICE;
+			}
 			final int lockstep = time / NetworkConstants.Client.LOCKSTEP_PERIOD;
 
 			// check if the lockstep is allowed
@@ -131,7 +140,9 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 			while (tasksPacket != null && tasksPacket.getLockstepNumber() <= lockstep) {
 				assert tasksPacket.getLockstepNumber() == lockstep : "FOUND TasksPacket FOR older lockstep!";
 
-				System.out.println("Executing SyncTaskPacket(" + tasksPacket + ") in " + getLockstepText(lockstep));
+				if (NetworkConstants.Client.LOG_EXECUTED_TASKS) {
+					System.out.println("Executing SyncTaskPacket(" + tasksPacket + ") in " + getLockstepText(lockstep));
+				}
 
 				try {
 					executeTasksPacket(tasksPacket);
@@ -152,12 +163,23 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 			for (ScheduledTimerable curr : timerables) {
 				curr.checkExecution(TIME_SLICE);
 			}
+
+			if (time % (NetworkConstants.Client.STATE_CHECKSUM_LOCKSTEPS * NetworkConstants.Client.LOCKSTEP_PERIOD) == 0) {
+				calculateStateChecksum(lockstep);
+			}
 		} catch (Throwable t) {
 			System.err.println("WARNING: Networking Timer catched Throwable!!!");
 			t.printStackTrace();
 		}
 	}
 
+	private void calculateStateChecksum(int lockstep) {
+		IStateChecksumListener listener = stateChecksumListener;
+		if (listener != null && stateChecksumSupplier != null) {
+			listener.stateChecksumCalculated(lockstep, stateChecksumSupplier.getStateChecksum());
+		}
+	}
+
 	private void executeTasksPacket(SyncTasksPacket tasksPacket) {
 		if (taskExecutor != null) {
 			for (TaskPacket currTask : tasksPacket.getTasks()) {
@@ -282,6 +304,16 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 		this.taskExecutor = taskExecutor;
 	}
 
+	@Override
+	public void setStateChecksumSupplier(IStateChecksumSupplier stateChecksumSupplier) {
+		this.stateChecksumSupplier = stateChecksumSupplier;
+	}
+
+	@Override
+	public void setStateChecksumListener(IStateChecksumListener listener) {
+		this.stateChecksumListener = listener;
+	}
+
 	@Override
 	public void scheduleSyncTasksPacket(SyncTasksPacket tasksPacket) {
 		assert maxAllowedLockstep == Integer.MAX_VALUE
@@ -290,7 +322,9 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 
 		if (!tasksPacket.getTasks().isEmpty()) {
 			synchronized (tasks) {
-				System.out.println("Scheduled SyncTasksPacket(" + tasksPacket + " for " + getLockstepText(tasksPacket.getLockstepNumber()));
+				if (NetworkConstants.Client.LOG_EXECUTED_TASKS) {
+					System.out.println("Scheduled SyncTasksPacket(" + tasksPacket + " for " + getLockstepText(tasksPacket.getLockstepNumber()));
+				}
 				tasks.addLast(tasksPacket);
 				Collections.sort(tasks, tasksByTimeComparator);
 				saveReplayIfNeeded(tasksPacket);
@@ -317,6 +351,7 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 	@Override
 	public void setTime(int newTime) {
 		this.time = newTime;
+		this.resumingTick = true;
 	}
 
 	@Override
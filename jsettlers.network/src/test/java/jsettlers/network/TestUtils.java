@@ -19,11 +19,17 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 
 import jsettlers.network.infrastructure.channel.AsyncChannel;
 import jsettlers.network.infrastructure.channel.Channel;
 import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
+import jsettlers.network.infrastructure.channel.socket.nio.NioSelectorThread;
+import jsettlers.network.infrastructure.channel.socket.nio.NioSocket;
 
 public final class TestUtils {
 	private TestUtils() {
@@ -57,6 +63,32 @@ public final class TestUtils {
 		return channels;
 	}
 
+	/**
+	 * Connects a channel using a {@link NioSocket} with a channel using a standard socket via the local host.
+	 * 
+	 * @param selectorThread
+	 *            The selector thread of the {@link NioSocket}.
+	 * @return The channel with the {@link NioSocket} at index 0 and the channel with the standard socket at index 1.
+	 */
+	public static Channel[] setUpNioLoopbackChannels(NioSelectorThread selectorThread) throws IOException {
+		final Channel[] channels = new Channel[2];
+
+		try (ServerSocketChannel serverSocketChannel = ServerSocketChannel.open()) {
+			serverSocketChannel.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+			Socket clientSocket = new Socket(InetAddress.getLoopbackAddress(), serverSocketChannel.socket().getLocalPort());
+			SocketChannel serverSideSocket = serverSocketChannel.accept();
+
+			channels[0] = new Channel(new NioSocket(serverSideSocket, selectorThread));
+			channels[1] = new Channel(ISocketFactory.DEFAULT_FACTORY.generateSocket(clientSocket));
+		}
+
+		channels[0].start();
+		channels[1].start();
+		channels[0].initPinging();
+
+		return channels;
+	}
+
 	private static Socket[] setUpLoppbackSockets() throws IOException {
 		Socket[] sockets = new Socket[2];
 
@@ -21,7 +21,9 @@ import java.util.LinkedList;
 
 import jsettlers.network.client.task.packets.SyncTasksPacket;
 import jsettlers.network.client.task.packets.TaskPacket;
+import jsettlers.network.client.time.IStateChecksumListener;
 import jsettlers.network.synchronic.timer.INetworkTimerable;
+import jsettlers.network.synchronic.timer.IStateChecksumSupplier;
 import jsettlers.network.synchronic.timer.ITaskExecutor;
 
 /**
@@ -72,6 +74,15 @@ public class NetworkClientClockMock implements INetworkClientClock {
 		throw new UnsupportedOperationException("not mocked");
 	}
 
+	@Override
+	public void setStateChecksumSupplier(IStateChecksumSupplier stateChecksumSupplier) {
+		throw new UnsupportedOperationException("not mocked");
+	}
+
+	@Override
+	public void setStateChecksumListener(IStateChecksumListener listener) {
+	}
+
 	@Override
 	public void multiplyGameSpeed(float factor) {
 		throw new UnsupportedOperationException("not mocked");
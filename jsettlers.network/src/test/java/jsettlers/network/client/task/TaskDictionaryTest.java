@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.client.task;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import jsettlers.network.client.task.packets.TaskDictionary;
+import jsettlers.network.client.task.packets.TaskPacket;
+
+/**
+ * Tests the compact encoding of {@link TaskPacket}s with a {@link TaskDictionary}.
+ */
+public class TaskDictionaryTest {
+
+	@Test
+	public void testEncodeAndDecode() throws IOException {
+		TaskDictionary senderDictionary = new TaskDictionary();
+		TaskDictionary receiverDictionary = new TaskDictionary();
+
+		List<TaskPacket> tasks = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			tasks.add(new IdListTaskPacket(i % 7, createIds(i % 40, 10 + i % 5)));
+			tasks.add(new TestTaskPacket("test" + i, -i, (byte) i));
+		}
+
+		for (TaskPacket task : tasks) {
+			assertEquals(task, TaskPacket.decode(task.encode(senderDictionary), receiverDictionary));
+		}
+	}
+
+	@Test
+	public void testRepeatedTasksAreSmaller() throws IOException {
+		TaskDictionary dictionary = new TaskDictionary();
+		IdListTaskPacket task = new IdListTaskPacket(3, createIds(1000, 50));
+		new IdListTaskPacket(4, createIds(0, 10)).encode(dictionary);
+
+		byte[] first = task.encode(dictionary);
+		byte[] repeated = task.encode(dictionary);
+
+		assertTrue(first.length < serializeClassic(task).length / 3);
+		assertTrue(repeated.length < 5);
+	}
+
+	@Test
+	public void testClassicSerializationIsUnchanged() throws IOException {
+		IdListTaskPacket task = new IdListTaskPacket(5, Arrays.asList(3, 1, 2));
+
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(expected);
+		dos.writeInt(expected.size()); // placeholder for the length
+		dos.writeUTF(IdListTaskPacket.class.getName());
+		dos.writeInt(5);
+		dos.writeInt(3);
+		dos.writeInt(3);
+		dos.writeInt(1);
+		dos.writeInt(2);
+		byte[] expectedBytes = expected.toByteArray();
+		byte[] actualBytes = serializeClassic(task);
+
+		assertEquals(expectedBytes.length, actualBytes.length);
+		assertEquals(task, TaskPacket.DEFAULT_DESERIALIZER.deserialize(null, new DataInputStream(new ByteArrayInputStream(actualBytes))));
+	}
+
+	private static byte[] serializeClassic(TaskPacket task) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		task.serialize(new DataOutputStream(out));
+		return out.toByteArray();
+	}
+
+	private static List<Integer> createIds(int first, int count) {
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			ids.add(first + 2 * i);
+		}
+		return ids;
+	}
+
+	public static class IdListTaskPacket extends TaskPacket {
+		private int value;
+		private List<Integer> ids;
+
+		public IdListTaskPacket() {
+		}
+
+		IdListTaskPacket(int value, List<Integer> ids) {
+			this.value = value;
+			this.ids = ids;
+		}
+
+		@Override
+		protected void serializeTask(DataOutputStream dos) throws IOException {
+			writeCompactInt(dos, value);
+			writeIdList(dos, ids);
+		}
+
+		@Override
+		protected void deserializeTask(DataInputStream dis) throws IOException {
+			value = readCompactInt(dis);
+			ids = readIdList(dis);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * value + ids.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof IdListTaskPacket && ((IdListTaskPacket) obj).value == value && ((IdListTaskPacket) obj).ids.equals(ids);
+		}
+	}
+}
@@ -23,8 +23,11 @@ import java.util.List;
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.TestUtils;
 import jsettlers.network.client.task.packets.SyncTasksPacket;
+import jsettlers.network.client.task.packets.TaskDictionary;
 import jsettlers.network.client.task.packets.TaskPacket;
+import jsettlers.network.common.packets.LockstepPacket;
 import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.server.packets.ServersideTaskPacket;
 
 import org.junit.After;
 import org.junit.Before;
@@ -55,25 +58,27 @@ public class TaskPacketListenerTest {
 	}
 
 	@Test
-	public void testSendAndReceive() throws InterruptedException {
+	public void testSendAndReceive() throws InterruptedException, IOException {
 		SyncTasksPacketSchedulerMock taskReceiver = new SyncTasksPacketSchedulerMock();
 		TaskPacketListener listener = new TaskPacketListener(taskReceiver);
 		c1.registerListener(listener);
 
+		TaskDictionary sender0 = new TaskDictionary();
+		TaskDictionary sender1 = new TaskDictionary();
 		TaskPacket testPacket1 = new TestTaskPacket("tesdfk��l9u8u23jo", 23424, (byte) -2);
 		TaskPacket testPacket2 = new TestTaskPacket("?=?=O\"K�#'*'::�;;�", -2342342, (byte) -67);
-		int lockstep = 23;
-		SyncTasksPacket syncTasksPacket = new SyncTasksPacket(lockstep, Arrays.asList(testPacket1, testPacket2));
+		TaskPacket testPacket3 = new TestTaskPacket("third", 3, (byte) 3);
 
-		c2.sendPacket(NetworkConstants.ENetworkKey.SYNCHRONOUS_TASK, syncTasksPacket);
+		c2.sendPacket(NetworkConstants.ENetworkKey.SYNCHRONOUS_TASK, new LockstepPacket(3, Arrays.asList(
+				new ServersideTaskPacket(testPacket1.encode(sender0), 0), new ServersideTaskPacket(testPacket2.encode(sender1), 1))));
+		c2.sendPacket(NetworkConstants.ENetworkKey.SYNCHRONOUS_TASK, new LockstepPacket(1, Arrays.asList(
+				new ServersideTaskPacket(testPacket3.encode(sender0), 0))));
 
 		Thread.sleep(30L);
-		List<SyncTasksPacket> packets = taskReceiver.popBufferedPackets();
-		assertEquals(1, packets.size());
-		assertEquals(lockstep, packets.get(0).getLockstepNumber());
-		List<TaskPacket> tasks = packets.get(0).getTasks();
-		assertEquals(2, tasks.size());
-		assertEquals(testPacket1, tasks.get(0));
-		assertEquals(testPacket2, tasks.get(1));
+		List<SyncTasksPacket> packets = taskReceiver.popBufferedPackets(); // the empty locksteps 0 and 1 are not buffered
+		assertEquals(2, packets.size());
+		assertEquals(new SyncTasksPacket(2, Arrays.asList(testPacket1, testPacket2)), packets.get(0));
+		assertEquals(new SyncTasksPacket(3, Arrays.asList(testPacket3)), packets.get(1));
+		assertEquals(3, taskReceiver.getUnlockedLockstepNumber());
 	}
 }
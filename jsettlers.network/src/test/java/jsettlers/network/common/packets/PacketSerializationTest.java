@@ -19,6 +19,7 @@ import static org.junit.Assert.assertEquals;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import jsettlers.network.NetworkConstants;
@@ -91,10 +92,15 @@ public class PacketSerializationTest {
 				{ new MatchInfoUpdatePacket(ENetworkMessage.NO_LISTENER_FOUND, new PlayerInfoPacket("IDBLA82348-#�l�34r",
 						"NameBKUIH893428())/\"�/", true), createMatchInfoPacket()), d(MatchInfoUpdatePacket.class) },
 				{ new TimeSyncPacket(23424), d(TimeSyncPacket.class) },
+				{ new TimeSyncPacket(23424, Arrays.asList(new StateChecksumPacket(230, -2342342342342342L), new StateChecksumPacket(240, 7L))),
+						d(TimeSyncPacket.class) },
 
 				{ new ServersideTaskPacket("sdfsfsdf".getBytes()), d(ServersideTaskPacket.class) },
 				{ new ServersideSyncTasksPacket(23, Arrays.asList(new ServersideTaskPacket("dsfjsfj".getBytes()),
 						new ServersideTaskPacket("ehgdhd".getBytes()))), d(ServersideSyncTasksPacket.class) },
+				{ new LockstepPacket(3, Arrays.asList(new ServersideTaskPacket("dsfjsfj".getBytes(), 2),
+						new ServersideTaskPacket("ehgdhd".getBytes(), 0))), d(LockstepPacket.class) },
+				{ new LockstepPacket(1, Collections.<ServersideTaskPacket> emptyList()), d(LockstepPacket.class) },
 
 				{ new TestTaskPacket("tesdfk��l9/&%/%&\"\\u8u23jo", 23424, (byte) -2), TaskPacket.DEFAULT_DESERIALIZER },
 				{ new SyncTasksPacket(234, Arrays.asList(new TestTaskPacket("dsfdsdf", 23, (byte) -3),
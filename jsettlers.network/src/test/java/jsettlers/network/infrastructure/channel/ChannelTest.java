@@ -31,6 +31,7 @@ import jsettlers.network.NetworkConstants.ENetworkKey;
 import jsettlers.network.TestUtils;
 import jsettlers.network.infrastructure.channel.listeners.BufferingPacketListener;
 import jsettlers.network.infrastructure.channel.packet.EmptyPacket;
+import jsettlers.network.infrastructure.channel.packet.SerializedPacket;
 import jsettlers.network.infrastructure.channel.reject.RejectPacket;
 
 /**
@@ -40,16 +41,20 @@ import jsettlers.network.infrastructure.channel.reject.RejectPacket;
  * 
  */
 public class ChannelTest {
-	private Channel c1;
-	private Channel c2;
+	protected Channel c1;
+	protected Channel c2;
 
 	@Before
 	public void setUp() throws IOException {
-		Channel[] channels = TestUtils.setUpLoopbackChannels();
+		Channel[] channels = setUpChannels();
 		c1 = channels[0];
 		c2 = channels[1];
 	}
 
+	protected Channel[] setUpChannels() throws IOException {
+		return TestUtils.setUpLoopbackChannels();
+	}
+
 	@After
 	public void tearDown() {
 		c1.close();
@@ -75,6 +80,22 @@ public class ChannelTest {
 		assertEquals(testPackage, listener2.packets.get(0));
 	}
 
+	@Test
+	public void testSerializedPacket() throws Exception {
+		TestPacketListener listener = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		c2.registerListener(listener);
+		TestPacket testPackage = new TestPacket("serialized once", 4711);
+		SerializedPacket serializedPacket = new SerializedPacket(testPackage);
+		c1.sendPacket(ENetworkKey.TEST_PACKET, serializedPacket);
+		c1.sendPacket(ENetworkKey.TEST_PACKET, serializedPacket);
+
+		Thread.sleep(80L);
+
+		assertEquals(2, listener.packets.size());
+		assertEquals(testPackage, listener.packets.get(0));
+		assertEquals(testPackage, listener.packets.get(1));
+	}
+
 	@Test
 	public void testMultiPackets() throws Exception {
 		TestPacketListener listener = new TestPacketListener(ENetworkKey.TEST_PACKET);
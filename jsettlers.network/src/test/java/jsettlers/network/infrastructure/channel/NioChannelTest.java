@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Test;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.TestUtils;
+import jsettlers.network.infrastructure.channel.socket.nio.NioSelectorThread;
+import jsettlers.network.infrastructure.channel.socket.nio.NioSocket;
+
+/**
+ * Runs the tests of {@link ChannelTest} with a channel using a {@link NioSocket} connected to a channel using a standard socket.
+ */
+public class NioChannelTest extends ChannelTest {
+	private NioSelectorThread selectorThread;
+
+	@Override
+	protected Channel[] setUpChannels() throws IOException {
+		selectorThread = new NioSelectorThread("NioChannelTestSelector");
+		selectorThread.start();
+		return TestUtils.setUpNioLoopbackChannels(selectorThread);
+	}
+
+	@After
+	public void stopSelectorThread() {
+		selectorThread.shutdown();
+	}
+
+	@Test
+	public void testPacketsLargerThanBuffers() throws InterruptedException {
+		TestPacketListener listener1 = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		TestPacketListener listener2 = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		c1.registerListener(listener1);
+		c2.registerListener(listener2);
+
+		char[] characters = new char[20000];
+		Arrays.fill(characters, 'x');
+		TestPacket largePacket = new TestPacket(new String(characters), 1);
+		TestPacket smallPacket = new TestPacket("small", 2);
+
+		for (int i = 0; i < 3; i++) {
+			c1.sendPacket(ENetworkKey.TEST_PACKET, largePacket);
+			c1.sendPacket(ENetworkKey.TEST_PACKET, smallPacket);
+			c2.sendPacket(ENetworkKey.TEST_PACKET, largePacket);
+			c2.sendPacket(ENetworkKey.TEST_PACKET, smallPacket);
+		}
+
+		Thread.sleep(200L);
+
+		assertEquals(Arrays.asList(largePacket, smallPacket, largePacket, smallPacket, largePacket, smallPacket), listener1.packets);
+		assertEquals(Arrays.asList(largePacket, smallPacket, largePacket, smallPacket, largePacket, smallPacket), listener2.packets);
+	}
+
+	@Test
+	public void testFrameLongerThanMaximumClosesSocket() throws IOException, InterruptedException {
+		try (ServerSocketChannel serverSocketChannel = ServerSocketChannel.open()) {
+			serverSocketChannel.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+			try (Socket clientSocket = new Socket(InetAddress.getLoopbackAddress(), serverSocketChannel.socket().getLocalPort())) {
+				Channel channel = new Channel(new NioSocket(serverSocketChannel.accept(), selectorThread));
+				channel.start();
+
+				DataOutputStream out = new DataOutputStream(clientSocket.getOutputStream());
+				out.writeByte(0);
+				out.writeInt(NioSocket.MAX_FRAME_LENGTH + 1);
+				out.flush();
+
+				Thread.sleep(100L);
+				assertTrue(channel.isClosed());
+			}
+		}
+	}
+
+	@Test
+	public void testPeerNotReceivingIsDisconnected() throws IOException {
+		try (ServerSocketChannel serverSocketChannel = ServerSocketChannel.open()) {
+			serverSocketChannel.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+			try (Socket clientSocket = new Socket(InetAddress.getLoopbackAddress(), serverSocketChannel.socket().getLocalPort())) {
+				Channel channel = new Channel(new NioSocket(serverSocketChannel.accept(), selectorThread));
+				channel.start();
+				assertTrue(clientSocket.isConnected());
+
+				char[] characters = new char[20000];
+				Arrays.fill(characters, 'x');
+				TestPacket largePacket = new TestPacket(new String(characters), 1);
+
+				long maxSentBytes = 8L * NioSocket.MAX_QUEUED_BYTES; // the rest is buffered by the operating system
+				for (long sentBytes = 0; sentBytes < maxSentBytes && !channel.isClosed(); sentBytes += characters.length) {
+					channel.sendPacket(ENetworkKey.TEST_PACKET, largePacket); // the client socket never reads
+				}
+				assertTrue(channel.isClosed());
+			}
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.socket.nio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.TestPacket;
+import jsettlers.network.infrastructure.channel.listeners.PacketChannelListener;
+import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
+
+/**
+ * Simulates many clients sending packets to a server whose channels are read and written by a single {@link NioSelectorThread}. The server echoes
+ * every packet to its client.
+ */
+public class NioSocketLoadIT {
+	private static final int CLIENTS            = 500;
+	private static final int PACKETS_PER_CLIENT = 200;
+
+	@Test
+	public void testEchoToManyClients() throws IOException, InterruptedException {
+		NioSelectorThread selectorThread = new NioSelectorThread("NioSocketLoadITSelector");
+		selectorThread.start();
+
+		List<Channel> channels = new ArrayList<>();
+		try (ServerSocketChannel serverSocketChannel = ServerSocketChannel.open()) {
+			serverSocketChannel.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), CLIENTS);
+			int port = serverSocketChannel.socket().getLocalPort();
+
+			CountDownLatch receivedAllEchoes = new CountDownLatch(CLIENTS);
+			AtomicInteger wrongEchoes = new AtomicInteger();
+
+			for (int client = 0; client < CLIENTS; client++) {
+				Channel clientChannel = new Channel(ISocketFactory.DEFAULT_FACTORY.generateSocket(new Socket(InetAddress.getLoopbackAddress(), port)));
+				clientChannel.registerListener(new CountingListener(receivedAllEchoes, wrongEchoes));
+				channels.add(clientChannel);
+
+				Channel serverChannel = new Channel(new NioSocket(serverSocketChannel.accept(), selectorThread));
+				serverChannel.registerListener(new EchoListener(serverChannel));
+				channels.add(serverChannel);
+
+				serverChannel.start();
+				clientChannel.start();
+			}
+
+			long start = System.currentTimeMillis();
+			for (int packet = 0; packet < PACKETS_PER_CLIENT; packet++) {
+				for (int client = 0; client < CLIENTS; client++) {
+					channels.get(2 * client).sendPacket(ENetworkKey.TEST_PACKET, new TestPacket("client " + client, packet));
+				}
+			}
+
+			assertTrue(receivedAllEchoes.await(60, TimeUnit.SECONDS));
+			System.out.println(CLIENTS * PACKETS_PER_CLIENT + " packets echoed to " + CLIENTS + " clients in " + (System.currentTimeMillis() - start) + " ms");
+			assertEquals(0, wrongEchoes.get());
+		} finally {
+			for (Channel channel : channels) {
+				channel.close();
+			}
+			selectorThread.shutdown();
+		}
+	}
+
+	private static class EchoListener extends PacketChannelListener<TestPacket> {
+		private final Channel channel;
+
+		EchoListener(Channel channel) {
+			super(ENetworkKey.TEST_PACKET, TestPacket.DEFAULT_DESERIALIZER);
+			this.channel = channel;
+		}
+
+		@Override
+		protected void receivePacket(ENetworkKey key, TestPacket packet) {
+			channel.sendPacket(key, packet);
+		}
+	}
+
+	private static class CountingListener extends PacketChannelListener<TestPacket> {
+		private final CountDownLatch receivedAllEchoes;
+		private final AtomicInteger  wrongEchoes;
+		private int                  expectedPacket = 0;
+
+		CountingListener(CountDownLatch receivedAllEchoes, AtomicInteger wrongEchoes) {
+			super(ENetworkKey.TEST_PACKET, TestPacket.DEFAULT_DESERIALIZER);
+			this.receivedAllEchoes = receivedAllEchoes;
+			this.wrongEchoes = wrongEchoes;
+		}
+
+		@Override
+		protected void receivePacket(ENetworkKey key, TestPacket packet) {
+			if (packet.getTestInt() != expectedPacket) {
+				wrongEchoes.incrementAndGet();
+			}
+
+			expectedPacket++;
+			if (expectedPacket == PACKETS_PER_CLIENT) {
+				receivedAllEchoes.countDown();
+			}
+		}
+	}
+}
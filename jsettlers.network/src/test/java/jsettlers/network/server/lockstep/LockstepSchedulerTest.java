@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.server.lockstep;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import jsettlers.network.server.match.lockstep.LockstepScheduler;
+
+/**
+ * Tests that the {@link LockstepScheduler} runs its tasks at a fixed rate and that a slow task does not delay the tasks of other shards.
+ */
+public class LockstepSchedulerTest {
+	private static final int PERIOD = 10;
+
+	private final LockstepScheduler scheduler = new LockstepScheduler(2);
+
+	@After
+	public void tearDown() {
+		scheduler.shutdown();
+	}
+
+	@Test
+	public void testFixedRateDoesNotDrift() throws InterruptedException {
+		final int runs = 30;
+		final CountDownLatch finished = new CountDownLatch(runs);
+		final AtomicInteger delayedRuns = new AtomicInteger();
+
+		long start = System.nanoTime();
+		scheduler.scheduleAtFixedRate(() -> {
+			if (delayedRuns.getAndIncrement() % 10 == 0) {
+				sleep(5 * PERIOD); // single slow runs must not shift the following runs
+			}
+			finished.countDown();
+		}, 0, PERIOD);
+
+		assertTrue(finished.await(runs * PERIOD * 3, TimeUnit.MILLISECONDS));
+		long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue("duration: " + durationMs, durationMs < (runs + 8) * PERIOD);
+	}
+
+	@Test
+	public void testSlowTaskDoesNotDelayOtherShard() throws InterruptedException {
+		ScheduledFuture<?> slowTask = scheduler.scheduleAtFixedRate(() -> sleep(20 * PERIOD), 0, PERIOD);
+
+		final CountDownLatch fastRuns = new CountDownLatch(10);
+		scheduler.scheduleAtFixedRate(fastRuns::countDown, 0, PERIOD);
+
+		assertTrue(fastRuns.await(15 * PERIOD, TimeUnit.MILLISECONDS));
+		slowTask.cancel(true);
+	}
+
+	private static void sleep(long ms) {
+		try {
+			Thread.sleep(ms);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.server.lockstep;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import jsettlers.network.common.packets.StateChecksumPacket;
+import jsettlers.network.infrastructure.log.ConsoleLogger;
+import jsettlers.network.server.match.lockstep.StateChecksumVerifier;
+
+/**
+ * Tests the {@link StateChecksumVerifier}.
+ */
+public class StateChecksumVerifierTest {
+	private final StateChecksumVerifier verifier = new StateChecksumVerifier(new ConsoleLogger("test"));
+
+	@Test
+	public void testEqualChecksums() {
+		assertTrue(verifier.receivedChecksum("player1", 2, new StateChecksumPacket(10, 4711L)));
+		assertTrue(verifier.receivedChecksum("player2", 2, new StateChecksumPacket(10, 4711L)));
+		assertTrue(verifier.receivedChecksum("player2", 2, new StateChecksumPacket(20, -3L)));
+		assertTrue(verifier.receivedChecksum("player1", 2, new StateChecksumPacket(20, -3L)));
+
+		assertFalse(verifier.isDesynchronized());
+		assertEquals(-1, verifier.getFirstDesyncLockstep());
+	}
+
+	@Test
+	public void testDifferentChecksums() {
+		assertTrue(verifier.receivedChecksum("player1", 3, new StateChecksumPacket(10, 4711L)));
+		assertTrue(verifier.receivedChecksum("player2", 3, new StateChecksumPacket(10, 4711L)));
+		assertTrue(verifier.receivedChecksum("player1", 3, new StateChecksumPacket(20, 42L)));
+		assertTrue(verifier.receivedChecksum("player1", 3, new StateChecksumPacket(30, 43L)));
+		assertFalse(verifier.receivedChecksum("player2", 3, new StateChecksumPacket(30, 44L)));
+
+		assertTrue(verifier.isDesynchronized());
+		assertEquals(30, verifier.getFirstDesyncLockstep());
+
+		// the late report of an earlier diverging lockstep is the first desync
+		assertFalse(verifier.receivedChecksum("player2", 3, new StateChecksumPacket(20, 41L)));
+		assertEquals(20, verifier.getFirstDesyncLockstep());
+
+		assertTrue(verifier.receivedChecksum("player3", 3, new StateChecksumPacket(10, 4711L)));
+		assertFalse(verifier.receivedChecksum("player3", 3, new StateChecksumPacket(30, 45L)));
+		assertEquals(20, verifier.getFirstDesyncLockstep());
+	}
+}
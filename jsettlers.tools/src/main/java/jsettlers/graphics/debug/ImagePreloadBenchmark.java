@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2018
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.graphics.debug;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import jsettlers.common.resources.ResourceManager;
+import jsettlers.graphics.map.draw.ImageProvider;
+import jsettlers.main.swing.SwingManagedJSettlers;
+import jsettlers.main.swing.resources.SwingResourceProvider;
+
+/**
+ * Measures how long the preloading of the images of the original graphics takes at the start of the game.
+ * <p />
+ * Every run measures one start, so it should be started once with the argument <code>--cold</code>, which deletes the cached images before the start,
+ * and then again without it to measure a start with the cached images.
+ */
+public class ImagePreloadBenchmark {
+	private static final String COLD_ARGUMENT = "--cold";
+
+	public static void main(String[] args) throws IOException {
+		boolean cold = Arrays.asList(args).contains(COLD_ARGUMENT);
+
+		ResourceManager.setProvider(new SwingResourceProvider());
+		if (cold) {
+			deleteImageCache();
+		}
+
+		long start = System.nanoTime();
+		SwingManagedJSettlers.setupResources(false, args);
+		ImageProvider.getInstance().waitForPreloadingFinish();
+		long end = System.nanoTime();
+
+		System.out.println(String.format("%s start: preloading the images took %.1f ms", cold ? "Cold" : "Warm", (end - start) / 1e6));
+		System.exit(0);
+	}
+
+	private static void deleteImageCache() {
+		File[] cacheFiles = new File(ResourceManager.getResourcesDirectory(), "cache").listFiles();
+		if (cacheFiles != null) {
+			for (File cacheFile : cacheFiles) {
+				if (cacheFile.getName().startsWith("cache-")) {
+					cacheFile.delete();
+				}
+			}
+		}
+	}
+}
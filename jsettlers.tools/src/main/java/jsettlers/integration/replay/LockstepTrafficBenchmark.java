@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.integration.replay;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import jsettlers.input.tasks.SimpleGuiTask;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.main.ReplayStartInformation;
+import jsettlers.main.replay.ReplayUtils;
+import jsettlers.main.replay.ReplayUtils.IReplayStreamProvider;
+import jsettlers.network.NetworkConstants;
+import jsettlers.network.client.task.packets.SyncTasksPacket;
+import jsettlers.network.client.task.packets.TaskDictionary;
+import jsettlers.network.client.task.packets.TaskPacket;
+import jsettlers.network.common.packets.LockstepPacket;
+import jsettlers.network.infrastructure.channel.packet.Packet;
+import jsettlers.network.server.packets.ServersideSyncTasksPacket;
+import jsettlers.network.server.packets.ServersideTaskPacket;
+
+/**
+ * Calculates the number of bytes per minute the server sends to every client to distribute the locksteps of recorded replays. The classic
+ * {@link ServersideSyncTasksPacket}s are compared with the compact {@link LockstepPacket}s.
+ * <p />
+ * Every lockstep is counted as a separate packet, as the server sends them one by one while the clients keep up with the game. Therefore the
+ * folding of empty locksteps is not included in the result.
+ * <p />
+ * Usage: LockstepTrafficBenchmark [replay files...]<br>
+ * Without arguments, the replays of the {@link AutoReplaySetting}s are used.
+ */
+public class LockstepTrafficBenchmark {
+	private static final int PACKET_HEADER_BYTES = 5; // key and length written by the channel
+
+	public static void main(String[] args) throws IOException, MapLoadException {
+		Map<String, IReplayStreamProvider> replays = new LinkedHashMap<>();
+		if (args.length == 0) {
+			for (AutoReplaySetting setting : AutoReplaySetting.getDefaultSettings()) {
+				replays.put(setting.getMap().getMapName(), setting.getReplayFile());
+			}
+		} else {
+			for (String arg : args) {
+				replays.put(arg, new ReplayUtils.ReplayFile(new File(arg)));
+			}
+		}
+
+		for (Map.Entry<String, IReplayStreamProvider> replay : replays.entrySet()) {
+			measure(replay.getKey(), replay.getValue());
+		}
+	}
+
+	private static void measure(String name, IReplayStreamProvider replay) throws IOException {
+		List<SyncTasksPacket> lockstepsWithTasks = readReplay(replay);
+		if (lockstepsWithTasks.isEmpty()) {
+			System.out.println(name + ": no tasks");
+			return;
+		}
+
+		int numberOfLocksteps = lockstepsWithTasks.get(lockstepsWithTasks.size() - 1).getLockstepNumber() + 1;
+		int numberOfTasks = 0;
+		long classicBytes = 0;
+		long compactBytes = 0;
+		Map<Byte, TaskDictionary> dictionaries = new HashMap<>();
+
+		int nextLockstep = 0;
+		for (SyncTasksPacket syncTasksPacket : lockstepsWithTasks) {
+			int emptyLocksteps = syncTasksPacket.getLockstepNumber() - nextLockstep;
+			classicBytes += emptyLocksteps * sizeOf(new ServersideSyncTasksPacket(0, Collections.<ServersideTaskPacket> emptyList()));
+			compactBytes += emptyLocksteps * sizeOf(new LockstepPacket(1, Collections.<ServersideTaskPacket> emptyList()));
+
+			List<ServersideTaskPacket> classicTasks = new ArrayList<>();
+			List<ServersideTaskPacket> compactTasks = new ArrayList<>();
+			for (TaskPacket task : syncTasksPacket.getTasks()) {
+				byte sender = task instanceof SimpleGuiTask ? ((SimpleGuiTask) task).getPlayerId() : 0;
+				TaskDictionary dictionary = dictionaries.get(sender);
+				if (dictionary == null) {
+					dictionary = new TaskDictionary();
+					dictionaries.put(sender, dictionary);
+				}
+
+				classicTasks.add(new ServersideTaskPacket(serializeTask(task)));
+				compactTasks.add(new ServersideTaskPacket(task.encode(dictionary), sender));
+				numberOfTasks++;
+			}
+			classicBytes += sizeOf(new ServersideSyncTasksPacket(syncTasksPacket.getLockstepNumber(), classicTasks));
+			compactBytes += sizeOf(new LockstepPacket(1, compactTasks));
+
+			nextLockstep = syncTasksPacket.getLockstepNumber() + 1;
+		}
+
+		float minutes = numberOfLocksteps * NetworkConstants.Client.LOCKSTEP_PERIOD / 60000f;
+		System.out.println(String.format(Locale.ENGLISH, "%s: %.1f minutes, %d tasks", name, minutes, numberOfTasks));
+		System.out.println(String.format(Locale.ENGLISH, "\tclassic: %8.0f bytes/minute", classicBytes / minutes));
+		System.out.println(String.format(Locale.ENGLISH, "\tcompact: %8.0f bytes/minute (%.1f%%)", compactBytes / minutes, 100f * compactBytes / classicBytes));
+	}
+
+	private static List<SyncTasksPacket> readReplay(IReplayStreamProvider replay) throws IOException {
+		List<SyncTasksPacket> packets = new ArrayList<>();
+		try (DataInputStream dis = new DataInputStream(replay.openStream())) {
+			new ReplayStartInformation().deserialize(dis);
+			while (true) {
+				SyncTasksPacket packet = new SyncTasksPacket();
+				packet.deserialize(dis);
+				packets.add(packet);
+			}
+		} catch (EOFException e) { // end of the replay
+		}
+		return packets;
+	}
+
+	private static byte[] serializeTask(TaskPacket task) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		task.serialize(new DataOutputStream(out));
+		byte[] serialized = out.toByteArray();
+		return Arrays.copyOfRange(serialized, 4, serialized.length); // the length is written by the ServersideTaskPacket
+	}
+
+	private static int sizeOf(Packet packet) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		packet.serialize(new DataOutputStream(out));
+		return PACKET_HEADER_BYTES + out.size();
+	}
+}